@@ -0,0 +1,80 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
+import com.vladsch.flexmark.ext.abbreviation.internal.AbbreviationMatcher;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Abbreviation post processing with glossaries of increasing size
+ * <p>
+ * The document defines {@link #count} abbreviations followed by paragraphs using some of them. {@link #parse()}
+ * reuses the matcher cached for the glossary, {@link #buildMatcher()} measures building it.
+ */
+@State(Scope.Benchmark)
+public class AbbreviationBenchmark {
+    private static final int PARAGRAPHS = 200;
+
+    @Param({ "10", "100", "1000", "5000" })
+    public int count;
+
+    private String text;
+    private Parser parser;
+    private List<String> abbreviations;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(AbbreviationBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(count);
+        abbreviations = new ArrayList<String>(count);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            // mix of prefixes of other abbreviations, digits and punctuation
+            String abbreviation = (i % 3 == 0 ? "API" : i % 3 == 1 ? "HTTP" : "C++") + (i % 7 == 0 ? "" : Integer.toString(i, 36).toUpperCase());
+            if (abbreviations.contains(abbreviation)) continue;
+            abbreviations.add(abbreviation);
+        }
+
+        for (int i = 0; i < PARAGRAPHS; i++) {
+            for (int j = 0; j < 12; j++) {
+                sb.append(j == 0 ? "The " : " and the ").append(abbreviations.get(random.nextInt(abbreviations.size())))
+                        .append(" is used by ").append(random.nextBoolean() ? "the server" : "API clients").append(',');
+            }
+            sb.append(" see *HTTPS* and C+ for details.\n\n");
+        }
+
+        List<String> definitions = new ArrayList<String>(abbreviations);
+        Collections.shuffle(definitions, random);
+        for (String abbreviation : definitions) {
+            sb.append("*[").append(abbreviation).append("]: Expansion of ").append(abbreviation).append('\n');
+        }
+
+        text = sb.toString();
+        parser = Parser.builder(new MutableDataSet().set(Parser.EXTENSIONS, Collections.singletonList(AbbreviationExtension.create()))).build();
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public AbbreviationMatcher buildMatcher() {
+        return new AbbreviationMatcher(abbreviations);
+    }
+}
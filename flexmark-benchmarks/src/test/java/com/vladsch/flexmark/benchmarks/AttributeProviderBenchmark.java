@@ -0,0 +1,89 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.html.AttributeProvider;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.IndependentAttributeProviderFactory;
+import com.vladsch.flexmark.html.renderer.AttributablePart;
+import com.vladsch.flexmark.html.renderer.LinkResolverContext;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.html.Attributes;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * HTML rendering with 0, 1 or 3 attribute providers
+ * <p>
+ * Providers add a class to every tag, a data attribute to paragraphs and a target to links, the kind of attributes
+ * added by integrations. Use with the <code>gc</code> profiler to compare allocation of attributes.
+ */
+@State(Scope.Benchmark)
+public class AttributeProviderBenchmark {
+    // each a separate class, providers are identified by factory class
+    private static final ProviderFactory[] PROVIDERS = {
+            new ProviderFactory() {
+                @Override
+                public void setAttributes(Node node, AttributablePart part, Attributes attributes) {
+                    attributes.addValue("class", "md");
+                }
+            },
+            new ProviderFactory() {
+                @Override
+                public void setAttributes(Node node, AttributablePart part, Attributes attributes) {
+                    if (node instanceof Paragraph) attributes.addValue("data-kind", "text");
+                }
+            },
+            new ProviderFactory() {
+                @Override
+                public void setAttributes(Node node, AttributablePart part, Attributes attributes) {
+                    if (node instanceof Link && part == AttributablePart.LINK) {
+                        attributes.addValue("target", "_blank");
+                        attributes.addValue("class", "external");
+                    }
+                }
+            },
+    };
+
+    @Param({ "SMALL", "MEDIUM" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "0", "1", "3" })
+    public int providers;
+
+    private HtmlRenderer renderer;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(AttributeProviderBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        DataHolder options = new MutableDataSet().set(Parser.EXTENSIONS, BenchmarkExtension.ALL.getExtensions());
+        HtmlRenderer.Builder builder = HtmlRenderer.builder(options);
+        for (int i = 0; i < providers; i++) {
+            builder.attributeProviderFactory(PROVIDERS[i]);
+        }
+        renderer = builder.build();
+        document = Parser.builder(options).build().parse(corpus.getText());
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+
+    private abstract static class ProviderFactory extends IndependentAttributeProviderFactory implements AttributeProvider {
+        @Override
+        public AttributeProvider create(LinkResolverContext context) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Autolink post processing of prose
+ * <p>
+ * The document is paragraphs of plain words with a few escapes and entities, every {@link #linkEvery} paragraphs
+ * one has a URL, an e-mail address and a www link, 0 for none. Comparing {@link BenchmarkExtension#NONE} with
+ * {@link BenchmarkExtension#AUTOLINK} gives the cost of autolink post processing.
+ */
+@State(Scope.Benchmark)
+public class AutolinkBenchmark {
+    private static final int PARAGRAPHS = 2000;
+    private static final String[] WORDS = {
+            "the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "while", "markdown", "parser",
+            "renders", "paragraphs", "of", "text", "with", "words", "and", "a", "few", "longer", "sentences",
+    };
+
+    @Param({ "NONE", "AUTOLINK" })
+    public BenchmarkExtension extension;
+
+    @Param({ "0", "10" })
+    public int linkEvery;
+
+    private String text;
+    private Parser parser;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(AutolinkBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(PARAGRAPHS);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < PARAGRAPHS; i++) {
+            for (int j = 0; j < 60; j++) {
+                if (j > 0) sb.append(j % 12 == 0 ? ".\n" : " ");
+                sb.append(WORDS[random.nextInt(WORDS.length)]);
+                if (j == 30 && i % 4 == 0) sb.append(" \\* and &amp;");
+            }
+
+            if (linkEvery > 0 && i % linkEvery == 0) {
+                sb.append(", see https://example.com/page/").append(i)
+                        .append(" or write to user").append(i).append("@example.com or www.example.com");
+            }
+            sb.append(".\n\n");
+        }
+
+        text = sb.toString();
+        parser = Parser.builder(new MutableDataSet().set(Parser.EXTENSIONS, extension.getExtensions())).build();
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(text);
+    }
+}
@@ -0,0 +1,128 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.spec.SpecReader;
+
+/**
+ * Documents used by benchmarks
+ * <p>
+ * Generated documents repeat a section which uses core elements and the syntax of every benchmarked extension so
+ * each extension has something to parse regardless of corpus size. Sections are numbered so links, footnotes and
+ * headings are unique.
+ */
+public enum BenchmarkCorpus {
+    /**
+     * one section, about 1.5k characters, typical of a comment or issue
+     */
+    SMALL(1),
+
+    /**
+     * 25 sections, about 36k characters, typical of a README or wiki page
+     */
+    MEDIUM(25),
+
+    /**
+     * 1000 sections, about 1.5M characters, typical of a book or generated documentation
+     */
+    HUGE(1000),
+
+    /**
+     * CommonMark spec, about 200k characters, core syntax only with many edge cases
+     */
+    SPEC(0);
+
+    private final int sections;
+    private String text;
+
+    BenchmarkCorpus(int sections) {
+        this.sections = sections;
+    }
+
+    public synchronized String getText() {
+        if (text == null) {
+            text = sections == 0 ? SpecReader.readSpec() : document(sections);
+        }
+        return text;
+    }
+
+    static String document(int sections) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("---\n")
+                .append("title: Benchmark Document\n")
+                .append("tags: [markdown, benchmark]\n")
+                .append("---\n")
+                .append("\n")
+                .append("[TOC]\n")
+                .append("\n");
+
+        for (int i = 1; i <= sections; i++) {
+            section(sb, i);
+        }
+
+        sb.append("*[HTML]: Hyper Text Markup Language\n")
+                .append("*[CSS]: Cascading Style Sheets\n")
+                .append("*[API]: Application Programming Interface\n");
+        return sb.toString();
+    }
+
+    private static void section(StringBuilder sb, int i) {
+        sb.append("# Section ").append(i).append(" {#section-").append(i).append("}\n")
+                .append("\n")
+                .append("Paragraph with *emphasis*, **strong emphasis**, `inline code`, a [link](http://example.com/").append(i).append(" \"Title\")\n")
+                .append("and an ![image](images/picture-").append(i).append(".png) followed by \"quoted text\" -- 'single' quotes... and\n")
+                .append("the HTML and CSS of the API. Emoji :smile: :+1:, ~~deleted~~ text, ++inserted++ text, x^2^ and H~2~O.\n")
+                .append("See issue #").append(i).append(" by @user").append(i).append(", www.example.com/page").append(i)
+                .append(" and https://example.com/path/").append(i).append(", [[Wiki Page ").append(i).append("]]\n")
+                .append("with a footnote[^note-").append(i).append("], an escaped \\* star and <span class=\"inline\">inline html</span>.\n")
+                .append("\n")
+                .append("## Details ").append(i).append("\n")
+                .append("\n")
+                .append("1. first item with a [reference][ref-").append(i).append("]\n")
+                .append("2. second item with a hard  \n")
+                .append("   break\n")
+                .append("   - nested *bullet* item\n")
+                .append("   - [ ] open task\n")
+                .append("   - [x] completed task\n")
+                .append("\n")
+                .append("> Block quote with **strong** text\n")
+                .append("continued lazily and `code`.\n")
+                .append("\n")
+                .append("```java\n")
+                .append("public int value() {\n")
+                .append("    return ").append(i).append(";\n")
+                .append("}\n")
+                .append("```\n")
+                .append("\n")
+                .append("| Column A | Column B | Column C |\n")
+                .append("|:---------|:--------:|---------:|\n")
+                .append("| a").append(i).append("       | *b*      | `c`      |\n")
+                .append("| d        | **e**    | [f](/f)  |\n")
+                .append("\n")
+                .append("Term ").append(i).append("\n")
+                .append(": Definition of term ").append(i).append(" with *emphasis*.\n")
+                .append("\n")
+                .append("!!! note \"Admonition ").append(i).append("\"\n")
+                .append("    Admonition body with **strong** text.\n")
+                .append("\n")
+                .append("![Figure](images/figure-").append(i).append(".png){#fig:figure-").append(i).append("}\n")
+                .append("[#fig:figure-").append(i).append("] shows the figure, see also [@fig:figure-").append(i).append("].\n")
+                .append("\n")
+                .append("[Video ").append(i).append("](https://www.youtube.com/watch?v=GYem-BGEhaY)\n")
+                .append("\n")
+                .append("{{info}}\n")
+                .append("XWiki macro content ").append(i).append("\n")
+                .append("{{/info}}\n")
+                .append("\n")
+                .append("{% include snippet.html %}\n")
+                .append("\n")
+                .append("<div class=\"html-block\">\n")
+                .append("  <p>HTML block ").append(i).append("</p>\n")
+                .append("</div>\n")
+                .append("\n")
+                .append("***\n")
+                .append("\n")
+                .append("[^note-").append(i).append("]: Footnote ").append(i).append(" text.\n")
+                .append("\n")
+                .append("[ref-").append(i).append("]: http://example.com/reference/").append(i).append(" \"Reference ").append(i).append("\"\n")
+                .append("\n");
+    }
+}
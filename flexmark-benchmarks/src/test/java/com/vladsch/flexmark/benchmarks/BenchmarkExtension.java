@@ -0,0 +1,133 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
+import com.vladsch.flexmark.ext.admonition.AdmonitionExtension;
+import com.vladsch.flexmark.ext.anchorlink.AnchorLinkExtension;
+import com.vladsch.flexmark.ext.attributes.AttributesExtension;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.definition.DefinitionExtension;
+import com.vladsch.flexmark.ext.emoji.EmojiExtension;
+import com.vladsch.flexmark.ext.enumerated.reference.EnumeratedReferenceExtension;
+import com.vladsch.flexmark.ext.escaped.character.EscapedCharacterExtension;
+import com.vladsch.flexmark.ext.footnotes.FootnoteExtension;
+import com.vladsch.flexmark.ext.gfm.issues.GfmIssuesExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughSubscriptExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.gfm.users.GfmUsersExtension;
+import com.vladsch.flexmark.ext.ins.InsExtension;
+import com.vladsch.flexmark.ext.jekyll.tag.JekyllTagExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.ext.toc.TocExtension;
+import com.vladsch.flexmark.ext.typographic.TypographicExtension;
+import com.vladsch.flexmark.ext.wikilink.WikiLinkExtension;
+import com.vladsch.flexmark.ext.xwiki.macros.MacroExtension;
+import com.vladsch.flexmark.ext.yaml.front.matter.YamlFrontMatterExtension;
+import com.vladsch.flexmark.ext.youtube.embedded.YouTubeLinkExtension;
+import com.vladsch.flexmark.superscript.SuperscriptExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Extension configurations benchmarked by {@link ExtensionBenchmark}
+ * <p>
+ * {@link #NONE} is the core parser and renderer, {@link #ALL} uses all other extensions together.
+ */
+public enum BenchmarkExtension {
+    NONE,
+    ABBREVIATION,
+    ADMONITION,
+    ANCHORLINK,
+    ATTRIBUTES,
+    AUTOLINK,
+    DEFINITION,
+    EMOJI,
+    ENUMERATED_REFERENCE,
+    ESCAPED_CHARACTER,
+    FOOTNOTES,
+    GFM_ISSUES,
+    GFM_STRIKETHROUGH_SUBSCRIPT,
+    GFM_TABLES,
+    GFM_TASKLIST,
+    GFM_USERS,
+    INS,
+    JEKYLL_TAG,
+    SUPERSCRIPT,
+    TABLES,
+    TOC,
+    TYPOGRAPHIC,
+    WIKILINK,
+    XWIKI_MACROS,
+    YAML_FRONT_MATTER,
+    YOUTUBE_EMBEDDED,
+    ALL;
+
+    public List<Extension> getExtensions() {
+        switch (this) {
+            case NONE:
+                return Collections.emptyList();
+            case ABBREVIATION:
+                return Collections.singletonList(AbbreviationExtension.create());
+            case ADMONITION:
+                return Collections.singletonList(AdmonitionExtension.create());
+            case ANCHORLINK:
+                return Collections.singletonList(AnchorLinkExtension.create());
+            case ATTRIBUTES:
+                return Collections.singletonList(AttributesExtension.create());
+            case AUTOLINK:
+                return Collections.singletonList(AutolinkExtension.create());
+            case DEFINITION:
+                return Collections.singletonList(DefinitionExtension.create());
+            case EMOJI:
+                return Collections.singletonList(EmojiExtension.create());
+            case ENUMERATED_REFERENCE:
+                return Collections.singletonList(EnumeratedReferenceExtension.create());
+            case ESCAPED_CHARACTER:
+                return Collections.singletonList(EscapedCharacterExtension.create());
+            case FOOTNOTES:
+                return Collections.singletonList(FootnoteExtension.create());
+            case GFM_ISSUES:
+                return Collections.singletonList(GfmIssuesExtension.create());
+            case GFM_STRIKETHROUGH_SUBSCRIPT:
+                return Collections.singletonList(StrikethroughSubscriptExtension.create());
+            case GFM_TABLES:
+                return Collections.singletonList(com.vladsch.flexmark.ext.gfm.tables.TablesExtension.create());
+            case GFM_TASKLIST:
+                return Collections.singletonList(TaskListExtension.create());
+            case GFM_USERS:
+                return Collections.singletonList(GfmUsersExtension.create());
+            case INS:
+                return Collections.singletonList(InsExtension.create());
+            case JEKYLL_TAG:
+                return Collections.singletonList(JekyllTagExtension.create());
+            case SUPERSCRIPT:
+                return Collections.singletonList(SuperscriptExtension.create());
+            case TABLES:
+                return Collections.singletonList(TablesExtension.create());
+            case TOC:
+                return Collections.singletonList(TocExtension.create());
+            case TYPOGRAPHIC:
+                return Collections.singletonList(TypographicExtension.create());
+            case WIKILINK:
+                return Collections.singletonList(WikiLinkExtension.create());
+            case XWIKI_MACROS:
+                return Collections.singletonList(MacroExtension.create());
+            case YAML_FRONT_MATTER:
+                return Collections.singletonList(YamlFrontMatterExtension.create());
+            case YOUTUBE_EMBEDDED:
+                return Collections.singletonList(YouTubeLinkExtension.create());
+            case ALL:
+                ArrayList<Extension> extensions = new ArrayList<Extension>();
+                for (BenchmarkExtension extension : values()) {
+                    // gfm tables parse the same syntax as tables
+                    if (extension != ALL && extension != GFM_TABLES) {
+                        extensions.addAll(extension.getExtensions());
+                    }
+                }
+                return extensions;
+        }
+        throw new IllegalStateException("Unhandled extension " + this);
+    }
+}
@@ -0,0 +1,69 @@
+package com.vladsch.flexmark.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Runs benchmarks of this module with allocation profiling and JSON results
+ * <p>
+ * Takes the usual JMH command line options. When not given on the command line:
+ * <ul>
+ * <li>all benchmarks of this module are run, or only those of the class passed to {@link #run(Class, String[])}</li>
+ * <li>the <code>gc</code> profiler is added, unless other profilers are given</li>
+ * <li>results are written as JSON to <code>target/benchmarks-&lt;version&gt;.json</code> so results of releases can be
+ * compared</li>
+ * </ul>
+ * Run from the module directory after <code>mvn test-compile</code>:
+ * <pre><code>
+ * mvn dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:$(cat target/classpath.txt) com.vladsch.flexmark.benchmarks.BenchmarkRunner "ExtensionBenchmark" -p corpus=MEDIUM
+ * </code></pre>
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        run(null, args);
+    }
+
+    public static void run(Class<?> benchmarkClass, String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLineOptions);
+
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            String prefix = benchmarkClass != null ? benchmarkClass.getName() : BenchmarkRunner.class.getPackage().getName();
+            options.include("^" + Pattern.quote(prefix + "."));
+        }
+
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+            if (!commandLineOptions.getResult().hasValue()) {
+                options.result("target/benchmarks-" + getVersion() + ".json");
+            }
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    static String getVersion() throws IOException {
+        Properties properties = new Properties();
+        InputStream inputStream = BenchmarkRunner.class.getResourceAsStream("/benchmarks.properties");
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        return properties.getProperty("version");
+    }
+}
@@ -0,0 +1,79 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * HTML rendering of code heavy documents, as generated reference pages
+ * <p>
+ * Each section has a short paragraph with inline code, a fenced code block of 40 indented source lines and an indented
+ * code block. Rendering is dominated by appending text runs to the formatting appendable. {@link #formatFlags} 0 is
+ * the default, 7 is {@link HtmlRenderer#FORMAT_ALL_OPTIONS}.
+ */
+@State(Scope.Benchmark)
+public class CodeRenderBenchmark {
+    private static final int SECTIONS = 500;
+    private static final String[] TOKENS = {
+            "int", "count", "=", "0;", "for", "(String", "item", ":", "items)", "{", "}", "return", "result;",
+            "if", "(value", "!=", "null)", "map.put(key,", "value);", "final", "List<Node>", "nodes", "new", "ArrayList<>();",
+    };
+
+    @Param({ "0", "7" })
+    public int formatFlags;
+
+    private HtmlRenderer renderer;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(CodeRenderBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SECTIONS);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < SECTIONS; i++) {
+            sb.append("## Method ").append(i).append("\n\n")
+                    .append("Call `method").append(i).append("(value)` with a `Map<String, Object>` to get the result, see `Item.count`.\n\n")
+                    .append("```java\n");
+            appendCode(sb, random, 40, "");
+            sb.append("```\n\n");
+            appendCode(sb, random, 10, "    ");
+            sb.append("\n");
+        }
+
+        MutableDataSet options = new MutableDataSet().set(HtmlRenderer.FORMAT_FLAGS, formatFlags);
+        renderer = HtmlRenderer.builder(options).build();
+        document = Parser.builder(options).build().parse(sb.toString());
+    }
+
+    private static void appendCode(StringBuilder sb, Random random, int lines, String prefix) {
+        int indent = 0;
+        for (int j = 0; j < lines; j++) {
+            sb.append(prefix);
+            for (int k = 0; k < indent; k++) sb.append("    ");
+            int tokens = 3 + random.nextInt(8);
+            for (int k = 0; k < tokens; k++) {
+                if (k > 0) sb.append(' ');
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            sb.append('\n');
+            indent = (indent + random.nextInt(3) - 1 + 4) % 4;
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
@@ -0,0 +1,69 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.DataKey;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.util.options.ScopedDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Option reads with the options of a parsed document
+ * <p>
+ * {@link #get()} reads every key of the options, {@link #scoped()} creates the scoped options used for rendering a
+ * document and reads every key from them and {@link #render()} renders a small document, which creates node
+ * renderers reading their options.
+ */
+@State(Scope.Benchmark)
+public class DataSetBenchmark {
+    @Param({ "NONE", "ALL" })
+    public BenchmarkExtension extension;
+
+    private DataKey[] keys;
+    private DataHolder options;
+    private Document document;
+    private HtmlRenderer renderer;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(DataSetBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        DataHolder builderOptions = new MutableDataSet().set(Parser.EXTENSIONS, extension.getExtensions());
+        Parser parser = Parser.builder(builderOptions).build();
+        renderer = HtmlRenderer.builder(builderOptions).build();
+        document = parser.parse(BenchmarkCorpus.SMALL.getText());
+        renderer.render(document);
+
+        options = document.toImmutable();
+        keys = options.keySet().toArray(new DataKey[0]);
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (DataKey key : keys) {
+            blackhole.consume(options.get(key));
+        }
+    }
+
+    @Benchmark
+    public void scoped(Blackhole blackhole) {
+        DataHolder scoped = new ScopedDataSet(document, options);
+        for (DataKey key : keys) {
+            blackhole.consume(scoped.get(key));
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
@@ -0,0 +1,88 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.serialization.DocumentCache;
+import com.vladsch.flexmark.serialization.DocumentSerializer;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Parsing compared to reading a serialized document
+ * <p>
+ * {@link #read()} reads a document serialized during setup from memory, {@link #cache()} loads it from a
+ * {@link DocumentCache} directory, which includes hashing the text and reading the file.
+ */
+@State(Scope.Benchmark)
+public class DocumentCacheBenchmark {
+    @Param({ "NONE", "ALL" })
+    public BenchmarkExtension extension;
+
+    @Param({ "SMALL", "MEDIUM", "HUGE" })
+    public BenchmarkCorpus corpus;
+
+    private BasedSequence text;
+    private Parser parser;
+    private DocumentSerializer serializer;
+    private byte[] data;
+    private Path directory;
+    private DocumentCache cache;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(DocumentCacheBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        DataHolder options = new MutableDataSet().set(Parser.EXTENSIONS, extension.getExtensions());
+        text = CharSubSequence.of(corpus.getText());
+        parser = Parser.builder(options).build();
+        serializer = DocumentSerializer.builder(options).build();
+        data = serializer.write(parser.parse(text));
+
+        directory = Files.createTempDirectory("flexmark-benchmark");
+        cache = new DocumentCache(parser, serializer, directory);
+        cache.parse(text);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        DirectoryStream<Path> files = Files.newDirectoryStream(directory);
+        try {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        } finally {
+            files.close();
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Document parse() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public Document read() throws IOException {
+        return serializer.read(data, text);
+    }
+
+    @Benchmark
+    public Document cache() throws IOException {
+        return cache.parse(text);
+    }
+}
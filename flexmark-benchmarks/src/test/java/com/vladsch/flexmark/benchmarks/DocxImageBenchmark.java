@@ -0,0 +1,99 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.docx.converter.internal.DocxRenderer;
+import com.vladsch.flexmark.docx.converter.util.MemoryDocxImageCache;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Rendering a document with many local images to DOCX
+ * <p>
+ * {@code SEQUENTIAL} loads images while rendering, {@code PREFETCH} loads them on the prefetch pool before rendering
+ * and {@code CACHED} also keeps image bytes in a {@link MemoryDocxImageCache} between renders. PNG images are added
+ * with their original bytes, GIF images are converted to PNG.
+ */
+@State(Scope.Benchmark)
+public class DocxImageBenchmark {
+    private static final int IMAGES = 32;
+
+    @Param({ "PNG", "GIF" })
+    public String format;
+
+    @Param({ "SEQUENTIAL", "PREFETCH", "CACHED" })
+    public String mode;
+
+    private Path directory;
+    private DocxRenderer renderer;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(DocxImageBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("flexmark-benchmark");
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < IMAGES; i++) {
+            BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(new Color(i * 7 % 256, i * 13 % 256, i * 29 % 256));
+            graphics.fillRect(0, 0, 400, 300);
+            graphics.setColor(Color.WHITE);
+            graphics.drawString("Image " + i, 20 + i, 40 + i);
+            graphics.dispose();
+
+            File file = directory.resolve("image" + i + "." + format.toLowerCase()).toFile();
+            ImageIO.write(image, format.toLowerCase(), file);
+            sb.append("Paragraph ").append(i).append(" ![image ").append(i).append("](").append(file.toURI()).append(")\n\n");
+        }
+
+        MutableDataSet options = new MutableDataSet()
+                .set(DocxRenderer.IMAGE_PREFETCH, !mode.equals("SEQUENTIAL"));
+        if (mode.equals("CACHED")) {
+            options.set(DocxRenderer.IMAGE_CACHE, new MemoryDocxImageCache());
+        }
+
+        renderer = DocxRenderer.builder(options).build();
+        document = Parser.builder(options).build().parse(sb.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        DirectoryStream<Path> files = Files.newDirectoryStream(directory);
+        try {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        } finally {
+            files.close();
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public WordprocessingMLPackage render() {
+        WordprocessingMLPackage mlPackage = DocxRenderer.getDefaultTemplate();
+        renderer.render(document, mlPackage);
+        return mlPackage;
+    }
+}
@@ -0,0 +1,52 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.docx.converter.internal.DocxRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per document overhead of DOCX rendering for small documents
+ * <p>
+ * {@link #load()} parses the empty template, {@link #template()} gets a copy of the template loaded once and
+ * {@link #docx()} renders the {@link BenchmarkCorpus#SMALL} document to a copy of the template.
+ */
+@State(Scope.Benchmark)
+public class DocxTemplateBenchmark {
+    private DocxRenderer renderer;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(DocxTemplateBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        DataHolder options = new MutableDataSet().set(DocxRenderer.SUPPRESS_HTML, true);
+        renderer = DocxRenderer.builder(options).build();
+        document = Parser.builder(options).build().parse(BenchmarkCorpus.SMALL.getText());
+    }
+
+    @Benchmark
+    public WordprocessingMLPackage load() {
+        return DocxRenderer.getDefaultTemplate("/empty.xml");
+    }
+
+    @Benchmark
+    public WordprocessingMLPackage template() {
+        return DocxRenderer.getDefaultTemplate();
+    }
+
+    @Benchmark
+    public WordprocessingMLPackage docx() {
+        WordprocessingMLPackage mlPackage = DocxRenderer.getDefaultTemplate();
+        renderer.render(document, mlPackage);
+        return mlPackage;
+    }
+}
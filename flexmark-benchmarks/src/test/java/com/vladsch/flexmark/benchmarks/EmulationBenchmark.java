@@ -0,0 +1,55 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.parser.ParserEmulationProfile;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing and HTML rendering with each parser emulation profile
+ * <p>
+ * {@link #render()} renders a document parsed during setup.
+ */
+@State(Scope.Benchmark)
+public class EmulationBenchmark {
+    @Param({ "COMMONMARK", "FIXED_INDENT", "KRAMDOWN", "MARKDOWN", "GITHUB_DOC", "MULTI_MARKDOWN", "PEGDOWN" })
+    public ParserEmulationProfile profile;
+
+    @Param({ "SMALL", "MEDIUM", "HUGE" })
+    public BenchmarkCorpus corpus;
+
+    private String text;
+    private Parser parser;
+    private HtmlRenderer renderer;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(EmulationBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        DataHolder options = new MutableDataSet().setFrom(profile);
+        text = corpus.getText();
+        parser = Parser.builder(options).build();
+        renderer = HtmlRenderer.builder(options).build();
+        document = parser.parse(text);
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
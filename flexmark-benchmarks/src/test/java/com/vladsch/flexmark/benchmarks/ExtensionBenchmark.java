@@ -0,0 +1,54 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing and HTML rendering with each extension on its own and with all extensions
+ * <p>
+ * {@link #render()} renders a document parsed during setup.
+ */
+@State(Scope.Benchmark)
+public class ExtensionBenchmark {
+    @Param
+    public BenchmarkExtension extension;
+
+    @Param({ "SMALL", "MEDIUM", "HUGE" })
+    public BenchmarkCorpus corpus;
+
+    private String text;
+    private Parser parser;
+    private HtmlRenderer renderer;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(ExtensionBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        DataHolder options = new MutableDataSet().set(Parser.EXTENSIONS, extension.getExtensions());
+        text = corpus.getText();
+        parser = Parser.builder(options).build();
+        renderer = HtmlRenderer.builder(options).build();
+        document = parser.parse(text);
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
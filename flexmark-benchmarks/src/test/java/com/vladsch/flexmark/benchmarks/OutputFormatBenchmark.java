@@ -0,0 +1,188 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.convert.html.FlexmarkHtmlParser;
+import com.vladsch.flexmark.docx.converter.internal.DocxRenderer;
+import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
+import com.vladsch.flexmark.ext.admonition.AdmonitionExtension;
+import com.vladsch.flexmark.ext.definition.DefinitionExtension;
+import com.vladsch.flexmark.ext.enumerated.reference.EnumeratedReferenceExtension;
+import com.vladsch.flexmark.ext.footnotes.FootnoteExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughSubscriptExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.ins.InsExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.ext.toc.SimTocExtension;
+import com.vladsch.flexmark.ext.toc.TocExtension;
+import com.vladsch.flexmark.ext.wikilink.WikiLinkExtension;
+import com.vladsch.flexmark.ext.yaml.front.matter.YamlFrontMatterExtension;
+import com.vladsch.flexmark.formatter.internal.Formatter;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.jira.converter.JiraConverterExtension;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.superscript.SuperscriptExtension;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.youtrack.converter.YouTrackConverterExtension;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rendering of each output format and conversion of HTML to Markdown
+ * <p>
+ * Every format uses the extensions it has renderers for. Render benchmarks render a document parsed during setup,
+ * {@link #htmlToStream()} renders HTML as UTF-8 to an output stream discarding it,
+ * {@link #formatterRoundTrip()} parses and formats and {@link #htmlToMarkdown()} converts HTML rendered during setup
+ * with all extensions.
+ */
+@State(Scope.Benchmark)
+public class OutputFormatBenchmark {
+    private static final List<Extension> FORMATTER_EXTENSIONS = Arrays.asList(
+            AbbreviationExtension.create(),
+            AdmonitionExtension.create(),
+            DefinitionExtension.create(),
+            EnumeratedReferenceExtension.create(),
+            FootnoteExtension.create(),
+            SimTocExtension.create(),
+            TablesExtension.create(),
+            TaskListExtension.create(),
+            YamlFrontMatterExtension.create()
+    );
+
+    private static final List<Extension> DOCX_EXTENSIONS = Arrays.asList(
+            DefinitionExtension.create(),
+            FootnoteExtension.create(),
+            StrikethroughSubscriptExtension.create(),
+            InsExtension.create(),
+            SuperscriptExtension.create(),
+            TablesExtension.create(),
+            TocExtension.create(),
+            WikiLinkExtension.create()
+    );
+
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({ "SMALL", "MEDIUM", "HUGE" })
+    public BenchmarkCorpus corpus;
+
+    private String text;
+
+    private HtmlRenderer htmlRenderer;
+    private Node htmlDocument;
+    private String html;
+
+    private Parser formatterParser;
+    private Formatter formatter;
+    private Node formatterDocument;
+
+    private DocxRenderer docxRenderer;
+    private Node docxDocument;
+
+    private HtmlRenderer jiraRenderer;
+    private Node jiraDocument;
+
+    private HtmlRenderer youTrackRenderer;
+    private Node youTrackDocument;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(OutputFormatBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        text = corpus.getText();
+
+        DataHolder htmlOptions = new MutableDataSet().set(Parser.EXTENSIONS, BenchmarkExtension.ALL.getExtensions());
+        htmlRenderer = HtmlRenderer.builder(htmlOptions).build();
+        htmlDocument = Parser.builder(htmlOptions).build().parse(text);
+        html = htmlRenderer.render(htmlDocument);
+
+        DataHolder formatterOptions = new MutableDataSet().set(Parser.EXTENSIONS, FORMATTER_EXTENSIONS);
+        formatterParser = Parser.builder(formatterOptions).build();
+        formatter = Formatter.builder(formatterOptions).build();
+        formatterDocument = formatterParser.parse(text);
+
+        DataHolder docxOptions = new MutableDataSet()
+                .set(Parser.EXTENSIONS, DOCX_EXTENSIONS)
+                .set(DocxRenderer.SUPPRESS_HTML, true);
+        docxRenderer = DocxRenderer.builder(docxOptions).build();
+        docxDocument = Parser.builder(docxOptions).build().parse(text);
+
+        DataHolder jiraOptions = new MutableDataSet().set(Parser.EXTENSIONS, Arrays.asList(
+                TablesExtension.create(),
+                StrikethroughExtension.create(),
+                JiraConverterExtension.create()
+        ));
+        jiraRenderer = HtmlRenderer.builder(jiraOptions).build();
+        jiraDocument = Parser.builder(jiraOptions).build().parse(text);
+
+        DataHolder youTrackOptions = new MutableDataSet().set(Parser.EXTENSIONS, Arrays.asList(
+                TablesExtension.create(),
+                StrikethroughExtension.create(),
+                YouTrackConverterExtension.create()
+        ));
+        youTrackRenderer = HtmlRenderer.builder(youTrackOptions).build();
+        youTrackDocument = Parser.builder(youTrackOptions).build().parse(text);
+    }
+
+    @Benchmark
+    public String html() {
+        return htmlRenderer.render(htmlDocument);
+    }
+
+    @Benchmark
+    public void htmlToStream() throws IOException {
+        htmlRenderer.render(htmlDocument, NULL_OUTPUT);
+    }
+
+    @Benchmark
+    public String formatter() {
+        return formatter.render(formatterDocument);
+    }
+
+    @Benchmark
+    public String formatterRoundTrip() {
+        return formatter.render(formatterParser.parse(text));
+    }
+
+    @Benchmark
+    public WordprocessingMLPackage docx() {
+        WordprocessingMLPackage mlPackage = DocxRenderer.getDefaultTemplate();
+        docxRenderer.render(docxDocument, mlPackage);
+        return mlPackage;
+    }
+
+    @Benchmark
+    public String htmlToMarkdown() {
+        return FlexmarkHtmlParser.parse(html);
+    }
+
+    @Benchmark
+    public String jira() {
+        return jiraRenderer.render(jiraDocument);
+    }
+
+    @Benchmark
+    public String youTrack() {
+        return youTrackRenderer.render(youTrackDocument);
+    }
+}
@@ -0,0 +1,90 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from a file on disk to its parsed document
+ * <p>
+ * {@link #source} is how the file is read: <code>STRING</code> reads the bytes and decodes them into a string,
+ * <code>READER</code> uses {@link Parser#parseReader(Reader)} and <code>PATH</code> uses
+ * {@link Parser#parse(Path, Charset)}. The file repeats benchmark corpus sections up to {@link #megabytes}, run with
+ * <code>-p megabytes=10</code> on small heaps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(jvmArgsAppend = "-Xmx3g")
+public class ParseFileBenchmark {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({ "100" })
+    public int megabytes;
+
+    @Param({ "STRING", "READER", "PATH" })
+    public String source;
+
+    private Parser parser;
+    private Path file;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(ParseFileBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        parser = Parser.builder().build();
+        file = Files.createTempFile("flexmark-benchmark", ".md");
+
+        String section = BenchmarkCorpus.MEDIUM.getText();
+        long size = (long) megabytes * 1024 * 1024;
+        BufferedWriter writer = Files.newBufferedWriter(file, UTF_8);
+        try {
+            for (long written = 0; written < size; written += section.length()) {
+                writer.write(section);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public Document parse() throws IOException {
+        if (source.equals("STRING")) {
+            return parser.parse(new String(Files.readAllBytes(file), UTF_8));
+        } else if (source.equals("READER")) {
+            Reader reader = new InputStreamReader(Files.newInputStream(file), UTF_8);
+            try {
+                return parser.parseReader(reader);
+            } finally {
+                reader.close();
+            }
+        } else {
+            return parser.parse(file, UTF_8);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.vladsch.flexmark.benchmarks;
+
+import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ast.*;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.collection.ClassifyingNodeTracker;
+import com.vladsch.flexmark.util.collection.NodeClassifierVisitor;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.*;
+
+/**
+ * Node classification and post processing of large documents by several post processing extensions
+ * <p>
+ * {@link #parse()} parses with abbreviation, anchor link, autolink, enumerated reference, escaped character and
+ * YouTube link post processors, {@link #parseFused()} the same with {@link Parser#FUSED_POST_PROCESSING}. {@link #classify()} only builds the node tracker with ancestor exclusions for a
+ * parsed document, as done for each post processor stage. Use with the <code>gc</code> profiler to compare allocation.
+ */
+@State(Scope.Benchmark)
+public class PostProcessorBenchmark {
+    private static final BenchmarkExtension[] POST_PROCESSORS = {
+            BenchmarkExtension.ABBREVIATION,
+            BenchmarkExtension.ANCHORLINK,
+            BenchmarkExtension.AUTOLINK,
+            BenchmarkExtension.ENUMERATED_REFERENCE,
+            BenchmarkExtension.ESCAPED_CHARACTER,
+            BenchmarkExtension.YOUTUBE_EMBEDDED,
+    };
+
+    @Param({ "MEDIUM", "HUGE" })
+    public BenchmarkCorpus corpus;
+
+    private String text;
+    private Parser parser;
+    private Parser fusedParser;
+    private Document document;
+    private Map<Class<? extends Node>, Set<Class<?>>> exclusionMap;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(PostProcessorBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        text = corpus.getText();
+
+        List<Extension> extensions = new ArrayList<Extension>();
+        for (BenchmarkExtension extension : POST_PROCESSORS) {
+            extensions.addAll(extension.getExtensions());
+        }
+        parser = Parser.builder(new MutableDataSet().set(Parser.EXTENSIONS, extensions)).build();
+        fusedParser = Parser.builder(new MutableDataSet().set(Parser.EXTENSIONS, extensions).set(Parser.FUSED_POST_PROCESSING, true)).build();
+        document = Parser.builder().build().parse(text);
+
+        // exclusions of autolink text node processing
+        exclusionMap = new HashMap<Class<? extends Node>, Set<Class<?>>>();
+        exclusionMap.put(Text.class, new HashSet<Class<?>>(Arrays.<Class<?>>asList(DoNotDecorate.class, DoNotLinkDecorate.class)));
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public Node parseFused() {
+        return fusedParser.parse(text);
+    }
+
+    @Benchmark
+    public ClassifyingNodeTracker classify() {
+        return new NodeClassifierVisitor(exclusionMap).classify(document);
+    }
+}
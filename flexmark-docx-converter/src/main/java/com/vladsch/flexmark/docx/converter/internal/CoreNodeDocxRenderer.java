@@ -36,7 +36,6 @@ import com.vladsch.flexmark.html.renderer.ResolvedLink;
 import com.vladsch.flexmark.parser.ListOptions;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.superscript.Superscript;
-import com.vladsch.flexmark.util.ImageUtils;
 import com.vladsch.flexmark.util.Pair;
 import com.vladsch.flexmark.util.format.options.ListSpacing;
 import com.vladsch.flexmark.util.html.Attribute;
@@ -64,11 +63,7 @@ import org.docx4j.toc.TocGenerator;
 import org.docx4j.wml.*;
 
 import javax.xml.bind.JAXBElement;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.math.BigInteger;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.util.*;
 
@@ -83,6 +78,7 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
             DocxRendererPhase.DOCUMENT_TOP,
             DocxRendererPhase.DOCUMENT_BOTTOM
     ));
+    public static final Class<?>[] IMAGE_NODE_CLASSES = { Image.class, ImageRef.class };
 
     protected final ReferenceRepository referenceRepository;
 
@@ -98,6 +94,7 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
     protected final int tableLeftIndent;
     protected final String tableStyle;
     private int imageId;
+    private final DocxImageLoader imageLoader;
     private final HashMap<Node, BigInteger> footnoteIDs;
     private TocBlockBase lastTocBlock;
     private long[] numberedLists = new long[128];
@@ -133,6 +130,7 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
         repositoryNodesDone = false;
 
         this.options = new DocxRendererOptions(options);
+        imageLoader = new DocxImageLoader(this.options, DocxRenderer.IMAGE_CACHE.getFrom(options), DocxRenderer.IMAGE_TIMINGS.getFrom(options), DocxRenderer.IMAGE_PREFETCH_EXECUTOR.getFrom(options));
         listOptions = ListOptions.getFrom(options);
         footnoteIDs = new HashMap<Node, BigInteger>();
         lastTocBlock = null;
@@ -153,6 +151,9 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
         // here non-rendered elements can be collected so that they are rendered in another part of the document
         switch (phase) {
             case COLLECT:
+                if (options.imagePrefetch) {
+                    prefetchImages(docx);
+                }
                 break;
 
             case DOCUMENT_TOP:
@@ -192,7 +193,36 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
 
     @Override
     public Set<Class<?>> getNodeClasses() {
-        return null;
+        return options.imagePrefetch ? new HashSet<Class<?>>(Arrays.asList(IMAGE_NODE_CLASSES)) : null;
+    }
+
+    /**
+     * Start loading images of the document so they are loaded in parallel and ready when rendered
+     * <p>
+     * Links are resolved the same way as when rendering, image references which are not defined are loaded when
+     * rendered.
+     */
+    private void prefetchImages(final DocxRendererContext docx) {
+        for (Node node : docx.nodesOfType(IMAGE_NODE_CLASSES)) {
+            String url = null;
+
+            if (node instanceof Image) {
+                Image image = (Image) node;
+                url = getImageUrl(image, DocxRenderer.resolveLink(docx, image, LinkType.IMAGE, image.getUrl().unescape(), null, null));
+            } else {
+                ImageRef imageRef = (ImageRef) node;
+                if (imageRef.isDefined() || recheckUndefinedReferences) {
+                    Reference reference = imageRef.getReferenceNode(referenceRepository);
+                    if (reference != null) {
+                        url = DocxRenderer.resolveLink(docx, imageRef, LinkType.IMAGE, reference.getUrl().unescape(), null, null).getUrl();
+                    }
+                }
+            }
+
+            if (url != null) {
+                imageLoader.prefetch(getImageResourceUrl(url));
+            }
+        }
     }
 
     @Override
@@ -1154,15 +1184,9 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
     private void render(final Image node, final DocxRendererContext docx) {
         String altText = new TextCollectingVisitor().collectAndGetText(node);
         ResolvedLink resolvedLink = docx.resolveLink(LinkType.IMAGE, node.getUrl().unescape(), null, null);
-        String url = resolvedLink.getUrl();
+        String url = getImageUrl(node, resolvedLink);
         Attributes attributes = resolvedLink.getNonNullAttributes();
 
-        if (!node.getUrlContent().isEmpty()) {
-            // reverse URL encoding of =, &
-            String content = Escaping.percentEncodeUrl(node.getUrlContent()).replace("+", "%2B").replace("%3D", "=").replace("%26", "&amp;");
-            url += content;
-        }
-
         if (!altText.isEmpty()) {
             attributes.replaceValue("alt", altText);
         }
@@ -1173,6 +1197,17 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
         renderImage(docx, url, attributes);
     }
 
+    private static String getImageUrl(final Image node, final ResolvedLink resolvedLink) {
+        String url = resolvedLink.getUrl();
+
+        if (!node.getUrlContent().isEmpty()) {
+            // reverse URL encoding of =, &
+            String content = Escaping.percentEncodeUrl(node.getUrlContent()).replace("+", "%2B").replace("%3D", "=").replace("%26", "&amp;");
+            url += content;
+        }
+        return url;
+    }
+
     private void render(final Emoji node, final DocxRendererContext docx) {
         final EmojiResolvedShortcut shortcut = EmojiResolvedShortcut.getEmojiText(node, emojiOptions.useShortcutType, emojiOptions.useImageType, emojiOptions.rootImagePath);
 
@@ -1307,52 +1342,33 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
     }
 
     private R renderImage(final DocxRendererContext docx, String url, final Attributes attributes) {
-        BufferedImage image = null;
         int id1 = imageId++;
         int id2 = imageId++;
         String filenameHint = String.format("Image%d", id1 / 2 + 1);
         int cx = -1;
 
-        if (url.startsWith(DocxRenderer.EMOJI_RESOURCE_PREFIX)) {
-            // we take it from resources
-            url = this.getClass().getResource("/emoji/" + url.substring(DocxRenderer.EMOJI_RESOURCE_PREFIX.length())).toString();
-            int tmp = 0;
-        }
-
-        if (url.startsWith("http:") || url.startsWith("https:") || url.startsWith("file:")) {
-            // hyperlinked image  or file
-            if (url.startsWith("file:")) {
-                // try to load from file, from URL fails on some images while file load succeeds
-                try {
-                    File imageFile = new File(new URI(url));
-                    image = ImageUtils.loadImageFromFile(imageFile);
-                } catch (URISyntaxException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                image = ImageUtils.loadImageFromURL(url, options.logImageProcessing);
-            }
-
-            if (image == null && options.logImageProcessing) {
-                System.out.println("loadImageFromURL(" + url + ") returned null");
-            }
-        } else if (options.logImageProcessing) {
-            System.out.println("renderImage of \"" + url + "\") skipped (not file:, http: or https:)");
-        }
+        DocxImageLoader.LoadedImage image = imageLoader.getImage(getImageResourceUrl(url));
 
         if (image != null) {
-            int width = image.getWidth();
+            int width = image.width;
             if (options.maxImageWidth > 0 && options.maxImageWidth < width) {
                 cx = options.maxImageWidth;
                 attributes.replaceValue("width", String.valueOf(cx));
             }
 
-            byte[] imageBytes = ImageUtils.getImageBytes(image);
-            return newImage(docx, imageBytes, filenameHint, attributes, id1, id2);
+            return newImage(docx, image.bytes, filenameHint, attributes, id1, id2);
         }
         return null;
     }
 
+    private String getImageResourceUrl(String url) {
+        if (url.startsWith(DocxRenderer.EMOJI_RESOURCE_PREFIX)) {
+            // we take it from resources
+            return this.getClass().getResource("/emoji/" + url.substring(DocxRenderer.EMOJI_RESOURCE_PREFIX.length())).toString();
+        }
+        return url;
+    }
+
     private Tbl myTbl;
     private Tr myTr;
 
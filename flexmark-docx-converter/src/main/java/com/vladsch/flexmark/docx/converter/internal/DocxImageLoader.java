@@ -0,0 +1,279 @@
+package com.vladsch.flexmark.docx.converter.internal;
+
+import com.vladsch.flexmark.docx.converter.util.DocxImageCache;
+import com.vladsch.flexmark.docx.converter.util.DocxImageTimings;
+import com.vladsch.flexmark.util.ImageUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads images of a document for {@link CoreNodeDocxRenderer}, prefetching them on an executor before rendering
+ * <p>
+ * PNG and JPEG images are added to the document with their original bytes, other images are decoded and encoded as
+ * PNG. Encoded images are cached by URL and content hash in the {@link DocxRenderer#IMAGE_CACHE} when one is set.
+ */
+class DocxImageLoader {
+    private static final int SHARED_POOL_THREADS = 4;
+
+    private static class SharedImagePool {
+        static final ExecutorService POOL = Executors.newFixedThreadPool(SHARED_POOL_THREADS, new ThreadFactory() {
+            private int myCount = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "docx-image-loader-" + ++myCount);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    static class LoadedImage {
+        final byte[] bytes;
+        final int width;
+
+        LoadedImage(byte[] bytes, int width) {
+            this.bytes = bytes;
+            this.width = width;
+        }
+    }
+
+    private final boolean logImageProcessing;
+    private final DocxImageCache cache;
+    private final DocxImageTimings timings;
+    private final ExecutorService executor;
+    private final HashMap<String, Future<LoadedImage>> prefetched;
+
+    DocxImageLoader(DocxRendererOptions options, DocxImageCache cache, DocxImageTimings timings, ExecutorService executor) {
+        this.logImageProcessing = options.logImageProcessing;
+        this.cache = cache;
+        this.timings = timings;
+        this.executor = executor != null ? executor : SharedImagePool.POOL;
+        this.prefetched = new HashMap<String, Future<LoadedImage>>();
+    }
+
+    /**
+     * Start loading an image on the executor, if it was not already started
+     *
+     * @param url image URL
+     */
+    void prefetch(final String url) {
+        if (!prefetched.containsKey(url)) {
+            prefetched.put(url, executor.submit(new Callable<LoadedImage>() {
+                @Override
+                public LoadedImage call() throws Exception {
+                    return load(url);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Get an image, waiting for it if it is being prefetched or loading it if it was not prefetched
+     *
+     * @param url image URL
+     * @return image or null if it could not be loaded
+     */
+    LoadedImage getImage(String url) {
+        Future<LoadedImage> future = prefetched.get(url);
+        if (future == null) return load(url);
+
+        long start = System.nanoTime();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (timings != null) timings.addWait(System.nanoTime() - start);
+        }
+    }
+
+    LoadedImage load(String url) {
+        long start = System.nanoTime();
+        byte[] bytes = null;
+
+        if (url.startsWith("http:") || url.startsWith("https:") || url.startsWith("file:")) {
+            // hyperlinked image  or file
+            bytes = readBytes(url);
+
+            if (bytes == null && logImageProcessing) {
+                System.out.println("loadImageFromURL(" + url + ") returned null");
+            }
+        } else if (logImageProcessing) {
+            System.out.println("renderImage of \"" + url + "\") skipped (not file:, http: or https:)");
+        }
+
+        if (bytes == null) {
+            if (timings != null) timings.addImage(System.nanoTime() - start, 0, DocxImageTimings.FAILED);
+            return null;
+        }
+
+        long loaded = System.nanoTime();
+        int result = DocxImageTimings.ENCODED;
+        LoadedImage image = null;
+        String key = null;
+
+        if (isPngOrJpeg(bytes)) {
+            // added as is, only the width is needed
+            int width = getWidth(bytes);
+            if (width >= 0) {
+                image = new LoadedImage(bytes, width);
+                result = DocxImageTimings.PASSED_THROUGH;
+            }
+        }
+
+        if (image == null && cache != null) {
+            // only encoded images are cached, they are the only ones which take more than reading the bytes
+            key = url + "#" + getHash(bytes);
+            byte[] cachedBytes = cache.get(key);
+            int width = cachedBytes == null ? -1 : getWidth(cachedBytes);
+            if (width >= 0) {
+                image = new LoadedImage(cachedBytes, width);
+                result = DocxImageTimings.CACHE_HIT;
+                key = null;
+            }
+        }
+
+        if (image == null) {
+            BufferedImage bufferedImage = decode(bytes);
+            byte[] imageBytes = bufferedImage == null ? null : ImageUtils.getImageBytes(bufferedImage);
+            if (imageBytes != null) {
+                image = new LoadedImage(imageBytes, bufferedImage.getWidth());
+            } else {
+                if (logImageProcessing) {
+                    System.out.println("loadImageFromURL(" + url + ") returned null");
+                }
+                result = DocxImageTimings.FAILED;
+            }
+        }
+
+        if (image != null && key != null) {
+            cache.put(key, image.bytes);
+        }
+
+        if (timings != null) timings.addImage(loaded - start, System.nanoTime() - loaded, result);
+        return image;
+    }
+
+    private byte[] readBytes(String url) {
+        try {
+            if (url.startsWith("file:")) {
+                // read from file, from URL fails on some images while file load succeeds
+                File imageFile = new File(new URI(url));
+                return imageFile.isFile() ? Files.readAllBytes(imageFile.toPath()) : null;
+            }
+
+            InputStream inputStream = new URL(url).openStream();
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, count);
+                }
+                return outputStream.toByteArray();
+            } finally {
+                inputStream.close();
+            }
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        } catch (IllegalArgumentException e) {
+            // not a local file URI
+            if (logImageProcessing) e.printStackTrace();
+        } catch (IOException e) {
+            if (logImageProcessing) e.printStackTrace();
+        }
+        return null;
+    }
+
+    static boolean isPngOrJpeg(byte[] bytes) {
+        if (bytes.length >= 8 && (bytes[0] & 0xff) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G'
+                && bytes[4] == '\r' && bytes[5] == '\n' && bytes[6] == 0x1a && bytes[7] == '\n') {
+            return true;
+        }
+        return bytes.length >= 3 && (bytes[0] & 0xff) == 0xff && (bytes[1] & 0xff) == 0xd8 && (bytes[2] & 0xff) == 0xff;
+    }
+
+    /**
+     * Width of an image from its header, without decoding it
+     *
+     * @param bytes image bytes
+     * @return width in pixels or -1 if the image could not be read
+     */
+    static int getWidth(byte[] bytes) {
+        try {
+            ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes));
+            try {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+                if (readers.hasNext()) {
+                    ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(inputStream, true, true);
+                        return reader.getWidth(0);
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException ignored) {
+        } catch (RuntimeException ignored) {
+            // some readers throw on malformed headers
+        }
+        return -1;
+    }
+
+    private static BufferedImage decode(byte[] bytes) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException ignored) {
+        } catch (RuntimeException ignored) {
+            // some readers throw on malformed images
+        }
+        return null;
+    }
+
+    private static String getHash(byte[] bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // required on all platforms
+            throw new IllegalStateException(e);
+        }
+
+        byte[] hash = digest.digest(bytes);
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
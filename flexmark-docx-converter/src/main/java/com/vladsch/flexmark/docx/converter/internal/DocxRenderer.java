@@ -12,6 +12,8 @@ import com.vladsch.flexmark.docx.converter.NodeDocxRendererFactory;
 import com.vladsch.flexmark.docx.converter.PhasedNodeDocxRenderer;
 import com.vladsch.flexmark.docx.converter.util.DocumentContentHandler;
 import com.vladsch.flexmark.docx.converter.util.DocxContextImpl;
+import com.vladsch.flexmark.docx.converter.util.DocxImageCache;
+import com.vladsch.flexmark.docx.converter.util.DocxImageTimings;
 import com.vladsch.flexmark.docx.converter.util.XmlDocxSorter;
 import com.vladsch.flexmark.docx.converter.util.XmlFormatter;
 import com.vladsch.flexmark.ext.emoji.EmojiExtension;
@@ -30,6 +32,9 @@ import org.docx4j.openpackaging.exceptions.InvalidFormatException;
 import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
 import org.docx4j.openpackaging.parts.Part;
 import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.openpackaging.parts.WordprocessingML.NumberingDefinitionsPart;
+import org.docx4j.openpackaging.parts.WordprocessingML.StyleDefinitionsPart;
+import org.docx4j.openpackaging.parts.relationships.RelationshipsPart;
 import org.docx4j.wml.CTBookmark;
 import org.docx4j.wml.Numbering;
 import org.docx4j.wml.Styles;
@@ -37,6 +42,7 @@ import org.docx4j.wml.Styles;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Renders a tree of nodes to docx4j API.
@@ -76,6 +82,14 @@ public class DocxRenderer implements IRender {
     public static final DataKey<Boolean> TOC_GENERATE = new DataKey<Boolean>("TOC_GENERATE", false);
     public static final DataKey<String> TOC_INSTRUCTION = new DataKey<String>("TOC_INSTRUCTION", "TOC \\o \"1-3\" \\h \\z \\u ");
     public static final DataKey<Boolean> LOG_IMAGE_PROCESSING = new DataKey<Boolean>("LOG_IMAGE_PROCESSING", false);
+    // load images of the document on an executor before rendering
+    public static final DataKey<Boolean> IMAGE_PREFETCH = new DataKey<Boolean>("IMAGE_PREFETCH", true);
+    // executor for image prefetch, null to use a fixed size pool shared by all renderers
+    public static final DataKey<ExecutorService> IMAGE_PREFETCH_EXECUTOR = new DataKey<ExecutorService>("IMAGE_PREFETCH_EXECUTOR", (ExecutorService) null);
+    // cache of image bytes by URL and content hash, null for none
+    public static final DataKey<DocxImageCache> IMAGE_CACHE = new DataKey<DocxImageCache>("IMAGE_CACHE", (DocxImageCache) null);
+    // accumulate time spent loading images, null for none
+    public static final DataKey<DocxImageTimings> IMAGE_TIMINGS = new DataKey<DocxImageTimings>("IMAGE_TIMINGS", (DocxImageTimings) null);
     public static final DataKey<Boolean> NO_CHARACTER_STYLES = new DataKey<Boolean>("NO_CHARACTER_STYLES", false);
     public static final DataKey<String> CODE_HIGHLIGHT_SHADING = new DataKey<String>("CODE_HIGHLIGHT_SHADING", "");
     public static final DataKey<Boolean> ERRORS_TO_STDERR = new DataKey<Boolean>("ERRORS_TO_STDERR", false);
@@ -183,10 +197,68 @@ public class DocxRenderer implements IRender {
         return new Builder(options);
     }
 
+    // default template loaded once, parts of its copies are unmarshalled from its parts instead of parsed from XML
+    private static class DefaultTemplate {
+        static final WordprocessingMLPackage TEMPLATE = loadDefaultTemplate();
+
+        private static WordprocessingMLPackage loadDefaultTemplate() {
+            WordprocessingMLPackage template = getDefaultTemplate("/empty.xml");
+            if (template != null) {
+                // unmarshal lazily loaded parts now, copies are made by multiple threads
+                MainDocumentPart documentPart = template.getMainDocumentPart();
+                documentPart.getJaxbElement();
+                documentPart.getStyleDefinitionsPart().getJaxbElement();
+                documentPart.getNumberingDefinitionsPart().getJaxbElement();
+            }
+            return template;
+        }
+    }
+
+    /**
+     * Get a new package of the default empty template, with styles and numbering
+     * <p>
+     * The template is loaded once, returned packages are independent copies of it.
+     *
+     * @return new package or null if the template could not be loaded
+     */
     public static WordprocessingMLPackage getDefaultTemplate() {
+        WordprocessingMLPackage template = DefaultTemplate.TEMPLATE;
+        if (template != null) {
+            try {
+                return copyDefaultTemplate(template);
+            } catch (Docx4JException e) {
+                e.printStackTrace();
+            }
+        }
         return getDefaultTemplate("/empty.xml");
     }
 
+    private static WordprocessingMLPackage copyDefaultTemplate(WordprocessingMLPackage template) throws Docx4JException {
+        WordprocessingMLPackage mlPackage = new WordprocessingMLPackage();
+
+        // keep part names and relationship ids of the template
+        MainDocumentPart templateDocumentPart = template.getMainDocumentPart();
+        MainDocumentPart documentPart = new MainDocumentPart(templateDocumentPart.getPartName());
+        documentPart.setJaxbElement(XmlUtils.deepCopy(templateDocumentPart.getJaxbElement()));
+        mlPackage.addTargetPart(documentPart, RelationshipsPart.AddPartBehaviour.OVERWRITE_IF_NAME_EXISTS,
+                template.getRelationshipsPart().getRel(templateDocumentPart.getPartName()).getId());
+
+        RelationshipsPart templateRelationships = templateDocumentPart.getRelationshipsPart();
+        StyleDefinitionsPart templateStylesPart = templateDocumentPart.getStyleDefinitionsPart();
+        StyleDefinitionsPart stylesPart = new StyleDefinitionsPart(templateStylesPart.getPartName());
+        stylesPart.setJaxbElement(XmlUtils.deepCopy(templateStylesPart.getJaxbElement()));
+        documentPart.addTargetPart(stylesPart, RelationshipsPart.AddPartBehaviour.OVERWRITE_IF_NAME_EXISTS,
+                templateRelationships.getRel(templateStylesPart.getPartName()).getId());
+
+        NumberingDefinitionsPart templateNumberingPart = templateDocumentPart.getNumberingDefinitionsPart();
+        NumberingDefinitionsPart numberingPart = new NumberingDefinitionsPart(templateNumberingPart.getPartName());
+        numberingPart.setJaxbElement(XmlUtils.deepCopy(templateNumberingPart.getJaxbElement()));
+        documentPart.addTargetPart(numberingPart, RelationshipsPart.AddPartBehaviour.OVERWRITE_IF_NAME_EXISTS,
+                templateRelationships.getRel(templateNumberingPart.getPartName()).getId());
+
+        return mlPackage;
+    }
+
     public static WordprocessingMLPackage getDefaultTemplate(String emptyXMLResourcePath) {
         final InputStream inputStream = getResourceInputStream(emptyXMLResourcePath);
         return getDefaultTemplate(inputStream);
@@ -505,6 +577,26 @@ public class DocxRenderer implements IRender {
         }
     };
 
+    /**
+     * Resolve a link for a node before it is rendered, link resolvers get the node as the rendering node
+     * <p>
+     * Resolved links are cached by URL, so the node should be the first node rendered with the link.
+     *
+     * @param context    renderer context, when not created by a DocxRenderer the link is resolved for the current rendering node
+     * @param node       node which will be rendered with the link
+     * @param linkType   type of link
+     * @param url        link url
+     * @param attributes link attributes or null
+     * @param urlEncode  whether to URL encode the link, null to use the renderer option
+     * @return resolved link
+     */
+    static ResolvedLink resolveLink(DocxRendererContext context, Node node, LinkType linkType, CharSequence url, Attributes attributes, Boolean urlEncode) {
+        if (context instanceof MainDocxRenderer) {
+            return ((MainDocxRenderer) context).resolveLink(node, linkType, url, attributes, urlEncode);
+        }
+        return context.resolveLink(linkType, url, attributes, urlEncode);
+    }
+
     private class MainDocxRenderer extends DocxContextImpl<Node> implements DocxRendererContext {
         private final Document document;
         private final Map<Class<?>, NodeDocxRendererHandler> renderers;
@@ -754,6 +846,16 @@ public class DocxRenderer implements IRender {
             return resolveLink(linkType, url, (Attributes) null, urlEncode);
         }
 
+        ResolvedLink resolveLink(Node node, LinkType linkType, CharSequence url, Attributes attributes, Boolean urlEncode) {
+            Node oldNode = renderingNode;
+            renderingNode = node;
+            try {
+                return resolveLink(linkType, url, attributes, urlEncode);
+            } finally {
+                renderingNode = oldNode;
+            }
+        }
+
         @Override
         public ResolvedLink resolveLink(LinkType linkType, CharSequence url, Attributes attributes, Boolean urlEncode) {
             HashMap<String, ResolvedLink> resolvedLinks = resolvedLinkMap.get(linkType);
@@ -14,6 +14,7 @@ public class DocxRendererOptions {
     public final boolean suppressInlineHtmlComments;
     public final boolean tocGenerate;
     public final boolean logImageProcessing;
+    public final boolean imagePrefetch;
     public final boolean noCharacterStyles;
     public final boolean prefixWwwLinks;
     public final int maxImageWidth;
@@ -67,6 +68,7 @@ public class DocxRendererOptions {
         tocInstruction = DocxRenderer.TOC_INSTRUCTION.getFrom(options);
         tocGenerate = DocxRenderer.TOC_GENERATE.getFrom(options);
         logImageProcessing = DocxRenderer.LOG_IMAGE_PROCESSING.getFrom(options);
+        imagePrefetch = DocxRenderer.IMAGE_PREFETCH.getFrom(options);
         noCharacterStyles = DocxRenderer.NO_CHARACTER_STYLES.getFrom(options);
         codeHighlightShading = DocxRenderer.CODE_HIGHLIGHT_SHADING.getFrom(options);
         localHyperlinkSuffix = DocxRenderer.LOCAL_HYPERLINK_SUFFIX.getFrom(options);
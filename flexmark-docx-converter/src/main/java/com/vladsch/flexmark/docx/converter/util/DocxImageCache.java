@@ -0,0 +1,25 @@
+package com.vladsch.flexmark.docx.converter.util;
+
+/**
+ * Cache of image bytes added to documents rendered with {@link com.vladsch.flexmark.docx.converter.internal.DocxRenderer#IMAGE_CACHE}
+ * set to this instance
+ * <p>
+ * Only images which are decoded and encoded as PNG are cached, PNG and JPEG images are added with their original
+ * bytes. Keys are the image URL followed by a hash of the image content, so an image used by many documents is only
+ * decoded once and a changed image gets a new key. The image is still read for every document to compute its key, a
+ * cache hit saves decoding and encoding only. Implementations must be thread safe, images are loaded on prefetch
+ * threads.
+ */
+public interface DocxImageCache {
+    /**
+     * @param key image URL and content hash
+     * @return image bytes for the document or null if not cached
+     */
+    byte[] get(String key);
+
+    /**
+     * @param key        image URL and content hash
+     * @param imageBytes image bytes for the document, not modified after this call
+     */
+    void put(String key, byte[] imageBytes);
+}
@@ -0,0 +1,131 @@
+package com.vladsch.flexmark.docx.converter.util;
+
+/**
+ * Time spent loading images, accumulated over all documents rendered with
+ * {@link com.vladsch.flexmark.docx.converter.internal.DocxRenderer#IMAGE_TIMINGS} set to this instance
+ * <p>
+ * Load and decode times are spent on prefetch threads when images are prefetched, wait time is spent by rendering
+ * waiting for images which were not loaded yet. Instances are thread safe and can be shared by renderers used on
+ * different threads.
+ */
+public class DocxImageTimings {
+    // results of image loads
+    public static final int CACHE_HIT = 0;
+    public static final int PASSED_THROUGH = 1;
+    public static final int ENCODED = 2;
+    public static final int FAILED = 3;
+
+    private long myImages;
+    private long myCacheHits;
+    private long myPassedThrough;
+    private long myEncoded;
+    private long myFailed;
+    private long myLoadNanos;
+    private long myDecodeNanos;
+    private long myWaitNanos;
+
+    /**
+     * Add an image load
+     *
+     * @param loadNanos   time spent reading the image bytes
+     * @param decodeNanos time spent hashing, reading the size and converting the image
+     * @param result      one of {@link #CACHE_HIT}, {@link #PASSED_THROUGH}, {@link #ENCODED} or {@link #FAILED}
+     */
+    public synchronized void addImage(long loadNanos, long decodeNanos, int result) {
+        myImages++;
+        myLoadNanos += loadNanos;
+        myDecodeNanos += decodeNanos;
+
+        switch (result) {
+            case CACHE_HIT:
+                myCacheHits++;
+                break;
+            case PASSED_THROUGH:
+                myPassedThrough++;
+                break;
+            case ENCODED:
+                myEncoded++;
+                break;
+            default:
+                myFailed++;
+                break;
+        }
+    }
+
+    /**
+     * @param waitNanos time rendering waited for a prefetched image
+     */
+    public synchronized void addWait(long waitNanos) {
+        myWaitNanos += waitNanos;
+    }
+
+    /**
+     * @return number of images loaded
+     */
+    public synchronized long getImages() {
+        return myImages;
+    }
+
+    /**
+     * @return number of images whose bytes were in the image cache
+     */
+    public synchronized long getCacheHits() {
+        return myCacheHits;
+    }
+
+    /**
+     * @return number of PNG and JPEG images added with their original bytes
+     */
+    public synchronized long getPassedThrough() {
+        return myPassedThrough;
+    }
+
+    /**
+     * @return number of images decoded and encoded as PNG
+     */
+    public synchronized long getEncoded() {
+        return myEncoded;
+    }
+
+    /**
+     * @return number of images which could not be loaded or decoded
+     */
+    public synchronized long getFailed() {
+        return myFailed;
+    }
+
+    public synchronized long getLoadNanos() {
+        return myLoadNanos;
+    }
+
+    public synchronized long getDecodeNanos() {
+        return myDecodeNanos;
+    }
+
+    public synchronized long getWaitNanos() {
+        return myWaitNanos;
+    }
+
+    public synchronized void clear() {
+        myImages = 0;
+        myCacheHits = 0;
+        myPassedThrough = 0;
+        myEncoded = 0;
+        myFailed = 0;
+        myLoadNanos = 0;
+        myDecodeNanos = 0;
+        myWaitNanos = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "images: " + myImages +
+                ", cache hits: " + myCacheHits +
+                ", passed through: " + myPassedThrough +
+                ", encoded: " + myEncoded +
+                ", failed: " + myFailed +
+                ", load: " + myLoadNanos / 1000 + " us" +
+                ", decode: " + myDecodeNanos / 1000 + " us" +
+                ", wait: " + myWaitNanos / 1000 + " us";
+    }
+}
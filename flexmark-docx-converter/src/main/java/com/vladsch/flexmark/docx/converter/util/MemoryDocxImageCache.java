@@ -0,0 +1,76 @@
+package com.vladsch.flexmark.docx.converter.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Image cache in memory, removing least recently used images when the total size of cached images exceeds a limit
+ */
+public class MemoryDocxImageCache implements DocxImageCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final LinkedHashMap<String, byte[]> myImages = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    private final long myMaxBytes;
+    private long myBytes;
+    private long myHits;
+    private long myMisses;
+
+    public MemoryDocxImageCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes maximum total size of cached images
+     */
+    public MemoryDocxImageCache(long maxBytes) {
+        myMaxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized byte[] get(String key) {
+        byte[] imageBytes = myImages.get(key);
+        if (imageBytes == null) {
+            myMisses++;
+        } else {
+            myHits++;
+        }
+        return imageBytes;
+    }
+
+    @Override
+    public synchronized void put(String key, byte[] imageBytes) {
+        if (imageBytes.length > myMaxBytes) return;
+
+        byte[] previous = myImages.put(key, imageBytes);
+        if (previous != null) myBytes -= previous.length;
+        myBytes += imageBytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = myImages.entrySet().iterator();
+        while (myBytes > myMaxBytes && iterator.hasNext()) {
+            myBytes -= iterator.next().getValue().length;
+            iterator.remove();
+        }
+    }
+
+    public synchronized long getBytes() {
+        return myBytes;
+    }
+
+    public synchronized int size() {
+        return myImages.size();
+    }
+
+    public synchronized long getHits() {
+        return myHits;
+    }
+
+    public synchronized long getMisses() {
+        return myMisses;
+    }
+
+    public synchronized void clear() {
+        myImages.clear();
+        myBytes = 0;
+    }
+}
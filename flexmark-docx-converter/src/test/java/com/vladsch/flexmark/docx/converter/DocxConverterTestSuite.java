@@ -1,11 +1,16 @@
 package com.vladsch.flexmark.docx.converter;
 
+import com.vladsch.flexmark.docx.converter.internal.DocxImageLoaderTest;
+import com.vladsch.flexmark.docx.converter.util.MemoryDocxImageCacheTest;
 import org.junit.runners.Suite;
 
 @org.junit.runner.RunWith(Suite.class)
 @Suite.SuiteClasses({
         ComboDocxConverterSpecTest.class,
         ComboDocxConverterIssuesSpecTest.class,
+        DocxTemplateTest.class,
+        MemoryDocxImageCacheTest.class,
+        DocxImageLoaderTest.class,
         //ComboDocxUserSpecDisabled.class, // added to test suite so it runs locally but not  on the travis
 })
 public class DocxConverterTestSuite {
@@ -0,0 +1,92 @@
+package com.vladsch.flexmark.docx.converter;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.docx.converter.internal.DocxRenderer;
+import com.vladsch.flexmark.docx.converter.util.XmlDocxSorter;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.apache.log4j.Logger;
+import org.apache.log4j.varia.NullAppender;
+import org.docx4j.Docx4J;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.wml.Numbering;
+import org.docx4j.wml.Style;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+public class DocxTemplateTest {
+    private static final DataHolder OPTIONS = new MutableDataSet();
+    private static final Parser PARSER = Parser.builder(OPTIONS).build();
+    private static final DocxRenderer RENDERER = DocxRenderer.builder(OPTIONS).build();
+
+    @BeforeClass
+    public static void setUpLogging() {
+        Logger root = Logger.getRootLogger();
+        root.addAppender(new NullAppender());
+    }
+
+    private static String toXml(WordprocessingMLPackage mlPackage) throws Docx4JException, UnsupportedEncodingException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        mlPackage.save(outputStream, Docx4J.FLAG_SAVE_FLAT_XML);
+        return XmlDocxSorter.sortDocumentParts(outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void templateCopiesAreIndependent() throws Exception {
+        WordprocessingMLPackage modified = DocxRenderer.getDefaultTemplate();
+        WordprocessingMLPackage other = DocxRenderer.getDefaultTemplate();
+        String expected = toXml(other);
+
+        MainDocumentPart documentPart = modified.getMainDocumentPart();
+        MainDocumentPart otherDocumentPart = other.getMainDocumentPart();
+        assertNotSame(otherDocumentPart.getJaxbElement(), documentPart.getJaxbElement());
+        assertNotSame(otherDocumentPart.getStyleDefinitionsPart().getJaxbElement(), documentPart.getStyleDefinitionsPart().getJaxbElement());
+        assertNotSame(otherDocumentPart.getNumberingDefinitionsPart().getJaxbElement(), documentPart.getNumberingDefinitionsPart().getJaxbElement());
+
+        Style style = new Style();
+        style.setStyleId("TemplateTestStyle");
+        documentPart.getStyleDefinitionsPart().getJaxbElement().getStyle().add(style);
+
+        Numbering numbering = documentPart.getNumberingDefinitionsPart().getJaxbElement();
+        numbering.getNum().clear();
+        numbering.getAbstractNum().clear();
+
+        documentPart.addParagraphOfText("Modified template body");
+
+        String modifiedXml = toXml(modified);
+        assertFalse(modifiedXml.equals(expected));
+
+        assertEquals(expected, toXml(other));
+        assertEquals(expected, toXml(DocxRenderer.getDefaultTemplate()));
+    }
+
+    @Test
+    public void renderMatchesLoadedTemplate() throws Exception {
+        Node document = PARSER.parse("" +
+                "# Heading\n" +
+                "\n" +
+                "Paragraph with **bold** and *italic* text.\n" +
+                "\n" +
+                "1. first\n" +
+                "2. second\n" +
+                "\n" +
+                "- item\n" +
+                "    - nested item\n" +
+                "");
+
+        WordprocessingMLPackage mlPackage = DocxRenderer.getDefaultTemplate("/empty.xml");
+        RENDERER.render(document, mlPackage);
+
+        assertEquals(toXml(mlPackage), RENDERER.render(document));
+    }
+}
@@ -0,0 +1,217 @@
+package com.vladsch.flexmark.docx.converter.internal;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.docx.converter.util.DocxImageTimings;
+import com.vladsch.flexmark.docx.converter.util.MemoryDocxImageCache;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.apache.log4j.Logger;
+import org.apache.log4j.varia.NullAppender;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DocxImageLoaderTest {
+    private static final DataHolder OPTIONS = new MutableDataSet();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpLogging() {
+        Logger root = Logger.getRootLogger();
+        root.addAppender(new NullAppender());
+    }
+
+    private static byte[] imageBytes(String format, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 1, 0xff0000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, outputStream));
+        return outputStream.toByteArray();
+    }
+
+    private String imageUrl(String name, byte[] bytes) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), bytes);
+        return file.toURI().toString();
+    }
+
+    private static DocxImageLoader loader(MemoryDocxImageCache cache, DocxImageTimings timings, ExecutorService executor) {
+        return new DocxImageLoader(new DocxRendererOptions(OPTIONS), cache, timings, executor);
+    }
+
+    @Test
+    public void test_isPngOrJpeg() throws IOException {
+        assertTrue(DocxImageLoader.isPngOrJpeg(imageBytes("png", 10, 5)));
+        assertTrue(DocxImageLoader.isPngOrJpeg(imageBytes("jpg", 10, 5)));
+        assertFalse(DocxImageLoader.isPngOrJpeg(imageBytes("gif", 10, 5)));
+        assertFalse(DocxImageLoader.isPngOrJpeg(imageBytes("bmp", 10, 5)));
+        assertFalse(DocxImageLoader.isPngOrJpeg(new byte[] { (byte) 0x89, 'P', 'N' }));
+        assertFalse(DocxImageLoader.isPngOrJpeg(new byte[0]));
+    }
+
+    @Test
+    public void test_getWidth() throws IOException {
+        assertEquals(10, DocxImageLoader.getWidth(imageBytes("png", 10, 5)));
+        assertEquals(12, DocxImageLoader.getWidth(imageBytes("jpg", 12, 5)));
+        assertEquals(14, DocxImageLoader.getWidth(imageBytes("gif", 14, 5)));
+        assertEquals(-1, DocxImageLoader.getWidth("not an image".getBytes()));
+        assertEquals(-1, DocxImageLoader.getWidth(Arrays.copyOf(imageBytes("png", 10, 5), 8)));
+    }
+
+    @Test
+    public void test_passedThrough() throws IOException {
+        byte[] png = imageBytes("png", 10, 5);
+        String url = imageUrl("image.png", png);
+        MemoryDocxImageCache cache = new MemoryDocxImageCache();
+        DocxImageTimings timings = new DocxImageTimings();
+
+        DocxImageLoader.LoadedImage image = loader(cache, timings, null).load(url);
+        assertNotNull(image);
+        assertArrayEquals(png, image.bytes);
+        assertEquals(10, image.width);
+
+        // PNG is added as is, nothing to cache
+        assertEquals(0, cache.size());
+        assertEquals(1, timings.getImages());
+        assertEquals(1, timings.getPassedThrough());
+    }
+
+    @Test
+    public void test_encodedAndCacheHit() throws IOException {
+        byte[] gif = imageBytes("gif", 10, 5);
+        String url = imageUrl("image.gif", gif);
+        MemoryDocxImageCache cache = new MemoryDocxImageCache();
+        DocxImageTimings timings = new DocxImageTimings();
+
+        DocxImageLoader.LoadedImage image = loader(cache, timings, null).load(url);
+        assertNotNull(image);
+        assertTrue(DocxImageLoader.isPngOrJpeg(image.bytes));
+        assertEquals(10, image.width);
+        assertEquals(1, cache.size());
+        assertEquals(image.bytes.length, cache.getBytes());
+
+        DocxImageLoader.LoadedImage cached = loader(cache, timings, null).load(url);
+        assertNotNull(cached);
+        assertSame(image.bytes, cached.bytes);
+        assertEquals(10, cached.width);
+
+        assertEquals(2, timings.getImages());
+        assertEquals(1, timings.getEncoded());
+        assertEquals(1, timings.getCacheHits());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void test_changedImageNotHit() throws IOException {
+        String url = imageUrl("image.gif", imageBytes("gif", 10, 5));
+        MemoryDocxImageCache cache = new MemoryDocxImageCache();
+        DocxImageTimings timings = new DocxImageTimings();
+
+        loader(cache, timings, null).load(url);
+        Files.write(new File(folder.getRoot(), "image.gif").toPath(), imageBytes("gif", 20, 5));
+        DocxImageLoader.LoadedImage image = loader(cache, timings, null).load(url);
+
+        assertNotNull(image);
+        assertEquals(20, image.width);
+        assertEquals(2, cache.size());
+        assertEquals(2, timings.getEncoded());
+        assertEquals(0, timings.getCacheHits());
+    }
+
+    @Test
+    public void test_failed() throws IOException {
+        DocxImageTimings timings = new DocxImageTimings();
+        DocxImageLoader loader = loader(null, timings, null);
+
+        assertNull(loader.load(new File(folder.getRoot(), "missing.png").toURI().toString()));
+        assertNull(loader.load("image.png"));
+        assertNull(loader.load(imageUrl("image.png", "not an image".getBytes())));
+
+        assertEquals(3, timings.getImages());
+        assertEquals(3, timings.getFailed());
+    }
+
+    @Test
+    public void test_prefetch() throws IOException {
+        byte[] png = imageBytes("png", 10, 5);
+        String url = imageUrl("image.png", png);
+        DocxImageTimings timings = new DocxImageTimings();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            DocxImageLoader loader = loader(null, timings, executor);
+            loader.prefetch(url);
+            loader.prefetch(url);
+
+            DocxImageLoader.LoadedImage image = loader.getImage(url);
+            assertNotNull(image);
+            assertArrayEquals(png, image.bytes);
+            assertSame(image, loader.getImage(url));
+
+            // loaded once
+            assertEquals(1, timings.getImages());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private String render(String markdown, boolean prefetch, DocxImageTimings timings) {
+        MutableDataSet options = new MutableDataSet()
+                .set(DocxRenderer.IMAGE_PREFETCH, prefetch)
+                .set(DocxRenderer.IMAGE_TIMINGS, timings);
+        Node document = Parser.builder(options).build().parse(markdown);
+        return DocxRenderer.builder(options).build().render(document);
+    }
+
+    @Test
+    public void test_renderFileImages() throws IOException {
+        String markdown = "" +
+                "![png](" + imageUrl("image.png", imageBytes("png", 10, 5)) + ")\n" +
+                "\n" +
+                "![gif](" + imageUrl("image.gif", imageBytes("gif", 20, 5)) + ") ![gif][gif]\n" +
+                "\n" +
+                "[gif]: " + imageUrl("other.gif", imageBytes("gif", 30, 5)) + "\n" +
+                "";
+
+        DocxImageTimings prefetchTimings = new DocxImageTimings();
+        String prefetched = render(markdown, true, prefetchTimings);
+
+        DocxImageTimings renderTimings = new DocxImageTimings();
+        String rendered = render(markdown, false, renderTimings);
+
+        assertEquals(rendered, prefetched);
+        assertTrue(rendered.contains("/word/media/"));
+
+        assertEquals(3, prefetchTimings.getImages());
+        assertEquals(1, prefetchTimings.getPassedThrough());
+        assertEquals(2, prefetchTimings.getEncoded());
+
+        assertEquals(3, renderTimings.getImages());
+        assertEquals(1, renderTimings.getPassedThrough());
+        assertEquals(2, renderTimings.getEncoded());
+        assertEquals(0, renderTimings.getWaitNanos());
+    }
+}
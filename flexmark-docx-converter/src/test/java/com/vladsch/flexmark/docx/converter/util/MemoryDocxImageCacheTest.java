@@ -0,0 +1,97 @@
+package com.vladsch.flexmark.docx.converter.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MemoryDocxImageCacheTest {
+    @Test
+    public void test_hitsAndMisses() {
+        MemoryDocxImageCache cache = new MemoryDocxImageCache(100);
+        byte[] image = new byte[10];
+
+        assertNull(cache.get("a"));
+        cache.put("a", image);
+        assertSame(image, cache.get("a"));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.getBytes());
+    }
+
+    @Test
+    public void test_replaceCountsBytesOnce() {
+        MemoryDocxImageCache cache = new MemoryDocxImageCache(100);
+
+        cache.put("a", new byte[10]);
+        cache.put("a", new byte[30]);
+        assertEquals(1, cache.size());
+        assertEquals(30, cache.getBytes());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void test_evictsLeastRecentlyUsed() {
+        MemoryDocxImageCache cache = new MemoryDocxImageCache(100);
+
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        // a is now more recently used than b
+        cache.get("a");
+        cache.put("c", new byte[40]);
+
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getBytes());
+        assertNull(cache.get("b"));
+        assertEquals(40, cache.get("a").length);
+        assertEquals(40, cache.get("c").length);
+
+        // evicts as many as needed to fit
+        cache.put("d", new byte[90]);
+        assertEquals(1, cache.size());
+        assertEquals(90, cache.getBytes());
+    }
+
+    @Test
+    public void test_tooLargeNotCached() {
+        MemoryDocxImageCache cache = new MemoryDocxImageCache(100);
+
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[101]);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+        assertEquals(40, cache.getBytes());
+    }
+
+    @Test
+    public void test_timings() {
+        DocxImageTimings timings = new DocxImageTimings();
+
+        timings.addImage(10, 20, DocxImageTimings.CACHE_HIT);
+        timings.addImage(10, 20, DocxImageTimings.PASSED_THROUGH);
+        timings.addImage(10, 20, DocxImageTimings.PASSED_THROUGH);
+        timings.addImage(10, 20, DocxImageTimings.ENCODED);
+        timings.addImage(10, 0, DocxImageTimings.FAILED);
+        timings.addWait(5);
+
+        assertEquals(5, timings.getImages());
+        assertEquals(1, timings.getCacheHits());
+        assertEquals(2, timings.getPassedThrough());
+        assertEquals(1, timings.getEncoded());
+        assertEquals(1, timings.getFailed());
+        assertEquals(50, timings.getLoadNanos());
+        assertEquals(80, timings.getDecodeNanos());
+        assertEquals(5, timings.getWaitNanos());
+
+        timings.clear();
+        assertEquals(0, timings.getImages());
+        assertEquals(0, timings.getLoadNanos());
+    }
+}
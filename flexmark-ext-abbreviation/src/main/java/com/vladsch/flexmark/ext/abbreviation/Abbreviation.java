@@ -10,6 +10,10 @@ import com.vladsch.flexmark.util.sequence.BasedSequence;
 public class Abbreviation extends Node implements DoNotDecorate, DoNotLinkDecorate, ReferencingNode<AbbreviationRepository, AbbreviationBlock> {
     protected final BasedSequence abbreviation;
 
+    public Abbreviation() {
+        this.abbreviation = BasedSequence.NULL;
+    }
+
     public Abbreviation(BasedSequence chars, BasedSequence abbreviation) {
         super(chars);
         this.abbreviation = abbreviation;
@@ -0,0 +1,253 @@
+package com.vladsch.flexmark.ext.abbreviation.internal;
+
+import java.util.*;
+
+/**
+ * Finds abbreviations in text with an Aho-Corasick automaton
+ * <p>
+ * Matches are the same as those of a regex alternation of all abbreviations with longer ones first: the leftmost
+ * match is taken, at that position the longest abbreviation, and the search continues after its end. Abbreviations
+ * starting or ending with a letter or digit only match at a word boundary at that end, as regex {@code \b} does.
+ * <p>
+ * Matchers are immutable, {@link #of(Collection)} returns a shared matcher for recently used abbreviation sets so
+ * documents which include the same glossary do not build the automaton again.
+ */
+public class AbbreviationMatcher {
+    public static final int CACHE_SIZE = 32;
+
+    private static final Map<List<String>, AbbreviationMatcher> ourMatcherCache = Collections.synchronizedMap(new LinkedHashMap<List<String>, AbbreviationMatcher>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, AbbreviationMatcher> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    private final String[] abbreviations;
+    private final boolean[] boundaryBefore;
+    private final boolean[] boundaryAfter;
+
+    // automaton, state 0 is the root
+    private final int[] rootAscii;          // root transitions for ASCII characters, 0 if none
+    private final char[][] transitionChars;  // sorted characters of transitions of each state
+    private final int[][] transitionStates;
+    private final int[] failure;
+    private final int[] output;             // abbreviation ending at the state or -1
+    private final int[] outputLink;         // nearest state on the failure path with output or -1
+
+    /**
+     * Get a matcher for abbreviations, shared with other callers using the same abbreviations
+     *
+     * @param abbreviations abbreviations to match, must not be empty strings
+     * @return matcher
+     */
+    public static AbbreviationMatcher of(Collection<String> abbreviations) {
+        ArrayList<String> key = new ArrayList<String>(new TreeSet<String>(abbreviations));
+        AbbreviationMatcher matcher = ourMatcherCache.get(key);
+        if (matcher == null) {
+            matcher = new AbbreviationMatcher(key);
+            ourMatcherCache.put(key, matcher);
+        }
+        return matcher;
+    }
+
+    /**
+     * @param abbreviations abbreviations to match, must not be empty strings
+     */
+    public AbbreviationMatcher(Collection<String> abbreviations) {
+        this.abbreviations = new TreeSet<String>(abbreviations).toArray(new String[0]);
+
+        int iMax = this.abbreviations.length;
+        boundaryBefore = new boolean[iMax];
+        boundaryAfter = new boolean[iMax];
+
+        // build the trie
+        ArrayList<TreeMap<Character, Integer>> trie = new ArrayList<TreeMap<Character, Integer>>();
+        ArrayList<Integer> outputs = new ArrayList<Integer>();
+        trie.add(new TreeMap<Character, Integer>());
+        outputs.add(-1);
+
+        for (int i = 0; i < iMax; i++) {
+            String abbreviation = this.abbreviations[i];
+            if (abbreviation.isEmpty()) throw new IllegalArgumentException("abbreviation must not be empty");
+
+            boundaryBefore[i] = Character.isLetterOrDigit(abbreviation.charAt(0));
+            boundaryAfter[i] = Character.isLetterOrDigit(abbreviation.charAt(abbreviation.length() - 1));
+
+            int state = 0;
+            for (int j = 0; j < abbreviation.length(); j++) {
+                Character c = abbreviation.charAt(j);
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<Character, Integer>());
+                    outputs.add(-1);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.set(state, i);
+        }
+
+        int stateCount = trie.size();
+        transitionChars = new char[stateCount][];
+        transitionStates = new int[stateCount][];
+        output = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> transitions = trie.get(state);
+            char[] chars = new char[transitions.size()];
+            int[] states = new int[transitions.size()];
+            int j = 0;
+            for (Map.Entry<Character, Integer> entry : transitions.entrySet()) {
+                chars[j] = entry.getKey();
+                states[j] = entry.getValue();
+                j++;
+            }
+            transitionChars[state] = chars;
+            transitionStates[state] = states;
+            output[state] = outputs.get(state);
+        }
+
+        rootAscii = new int[128];
+        for (int j = 0; j < transitionChars[0].length && transitionChars[0][j] < 128; j++) {
+            rootAscii[transitionChars[0][j]] = transitionStates[0][j];
+        }
+
+        // failure and output links, breadth first so failure states are done before their use
+        failure = new int[stateCount];
+        outputLink = new int[stateCount];
+        outputLink[0] = -1;
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+
+        for (int next : transitionStates[0]) {
+            failure[next] = 0;
+            outputLink[next] = -1;
+            queue[tail++] = next;
+        }
+
+        while (head < tail) {
+            int state = queue[head++];
+            char[] chars = transitionChars[state];
+            int[] states = transitionStates[state];
+
+            for (int j = 0; j < chars.length; j++) {
+                int next = states[j];
+                int fail = transition(failure[state], chars[j]);
+                failure[next] = fail;
+                outputLink[next] = output[fail] >= 0 ? fail : outputLink[fail];
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    /**
+     * @return number of abbreviations
+     */
+    public int size() {
+        return abbreviations.length;
+    }
+
+    /**
+     * @param index abbreviation index from {@link #find(CharSequence)}
+     * @return abbreviation
+     */
+    public String getAbbreviation(int index) {
+        return abbreviations[index];
+    }
+
+    /**
+     * Find abbreviations in text
+     *
+     * @param text text to search
+     * @return start offset, end offset and abbreviation index of each match in text order or null if none found
+     */
+    public int[] find(CharSequence text) {
+        int iMax = text.length();
+        int[] longest = null;   // abbreviation index + 1 of longest match by start offset
+        int state = 0;
+
+        for (int i = 0; i < iMax; i++) {
+            state = transition(state, text.charAt(i));
+
+            for (int s = output[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+                int index = output[s];
+                int start = i + 1 - abbreviations[index].length();
+
+                if (boundaryBefore[index] && isWordBefore(text, start)) continue;
+                if (boundaryAfter[index] && isWordAt(text, i + 1)) continue;
+
+                if (longest == null) longest = new int[iMax];
+                int other = longest[start];
+                if (other == 0 || abbreviations[other - 1].length() < abbreviations[index].length()) {
+                    longest[start] = index + 1;
+                }
+            }
+        }
+
+        if (longest == null) return null;
+
+        int[] matches = new int[12];
+        int count = 0;
+        int i = 0;
+        while (i < iMax) {
+            int index = longest[i] - 1;
+            if (index < 0) {
+                i++;
+                continue;
+            }
+
+            if (count + 3 > matches.length) matches = Arrays.copyOf(matches, matches.length * 2);
+            int end = i + abbreviations[index].length();
+            matches[count++] = i;
+            matches[count++] = end;
+            matches[count++] = index;
+            i = end;
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private int transition(int state, char c) {
+        while (true) {
+            if (state == 0) {
+                if (c < 128) return rootAscii[c];
+                int j = Arrays.binarySearch(transitionChars[0], c);
+                return j >= 0 ? transitionStates[0][j] : 0;
+            }
+
+            char[] chars = transitionChars[state];
+            if (chars.length > 0) {
+                int j = chars.length == 1 ? (chars[0] == c ? 0 : -1) : Arrays.binarySearch(chars, c);
+                if (j >= 0) return transitionStates[state][j];
+            }
+            state = failure[state];
+        }
+    }
+
+    // word characters and boundaries as defined by java.util.regex for \b
+
+    private static boolean isWord(int c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isWordBefore(CharSequence text, int index) {
+        if (index <= 0) return false;
+        int c = Character.codePointBefore(text, index);
+        return isWord(c) || (Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index - 1));
+    }
+
+    private static boolean isWordAt(CharSequence text, int index) {
+        if (index >= text.length()) return false;
+        int c = Character.codePointAt(text, index);
+        return isWord(c) || (Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index));
+    }
+
+    private static boolean hasBaseCharacter(CharSequence text, int index) {
+        for (int i = index; i >= 0; i--) {
+            int c = Character.codePointAt(text, i);
+            if (Character.isLetterOrDigit(c)) return true;
+            if (Character.getType(c) != Character.NON_SPACING_MARK) return false;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vladsch.flexmark.ext.abbreviation;
+
+import com.vladsch.flexmark.ext.abbreviation.internal.AbbreviationMatcher;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class AbbreviationMatcherTest {
+    private static final String ALPHABET = "abcAB1_ .-+&\u00e9\u0301\u4e2d";
+
+    // abbreviation pattern as it was built before the matcher
+    private static Pattern regex(Collection<String> abbreviations) {
+        ArrayList<String> sorted = new ArrayList<String>(abbreviations);
+        Collections.sort(sorted, Collections.<String>reverseOrder());
+
+        StringBuilder sb = new StringBuilder();
+        for (String abbr : sorted) {
+            if (sb.length() > 0) sb.append("|");
+            if (Character.isLetterOrDigit(abbr.charAt(0))) sb.append("\\b");
+            sb.append("\\Q").append(abbr).append("\\E");
+            if (Character.isLetterOrDigit(abbr.charAt(abbr.length() - 1))) sb.append("\\b");
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    private static String matches(Pattern pattern, String text) {
+        StringBuilder sb = new StringBuilder();
+        Matcher m = pattern.matcher(text);
+        while (m.find()) {
+            sb.append(m.start()).append('-').append(m.end()).append(':').append(m.group()).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static String matches(AbbreviationMatcher matcher, String text) {
+        StringBuilder sb = new StringBuilder();
+        int[] matches = matcher.find(text);
+        if (matches != null) {
+            for (int i = 0; i < matches.length; i += 3) {
+                sb.append(matches[i]).append('-').append(matches[i + 1]).append(':').append(matcher.getAbbreviation(matches[i + 2])).append(' ');
+                assertEquals(matcher.getAbbreviation(matches[i + 2]), text.substring(matches[i], matches[i + 1]));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String random(Random random, int maxLength) {
+        int length = 1 + random.nextInt(maxLength);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void test_basic() throws Exception {
+        List<String> abbreviations = Arrays.asList("HTML", "HTML5", "CSS", "C++", ".NET", "A&B");
+        AbbreviationMatcher matcher = new AbbreviationMatcher(abbreviations);
+
+        assertEquals("0-4:HTML 9-12:CSS ", matches(matcher, "HTML and CSS"));
+        assertEquals("0-5:HTML5 ", matches(matcher, "HTML5"));
+        assertEquals("", matches(matcher, "XHTML HTML_ HTML55"));
+        assertEquals("0-3:C++ 8-12:.NET 13-16:A&B ", matches(matcher, "C++ and .NET A&B"));
+        assertEquals("", matches(matcher, "xC++"));
+        assertEquals("2-5:C++ ", matches(matcher, "x C++x"));
+        assertNull(matcher.find("nothing here"));
+    }
+
+    @Test
+    public void test_random() throws Exception {
+        Random random = new Random(1);
+
+        for (int i = 0; i < 2000; i++) {
+            HashSet<String> abbreviations = new HashSet<String>();
+            int count = 1 + random.nextInt(20);
+            while (abbreviations.size() < count) {
+                abbreviations.add(random(random, 4));
+            }
+
+            Pattern pattern = regex(abbreviations);
+            AbbreviationMatcher matcher = new AbbreviationMatcher(abbreviations);
+
+            for (int j = 0; j < 20; j++) {
+                String text = random(random, 60);
+                assertEquals("abbreviations: " + abbreviations + " text: '" + text + "'", matches(pattern, text), matches(matcher, text));
+            }
+        }
+    }
+
+    @Test
+    public void test_cached() throws Exception {
+        AbbreviationMatcher matcher = AbbreviationMatcher.of(Arrays.asList("HTML", "CSS"));
+        assertSame(matcher, AbbreviationMatcher.of(new HashSet<String>(Arrays.asList("CSS", "HTML"))));
+        assertNotSame(matcher, AbbreviationMatcher.of(Arrays.asList("HTML", "CSS", "JS")));
+    }
+}
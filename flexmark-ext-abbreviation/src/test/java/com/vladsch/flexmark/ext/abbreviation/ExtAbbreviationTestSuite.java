@@ -6,6 +6,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
         ComboAbbreviationSpecTest.class,
         ComboAbbreviationFormatterSpecTest.class,
+        AbbreviationMatcherTest.class,
 })
 public class ExtAbbreviationTestSuite {
 }
@@ -67,7 +67,7 @@ public class AdmonitionBlockParser extends AbstractBlockParser {
         block.setCharsFromContent();
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -83,6 +83,16 @@ public class AdmonitionBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "?!";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
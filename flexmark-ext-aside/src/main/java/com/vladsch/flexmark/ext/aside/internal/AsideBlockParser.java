@@ -87,7 +87,7 @@ public class AsideBlockParser extends AbstractBlockParser {
         return tailBlanks + 1 < line.length() && line.charAt(line.length() - tailBlanks - 1) == '|';
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @SuppressWarnings("UnnecessaryLocalVariable")
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
@@ -123,6 +123,16 @@ public class AsideBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "|";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
@@ -37,11 +37,73 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
         return false;
     }
 
+    private static final int HAS_TRIGGER = 1;
+    private static final int HAS_ESCAPE = 2;
+
+    /**
+     * Single pass scan for characters at which the link extractor can find a link and for characters which unescaping
+     * can change
+     * <p>
+     * Link extraction only starts at ':' for URLs, '@' for e-mail and "www." for WWW links. Unescaping only replaces
+     * backslash escapes and character entities.
+     *
+     * @param chars text to scan
+     * @return {@link #HAS_TRIGGER} and {@link #HAS_ESCAPE} flags found in text
+     */
+    static int scan(CharSequence chars) {
+        int flags = 0;
+        int iMax = chars.length();
+
+        for (int i = 0; i < iMax; i++) {
+            char c = chars.charAt(i);
+            switch (c) {
+                case ':':
+                case '@':
+                    flags |= HAS_TRIGGER;
+                    break;
+
+                case 'w':
+                    if (i + 3 < iMax && chars.charAt(i + 1) == 'w' && chars.charAt(i + 2) == 'w' && chars.charAt(i + 3) == '.') {
+                        flags |= HAS_TRIGGER;
+                    }
+                    break;
+
+                case '\\':
+                case '&':
+                    flags |= HAS_ESCAPE;
+                    break;
+
+                default:
+                    continue;
+            }
+
+            if (flags == (HAS_TRIGGER | HAS_ESCAPE)) break;
+        }
+        return flags;
+    }
+
+    private static int originalOffset(ReplacedTextMapper textMapper, int index) {
+        return textMapper == null ? index : textMapper.originalOffset(index);
+    }
+
     @Override
     public void process(NodeTracker state, Node node) {
         BasedSequence original = node.getChars();
-        ReplacedTextMapper textMapper = new ReplacedTextMapper(original);
-        BasedSequence literal = Escaping.unescape(original, textMapper);
+        int flags = scan(original);
+        if (flags == 0) return;
+
+        // text mapper is only needed if unescaping changes the text
+        ReplacedTextMapper textMapper = null;
+        BasedSequence literal = original;
+
+        if ((flags & HAS_ESCAPE) != 0) {
+            textMapper = new ReplacedTextMapper(original);
+            literal = Escaping.unescape(original, textMapper);
+            if ((scan(literal) & HAS_TRIGGER) == 0) return;
+        } else if ((flags & HAS_TRIGGER) == 0) {
+            return;
+        }
+
         Iterable<LinkSpan> links = linkExtractor.extractLinks(literal);
         int lastEscaped = 0;
         boolean wrapInTextBase = !(node.getParent() instanceof TextBase);
@@ -51,7 +113,7 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
             BasedSequence linkText = literal.subSequence(link.getBeginIndex(), link.getEndIndex()).trimEnd();
             if (isIgnoredLinkPrefix(linkText)) continue;
 
-            int startOffset = textMapper.originalOffset(link.getBeginIndex());
+            int startOffset = originalOffset(textMapper, link.getBeginIndex());
 
             if (wrapInTextBase) {
                 wrapInTextBase = false;
@@ -83,7 +145,7 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
             textBase.appendChild(linkNode);
             state.nodeAddedWithChildren(linkNode);
 
-            lastEscaped = textMapper.originalOffset(link.getBeginIndex() + linkText.length());
+            lastEscaped = originalOffset(textMapper, link.getBeginIndex() + linkText.length());
         }
 
         if (lastEscaped > 0) {
@@ -58,6 +58,18 @@ public class AutolinkTest extends RenderingTestCase {
                 "<p><a href=\"http://example.com\">http://example.com</a></p>\n");
     }
 
+    @Test
+    public void noTrigger() {
+        assertRendering("plain text with w.w and ww. and a \\* star &amp; entity",
+                "<p>plain text with w.w and ww. and a * star &amp; entity</p>\n");
+    }
+
+    @Test
+    public void triggerFromEscape() {
+        assertRendering("mail foo\\@example.com &amp; www.example.com",
+                "<p>mail <a href=\"mailto:foo@example.com\">foo@example.com</a> &amp; <a href=\"http://www.example.com\">www.example.com</a></p>\n");
+    }
+
     @Override
     public Parser parser() {
         return PARSER;
@@ -191,7 +191,7 @@ public class DefinitionItemBlockParser extends AbstractBlockParser {
 
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
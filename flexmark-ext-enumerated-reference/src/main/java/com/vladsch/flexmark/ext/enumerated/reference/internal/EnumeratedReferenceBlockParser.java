@@ -83,7 +83,7 @@ public class EnumeratedReferenceBlockParser extends AbstractBlockParser {
         return true;
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -99,6 +99,16 @@ public class EnumeratedReferenceBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "[";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
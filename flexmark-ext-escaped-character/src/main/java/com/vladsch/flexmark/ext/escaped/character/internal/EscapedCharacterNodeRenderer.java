@@ -5,8 +5,8 @@ import com.vladsch.flexmark.html.CustomNodeRenderer;
 import com.vladsch.flexmark.html.HtmlWriter;
 import com.vladsch.flexmark.html.renderer.NodeRenderer;
 import com.vladsch.flexmark.html.renderer.NodeRendererContext;
-import com.vladsch.flexmark.html.renderer.NodeRendererFactory;
 import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.html.renderer.StatelessNodeRendererFactory;
 import com.vladsch.flexmark.util.options.DataHolder;
 
 import java.util.HashSet;
@@ -36,7 +36,7 @@ public class EscapedCharacterNodeRenderer implements NodeRenderer {
         html.text(node.getChars().unescape());
     }
 
-    public static class Factory implements NodeRendererFactory {
+    public static class Factory implements StatelessNodeRendererFactory {
         @Override
         public NodeRenderer create(final DataHolder options) {
             return new EscapedCharacterNodeRenderer(options);
@@ -82,7 +82,7 @@ public class FootnoteBlockParser extends AbstractBlockParser {
         return true;
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -98,6 +98,16 @@ public class FootnoteBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "[";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
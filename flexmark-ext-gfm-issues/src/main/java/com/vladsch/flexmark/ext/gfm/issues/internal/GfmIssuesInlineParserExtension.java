@@ -4,6 +4,7 @@ import com.vladsch.flexmark.ext.gfm.issues.GfmIssue;
 import com.vladsch.flexmark.parser.InlineParser;
 import com.vladsch.flexmark.parser.InlineParserExtension;
 import com.vladsch.flexmark.parser.InlineParserExtensionFactory;
+import com.vladsch.flexmark.parser.ParallelInlineParsingSafe;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 
 import java.util.Set;
@@ -43,7 +44,7 @@ public class GfmIssuesInlineParserExtension implements InlineParserExtension {
         return false;
     }
 
-    public static class Factory implements InlineParserExtensionFactory {
+    public static class Factory implements InlineParserExtensionFactory, ParallelInlineParsingSafe {
         @Override
         public Set<Class<? extends InlineParserExtensionFactory>> getAfterDependents() {
             return null;
@@ -7,8 +7,8 @@ import com.vladsch.flexmark.html.CustomNodeRenderer;
 import com.vladsch.flexmark.html.HtmlWriter;
 import com.vladsch.flexmark.html.renderer.NodeRenderer;
 import com.vladsch.flexmark.html.renderer.NodeRendererContext;
-import com.vladsch.flexmark.html.renderer.NodeRendererFactory;
 import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.html.renderer.StatelessNodeRendererFactory;
 import com.vladsch.flexmark.util.options.DataHolder;
 
 import java.util.HashSet;
@@ -79,7 +79,7 @@ public class StrikethroughNodeRenderer implements NodeRenderer {
         }
     }
 
-    public static class Factory implements NodeRendererFactory {
+    public static class Factory implements StatelessNodeRendererFactory {
         @Override
         public NodeRenderer create(final DataHolder options) {
             return new StrikethroughNodeRenderer(options);
@@ -4,11 +4,12 @@ import com.vladsch.flexmark.ast.Node;
 import com.vladsch.flexmark.ext.gfm.strikethrough.Subscript;
 import com.vladsch.flexmark.internal.Delimiter;
 import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.ParallelInlineParsingSafe;
 import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
 import com.vladsch.flexmark.parser.delimiter.DelimiterRun;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 
-public class SubscriptDelimiterProcessor implements DelimiterProcessor {
+public class SubscriptDelimiterProcessor implements DelimiterProcessor, ParallelInlineParsingSafe {
 
     @Override
     public char getOpeningCharacter() {
@@ -5,13 +5,19 @@ import com.vladsch.flexmark.ast.Node;
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.spec.SpecExample;
+import com.vladsch.flexmark.test.AstCollectingVisitor;
 import com.vladsch.flexmark.test.RenderingTestCase;
+import com.vladsch.flexmark.util.options.MutableDataSet;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class StrikethroughTest extends RenderingTestCase {
 
@@ -24,6 +30,40 @@ public class StrikethroughTest extends RenderingTestCase {
         return null;
     }
 
+    @Test
+    public void parallelInlineParsing() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("Paragraph ").append(i).append(" ~~struck ").append(i).append("~~ and ~sub~ ~~~not~~ *em*\n\n");
+        }
+        String markdown = sb.toString();
+        Node expected = PARSER.parse(markdown);
+
+        final AtomicInteger workers = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                workers.incrementAndGet();
+                return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            }
+        }, null, false);
+
+        try {
+            Parser parser = Parser.builder(new MutableDataSet()
+                    .set(Parser.PARALLEL_INLINE_PARSING, true)
+                    .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+                    .set(Parser.PARALLEL_INLINE_PARSING_POOL, pool)
+            ).extensions(EXTENSIONS).build();
+            Node document = parser.parse(markdown);
+
+            // strikethrough delimiter processors do not prevent parallel parsing
+            assertTrue(workers.get() > 0);
+            assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(document));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void oneTildeIsNotEnough() {
         assertRendering("~foo~", "<p>~foo~</p>\n");
@@ -228,7 +228,7 @@ public class TableBlockParser extends AbstractBlockParser {
         }
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -244,6 +244,16 @@ public class TableBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "|:-";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return true;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
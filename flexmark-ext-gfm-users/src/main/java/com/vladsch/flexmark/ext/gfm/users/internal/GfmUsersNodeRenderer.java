@@ -5,8 +5,8 @@ import com.vladsch.flexmark.html.CustomNodeRenderer;
 import com.vladsch.flexmark.html.HtmlWriter;
 import com.vladsch.flexmark.html.renderer.NodeRenderer;
 import com.vladsch.flexmark.html.renderer.NodeRendererContext;
-import com.vladsch.flexmark.html.renderer.NodeRendererFactory;
 import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.html.renderer.StatelessNodeRendererFactory;
 import com.vladsch.flexmark.util.options.DataHolder;
 
 import java.util.HashSet;
@@ -48,7 +48,7 @@ public class GfmUsersNodeRenderer implements NodeRenderer
         }
     }
 
-    public static class Factory implements NodeRendererFactory {
+    public static class Factory implements StatelessNodeRendererFactory {
         @Override
         public NodeRenderer create(final DataHolder options) {
             return new GfmUsersNodeRenderer(options);
@@ -50,7 +50,7 @@ public class JekyllTagBlockParser extends AbstractBlockParser {
 
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -84,6 +84,16 @@ public class JekyllTagBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "{";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
@@ -96,7 +106,7 @@ public class JekyllTagBlockParser extends AbstractBlockParser {
 
         BlockFactory(DataHolder options) {
             super(options);
-            this.parsing = new JekyllTagParsing(new Parsing(options));
+            this.parsing = JekyllTagParsing.of(Parsing.of(options));
             listIncludesOnly = JekyllTagExtension.LIST_INCLUDES_ONLY.getFrom(options);
         }
 
@@ -16,7 +16,7 @@ public class JekyllTagInlineParserExtension implements InlineParserExtension {
     private final boolean listIncludesOnly;
 
     public JekyllTagInlineParserExtension(final InlineParser inlineParser) {
-        this.parsing = new JekyllTagParsing(inlineParser.getParsing());
+        this.parsing = JekyllTagParsing.of(inlineParser.getParsing());
         this.listIncludesOnly = JekyllTagExtension.LIST_INCLUDES_ONLY.getFrom(inlineParser.getDocument());
     }
 
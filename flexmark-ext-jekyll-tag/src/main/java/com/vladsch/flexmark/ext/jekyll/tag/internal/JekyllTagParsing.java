@@ -2,9 +2,22 @@ package com.vladsch.flexmark.ext.jekyll.tag.internal;
 
 import com.vladsch.flexmark.ast.util.Parsing;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 class JekyllTagParsing {
+    private static final ConcurrentHashMap<Parsing, JekyllTagParsing> ourParsingCache = new ConcurrentHashMap<Parsing, JekyllTagParsing>();
+
+    static JekyllTagParsing of(Parsing parsing) {
+        JekyllTagParsing tagParsing = ourParsingCache.get(parsing);
+        if (tagParsing == null) {
+            tagParsing = new JekyllTagParsing(parsing);
+            JekyllTagParsing existing = ourParsingCache.putIfAbsent(parsing, tagParsing);
+            if (existing != null) tagParsing = existing;
+        }
+        return tagParsing;
+    }
+
     final Parsing myParsing;
     final String OPEN_MACROTAG;
     final Pattern MACRO_OPEN;
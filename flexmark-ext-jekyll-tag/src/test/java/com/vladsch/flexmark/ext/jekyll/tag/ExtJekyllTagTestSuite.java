@@ -5,6 +5,7 @@ import org.junit.runners.Suite;
 @org.junit.runner.RunWith(Suite.class)
 @Suite.SuiteClasses({
         ComboJekyllTagSpecTest.class,
+        JekyllTagTest.class,
 })
 public class ExtJekyllTagTestSuite {
 }
@@ -0,0 +1,45 @@
+package com.vladsch.flexmark.ext.jekyll.tag;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class JekyllTagTest {
+    @Test
+    public void parallelInlineParsingTagList() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("Paragraph ").append(i).append(" {% include file").append(i).append(".html %} text\n\n");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parser parser = Parser.builder(new MutableDataSet()
+                    .set(Parser.EXTENSIONS, Collections.singleton(JekyllTagExtension.create()))
+                    .set(JekyllTagExtension.LIST_INCLUDES_ONLY, false)
+                    .set(Parser.PARALLEL_INLINE_PARSING, true)
+                    .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+                    .set(Parser.PARALLEL_INLINE_PARSING_POOL, pool)
+            ).build();
+
+            for (int j = 0; j < 10; j++) {
+                Document document = parser.parse(sb.toString());
+                List<JekyllTag> tagList = JekyllTagExtension.TAG_LIST.getFrom(document);
+
+                assertEquals(1000, tagList.size());
+                for (int i = 0; i < 1000; i++) {
+                    assertEquals("file" + i + ".html", tagList.get(i).getParameters().toString());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -277,7 +277,7 @@ public class SpecExampleBlockParser extends AbstractBlockParser {
         content = null;
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return new HashSet<Class<? extends CustomBlockParserFactory>>(Arrays.asList(
@@ -3,12 +3,13 @@ package com.vladsch.flexmark.superscript.internal;
 import com.vladsch.flexmark.ast.Node;
 import com.vladsch.flexmark.internal.Delimiter;
 import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.ParallelInlineParsingSafe;
 import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
 import com.vladsch.flexmark.parser.delimiter.DelimiterRun;
 import com.vladsch.flexmark.superscript.Superscript;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 
-public class SuperscriptDelimiterProcessor implements DelimiterProcessor {
+public class SuperscriptDelimiterProcessor implements DelimiterProcessor, ParallelInlineParsingSafe {
 
     @Override
     public char getOpeningCharacter() {
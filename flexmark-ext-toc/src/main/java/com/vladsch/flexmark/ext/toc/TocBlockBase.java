@@ -30,6 +30,9 @@ public abstract class TocBlockBase extends CustomBlock {
         return allSegments;
     }
 
+    public TocBlockBase() {
+    }
+
     public TocBlockBase(BasedSequence chars) {
         this(chars, false);
     }
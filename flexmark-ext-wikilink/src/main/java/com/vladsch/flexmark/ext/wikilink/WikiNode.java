@@ -69,6 +69,10 @@ public class WikiNode extends CustomNode implements DoNotDecorate {
         return linkIsFirst;
     }
 
+    public WikiNode() {
+        this(false);
+    }
+
     public WikiNode(boolean linkIsFirst) {
         this.linkIsFirst = linkIsFirst;
     }
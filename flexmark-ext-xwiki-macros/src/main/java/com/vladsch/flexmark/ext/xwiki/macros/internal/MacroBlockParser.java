@@ -140,7 +140,7 @@ public class MacroBlockParser extends AbstractBlockParser {
         }
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -174,6 +174,16 @@ public class MacroBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "{";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
@@ -187,7 +197,7 @@ public class MacroBlockParser extends AbstractBlockParser {
         BlockFactory(DataHolder options) {
             super(options);
             this.options = new MacroOptions(options);
-            this.parsing = new MacroParsing(new Parsing(options));
+            this.parsing = MacroParsing.of(Parsing.of(options));
         }
 
         @Override
@@ -18,7 +18,7 @@ public class MacroInlineParser implements InlineParserExtension {
     private List<Macro> openMacros;
 
     public MacroInlineParser(final InlineParser inlineParser) {
-        this.parsing = new MacroParsing(inlineParser.getParsing());
+        this.parsing = MacroParsing.of(inlineParser.getParsing());
         this.openMacros = new ArrayList<Macro>();
     }
 
@@ -2,9 +2,22 @@ package com.vladsch.flexmark.ext.xwiki.macros.internal;
 
 import com.vladsch.flexmark.ast.util.Parsing;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 class MacroParsing {
+    private static final ConcurrentHashMap<Parsing, MacroParsing> ourParsingCache = new ConcurrentHashMap<Parsing, MacroParsing>();
+
+    static MacroParsing of(Parsing parsing) {
+        MacroParsing macroParsing = ourParsingCache.get(parsing);
+        if (macroParsing == null) {
+            macroParsing = new MacroParsing(parsing);
+            MacroParsing existing = ourParsingCache.putIfAbsent(parsing, macroParsing);
+            if (existing != null) macroParsing = existing;
+        }
+        return macroParsing;
+    }
+
     final Parsing myParsing;
     final String OPEN_MACROTAG;
     final String CLOSE_MACROTAG;
@@ -14,6 +14,9 @@ public class YamlFrontMatterNode extends CustomNode {
         return EMPTY_SEGMENTS;
     }
 
+    public YamlFrontMatterNode() {
+    }
+
     public YamlFrontMatterNode(String key, List<String> values) {
         this.key = key;
         this.values = values;
@@ -53,7 +53,7 @@ public class ZzzzzzBlockParser extends AbstractBlockParser {
     public void parseInlines(InlineParser inlineParser) {
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return null;
@@ -7,6 +7,7 @@ import org.junit.runners.Suite;
     BoundsIntegrationTest.class,
         SpecIntegrationTest.class,
         ComboParserTest.class,
+        SerializerIntegrationTest.class,
 })
 public class IntegrationTestSuite {
 }
@@ -0,0 +1,112 @@
+package com.vladsch.flexmark.integration;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.emoji.EmojiExtension;
+import com.vladsch.flexmark.ext.footnotes.FootnoteExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.ext.wikilink.WikiLinkExtension;
+import com.vladsch.flexmark.ext.yaml.front.matter.YamlFrontMatterExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.serialization.DocumentSerializer;
+import com.vladsch.flexmark.spec.SpecExample;
+import com.vladsch.flexmark.spec.SpecReader;
+import com.vladsch.flexmark.test.AstCollectingVisitor;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that documents parsed with extensions render the same after being serialized and read back.
+ */
+@RunWith(Parameterized.class)
+public class SerializerIntegrationTest {
+    private static final DataHolder OPTIONS = new MutableDataSet()
+            .set(Parser.EXTENSIONS, Arrays.asList(
+                    TablesExtension.create(),
+                    TaskListExtension.create(),
+                    FootnoteExtension.create(),
+                    WikiLinkExtension.create(),
+                    AutolinkExtension.create(),
+                    AbbreviationExtension.create(),
+                    EmojiExtension.create(),
+                    StrikethroughExtension.create(),
+                    YamlFrontMatterExtension.create()
+            ));
+
+    private static final Parser PARSER = Parser.builder(OPTIONS).build();
+    private static final HtmlRenderer RENDERER = HtmlRenderer.builder(OPTIONS).build();
+    private static final DocumentSerializer SERIALIZER = DocumentSerializer.builder(OPTIONS).build();
+
+    private final String source;
+
+    public SerializerIntegrationTest(String name, String source) {
+        this.source = source;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> data() {
+        List<SpecExample> examples = new ArrayList<SpecExample>(SpecReader.readExamples());
+        examples.addAll(SpecReader.readExamples(ComboParserTest.SPEC_RESOURCE));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (SpecExample example : examples) {
+            data.add(new Object[] { example.getSection() + ": " + example.getExampleNumber(), example.getSource() });
+        }
+
+        data.add(new Object[] { "combined", "" +
+                "---\n" +
+                "title: Serialized\n" +
+                "tags:\n" +
+                "  - one\n" +
+                "  - two\n" +
+                "---\n" +
+                "\n" +
+                "The HTML[^1] spec by the W3C[^2] has [[wiki link|text]] and ![[image]].\n" +
+                "\n" +
+                "*[HTML]: Hyper Text Markup Language\n" +
+                "*[W3C]:  World Wide Web Consortium\n" +
+                "\n" +
+                "| Column | Other |\n" +
+                "|:-------|------:|\n" +
+                "| HTML   | ~~x~~ |\n" +
+                "[Caption with W3C]\n" +
+                "\n" +
+                "* [ ] task :smile:\n" +
+                "* [x] done www.example.com\n" +
+                "\n" +
+                "[^1]: footnote with [reference]\n" +
+                "[^2]: other footnote\n" +
+                "[^3]: not referenced\n" +
+                "\n" +
+                "[reference]: /url\n" +
+                ""
+        });
+        return data;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        BasedSequence input = CharSubSequence.of(source);
+        Document expected = PARSER.parse(input);
+        Document document = SERIALIZER.read(SERIALIZER.write(expected), input);
+
+        assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(document));
+        assertEquals(RENDERER.render(expected), RENDERER.render(document));
+    }
+}
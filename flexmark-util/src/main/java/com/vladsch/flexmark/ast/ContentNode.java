@@ -45,6 +45,12 @@ public abstract class ContentNode extends Node implements Content {
         this.lineSegments = blockContent.getLines();
     }
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        lineSegments = shifter.shift(lineSegments);
+    }
+
     @Override
     public BasedSequence getSpanningChars() {
         return getSpanningChars(lineSegments);
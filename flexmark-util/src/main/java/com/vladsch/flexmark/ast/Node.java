@@ -214,6 +214,19 @@ public abstract class Node {
         this.chars = chars == null ? BasedSequence.NULL : chars;
     }
 
+    /**
+     * Move the node to an edited copy of the text it was parsed from, children are shifted by the caller
+     * <p>
+     * Node classes which keep sequences or offsets in their own fields must override this, shift their fields with
+     * the shifter and call super. Classes declaring sequence fields without overriding it cause
+     * {@link NodeOffsetShifter#canShift(Node)} to return false.
+     *
+     * @param shifter shifter for sequences and offsets of the old text
+     */
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        chars = shifter.shift(chars);
+    }
+
     public Node getNext() {
         return next;
     }
@@ -0,0 +1,190 @@
+package com.vladsch.flexmark.ast;
+
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.PrefixedSubSequence;
+import com.vladsch.flexmark.util.sequence.SegmentedSequence;
+import com.vladsch.flexmark.util.sequence.SubSequence;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Moves nodes parsed from one text to an edited copy of the text
+ * <p>
+ * Nodes are moved by {@link Node#shiftOffsets(NodeOffsetShifter)}, which node classes override to shift the
+ * sequences and offsets they keep. Sequences based on one of the old texts are replaced by sequences of the new text
+ * with offsets shifted by the delta, characters which are not from the base text are kept.
+ */
+public class NodeOffsetShifter {
+    private static final ClassValue<Boolean> SHIFTABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> aClass = type; aClass != Node.class; aClass = aClass.getSuperclass()) {
+                if (declaresSequenceFields(aClass)) {
+                    try {
+                        aClass.getDeclaredMethod("shiftOffsets", NodeOffsetShifter.class);
+                    } catch (NoSuchMethodException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
+
+    private final Collection<?> oldBases;
+    private final BasedSequence newBase;
+    private final int delta;
+
+    /**
+     * @param oldBases bases of texts the nodes' sequences can be based on, see {@link BasedSequence#getBase()}
+     * @param newChars chars of the edited text
+     * @param delta    amount to add to offsets
+     */
+    public NodeOffsetShifter(Collection<?> oldBases, BasedSequence newChars, int delta) {
+        this.oldBases = oldBases;
+        this.newBase = newChars.getBaseSequence();
+        this.delta = delta;
+    }
+
+    /**
+     * @return amount added to offsets
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Test if a node and all its descendants can be shifted
+     * <p>
+     * Every class of the node's hierarchy which declares sequence, sequence array or collection fields must also
+     * declare {@link Node#shiftOffsets(NodeOffsetShifter)}, otherwise its fields would keep sequences of the old text.
+     * Offsets kept in int fields cannot be detected, node classes with such fields must override it to shift them.
+     *
+     * @param node node to test
+     * @return true if the node and its descendants can be shifted
+     */
+    public static boolean canShift(Node node) {
+        if (!SHIFTABLE.get(node.getClass())) return false;
+
+        Node child = node.getFirstChild();
+        while (child != null) {
+            if (!canShift(child)) return false;
+            child = child.getNext();
+        }
+        return true;
+    }
+
+    private static boolean declaresSequenceFields(Class<?> aClass) {
+        for (Field field : aClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+
+            Class<?> fieldType = field.getType();
+            if (BasedSequence.class.isAssignableFrom(fieldType) || Collection.class.isAssignableFrom(fieldType)
+                    || (fieldType.isArray() && BasedSequence.class.isAssignableFrom(fieldType.getComponentType()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Shift a node and all its descendants
+     *
+     * @param node node to shift
+     */
+    public void shift(Node node) {
+        node.shiftOffsets(this);
+
+        Node child = node.getFirstChild();
+        while (child != null) {
+            shift(child);
+            child = child.getNext();
+        }
+    }
+
+    /**
+     * Shift an offset
+     *
+     * @param offset offset in the old text
+     * @return offset in the new text
+     */
+    public int shift(int offset) {
+        return offset + delta;
+    }
+
+    /**
+     * Shift sequences of a list
+     * <p>
+     * A new list is returned since lists of line segments can be shared by nodes, as when a paragraph uses
+     * a sub list of the lines of the block it was created from.
+     *
+     * @param sequences sequences to shift
+     * @return list of shifted sequences
+     */
+    public List<BasedSequence> shift(List<BasedSequence> sequences) {
+        if (sequences.isEmpty()) return sequences;
+
+        ArrayList<BasedSequence> shifted = new ArrayList<BasedSequence>(sequences.size());
+        for (BasedSequence sequence : sequences) {
+            shifted.add(shift(sequence));
+        }
+        return shifted;
+    }
+
+    /**
+     * Shift a sequence
+     *
+     * @param chars sequence to shift
+     * @return sequence of the new text or chars if it is not based on an old text
+     */
+    public BasedSequence shift(BasedSequence chars) {
+        if (chars == null || !isOldBase(chars.getBase())) return chars;
+
+        if (chars instanceof SubSequence || chars instanceof CharSubSequence) {
+            return newBase.baseSubSequence(chars.getStartOffset() + delta, chars.getEndOffset() + delta);
+        }
+
+        // composed sequence, rebuild from runs of consecutive offsets and characters not from the base
+        ArrayList<BasedSequence> segments = new ArrayList<BasedSequence>();
+        StringBuilder prefix = null;
+        int iMax = chars.length();
+        int i = 0;
+
+        while (i < iMax) {
+            int offset = chars.getIndexOffset(i);
+            if (offset < 0) {
+                if (prefix == null) prefix = new StringBuilder();
+                prefix.append(chars.charAt(i));
+                i++;
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < iMax && chars.getIndexOffset(end) == offset + end - i) end++;
+
+            BasedSequence run = newBase.baseSubSequence(offset + delta, offset + delta + end - i);
+            segments.add(prefix == null ? run : PrefixedSubSequence.of(prefix.toString(), run));
+            prefix = null;
+            i = end;
+        }
+
+        BasedSequence empty = newBase.baseSubSequence(chars.getEndOffset() + delta, chars.getEndOffset() + delta);
+        if (prefix != null) {
+            segments.add(PrefixedSubSequence.of(prefix.toString(), empty));
+        }
+
+        return SegmentedSequence.of(segments, empty);
+    }
+
+    private boolean isOldBase(Object base) {
+        for (Object oldBase : oldBases) {
+            if (oldBase == base) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.vladsch.flexmark.util.collection;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable map of characters to values
+ * <p>
+ * Values of ASCII characters are kept in an array indexed by character, other characters are looked up in a hash map.
+ * {@link #get(char)} and {@link #containsKey(char)} do not box the character.
+ *
+ * @param <V> value type
+ */
+public class CharacterMap<V> extends AbstractMap<Character, V> {
+    private static final int ARRAY_SIZE = 128;
+
+    private final Object[] asciiValues;
+    private final boolean[] asciiKeys;
+    private final Map<Character, V> map;
+    private final boolean hasNonAscii;
+
+    /**
+     * @param map map to copy
+     */
+    public CharacterMap(Map<Character, ? extends V> map) {
+        this.asciiValues = new Object[ARRAY_SIZE];
+        this.asciiKeys = new boolean[ARRAY_SIZE];
+        this.map = Collections.unmodifiableMap(new HashMap<Character, V>(map));
+
+        boolean hasNonAscii = false;
+        for (Map.Entry<Character, ? extends V> entry : map.entrySet()) {
+            char c = entry.getKey();
+            if (c < ARRAY_SIZE) {
+                asciiValues[c] = entry.getValue();
+                asciiKeys[c] = true;
+            } else {
+                hasNonAscii = true;
+            }
+        }
+        this.hasNonAscii = hasNonAscii;
+    }
+
+    /**
+     * @param c character
+     * @return value for the character or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(char c) {
+        if (c < ARRAY_SIZE) return (V) asciiValues[c];
+        return hasNonAscii ? map.get(c) : null;
+    }
+
+    /**
+     * @param c character
+     * @return true if the map has the character
+     */
+    public boolean containsKey(char c) {
+        if (c < ARRAY_SIZE) return asciiKeys[c];
+        return hasNonAscii && map.containsKey(c);
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Character ? get(((Character) key).charValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Character && containsKey(((Character) key).charValue());
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Set<Entry<Character, V>> entrySet() {
+        return map.entrySet();
+    }
+}
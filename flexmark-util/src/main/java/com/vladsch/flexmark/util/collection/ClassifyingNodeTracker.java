@@ -7,17 +7,20 @@ import com.vladsch.flexmark.util.collection.iteration.ReversibleIterator;
 import com.vladsch.flexmark.util.collection.iteration.ReversiblePeekingIterable;
 import com.vladsch.flexmark.util.mappers.NodeClassifier;
 
-import java.util.BitSet;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class ClassifyingNodeTracker implements NodeTracker {
     protected final ClassificationBag<Class<?>, Node> myNodeClassifier;
     private final NodeTracker myHost;
     private final OrderedMap<Class<?>, Set<Class<?>>> myExclusionMap;
     private final OrderedSet<Class<?>> myExclusionSet;
-    private final HashMap<Integer, BitSet> myNodeAncestryMap;
+
+    // node ancestry is an id of a distinct set of exclusion classes of the node and its ancestors, 0 for the empty set
+    // most nodes share a few sets so these are interned and each node index only keeps the id
+    private int[] myNodeAncestry;
+    private final ArrayList<BitSet> myAncestrySets;
+    private final HashMap<BitSet, Integer> myAncestryIds;
+    private final ArrayList<int[]> myAncestryTransitions;
 
     public ClassifyingNodeTracker(NodeTracker host, Map<Class<? extends Node>, Set<Class<?>>> exclusionMap) {
         myHost = host;
@@ -32,15 +35,109 @@ public class ClassifyingNodeTracker implements NodeTracker {
         while (iterator.hasNext()) {
             myExclusionSet.addAll(iterator.next());
         }
-        myNodeAncestryMap = new HashMap<Integer, BitSet>();
+
+        myNodeAncestry = new int[0];
+        myAncestrySets = new ArrayList<BitSet>();
+        myAncestryIds = new HashMap<BitSet, Integer>();
+        myAncestryTransitions = new ArrayList<int[]>();
+        internAncestry(new BitSet());
     }
 
     public OrderedMap<Class<?>, Set<Class<?>>> getExclusionMap() {
         return myExclusionMap;
     }
 
+    /**
+     * Get a map of node index to exclusion classes of the node and its ancestors
+     * <p>
+     * The map is created on every call from the interned ancestry sets, changes to it are not reflected in the tracker.
+     *
+     * @return map of node index in {@link #getItems()} to bits of {@link #getExclusionSet()} indices, only for nodes
+     *         with exclusion classes
+     * @deprecated use {@link #getNodeAncestry(int)} or {@link #isExcluded(int, BitSet)}
+     */
+    @Deprecated
     public HashMap<Integer, BitSet> getNodeAncestryMap() {
-        return myNodeAncestryMap;
+        HashMap<Integer, BitSet> ancestryMap = new HashMap<Integer, BitSet>();
+        int iMax = myNodeAncestry.length;
+        for (int i = 0; i < iMax; i++) {
+            int id = myNodeAncestry[i];
+            if (id != 0) {
+                ancestryMap.put(i, (BitSet) myAncestrySets.get(id).clone());
+            }
+        }
+        return ancestryMap;
+    }
+
+    /**
+     * Get exclusion classes of a node and its ancestors
+     *
+     * @param index node index in {@link #getItems()}
+     * @return bits of {@link #getExclusionSet()} indices, null if none. The bit set is shared by nodes with the same
+     *         ancestry and must not be modified.
+     */
+    public BitSet getNodeAncestry(int index) {
+        int id = getNodeAncestryId(index);
+        return id == 0 ? null : myAncestrySets.get(id);
+    }
+
+    /**
+     * Test if a node or its ancestors are of excluded classes, does not allocate
+     *
+     * @param index      node index in {@link #getItems()}
+     * @param exclusions bits of {@link #getExclusionSet()} indices of excluded classes
+     * @return true if node is excluded
+     */
+    public boolean isExcluded(int index, BitSet exclusions) {
+        int id = getNodeAncestryId(index);
+        return id != 0 && myAncestrySets.get(id).intersects(exclusions);
+    }
+
+    /**
+     * @param index node index in {@link #getItems()}
+     * @return id of the node's ancestry set, 0 if no exclusion classes
+     */
+    public int getNodeAncestryId(int index) {
+        return index >= 0 && index < myNodeAncestry.length ? myNodeAncestry[index] : 0;
+    }
+
+    void setNodeAncestryId(int index, int id) {
+        if (index >= myNodeAncestry.length) {
+            myNodeAncestry = Arrays.copyOf(myNodeAncestry, Math.max(index + 1, Math.max(myNodeAncestry.length * 2, 64)));
+        }
+        myNodeAncestry[index] = id;
+    }
+
+    /**
+     * @param id             ancestry set id
+     * @param exclusionIndex index of exclusion class in {@link #getExclusionSet()}
+     * @return id of ancestry set with the exclusion class added
+     */
+    int getAncestryIdWith(int id, int exclusionIndex) {
+        int[] transitions = myAncestryTransitions.get(id);
+        int withId = transitions[exclusionIndex];
+
+        if (withId == 0) {
+            BitSet ancestry = myAncestrySets.get(id);
+            if (ancestry.get(exclusionIndex)) {
+                withId = id;
+            } else {
+                BitSet bitSet = (BitSet) ancestry.clone();
+                bitSet.set(exclusionIndex);
+                Integer existing = myAncestryIds.get(bitSet);
+                withId = existing != null ? existing : internAncestry(bitSet);
+            }
+            transitions[exclusionIndex] = withId;
+        }
+        return withId;
+    }
+
+    private int internAncestry(BitSet bitSet) {
+        int id = myAncestrySets.size();
+        myAncestrySets.add(bitSet);
+        myAncestryIds.put(bitSet, id);
+        myAncestryTransitions.add(new int[myExclusionSet.size()]);
+        return id;
     }
 
     public OrderedSet<Class<?>> getExclusionSet() {
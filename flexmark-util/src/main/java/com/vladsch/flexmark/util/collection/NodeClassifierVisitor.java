@@ -3,22 +3,19 @@ package com.vladsch.flexmark.util.collection;
 import com.vladsch.flexmark.ast.Document;
 import com.vladsch.flexmark.ast.Node;
 import com.vladsch.flexmark.ast.NodeVisitorBase;
-import com.vladsch.flexmark.util.Computable;
 import com.vladsch.flexmark.util.NodeTracker;
 
 import java.util.*;
 
 public class NodeClassifierVisitor extends NodeVisitorBase implements NodeTracker {
+    private static final int[] EMPTY_EXCLUSIONS = new int[0];
+
     private final OrderedMap<Class<?>, Set<Class<?>>> myExclusionMap;
     private final OrderedSet<Class<?>> myExclusionSet;
-    private final HashMap<Integer, BitSet> myNodeAncestryMap;
-    private final Stack<BitSet> myNodeAncestryBitSetStack = new Stack<BitSet>();
-    private final CopyOnWriteRef<BitSet> myNodeAncestryBitSet = new CopyOnWriteRef<BitSet>(new BitSet(), new Computable<BitSet, BitSet>() {
-        @Override
-        public BitSet compute(BitSet value) {return value != null ? (BitSet) value.clone() : new BitSet();}
-    });
-
-    private static final BitSet EMPTY_SET = new BitSet();
+    private final HashMap<Class<?>, int[]> myClassExclusions = new HashMap<Class<?>, int[]>();
+    private int[] myNodeAncestryStack = new int[16];
+    private int myNodeAncestryDepth = 0;
+    private int myNodeAncestryId = 0;
     private boolean myClassificationDone = false;
 
     private final ClassifyingNodeTracker myClassifyingNodeTracker;
@@ -26,7 +23,6 @@ public class NodeClassifierVisitor extends NodeVisitorBase implements NodeTracke
     public NodeClassifierVisitor(Map<Class<? extends Node>, Set<Class<?>>> exclusionMap) {
         myClassifyingNodeTracker = new ClassifyingNodeTracker(this, exclusionMap);
         myExclusionMap = myClassifyingNodeTracker.getExclusionMap();
-        myNodeAncestryMap = myClassifyingNodeTracker.getNodeAncestryMap();
         myExclusionSet = myClassifyingNodeTracker.getExclusionSet();
     }
 
@@ -63,68 +59,79 @@ public class NodeClassifierVisitor extends NodeVisitorBase implements NodeTracke
                 if (parentIndex == -1) {
                     throw new IllegalStateException("Parent node: " + node.getParent() + " of " + node + " is not tracked, some post processor forgot to call tracker.nodeAdded().");
                 }
-    
-                BitSet ancestorBitSet = myNodeAncestryMap.get(parentIndex);
-                myNodeAncestryBitSet.setValue(ancestorBitSet);
+
+                myNodeAncestryId = myClassifyingNodeTracker.getNodeAncestryId(parentIndex);
+            } else {
+                myNodeAncestryId = 0;
             }
 
             // let'er rip to update the descendants
-            myNodeAncestryBitSetStack.clear();
+            myNodeAncestryDepth = 0;
             visit(node);
         }
     }
 
     void pushNodeAncestry() {
         if (!myExclusionMap.isEmpty()) {
-            myNodeAncestryBitSetStack.push(myNodeAncestryBitSet.getImmutable());
+            if (myNodeAncestryDepth == myNodeAncestryStack.length) {
+                myNodeAncestryStack = Arrays.copyOf(myNodeAncestryStack, myNodeAncestryStack.length * 2);
+            }
+            myNodeAncestryStack[myNodeAncestryDepth++] = myNodeAncestryId;
         }
     }
 
     void popNodeAncestry() {
-        myNodeAncestryBitSet.setValue(myNodeAncestryBitSetStack.pop());
+        if (!myExclusionMap.isEmpty()) {
+            myNodeAncestryId = myNodeAncestryStack[--myNodeAncestryDepth];
+        }
     }
 
-    boolean updateNodeAncestry(Node node, CopyOnWriteRef<BitSet> nodeAncestryBitSet) {
-        Node parent = node.getParent();
-        if (!myExclusionMap.isEmpty() && !(node instanceof Document)) {
-            // add flags if needed
-            node.getClass();
-            BitSet bitSet = nodeAncestryBitSet.getPeek();
+    private int[] getClassExclusions(Class<?> nodeClass) {
+        int[] exclusions = myClassExclusions.get(nodeClass);
+        if (exclusions == null) {
+            int count = 0;
+            int[] indices = new int[myExclusionSet.size()];
+            for (int i = 0; i < indices.length; i++) {
+                Class<?> nodeType = myExclusionSet.getValueOrNull(i);
+                if (nodeType != null && nodeType.isAssignableFrom(nodeClass)) {
+                    indices[count++] = i;
+                }
+            }
+            exclusions = count == 0 ? EMPTY_EXCLUSIONS : Arrays.copyOf(indices, count);
+            myClassExclusions.put(nodeClass, exclusions);
+        }
+        return exclusions;
+    }
 
+    boolean updateNodeAncestry(Node node) {
+        if (!myExclusionMap.isEmpty() && !(node instanceof Document)) {
             int index = myClassifyingNodeTracker.getItems().indexOf(node);
             if (index == -1) {
                 throw new IllegalStateException("Node: " + node + " is not tracked, some post processor forgot to call tracker.nodeAdded().");
             }
 
-            if (myExclusionSet != null && !myExclusionSet.isEmpty()) {
-                Iterator<Class<?>> iterator = ((Set<Class<?>>) myExclusionSet).iterator();
-
-                while (iterator.hasNext()) {
-                    Class<?> nodeType = iterator.next();
-                    if (nodeType.isInstance(node)) {
-                        // get the index of this exclusion
-                        int i = myExclusionSet.indexOf(nodeType);
-                        assert i != -1;
-                        if (!bitSet.get(i) && !nodeAncestryBitSet.isMutable()) {
-                            bitSet = nodeAncestryBitSet.getMutable();
-                            bitSet.set(i);
-                        }
-                    }
-                }
+            // add exclusion classes of the node, for its own ancestry and that of its descendants
+            int id = myNodeAncestryId;
+            for (int exclusionIndex : getClassExclusions(node.getClass())) {
+                id = myClassifyingNodeTracker.getAncestryIdWith(id, exclusionIndex);
             }
 
-            if (myClassificationDone && myNodeAncestryBitSetStack.size() > 1) {
+            if (myClassificationDone && myNodeAncestryDepth > 1) {
                 // see if we can stop
-                // now store the stuff for the node index
-                BitSet oldBitSet = myNodeAncestryMap.get(index);
-                if (oldBitSet != null && oldBitSet.equals(bitSet)) {
+                int oldId = myClassifyingNodeTracker.getNodeAncestryId(index);
+                if (oldId != 0 && oldId == id) {
                     // no need to process descendants of this node
                     return false;
                 }
             }
 
-            if (!bitSet.isEmpty()) {
-                myNodeAncestryMap.put(index, nodeAncestryBitSet.getImmutable());
+            if (id != 0) {
+                myClassifyingNodeTracker.setNodeAncestryId(index, id);
+            }
+
+            if (node.getFirstChild() != null) {
+                // children inherit node's exclusions, restored by popNodeAncestry()
+                myNodeAncestryId = id;
             }
         }
 
@@ -149,12 +156,12 @@ public class NodeClassifierVisitor extends NodeVisitorBase implements NodeTracke
 
         if (parent.getFirstChild() != null) {
             pushNodeAncestry();
-            if (updateNodeAncestry((Node) parent, myNodeAncestryBitSet)) {
+            if (updateNodeAncestry((Node) parent)) {
                 super.visitChildren(parent);
             }
             popNodeAncestry();
         } else {
-            updateNodeAncestry((Node) parent, myNodeAncestryBitSet);
+            updateNodeAncestry((Node) parent);
         }
     }
 }
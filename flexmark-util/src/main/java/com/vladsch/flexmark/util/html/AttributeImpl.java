@@ -1,8 +1,5 @@
 package com.vladsch.flexmark.util.html;
 
-import com.vladsch.flexmark.util.sequence.BasedSequence;
-import com.vladsch.flexmark.util.sequence.SubSequence;
-
 public class AttributeImpl implements Attribute {
     private final String myName;
     private final char myValueListDelimiter;
@@ -54,9 +51,10 @@ public class AttributeImpl implements Attribute {
             return value.equals(valueName) ? 0 : -1;
         } else {
             int lastPos = 0;
-            final BasedSequence subSeq = SubSequence.of(value);
+            final String valueString = value.toString();
+            final String valueNameString = valueName.toString();
             while (lastPos < value.length()) {
-                int pos = subSeq.indexOf(valueName, lastPos);
+                int pos = valueString.indexOf(valueNameString, lastPos);
                 if (pos == -1) break;
                 // see if it is 0 or preceded by a space, or at the end or followed by a space
                 int endPos = pos + valueName.length();
@@ -88,10 +86,54 @@ public class AttributeImpl implements Attribute {
 
     @Override
     public Attribute setValue(final CharSequence value) {
+        if (myValueListDelimiter == ' ' && myValueNameDelimiter == NUL && isSingleItem(value)) {
+            // adding one class, common case handled without splitting values into a map
+            if (myValue.isEmpty()) {
+                return of(myName, value, myValueListDelimiter, myValueNameDelimiter);
+            } else if (isNormalizedList(myValue)) {
+                return indexOfValue(myValue, value, myValueListDelimiter, myValueNameDelimiter) != -1 ? this
+                        : of(myName, myValue + myValueListDelimiter + value, myValueListDelimiter, myValueNameDelimiter);
+            }
+        }
+
         MutableAttribute mutable = toMutable().setValue(value);
         return mutable.equals(this) ? this : mutable.toImmutable();
     }
 
+    // non-empty value without list delimiters or whitespace
+    private static boolean isSingleItem(final CharSequence value) {
+        if (value == null || value.length() == 0) return false;
+        for (int i = value.length(); i-- > 0; ) {
+            if (value.charAt(i) <= ' ') return false;
+        }
+        return true;
+    }
+
+    // space delimited list without empty or duplicate items, same as list value spliced from its value map
+    private static boolean isNormalizedList(final String value) {
+        if (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') return false;
+
+        int lastPos = 0;
+        while (lastPos < value.length()) {
+            int pos = value.indexOf(' ', lastPos);
+            int endPos = pos == -1 ? value.length() : pos;
+            if (endPos == lastPos) return false;
+
+            // duplicate of a previous item
+            int itemLength = endPos - lastPos;
+            int prevPos = 0;
+            while (prevPos < lastPos) {
+                int prevEnd = value.indexOf(' ', prevPos);
+                if (prevEnd - prevPos == itemLength && value.regionMatches(prevPos, value, lastPos, itemLength)) return false;
+                prevPos = prevEnd + 1;
+            }
+
+            if (pos == -1) break;
+            lastPos = endPos + 1;
+        }
+        return true;
+    }
+
     @Override
     public Attribute removeValue(final CharSequence value) {
         MutableAttribute mutable = toMutable().removeValue(value);
@@ -5,40 +5,138 @@ import com.vladsch.flexmark.util.sequence.BasedSequence;
 
 import java.util.*;
 
+/**
+ * Attributes in order of addition
+ * <p>
+ * Kept in arrays searched by name, for the few attributes of a tag this is faster than a map and
+ * {@link #clear()} keeps the arrays so an instance can be reused for the next tag without allocation.
+ * <p>
+ * Once a subclass asks for {@link #getAttributes()} the returned map is kept in step with the arrays
+ * until the attributes are cleared.
+ */
 public class Attributes {
     public static final Attributes EMPTY = new Attributes();
 
-    private LinkedHashMap<String, Attribute> myAttributes;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] myNames;
+    private Attribute[] myValues;
+    private int mySize;
+    private LinkedHashMap<String, Attribute> myMap; // only created when a subclass asks for the map
 
     public Attributes() {
-        myAttributes = null;
+        myNames = null;
+        myValues = null;
+        mySize = 0;
+        myMap = null;
     }
 
     public Attributes(Attributes attributes) {
-        myAttributes = attributes == null || attributes.myAttributes == null ? null : new LinkedHashMap<String, Attribute>(attributes.myAttributes);
+        if (attributes != null) attributes.loadMap();
+        myMap = null;
+
+        if (attributes == null || attributes.mySize == 0) {
+            myNames = null;
+            myValues = null;
+            mySize = 0;
+        } else {
+            myNames = Arrays.copyOf(attributes.myNames, Math.max(attributes.mySize, INITIAL_CAPACITY));
+            myValues = Arrays.copyOf(attributes.myValues, myNames.length);
+            mySize = attributes.mySize;
+        }
     }
 
+    /**
+     * @return map of the attributes, changes to the map are reflected in these attributes and vice versa
+     * until {@link #clear()} is called
+     */
     protected LinkedHashMap<String, Attribute> getAttributes() {
-        if (myAttributes == null) {
-            myAttributes = new LinkedHashMap<String, Attribute>();
+        if (myMap == null) {
+            myMap = new LinkedHashMap<String, Attribute>();
+            storeMap();
+        } else {
+            loadMap();
+        }
+        return myMap;
+    }
+
+    // take changes made through the map returned by getAttributes()
+    private void loadMap() {
+        if (myMap != null) {
+            int size = myMap.size();
+            if (myNames == null || myNames.length < size) {
+                int capacity = Math.max(size, INITIAL_CAPACITY);
+                myNames = new String[capacity];
+                myValues = new Attribute[capacity];
+            } else {
+                Arrays.fill(myNames, size, mySize > size ? mySize : size, null);
+                Arrays.fill(myValues, size, mySize > size ? mySize : size, null);
+            }
+
+            int i = 0;
+            for (Map.Entry<String, Attribute> entry : myMap.entrySet()) {
+                myNames[i] = entry.getKey();
+                myValues[i] = entry.getValue();
+                i++;
+            }
+            mySize = size;
+        }
+    }
+
+    // reflect changes in the map returned by getAttributes()
+    private void storeMap() {
+        if (myMap != null) {
+            myMap.clear();
+            for (int i = 0; i < mySize; i++) {
+                myMap.put(myNames[i], myValues[i]);
+            }
+        }
+    }
+
+    private static String keyString(CharSequence key) {
+        return key instanceof String ? (String) key : String.valueOf(key);
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < mySize; i++) {
+            if (myNames[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    private void put(String key, Attribute attribute) {
+        int index = indexOf(key);
+        if (index != -1) {
+            myValues[index] = attribute;
+        } else {
+            if (myNames == null) {
+                myNames = new String[INITIAL_CAPACITY];
+                myValues = new Attribute[INITIAL_CAPACITY];
+            } else if (mySize == myNames.length) {
+                myNames = Arrays.copyOf(myNames, mySize * 2);
+                myValues = Arrays.copyOf(myValues, mySize * 2);
+            }
+            myNames[mySize] = key;
+            myValues[mySize] = attribute;
+            mySize++;
         }
-        return myAttributes;
     }
 
     public Attribute get(CharSequence key) {
-        if (myAttributes == null || key == null || key.length() == 0) return null;
+        loadMap();
+        if (mySize == 0 || key == null || key.length() == 0) return null;
 
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        return myAttributes.get(useKey);
+        int index = indexOf(keyString(key));
+        return index == -1 ? null : myValues[index];
     }
 
     public String getValue(CharSequence key) {
-        if (myAttributes == null || key == null || key.length() == 0) return "";
+        loadMap();
+        if (mySize == 0 || key == null || key.length() == 0) return "";
 
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        Attribute attribute = myAttributes.get(useKey);
-        if (attribute == null) return "";
-        return attribute.getValue();
+        int index = indexOf(keyString(key));
+        if (index == -1) return "";
+        return myValues[index].getValue();
     }
 
     public Attribute replaceValue(Attribute attribute) {
@@ -55,16 +153,18 @@ public class Attributes {
      * @return new attribute
      */
     public Attribute replaceValue(CharSequence key, CharSequence value) {
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
+        loadMap();
+        String useKey = keyString(key);
+        int index = indexOf(useKey);
         Attribute attribute;
-        if (myAttributes == null) {
-            attribute = AttributeImpl.of(useKey, value);
+        if (index != -1) {
+            attribute = myValues[index].replaceValue(value);
+            myValues[index] = attribute;
         } else {
-            attribute = myAttributes.get(useKey);
-            if (attribute != null) attribute = attribute.replaceValue(value);
-            else attribute = AttributeImpl.of(useKey, value);
+            attribute = AttributeImpl.of(useKey, value);
+            put(useKey, attribute);
         }
-        getAttributes().put(useKey, attribute);
+        storeMap();
         return attribute;
     }
 
@@ -73,23 +173,27 @@ public class Attributes {
     }
 
     public Attributes addValues(Attributes attributes) {
-        for (Attribute attribute : attributes.values()) {
+        attributes.loadMap();
+        for (int i = 0; i < attributes.mySize; i++) {
+            Attribute attribute = attributes.myValues[i];
             addValue(attribute.getName(), attribute.getValue());
         }
         return this;
     }
 
     public Attribute addValue(CharSequence key, CharSequence value) {
+        loadMap();
+        String useKey = keyString(key);
+        int index = indexOf(useKey);
         Attribute attribute;
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        if (myAttributes == null) {
-            attribute = AttributeImpl.of(key, value);
+        if (index != -1) {
+            attribute = myValues[index].setValue(value);
+            myValues[index] = attribute;
         } else {
-            attribute = myAttributes.get(useKey);
-            if (attribute != null) attribute = attribute.setValue(value);
-            else attribute = AttributeImpl.of(useKey, value);
+            attribute = AttributeImpl.of(useKey, value);
+            put(useKey, attribute);
         }
-        getAttributes().put(useKey, attribute);
+        storeMap();
         return attribute;
     }
 
@@ -102,88 +206,168 @@ public class Attributes {
     }
 
     public Attribute removeValue(CharSequence key, CharSequence value) {
-        if (myAttributes == null || key == null || key.length() == 0) return null;
-
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        Attribute oldAttribute = myAttributes.get(useKey);
-        Attribute attribute = oldAttribute.removeValue(value);
-        getAttributes().put(useKey, attribute);
+        loadMap();
+        if (mySize == 0 || key == null || key.length() == 0) return null;
+
+        int index = indexOf(keyString(key));
+        if (index == -1) return null;
+        Attribute attribute = myValues[index].removeValue(value);
+        myValues[index] = attribute;
+        storeMap();
         return attribute;
     }
 
     public boolean contains(CharSequence key) {
-        if (myAttributes == null || key == null || key.length() == 0) return false;
+        loadMap();
+        if (mySize == 0 || key == null || key.length() == 0) return false;
 
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        return myAttributes.containsKey(useKey);
+        return indexOf(keyString(key)) != -1;
     }
 
     public boolean containsValue(CharSequence key, CharSequence value) {
-        if (myAttributes == null) return false;
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        Attribute attribute = myAttributes.get(useKey);
-        return attribute != null && attribute.containsValue(value);
+        loadMap();
+        if (mySize == 0) return false;
+        int index = indexOf(keyString(key));
+        return index != -1 && myValues[index].containsValue(value);
     }
 
     public boolean isEmpty() {
-        return myAttributes == null || myAttributes.isEmpty();
+        loadMap();
+        return mySize == 0;
     }
 
     public void clear() {
-        myAttributes = null;
+        if (myNames != null) {
+            Arrays.fill(myNames, 0, mySize, null);
+            Arrays.fill(myValues, 0, mySize, null);
+        }
+        mySize = 0;
+        myMap = null;
     }
 
-    @SuppressWarnings("unchecked")
     public Set<String> keySet() {
-        return myAttributes != null ? myAttributes.keySet() : Collections.EMPTY_SET;
+        if (myMap != null) return myMap.keySet();
+
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new AttributeIterator<String>() {
+                    @Override
+                    String get(int index) {
+                        return myNames[index];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && indexOf((String) o) != -1;
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+        };
     }
 
-    @SuppressWarnings("unchecked")
     public Collection<Attribute> values() {
-        return myAttributes != null ? myAttributes.values() : Collections.EMPTY_LIST;
+        if (myMap != null) return myMap.values();
+
+        return new AbstractCollection<Attribute>() {
+            @Override
+            public Iterator<Attribute> iterator() {
+                return new AttributeIterator<Attribute>() {
+                    @Override
+                    Attribute get(int index) {
+                        return myValues[index];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+        };
     }
 
     @SuppressWarnings("unchecked")
     public Set<Map.Entry<BasedSequence, Attribute>> entrySet() {
-        return myAttributes != null ? myAttributes.entrySet() : Collections.EMPTY_SET;
+        if (myMap != null) return (Set) myMap.entrySet();
+
+        return (Set) new AbstractSet<Map.Entry<String, Attribute>>() {
+            @Override
+            public Iterator<Map.Entry<String, Attribute>> iterator() {
+                return new AttributeIterator<Map.Entry<String, Attribute>>() {
+                    @Override
+                    Map.Entry<String, Attribute> get(int index) {
+                        return new AttributeEntry(myNames[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+        };
     }
 
     public void forEach(BiConsumer<String, Attribute> action) {
-        if (myAttributes != null) {
-            for (Map.Entry<String, Attribute> entry : myAttributes.entrySet()) {
-                action.accept(entry.getKey(), entry.getValue());
-            }
+        loadMap();
+        for (int i = 0; i < mySize; i++) {
+            action.accept(myNames[i], myValues[i]);
         }
     }
 
     public int size() {
-        return myAttributes == null ? 0 : myAttributes.size();
+        loadMap();
+        return mySize;
+    }
+
+    // attribute by index in order of addition, for iterating without allocation
+    Attribute attributeAt(int index) {
+        return myValues[index];
     }
 
     public Attribute remove(CharSequence key) {
-        if (myAttributes == null || key == null || key.length() == 0) return null;
+        loadMap();
+        if (mySize == 0 || key == null || key.length() == 0) return null;
 
-        String useKey = key instanceof String ? (String) key : String.valueOf(key);
-        Attribute oldAttribute = myAttributes.get(useKey);
-        myAttributes.remove(useKey);
+        int index = indexOf(keyString(key));
+        if (index == -1) return null;
+
+        Attribute oldAttribute = myValues[index];
+        int moved = mySize - index - 1;
+        if (moved > 0) {
+            System.arraycopy(myNames, index + 1, myNames, index, moved);
+            System.arraycopy(myValues, index + 1, myValues, index, moved);
+        }
+        mySize--;
+        myNames[mySize] = null;
+        myValues[mySize] = null;
+        storeMap();
         return oldAttribute;
     }
 
     public void replaceValues(Attributes attributes) {
-        if (myAttributes == null) {
-            myAttributes = new LinkedHashMap<String, Attribute>(attributes.myAttributes);
-        } else {
-            myAttributes.putAll(attributes.myAttributes);
+        loadMap();
+        attributes.loadMap();
+        for (int i = 0; i < attributes.mySize; i++) {
+            put(attributes.myNames[i], attributes.myValues[i]);
         }
+        storeMap();
     }
 
     @Override
     public String toString() {
+        loadMap();
         StringBuilder sb = new StringBuilder();
         String sep = "";
-        for (String attrName : keySet()) {
-            sb.append(sep).append(attrName);
-            Attribute attribute = myAttributes.get(attrName);
+        for (int i = 0; i < mySize; i++) {
+            sb.append(sep).append(myNames[i]);
+            Attribute attribute = myValues[i];
             if (!attribute.getValue().isEmpty()) sb.append("=").append("\"").append(attribute.getValue().replace("\"", "\\\"")).append("\"");
             sep = " ";
         }
@@ -191,4 +375,84 @@ public class Attributes {
                 "myAttributes=" + sb.toString() +
                 '}';
     }
+
+    /**
+     * Entry of an attribute, setting the value replaces the attribute
+     */
+    private class AttributeEntry implements Map.Entry<String, Attribute> {
+        private final String myName;
+
+        AttributeEntry(String name) {
+            myName = name;
+        }
+
+        @Override
+        public String getKey() {
+            return myName;
+        }
+
+        @Override
+        public Attribute getValue() {
+            int index = indexOf(myName);
+            return index == -1 ? null : myValues[index];
+        }
+
+        @Override
+        public Attribute setValue(Attribute value) {
+            int index = indexOf(myName);
+            if (index == -1) throw new IllegalStateException("Attribute " + myName + " was removed");
+            Attribute oldValue = myValues[index];
+            myValues[index] = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Attribute value = getValue();
+            return myName.equals(entry.getKey()) && (value == null ? entry.getValue() == null : value.equals(entry.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Attribute value = getValue();
+            return myName.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return myName + "=" + getValue();
+        }
+    }
+
+    /**
+     * Iterator over names or values, removal removes the attribute
+     */
+    private abstract class AttributeIterator<T> implements Iterator<T> {
+        private int myNext = 0;
+        private int myLast = -1;
+
+        abstract T get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return myNext < mySize;
+        }
+
+        @Override
+        public T next() {
+            if (myNext >= mySize) throw new NoSuchElementException();
+            myLast = myNext++;
+            return get(myLast);
+        }
+
+        @Override
+        public void remove() {
+            if (myLast == -1) throw new IllegalStateException();
+            Attributes.this.remove(myNames[myLast]);
+            myNext = myLast;
+            myLast = -1;
+        }
+    }
 }
@@ -174,6 +174,11 @@ public class Escaping {
     };
 
     public static String escapeHtml(CharSequence s, boolean preserveEntities) {
+        if (!hasXmlSpecial(s)) {
+            // nothing to escape, skip creating a matcher
+            return s instanceof String ? (String) s : String.valueOf(s);
+        }
+
         Pattern p = preserveEntities ? XML_SPECIAL_OR_ENTITY : XML_SPECIAL_RE;
         return replaceAll(p, s, UNSAFE_CHAR_REPLACER);
     }
@@ -512,6 +517,15 @@ public class Escaping {
         return replaceAll(COLLAPSE_WHITESPACE, s, COLLAPSE_WHITESPACE_REPLACER, textMapper);
     }
 
+    private static boolean hasXmlSpecial(CharSequence s) {
+        int iMax = s.length();
+        for (int i = 0; i < iMax; i++) {
+            char c = s.charAt(i);
+            if (c == '&' || c == '<' || c == '>' || c == '"') return true;
+        }
+        return false;
+    }
+
     private static String replaceAll(Pattern p, CharSequence s, Replacer replacer) {
         Matcher matcher = p.matcher(s);
 
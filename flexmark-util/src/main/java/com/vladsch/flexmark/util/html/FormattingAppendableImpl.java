@@ -2,7 +2,6 @@ package com.vladsch.flexmark.util.html;
 
 import com.vladsch.flexmark.util.Ref;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
-import com.vladsch.flexmark.util.sequence.BasedSequenceImpl;
 import com.vladsch.flexmark.util.sequence.CharSubSequence;
 import com.vladsch.flexmark.util.sequence.RepeatedCharSequence;
 
@@ -351,37 +350,92 @@ public class FormattingAppendableImpl implements FormattingAppendable {
         }
     }
 
+    // index of first character of chars in csq from start to end, -1 if none
+    private static int indexOfAny(final CharSequence csq, final String chars, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (chars.indexOf(csq.charAt(i)) != -1) return i;
+        }
+        return -1;
+    }
+
+    // count of characters of chars at start of csq from start to end
+    private static int countChars(final CharSequence csq, final String chars, final int start, final int end) {
+        int i = start;
+        while (i < end && chars.indexOf(csq.charAt(i)) != -1) i++;
+        return i - start;
+    }
+
+    // index of c in csq from start to end, -1 if none
+    private static int indexOf(final CharSequence csq, final char c, final int start, final int end) {
+        if (csq instanceof String) {
+            int pos = ((String) csq).indexOf(c, start);
+            return pos < end ? pos : -1;
+        }
+
+        for (int i = start; i < end; i++) {
+            if (csq.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    // end of text on the line starting at start: after the last non-space character before EOL or end
+    private int lineTextEnd(final CharSequence csq, final int start, final int end) {
+        int textEnd = start;
+        for (int i = start; i < end; i++) {
+            char c = csq.charAt(i);
+            if (c == myEOL) break;
+            if (c != ' ') textEnd = i + 1;
+        }
+        return textEnd;
+    }
+
     private void appendImpl(final CharSequence csq, final int start, final int end) throws IOException {
         int lastPos = start;
-        BasedSequence seq = BasedSequenceImpl.of(csq);
 
         if (myPreFormattedNesting > 0) {
             setOffsetBefore(myAppendable.getLength());
-            int endNoEOL = start + seq.subSequence(start, end).removeSuffix("\n").length();
+            int endNoEOL = end > start && csq.charAt(end - 1) == myEOL ? end - 1 : end;
 
             if (lastPos < end) {
                 beforePre();
             }
 
-            while (lastPos < endNoEOL) {
-                int pos = seq.indexOf(myEOL, lastPos, endNoEOL);
-                int endPos = pos == -1 ? endNoEOL : pos + 1;
+            if (myPrefix.isEmpty()) {
+                // no prefix to insert after EOLs, append all lines at once
+                if (lastPos < endNoEOL) {
+                    myPendingPreFormattedPrefix = false;
+                    myAppendable.append(csq, lastPos, endNoEOL);
 
-                if (lastPos < endPos) {
-                    if (myPendingPreFormattedPrefix && !myPrefix.isEmpty()) {
-                        myAppendable.append(myPrefix);
+                    int pos = lastPos;
+                    while ((pos = indexOf(csq, myEOL, pos, endNoEOL)) != -1) {
+                        myLineCount++;
+                        pos++;
                     }
-                    myPendingPreFormattedPrefix = false;
 
-                    myAppendable.append(csq, lastPos, endPos);
-                    lastPos = endPos;
+                    if (csq.charAt(endNoEOL - 1) == myEOL) myPendingPreFormattedPrefix = true;
+                    lastPos = endNoEOL;
                 }
+            } else {
+                while (lastPos < endNoEOL) {
+                    int pos = indexOf(csq, myEOL, lastPos, endNoEOL);
+                    int endPos = pos == -1 ? endNoEOL : pos + 1;
+
+                    if (lastPos < endPos) {
+                        if (myPendingPreFormattedPrefix) {
+                            myAppendable.append(myPrefix);
+                        }
+                        myPendingPreFormattedPrefix = false;
+
+                        myAppendable.append(csq, lastPos, endPos);
+                        lastPos = endPos;
+                    }
 
-                if (pos == -1) break;
+                    if (pos == -1) break;
 
-                myLineCount++;
-                myPendingPreFormattedPrefix = true;
-                lastPos = endPos;
+                    myLineCount++;
+                    myPendingPreFormattedPrefix = true;
+                    lastPos = endPos;
+                }
             }
             myModCount++;
 
@@ -392,13 +446,21 @@ public class FormattingAppendableImpl implements FormattingAppendable {
             }
         } else {
             // have to handle \n, white spaces, etc
+            // without tab conversion or whitespace collapsing spaces between text on a line are output as is
+            final boolean spacesAsText = !isConvertingTabs();
             boolean firstAppend = true;
             while (lastPos < end) {
-                int pos = seq.indexOfAny(myWhitespaceEOL, lastPos, end);
+                int pos = indexOfAny(csq, myWhitespaceEOL, lastPos, end);
 
                 // output what has accumulated before
                 int spanEnd = pos == -1 ? end : pos;
 
+                if (spacesAsText && pos != -1 && lastPos < spanEnd && csq.charAt(pos) == ' ') {
+                    // include spaces followed by more text on the line
+                    spanEnd = lineTextEnd(csq, pos, end);
+                    pos = spanEnd < end ? spanEnd : -1;
+                }
+
                 if (lastPos < spanEnd) {
                     beforeAppendText(true, true, true);
                     if (firstAppend) {
@@ -412,9 +474,9 @@ public class FormattingAppendableImpl implements FormattingAppendable {
                 if (pos == -1) break;
 
                 // spaces and tabs are only output if we don't have a pending EOL and they don't come before an EOL
-                int span = seq.countChars(myWhitespaceEOL, pos, end);
+                int span = countChars(csq, myWhitespaceEOL, pos, end);
                 if (myPendingEOL == 0) {
-                    int eolPos = seq.indexOf(myEOL, pos, pos + span);
+                    int eolPos = indexOf(csq, myEOL, pos, pos + span);
                     if (eolPos != -1) {
                         // we don't output the spaces after the EOL but make EOL pending
                         if (eolPos > pos && !haveOptions(SUPPRESS_TRAILING_WHITESPACE)) addPendingSpaces(eolPos - pos);
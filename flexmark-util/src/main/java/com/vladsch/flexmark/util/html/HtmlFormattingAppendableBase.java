@@ -15,6 +15,8 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
     private final FormattingAppendable out;
 
     private Attributes currentAttributes;
+    private Attributes myReusableAttributes;   // created by this appendable, cleared and reused after its tag is output
+    private Attributes myFreeAttributes;       // myReusableAttributes when not in use
     private boolean indentIndentingChildren = false;
     private boolean lineOnChildText = false;
     private boolean withAttributes = false;
@@ -118,7 +120,7 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
     @Override
     public T attr(CharSequence attrName, CharSequence value) {
         if (currentAttributes == null) {
-            currentAttributes = new Attributes();
+            currentAttributes = getReusableAttributes();
         }
         currentAttributes.addValue(attrName, value);
         return (T) this;
@@ -127,7 +129,7 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
     @Override
     public T attr(Attribute... attribute) {
         if (currentAttributes == null) {
-            currentAttributes = new Attributes();
+            currentAttributes = getReusableAttributes();
         }
         for (Attribute attr : attribute) {
             currentAttributes.addValue(attr.getName(), attr.getValue());
@@ -139,7 +141,8 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
     public T attr(Attributes attributes) {
         if (attributes != null && !attributes.isEmpty()) {
             if (currentAttributes == null) {
-                currentAttributes = new Attributes(attributes);
+                currentAttributes = getReusableAttributes();
+                currentAttributes.replaceValues(attributes);
             } else {
                 currentAttributes.addValues(attributes);
             }
@@ -147,6 +150,25 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
         return (T) this;
     }
 
+    /**
+     * Empty attributes for the next tag, reused for following tags once output by {@link #tag(CharSequence, boolean)}
+     * <p>
+     * Attributes obtained from here or from {@link #getAttributes()} before the tag is output should not be kept after
+     * the tag is output.
+     *
+     * @return empty attributes
+     */
+    protected Attributes getReusableAttributes() {
+        Attributes attributes = myFreeAttributes;
+        if (attributes != null) {
+            myFreeAttributes = null;
+        } else {
+            attributes = new Attributes();
+            myReusableAttributes = attributes;
+        }
+        return attributes;
+    }
+
     @Override
     public T withAttr() {
         withAttributes = true;
@@ -248,7 +270,9 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
         out.append(tagName);
 
         if (attributes != null && !attributes.isEmpty()) {
-            for (Attribute attribute : attributes.values()) {
+            int iMax = attributes.size();
+            for (int i = 0; i < iMax; i++) {
+                Attribute attribute = attributes.attributeAt(i);
                 CharSequence attributeValue = attribute.getValue();
 
                 if (attribute.isNonRendering()) continue;
@@ -261,6 +285,11 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
             }
         }
 
+        if (attributes != null && attributes == myReusableAttributes) {
+            attributes.clear();
+            myFreeAttributes = attributes;
+        }
+
         if (voidElement) {
             out.append(" />");
         } else {
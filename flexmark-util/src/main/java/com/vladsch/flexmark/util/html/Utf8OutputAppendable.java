@@ -0,0 +1,228 @@
+package com.vladsch.flexmark.util.html;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Appendable encoding text as UTF-8 into a fixed size buffer written to an output stream or channel when full or
+ * flushed
+ * <p>
+ * Memory used is the buffer regardless of the amount of text appended. Unpaired surrogates are encoded as '?', the
+ * same as {@link String#getBytes(java.nio.charset.Charset)}. The first IOException is kept and thrown again by every
+ * following call so a failed write is not silently skipped. The stream or channel is not closed.
+ */
+public class Utf8OutputAppendable implements Appendable, Flushable {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream myOutputStream;
+    private final WritableByteChannel myChannel;
+    private final byte[] myBuffer;
+    private final ByteBuffer myByteBuffer;
+    private int myCount;
+    private char myHighSurrogate;
+    private long myByteCount;
+    private IOException myIOException;
+
+    public Utf8OutputAppendable(OutputStream outputStream) {
+        this(outputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Utf8OutputAppendable(OutputStream outputStream, int bufferSize) {
+        this(outputStream, null, bufferSize);
+    }
+
+    public Utf8OutputAppendable(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Utf8OutputAppendable(WritableByteChannel channel, int bufferSize) {
+        this(null, channel, bufferSize);
+    }
+
+    private Utf8OutputAppendable(OutputStream outputStream, WritableByteChannel channel, int bufferSize) {
+        myOutputStream = outputStream;
+        myChannel = channel;
+        // room for the longest encoded character
+        myBuffer = new byte[Math.max(bufferSize, 4)];
+        myByteBuffer = channel == null ? null : ByteBuffer.wrap(myBuffer);
+        myCount = 0;
+        myHighSurrogate = 0;
+        myByteCount = 0;
+        myIOException = null;
+    }
+
+    /**
+     * @return number of bytes written to the stream or channel and buffered
+     */
+    public long getByteCount() {
+        return myByteCount + myCount;
+    }
+
+    public IOException getIOException() {
+        return myIOException;
+    }
+
+    @Override
+    public Utf8OutputAppendable append(CharSequence csq) throws IOException {
+        if (csq == null) csq = "null";
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Utf8OutputAppendable append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) csq = "null";
+        if (myIOException != null) throw myIOException;
+
+        byte[] buffer = myBuffer;
+        int count = myCount;
+        int i = start;
+
+        while (i < end) {
+            // ASCII run without per character checks other than buffer space
+            int runEnd = Math.min(end, i + buffer.length - count);
+            if (myHighSurrogate == 0) {
+                while (i < runEnd) {
+                    char c = csq.charAt(i);
+                    if (c >= 0x80) break;
+                    buffer[count++] = (byte) c;
+                    i++;
+                }
+            }
+
+            if (i < end) {
+                if (count > buffer.length - 4) {
+                    myCount = count;
+                    writeBuffer();
+                    count = 0;
+                } else {
+                    char c = csq.charAt(i++);
+                    if (c >= 0x80 || myHighSurrogate != 0) {
+                        myCount = count;
+                        encode(c);
+                        count = myCount;
+                    } else {
+                        buffer[count++] = (byte) c;
+                    }
+                }
+            }
+        }
+
+        myCount = count;
+        return this;
+    }
+
+    @Override
+    public Utf8OutputAppendable append(char c) throws IOException {
+        if (myIOException != null) throw myIOException;
+        if (myCount > myBuffer.length - 4) writeBuffer();
+
+        if (c < 0x80 && myHighSurrogate == 0) {
+            myBuffer[myCount++] = (byte) c;
+        } else {
+            encode(c);
+        }
+        return this;
+    }
+
+    // encode one character, buffer has room for 4 bytes
+    private void encode(char c) {
+        byte[] buffer = myBuffer;
+        int count = myCount;
+
+        if (myHighSurrogate != 0) {
+            char high = myHighSurrogate;
+            myHighSurrogate = 0;
+
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                myCount = count;
+                return;
+            }
+
+            // unpaired high surrogate
+            buffer[count++] = '?';
+        }
+
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            // wait for the low surrogate, may come with the next append
+            myHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[count++] = '?';
+        } else {
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+        myCount = count;
+    }
+
+    private void writeBuffer() throws IOException {
+        if (myCount > 0) {
+            try {
+                if (myChannel != null) {
+                    // call through Buffer, JDK 9+ covariant overrides do not exist on Java 7/8 runtimes
+                    ((Buffer) myByteBuffer).clear();
+                    ((Buffer) myByteBuffer).limit(myCount);
+                    while (myByteBuffer.hasRemaining()) {
+                        myChannel.write(myByteBuffer);
+                    }
+                } else {
+                    myOutputStream.write(myBuffer, 0, myCount);
+                }
+            } catch (IOException e) {
+                myIOException = e;
+                throw e;
+            }
+            myByteCount += myCount;
+            myCount = 0;
+        }
+    }
+
+    /**
+     * Write buffered bytes and flush the output stream. A pending high surrogate is kept until its low surrogate is
+     * appended or {@link #close()} is called.
+     *
+     * @throws IOException on write error, or the first error of a previous call
+     */
+    @Override
+    public void flush() throws IOException {
+        if (myIOException != null) throw myIOException;
+        writeBuffer();
+        if (myOutputStream != null) {
+            try {
+                myOutputStream.flush();
+            } catch (IOException e) {
+                myIOException = e;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Flush including a pending unpaired high surrogate, does not close the output stream or channel
+     *
+     * @throws IOException on write error, or the first error of a previous call
+     */
+    public void close() throws IOException {
+        if (myIOException != null) throw myIOException;
+        if (myHighSurrogate != 0) {
+            myHighSurrogate = 0;
+            if (myCount > myBuffer.length - 4) writeBuffer();
+            myBuffer[myCount++] = '?';
+        }
+        flush();
+    }
+}
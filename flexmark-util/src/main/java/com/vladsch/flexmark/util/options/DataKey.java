@@ -2,12 +2,18 @@ package com.vladsch.flexmark.util.options;
 
 import com.vladsch.flexmark.util.collection.DataValueFactory;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class DataKey<T> {
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    private final int index;
     private final String name;
     private final DataValueFactory<T> factory;
     private final T defaultValue;
 
     public DataKey(String name, DataValueFactory<T> factory) {
+        this.index = nextIndex.getAndIncrement();
         this.name = name;
         this.defaultValue = factory.create(null);
         this.factory = factory;
@@ -34,6 +40,7 @@ public class DataKey<T> {
     }
 
     public DataKey(String name, final T defaultValue) {
+        this.index = nextIndex.getAndIncrement();
         this.name = name;
         this.defaultValue = defaultValue;
         this.factory = new DataValueFactory<T>() {
@@ -44,6 +51,19 @@ public class DataKey<T> {
         };
     }
 
+    /**
+     * Index of this key, unique for each key created, used by {@link DataKeyMap} to store the value of the key
+     * <p>
+     * Indices are not reused, a map with a value for a key has arrays at least as long as its index. Keys should be
+     * created once, as static fields, creating keys per instance or per document makes the arrays of maps using them
+     * grow for the life of the JVM.
+     *
+     * @return key index
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public String getName() {
         return name;
     }
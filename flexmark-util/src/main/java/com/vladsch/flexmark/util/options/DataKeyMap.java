@@ -0,0 +1,258 @@
+package com.vladsch.flexmark.util.options;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of {@link DataKey} to values stored in an array at the index of each key
+ * <p>
+ * Lookups are an array access at {@link DataKey#getIndex()}, iteration is in key index order. A copy of a map marked
+ * with {@link #freeze()} shares its arrays until the copy is modified, so copying options of an immutable data set
+ * does not copy any values. Copies of other maps copy the arrays, a map is never modified by making a copy of it.
+ */
+public final class DataKeyMap extends AbstractMap<DataKey, Object> {
+    /**
+     * Returned by {@link #getOrNotFound(DataKey)} for keys without a value
+     */
+    public static final Object NOT_FOUND = new Object();
+
+    // stored for null values, null slots have no value
+    private static final Object NULL_VALUE = new Object();
+    private static final Object[] EMPTY_VALUES = new Object[0];
+    private static final DataKey[] EMPTY_KEYS = new DataKey[0];
+
+    private Object[] values;
+    private DataKey[] keys;
+    private int size;
+    private int modCount;
+    // arrays may be used by another map, copy them before modifying
+    private boolean shared;
+    private EntrySet entrySet;
+
+    public DataKeyMap() {
+        values = EMPTY_VALUES;
+        keys = EMPTY_KEYS;
+        size = 0;
+        shared = false;
+    }
+
+    /**
+     * Copy a map, the arrays of a frozen map are shared until the copy is modified
+     *
+     * @param other map to copy
+     */
+    public DataKeyMap(DataKeyMap other) {
+        if (other.shared) {
+            values = other.values;
+            keys = other.keys;
+            shared = true;
+        } else {
+            values = other.values.length == 0 ? EMPTY_VALUES : other.values.clone();
+            keys = other.keys.length == 0 ? EMPTY_KEYS : other.keys.clone();
+            shared = false;
+        }
+        size = other.size;
+    }
+
+    public DataKeyMap(Map<? extends DataKey, ?> other) {
+        this();
+        putAll(other);
+    }
+
+    /**
+     * Mark this map as shared so copies use its arrays instead of copying them
+     * <p>
+     * Call when the map will not be modified any more, before it is used by other threads. The map can still be
+     * modified, it copies its arrays first.
+     */
+    public void freeze() {
+        shared = true;
+    }
+
+    /**
+     * Get the value of a key, which can be null, distinguishing keys without a value without another lookup
+     *
+     * @param key data key
+     * @return value of the key or {@link #NOT_FOUND}
+     */
+    public Object getOrNotFound(DataKey key) {
+        int index = key.getIndex();
+        if (index < values.length) {
+            Object value = values[index];
+            if (value != null) return value == NULL_VALUE ? null : value;
+        }
+        return NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key instanceof DataKey) {
+            int index = ((DataKey) key).getIndex();
+            return index < values.length && values[index] != null;
+        }
+        return false;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key instanceof DataKey) {
+            Object value = getOrNotFound((DataKey) key);
+            return value == NOT_FOUND ? null : value;
+        }
+        return null;
+    }
+
+    private void prepareWrite(int minLength) {
+        if (shared || values.length < minLength) {
+            int length = values.length;
+            if (length < minLength) {
+                length = Math.max(minLength, length + (length >> 1));
+            }
+            values = Arrays.copyOf(values, length);
+            keys = Arrays.copyOf(keys, length);
+            shared = false;
+        }
+        modCount++;
+    }
+
+    @Override
+    public Object put(DataKey key, Object value) {
+        int index = key.getIndex();
+        prepareWrite(index + 1);
+
+        Object previous = values[index];
+        values[index] = value == null ? NULL_VALUE : value;
+        keys[index] = key;
+        if (previous == null) {
+            size++;
+            return null;
+        }
+        return previous == NULL_VALUE ? null : previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends DataKey, ?> map) {
+        if (map instanceof DataKeyMap) {
+            DataKeyMap other = (DataKeyMap) map;
+            if (size == 0 && other.size > 0 && other.shared) {
+                // nothing to merge, share the frozen map's arrays
+                values = other.values;
+                keys = other.keys;
+                size = other.size;
+                shared = true;
+                modCount++;
+                return;
+            }
+
+            Object[] otherValues = other.values;
+            DataKey[] otherKeys = other.keys;
+            for (int i = otherValues.length; i-- > 0; ) {
+                if (otherValues[i] != null) {
+                    // the last index is the largest, the first put grows the arrays once
+                    Object value = otherValues[i];
+                    put(otherKeys[i], value == NULL_VALUE ? null : value);
+                }
+            }
+        } else {
+            super.putAll(map);
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key instanceof DataKey) {
+            int index = ((DataKey) key).getIndex();
+            if (index < values.length && values[index] != null) {
+                prepareWrite(0);
+                Object previous = values[index];
+                values[index] = null;
+                keys[index] = null;
+                size--;
+                return previous == NULL_VALUE ? null : previous;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            values = EMPTY_VALUES;
+            keys = EMPTY_KEYS;
+            size = 0;
+            shared = false;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Entry<DataKey, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private class EntrySet extends AbstractSet<Entry<DataKey, Object>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            DataKeyMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<DataKey, Object>> iterator() {
+            return new Iterator<Entry<DataKey, Object>>() {
+                private int next = nextIndex(0);
+                private int last = -1;
+                private int expectedModCount = modCount;
+
+                private int nextIndex(int index) {
+                    while (index < values.length && values[index] == null) index++;
+                    return index;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < values.length;
+                }
+
+                @Override
+                public Entry<DataKey, Object> next() {
+                    if (expectedModCount != modCount) throw new ConcurrentModificationException();
+                    if (next >= values.length) throw new NoSuchElementException();
+
+                    last = next;
+                    next = nextIndex(next + 1);
+                    Object value = values[last];
+                    return new SimpleImmutableEntry<DataKey, Object>(keys[last], value == NULL_VALUE ? null : value);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) throw new IllegalStateException();
+                    if (expectedModCount != modCount) throw new ConcurrentModificationException();
+
+                    DataKeyMap.this.remove(keys[last]);
+                    expectedModCount = modCount;
+                    last = -1;
+                }
+            };
+        }
+    }
+}
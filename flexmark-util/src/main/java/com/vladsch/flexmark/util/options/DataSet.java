@@ -1,19 +1,25 @@
 package com.vladsch.flexmark.util.options;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 
 public class DataSet implements DataHolder {
-    protected final HashMap<DataKey, Object> dataSet;
+    protected final Map<DataKey, Object> dataSet;
+    final DataKeyMap keyMap;            // same instance as dataSet
 
     public DataSet() {
-        dataSet = new HashMap<DataKey, Object>();
+        keyMap = new DataKeyMap();
+        dataSet = keyMap;
     }
 
     public DataSet(DataHolder other) {
-        dataSet = new HashMap<DataKey, Object>();
-        dataSet.putAll(other.getAll());
+        Map<DataKey, Object> all = other.getAll();
+        keyMap = all instanceof DataKeyMap ? new DataKeyMap((DataKeyMap) all) : new DataKeyMap(all);
+        dataSet = keyMap;
+        if (!(this instanceof MutableDataHolder)) {
+            // not modified after construction, copies can share its values
+            keyMap.freeze();
+        }
     }
 
     @Override
@@ -33,8 +39,9 @@ public class DataSet implements DataHolder {
 
     @Override
     public <T> T get(DataKey<T> key) {
-        if (dataSet.containsKey(key)) {
-            return key.getValue(dataSet.get(key));
+        Object value = keyMap.getOrNotFound(key);
+        if (value != DataKeyMap.NOT_FOUND) {
+            return key.getValue(value);
         } else {
             return key.getDefaultValue(this);
         }
@@ -45,6 +52,7 @@ public class DataSet implements DataHolder {
         for (DataHolder dataHolder : dataHolders) {
             if (dataHolder != null) dataSet.dataSet.putAll(dataHolder.getAll());
         }
+        dataSet.keyMap.freeze();
         return dataSet;
     }
 
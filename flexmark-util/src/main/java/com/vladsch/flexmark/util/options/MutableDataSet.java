@@ -49,8 +49,9 @@ public class MutableDataSet extends DataSet implements MutableDataHolder {
 
     @Override
     public <T> T getOrCompute(DataKey<T> key, DataValueFactory<T> factory) {
-        if (dataSet.containsKey(key)) {
-            return key.getValue(dataSet.get(key));
+        Object value = keyMap.getOrNotFound(key);
+        if (value != DataKeyMap.NOT_FOUND) {
+            return key.getValue(value);
         } else {
             T newValue = factory.create(this);
             dataSet.put(key, newValue);
@@ -13,6 +13,10 @@ public class ScopedDataSet extends DataSet {
         this.parent = parent;
     }
 
+    /**
+     * @param parent data holder for keys without values in other
+     * @param other  values of this data set, shared with other until either is modified
+     */
     public ScopedDataSet(DataHolder parent, DataHolder other) {
         super(other);
         this.parent = parent;
@@ -67,10 +71,13 @@ public class ScopedDataSet extends DataSet {
 
     @Override
     public <T> T get(DataKey<T> key) {
-        if (parent == null || super.contains(key) || !parent.contains(key)) {
-            return super.get(key);
-        } else {
+        Object value = keyMap.getOrNotFound(key);
+        if (value != DataKeyMap.NOT_FOUND) {
+            return key.getValue(value);
+        } else if (parent != null && parent.contains(key)) {
             return parent.get(key);
+        } else {
+            return key.getDefaultValue(this);
         }
     }
 }
@@ -7,6 +7,8 @@ import com.vladsch.flexmark.util.mappers.CharMapper;
 import com.vladsch.flexmark.util.mappers.LowerCaseMapper;
 import com.vladsch.flexmark.util.mappers.UpperCaseMapper;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
@@ -1573,4 +1575,23 @@ public abstract class BasedSequenceImpl implements BasedSequence {
         else if (charSequence instanceof String) return CharSubSequence.of(charSequence, start, end);
         else return SubSequence.of(charSequence, start, end);
     }
+
+    /**
+     * Sequence of the characters in bytes
+     * <p>
+     * ISO-8859-1 text and ASCII text in UTF-8 or US-ASCII are used in place through a {@link ByteCharSequence} so
+     * offsets are byte offsets and the bytes must not be modified while the sequence is in use, other text is decoded
+     * once by {@link CharSubSequence#of(ByteBuffer, Charset)}.
+     *
+     * @param bytes   bytes from position to limit, position and limit of the buffer are not changed
+     * @param charset charset of the bytes
+     * @return sequence of the characters
+     */
+    public static BasedSequence of(ByteBuffer bytes, Charset charset) {
+        String name = charset.name();
+        if (name.equals("ISO-8859-1") || (name.equals("UTF-8") || name.equals("US-ASCII")) && ByteCharSequence.indexOfNonAscii(bytes) == -1) {
+            return SubSequence.of(new ByteCharSequence(bytes));
+        }
+        return CharSubSequence.of(bytes, charset);
+    }
 }
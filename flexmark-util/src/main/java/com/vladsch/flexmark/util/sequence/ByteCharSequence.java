@@ -0,0 +1,75 @@
+package com.vladsch.flexmark.util.sequence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CharSequence of bytes as ISO-8859-1 characters, one character per byte, without copying the bytes, maps '\0' to
+ * '\uFFFD'
+ * <p>
+ * Used to wrap a memory mapped file in a {@link SubSequence} so character offsets are the byte offsets in the file.
+ * For ASCII text this is also the text in UTF-8 and US-ASCII. The bytes must not be modified while the sequence is in
+ * use.
+ */
+public final class ByteCharSequence implements CharSequence {
+    private final ByteBuffer myBytes;
+    private final int myStartIndex;
+    private final int myEndIndex;
+
+    /**
+     * @param bytes bytes from position to limit are the characters of the sequence, position and limit of the
+     *              buffer are not changed
+     */
+    public ByteCharSequence(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.limit());
+    }
+
+    private ByteCharSequence(ByteBuffer bytes, int startIndex, int endIndex) {
+        myBytes = bytes;
+        myStartIndex = startIndex;
+        myEndIndex = endIndex;
+    }
+
+    @Override
+    public int length() {
+        return myEndIndex - myStartIndex;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= myEndIndex - myStartIndex) throw new IndexOutOfBoundsException();
+        return toChar(myBytes.get(myStartIndex + index));
+    }
+
+    @Override
+    public ByteCharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > myEndIndex - myStartIndex) throw new IndexOutOfBoundsException();
+        return start == 0 && end == myEndIndex - myStartIndex ? this : new ByteCharSequence(myBytes, myStartIndex + start, myStartIndex + end);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[myEndIndex - myStartIndex];
+        for (int i = myStartIndex; i < myEndIndex; i++) {
+            chars[i - myStartIndex] = toChar(myBytes.get(i));
+        }
+        return String.valueOf(chars);
+    }
+
+    private static char toChar(byte b) {
+        return b == 0 ? '\uFFFD' : (char) (b & 0xFF);
+    }
+
+    /**
+     * Index of the first byte which is not ASCII
+     *
+     * @param bytes bytes to search from position to limit
+     * @return index of the first byte not in the range 0 to 0x7F, or -1 if all bytes are ASCII
+     */
+    public static int indexOfNonAscii(ByteBuffer bytes) {
+        int iMax = bytes.limit();
+        for (int i = bytes.position(); i < iMax; i++) {
+            if (bytes.get(i) < 0) return i;
+        }
+        return -1;
+    }
+}
@@ -1,5 +1,15 @@
 package com.vladsch.flexmark.util.sequence;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
 /**
  * A CharSequence that references original char[] and maps '\0' to '\uFFFD'
  * a subSequence() returns a sub-sequence from the original base sequence
@@ -29,14 +39,17 @@ public final class CharSubSequence extends BasedSequenceImpl {
     }
 
     private CharSubSequence(char[] chars) {
-        int iMax = chars.length;
-        for (int i = 0; i < iMax; i++) {
+        this(chars, chars.length);
+    }
+
+    private CharSubSequence(char[] chars, int length) {
+        for (int i = 0; i < length; i++) {
             if (chars[i] == '\0') chars[i] = '\uFFFD';
         }
 
         baseChars = chars;
         startOffset = 0;
-        endOffset = baseChars.length;
+        endOffset = length;
         base = this;
     }
 
@@ -97,7 +110,7 @@ public final class CharSubSequence extends BasedSequenceImpl {
 
     @Override
     public CharSubSequence baseSubSequence(int start, int end) {
-        if (start >= 0 && end <= baseChars.length) {
+        if (start >= 0 && end <= base.endOffset) {
             return start == startOffset && end == endOffset ? this : base != this ? base.baseSubSequence(start, end) : new CharSubSequence(base, start, end);
         }
         if (start < 0 || start > base.length()) {
@@ -141,6 +154,72 @@ public final class CharSubSequence extends BasedSequenceImpl {
         return start == 0 && end == chars.length ? new CharSubSequence(useChars) : new CharSubSequence(useChars).subSequence(start, end);
     }
 
+    /**
+     * Decode bytes into the characters of a new sequence, without copying the characters after decoding
+     * <p>
+     * The leading ASCII bytes of UTF-8, US-ASCII and ISO-8859-1 text are copied without a decoder. Malformed and
+     * unmappable input is replaced the same way as {@link String#String(byte[], Charset)}.
+     *
+     * @param bytes   bytes to decode from position to limit, position and limit of the buffer are not changed
+     * @param charset charset of the bytes
+     * @return sequence of decoded characters
+     */
+    public static CharSubSequence of(ByteBuffer bytes, Charset charset) {
+        ByteBuffer in = bytes.duplicate();
+        boolean isLatin1 = charset.name().equals("ISO-8859-1");
+        boolean isAscii = isLatin1 || charset.name().equals("UTF-8") || charset.name().equals("US-ASCII");
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        char[] chars = new char[(int) Math.ceil(in.remaining() * (double) decoder.maxCharsPerByte())];
+        int length = 0;
+
+        if (isAscii) {
+            int iMax = in.limit();
+            int i = in.position();
+            while (i < iMax) {
+                byte b = in.get(i);
+                if (b < 0 && !isLatin1) break;
+                chars[length++] = (char) (b & 0xFF);
+                i++;
+            }
+            // call through Buffer, JDK 9+ covariant overrides do not exist on Java 7/8 runtimes
+            ((Buffer) in).position(i);
+        }
+
+        if (in.hasRemaining()) {
+            CharBuffer out = CharBuffer.wrap(chars);
+            ((Buffer) out).position(length);
+
+            try {
+                while (true) {
+                    CoderResult result = in.hasRemaining() ? decoder.decode(in, out, true) : CoderResult.UNDERFLOW;
+                    if (result.isUnderflow()) result = decoder.flush(out);
+                    if (result.isUnderflow()) break;
+
+                    if (result.isOverflow()) {
+                        int position = out.position();
+                        chars = Arrays.copyOf(chars, chars.length * 2 + 16);
+                        out = CharBuffer.wrap(chars);
+                        ((Buffer) out).position(position);
+                    } else {
+                        result.throwException();
+                    }
+                }
+            } catch (CharacterCodingException e) {
+                // not thrown for replaced input
+                throw new IllegalStateException(e);
+            }
+
+            length = out.position();
+
+            // multi-byte characters can leave a lot of unused space
+            if (length < chars.length - chars.length / 8) {
+                chars = Arrays.copyOf(chars, length);
+            }
+        }
+
+        return new CharSubSequence(chars, length);
+    }
+
     public static CharSubSequence of(CharSequence charSequence, int start, int end) {
         if (start == 0 && end == charSequence.length()) {
             if (charSequence instanceof CharSubSequence) return ((CharSubSequence) charSequence);
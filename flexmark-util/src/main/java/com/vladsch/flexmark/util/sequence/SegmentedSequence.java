@@ -3,18 +3,21 @@ package com.vladsch.flexmark.util.sequence;
 import java.util.ArrayList;
 import java.util.List;
 
-import static java.lang.Integer.MIN_VALUE;
-
 /**
- * A CharSequence that references original char sequence and maps '\0' to '\uFFFD'
- * a subSequence() returns a sub-sequence from the original base sequence
+ * A BasedSequence made up of segments of the same base sequence and of characters which are not from the base sequence
+ * <p>
+ * Two implementations are available: {@link SegmentedSequenceTree}, the default, which keeps a list of runs of
+ * consecutive base offsets and inserted characters and {@link SegmentedSequenceFull} which keeps a base offset for
+ * every character.
  */
-public final class SegmentedSequence extends BasedSequenceImpl {
-    private final BasedSequence baseSeq;
-    private final char[] nonBaseChars;
-    private final int[] baseOffsets;
-    private final int baseStartOffset;
-    private final int length;      // list of start/end indices
+public abstract class SegmentedSequence extends BasedSequenceImpl {
+    protected final BasedSequence baseSeq;
+    protected final int length;
+
+    protected SegmentedSequence(BasedSequence baseSeq, int length) {
+        this.baseSeq = baseSeq;
+        this.length = length;
+    }
 
     @Override
     public Object getBase() {
@@ -26,84 +29,63 @@ public final class SegmentedSequence extends BasedSequenceImpl {
         return baseSeq.getBaseSequence();
     }
 
-    public int getStartOffset() {
-        int iMax = baseOffsets.length;
+    /**
+     * @return base offsets of all characters in the underlying segment data, characters not from base sequence have
+     *         offset of -1 - index of the character in non-base characters
+     */
+    public abstract int[] getBaseOffsets();
 
-        if (nonBaseChars != null) {
-            for (int i = baseStartOffset; i < iMax; i++) {
-                if (baseOffsets[i] >= 0) return baseOffsets[i];
-            }
-            return 0;
-        }
-        return iMax > 0 ? baseOffsets[baseStartOffset] : 0;
-    }
+    /**
+     * @return index of this sequence's first character in {@link #getBaseOffsets()}
+     */
+    public abstract int getBaseStartOffset();
 
-    public int getEndOffset() {
-        int iMax = baseOffsets.length;
-
-        if (nonBaseChars != null) {
-            for (int i = iMax; i-- > baseStartOffset; ) {
-                if (baseOffsets[i] >= 0) return baseOffsets[i];
-            }
-            return 0;
-        }
+    @Override
+    public int length() {
+        return length;
+    }
 
-        // ensure that 0 length end returns start
-        if (length == 0) return iMax > 0 ? baseOffsets[baseStartOffset] : 0;
-        return iMax > 0 ? baseOffsets[baseStartOffset + length - 1] + 1 : 0;
+    @Override
+    public Range getSourceRange() {
+        return new Range(getStartOffset(), getEndOffset());
     }
 
     @Override
-    public Range getIndexRange(final int startOffset, final int endOffset) {
-        // we assume that start/end is within our range
-        int start = MIN_VALUE;
-        int end = MIN_VALUE;
-        for (int i = 0; i < baseOffsets.length; i++) {
-            if (baseOffsets[i] == startOffset) {
-                start = i;
-            }
-            if (baseOffsets[i] == endOffset) {
-                end = i;
-            }
-            if (start != MIN_VALUE && end != MIN_VALUE) break;
+    public BasedSequence baseSubSequence(int start, int end) {
+        if (start < 0 || start > baseSeq.length()) {
+            throw new StringIndexOutOfBoundsException("String index out of range: " + start);
+        }
+        if (end < 0 || end > baseSeq.length()) {
+            throw new StringIndexOutOfBoundsException("String index out of range: " + end);
         }
 
-        if (start < 0) start = 0;
-        if (end < start) end = start;
-        if (start > end) start = end;
-        return Range.of(start, end);
-    }
-
-    public int[] getBaseOffsets() {
-        return baseOffsets;
+        return baseSeq.baseSubSequence(start, end);
     }
 
-    public int getBaseStartOffset() {
-        return baseStartOffset;
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
     }
 
     @Override
-    public int getIndexOffset(int index) {
-        if (index < 0 || index > length) {
-            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
-        }
-
-        if (index == length) {
-            if (index == 0) {
-                throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
-            }
-            int offset = baseOffsets[baseStartOffset + index - 1];
-            if (offset < 0) {
-                return -1;
-            } else {
-                return offset + 1;
-            }
-        }
-        int offset = baseOffsets[baseStartOffset + index];
-        return offset < 0 ? -1 : offset;
+    public boolean equals(Object obj) {
+        return obj == this || (obj instanceof CharSequence && toString().equals(obj.toString()));
     }
 
     public static BasedSequence of(List<BasedSequence> segments, BasedSequence empty) {
+        return of(segments, empty, false);
+    }
+
+    /**
+     * Create a based sequence from segments
+     *
+     * @param segments    segments of the same base sequence, in increasing offset order
+     * @param empty       sequence to return if there are no segments
+     * @param fullOffsets true to create a {@link SegmentedSequenceFull} with an offset for every character,
+     *                    false to create a {@link SegmentedSequenceTree}
+     * @return based sequence, a single segment is returned as is
+     */
+    public static BasedSequence of(List<BasedSequence> segments, BasedSequence empty, boolean fullOffsets) {
         if (segments.size() == 0) {
             return empty;
         }
@@ -114,9 +96,6 @@ public final class SegmentedSequence extends BasedSequenceImpl {
         ArrayList<BasedSequence> mergedSequences = new ArrayList<BasedSequence>();
 
         for (BasedSequence basedSequence : segments) {
-            if (base.getBase() != basedSequence.getBase()) {
-                int tmp = 0;
-            }
             assert base.getBase() == basedSequence.getBase() : "all segments must come from the same base sequence";
 
             if (basedSequence instanceof PrefixedSubSequence || basedSequence instanceof SegmentedSequence) {
@@ -143,124 +122,6 @@ public final class SegmentedSequence extends BasedSequenceImpl {
             return mergedSequences.get(0);
         }
 
-        return new SegmentedSequence(mergedSequences);
-    }
-
-    private SegmentedSequence(List<BasedSequence> segments) {
-        this.baseSeq = segments.get(0).getBaseSequence();
-
-        int length = 0;
-
-        BasedSequence base = segments.size() > 0 ? segments.get(0).getBaseSequence() : SubSequence.NULL;
-
-        for (BasedSequence basedSequence : segments) {
-            if (base.getBase() != basedSequence.getBase()) {
-                int tmp = 0;
-            }
-            assert base.getBase() == basedSequence.getBase() : "all segments must come from the same base sequence";
-            assert basedSequence.getStartOffset() >= length : "segments must be in increasing index order from base sequence start=" + basedSequence.getStartOffset() + ", length=" + length;
-            length += basedSequence.length();
-        }
-
-        this.baseStartOffset = 0;
-        this.length = length;
-        this.baseOffsets = new int[length];
-        length = 0;
-        StringBuilder sb = null;
-
-        for (BasedSequence basedSequence : segments) {
-            int ciMax = basedSequence.length();
-
-            for (int ci = 0; ci < ciMax; ci++) {
-                int offset = basedSequence.getIndexOffset(ci);
-                if (offset < 0) {
-                    if (sb == null) sb = new StringBuilder();
-                    sb.append(basedSequence.charAt(ci));
-                    offset = -sb.length();
-                }
-
-                this.baseOffsets[ci + length] = offset;
-            }
-
-            length += ciMax;
-        }
-
-        if (sb != null) {
-            this.nonBaseChars = sb.toString().toCharArray();
-        } else {
-            this.nonBaseChars = null;
-        }
-    }
-
-    private SegmentedSequence(BasedSequence baseSeq, int[] baseOffsets, int baseStartOffset, char[] nonBaseChars, int length) {
-        this.baseSeq = baseSeq;
-        this.baseOffsets = baseOffsets;
-        this.baseStartOffset = baseStartOffset;
-        this.nonBaseChars = nonBaseChars;
-        this.length = length;
-    }
-
-    @Override
-    public int length() {
-        return length;
-    }
-
-    @Override
-    public Range getSourceRange() {
-        return new Range(getStartOffset(), getEndOffset());
-    }
-
-    @Override
-    public char charAt(int index) {
-        if (index < 0 || index >= length) {
-            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
-        }
-
-        int offset = baseOffsets[baseStartOffset + index];
-
-        if (offset < 0) {
-            // KLUDGE: allows having characters which are not from original base sequence
-            return nonBaseChars[-offset - 1];
-        }
-        return baseSeq.charAt(offset);
-    }
-
-    @Override
-    public BasedSequence baseSubSequence(int start, int end) {
-        if (start < 0 || start > baseSeq.length()) {
-            throw new StringIndexOutOfBoundsException("String index out of range: " + start);
-        }
-        if (end < 0 || end > baseSeq.length()) {
-            throw new StringIndexOutOfBoundsException("String index out of range: " + end);
-        }
-
-        return baseSeq.baseSubSequence(start, end);
-    }
-
-    @Override
-    public BasedSequence subSequence(int start, int end) {
-        if (start < 0 || start > length) {
-            throw new StringIndexOutOfBoundsException("String index out of range: " + start);
-        }
-
-        if (end < 0 || end > length) {
-            throw new StringIndexOutOfBoundsException("String index out of range: " + end);
-        }
-
-        if (start == 0 && end == length) {
-            return this;
-        } else {
-            return new SegmentedSequence(baseSeq, baseOffsets, baseStartOffset + start, nonBaseChars, end - start);
-        }
-    }
-
-    @Override
-    public int hashCode() {
-        return toString().hashCode();
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        return obj == this || (obj instanceof CharSequence && toString().equals(obj.toString()));
+        return fullOffsets ? new SegmentedSequenceFull(mergedSequences) : new SegmentedSequenceTree(mergedSequences);
     }
 }
@@ -0,0 +1,178 @@
+package com.vladsch.flexmark.util.sequence;
+
+import java.util.List;
+
+import static java.lang.Integer.MIN_VALUE;
+
+/**
+ * A segmented sequence which keeps the base offset of every character
+ * <p>
+ * Uses 4 bytes per character for offsets, see {@link SegmentedSequenceTree} for the compact representation.
+ */
+public final class SegmentedSequenceFull extends SegmentedSequence {
+    private final char[] nonBaseChars;
+    private final int[] baseOffsets;
+    private final int baseStartOffset;
+
+    public int getStartOffset() {
+        int iMax = baseOffsets.length;
+
+        if (nonBaseChars != null) {
+            for (int i = baseStartOffset; i < iMax; i++) {
+                if (baseOffsets[i] >= 0) return baseOffsets[i];
+            }
+            return 0;
+        }
+        return iMax > 0 ? baseOffsets[baseStartOffset] : 0;
+    }
+
+    public int getEndOffset() {
+        int iMax = baseOffsets.length;
+
+        if (nonBaseChars != null) {
+            for (int i = iMax; i-- > baseStartOffset; ) {
+                if (baseOffsets[i] >= 0) return baseOffsets[i];
+            }
+            return 0;
+        }
+
+        // ensure that 0 length end returns start
+        if (length == 0) return iMax > 0 ? baseOffsets[baseStartOffset] : 0;
+        return iMax > 0 ? baseOffsets[baseStartOffset + length - 1] + 1 : 0;
+    }
+
+    @Override
+    public Range getIndexRange(final int startOffset, final int endOffset) {
+        // we assume that start/end is within our range
+        int start = MIN_VALUE;
+        int end = MIN_VALUE;
+        for (int i = 0; i < baseOffsets.length; i++) {
+            if (baseOffsets[i] == startOffset) {
+                start = i;
+            }
+            if (baseOffsets[i] == endOffset) {
+                end = i;
+            }
+            if (start != MIN_VALUE && end != MIN_VALUE) break;
+        }
+
+        if (start < 0) start = 0;
+        if (end < start) end = start;
+        if (start > end) start = end;
+        return Range.of(start, end);
+    }
+
+    @Override
+    public int[] getBaseOffsets() {
+        return baseOffsets;
+    }
+
+    @Override
+    public int getBaseStartOffset() {
+        return baseStartOffset;
+    }
+
+    @Override
+    public int getIndexOffset(int index) {
+        if (index < 0 || index > length) {
+            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+        }
+
+        if (index == length) {
+            if (index == 0) {
+                throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+            }
+            int offset = baseOffsets[baseStartOffset + index - 1];
+            if (offset < 0) {
+                return -1;
+            } else {
+                return offset + 1;
+            }
+        }
+        int offset = baseOffsets[baseStartOffset + index];
+        return offset < 0 ? -1 : offset;
+    }
+
+    SegmentedSequenceFull(List<BasedSequence> segments) {
+        super(segments.get(0).getBaseSequence(), computeLength(segments));
+
+        this.baseStartOffset = 0;
+        this.baseOffsets = new int[length];
+        int length = 0;
+        StringBuilder sb = null;
+
+        for (BasedSequence basedSequence : segments) {
+            int ciMax = basedSequence.length();
+
+            for (int ci = 0; ci < ciMax; ci++) {
+                int offset = basedSequence.getIndexOffset(ci);
+                if (offset < 0) {
+                    if (sb == null) sb = new StringBuilder();
+                    sb.append(basedSequence.charAt(ci));
+                    offset = -sb.length();
+                }
+
+                this.baseOffsets[ci + length] = offset;
+            }
+
+            length += ciMax;
+        }
+
+        if (sb != null) {
+            this.nonBaseChars = sb.toString().toCharArray();
+        } else {
+            this.nonBaseChars = null;
+        }
+    }
+
+    private SegmentedSequenceFull(BasedSequence baseSeq, int[] baseOffsets, int baseStartOffset, char[] nonBaseChars, int length) {
+        super(baseSeq, length);
+        this.baseOffsets = baseOffsets;
+        this.baseStartOffset = baseStartOffset;
+        this.nonBaseChars = nonBaseChars;
+    }
+
+    private static int computeLength(List<BasedSequence> segments) {
+        int length = 0;
+        BasedSequence base = segments.get(0).getBaseSequence();
+
+        for (BasedSequence basedSequence : segments) {
+            assert base.getBase() == basedSequence.getBase() : "all segments must come from the same base sequence";
+            assert basedSequence.getStartOffset() >= length : "segments must be in increasing index order from base sequence start=" + basedSequence.getStartOffset() + ", length=" + length;
+            length += basedSequence.length();
+        }
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+        }
+
+        int offset = baseOffsets[baseStartOffset + index];
+
+        if (offset < 0) {
+            // KLUDGE: allows having characters which are not from original base sequence
+            return nonBaseChars[-offset - 1];
+        }
+        return baseSeq.charAt(offset);
+    }
+
+    @Override
+    public BasedSequence subSequence(int start, int end) {
+        if (start < 0 || start > length) {
+            throw new StringIndexOutOfBoundsException("String index out of range: " + start);
+        }
+
+        if (end < 0 || end > length) {
+            throw new StringIndexOutOfBoundsException("String index out of range: " + end);
+        }
+
+        if (start == 0 && end == length) {
+            return this;
+        } else {
+            return new SegmentedSequenceFull(baseSeq, baseOffsets, baseStartOffset + start, nonBaseChars, end - start);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.vladsch.flexmark.util.sequence;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.Integer.MIN_VALUE;
+
+/**
+ * A segmented sequence which keeps runs of characters instead of an offset for every character
+ * <p>
+ * A run is either a range of consecutive base sequence offsets or a range of characters which are not from the base
+ * sequence. Character index to run is found by binary search on run start indices, with the last used run cached
+ * for sequential access.
+ * <p>
+ * Offsets and non-base characters behave the same as {@link SegmentedSequenceFull}.
+ */
+public final class SegmentedSequenceTree extends SegmentedSequence {
+    private final int[] runStarts;      // index of first character of run in segment data, last entry is the total length
+    private final int[] runOffsets;     // base offset of run start or -1 - index of run start in nonBaseChars
+    private final int runCount;
+    private final char[] nonBaseChars;
+    private final int baseStartOffset;
+    private int lastRun;                // last run accessed, only a hint so races are harmless
+    private volatile int[] baseOffsets; // per character offsets, only created when requested
+
+    SegmentedSequenceTree(List<BasedSequence> segments) {
+        super(segments.get(0).getBaseSequence(), computeLength(segments));
+
+        int[] runStarts = new int[segments.size() + 1];
+        int[] runOffsets = new int[segments.size() + 1];
+        int runCount = 0;
+        int nextOffset = MIN_VALUE;
+        int index = 0;
+        StringBuilder sb = null;
+
+        for (BasedSequence basedSequence : segments) {
+            int ciMax = basedSequence.length();
+
+            if (basedSequence instanceof SubSequence || basedSequence instanceof CharSubSequence) {
+                // contiguous base offsets
+                if (ciMax > 0) {
+                    int offset = basedSequence.getStartOffset();
+                    if (offset != nextOffset) {
+                        if (runCount + 1 >= runStarts.length) {
+                            runStarts = Arrays.copyOf(runStarts, runStarts.length * 2);
+                            runOffsets = Arrays.copyOf(runOffsets, runOffsets.length * 2);
+                        }
+                        runStarts[runCount] = index;
+                        runOffsets[runCount] = offset;
+                        runCount++;
+                    }
+                    nextOffset = offset + ciMax;
+                    index += ciMax;
+                }
+                continue;
+            }
+
+            for (int ci = 0; ci < ciMax; ci++) {
+                int offset = basedSequence.getIndexOffset(ci);
+                if (offset < 0) {
+                    if (sb == null) sb = new StringBuilder();
+                    sb.append(basedSequence.charAt(ci));
+                    offset = -sb.length();
+                }
+
+                if (offset != nextOffset) {
+                    if (runCount + 1 >= runStarts.length) {
+                        runStarts = Arrays.copyOf(runStarts, runStarts.length * 2);
+                        runOffsets = Arrays.copyOf(runOffsets, runOffsets.length * 2);
+                    }
+                    runStarts[runCount] = index;
+                    runOffsets[runCount] = offset;
+                    runCount++;
+                }
+
+                nextOffset = offset < 0 ? offset - 1 : offset + 1;
+                index++;
+            }
+        }
+
+        runStarts[runCount] = index;
+
+        this.runStarts = runStarts.length == runCount + 1 ? runStarts : Arrays.copyOf(runStarts, runCount + 1);
+        this.runOffsets = runOffsets.length == runCount ? runOffsets : Arrays.copyOf(runOffsets, runCount);
+        this.runCount = runCount;
+        this.nonBaseChars = sb != null ? sb.toString().toCharArray() : null;
+        this.baseStartOffset = 0;
+        this.lastRun = 0;
+        this.baseOffsets = null;
+    }
+
+    private SegmentedSequenceTree(SegmentedSequenceTree other, int baseStartOffset, int length) {
+        super(other.baseSeq, length);
+        this.runStarts = other.runStarts;
+        this.runOffsets = other.runOffsets;
+        this.runCount = other.runCount;
+        this.nonBaseChars = other.nonBaseChars;
+        this.baseStartOffset = baseStartOffset;
+        this.lastRun = other.lastRun;
+        this.baseOffsets = other.baseOffsets;
+    }
+
+    private static int computeLength(List<BasedSequence> segments) {
+        int length = 0;
+        BasedSequence base = segments.get(0).getBaseSequence();
+
+        for (BasedSequence basedSequence : segments) {
+            assert base.getBase() == basedSequence.getBase() : "all segments must come from the same base sequence";
+            assert basedSequence.getStartOffset() >= length : "segments must be in increasing index order from base sequence start=" + basedSequence.getStartOffset() + ", length=" + length;
+            length += basedSequence.length();
+        }
+        return length;
+    }
+
+    /**
+     * @return number of runs in the segment data
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Find the run containing the character at index of segment data
+     *
+     * @param index index in segment data, must be less than total segment data length
+     * @return run index
+     */
+    private int findRun(int index) {
+        int run = lastRun;
+        if (run < runCount && runStarts[run] <= index) {
+            if (index < runStarts[run + 1]) return run;
+            if (run + 1 < runCount && index < runStarts[run + 2]) {
+                lastRun = run + 1;
+                return run + 1;
+            }
+        }
+
+        int low = 0;
+        int high = runCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (runStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        lastRun = low;
+        return low;
+    }
+
+    /**
+     * @param index index in segment data
+     * @return base offset or -1 - index in non-base characters of character at index
+     */
+    private int offsetAt(int index) {
+        int run = findRun(index);
+        int runOffset = runOffsets[run];
+        int delta = index - runStarts[run];
+        return runOffset < 0 ? runOffset - delta : runOffset + delta;
+    }
+
+    private int totalLength() {
+        return runStarts[runCount];
+    }
+
+    @Override
+    public int getStartOffset() {
+        int iMax = totalLength();
+
+        if (nonBaseChars != null) {
+            if (baseStartOffset < iMax) {
+                for (int run = findRun(baseStartOffset); run < runCount; run++) {
+                    int runOffset = runOffsets[run];
+                    if (runOffset >= 0) {
+                        return runOffset + Math.max(0, baseStartOffset - runStarts[run]);
+                    }
+                }
+            }
+            return 0;
+        }
+
+        if (iMax == 0) return 0;
+        if (baseStartOffset == iMax) return offsetAt(iMax - 1) + 1;
+        return offsetAt(baseStartOffset);
+    }
+
+    @Override
+    public int getEndOffset() {
+        int iMax = totalLength();
+
+        if (nonBaseChars != null) {
+            for (int run = runCount; run-- > 0; ) {
+                int runEnd = runStarts[run + 1] - 1;
+                if (runEnd < baseStartOffset) break;
+
+                int runOffset = runOffsets[run];
+                if (runOffset >= 0) {
+                    return runOffset + runEnd - runStarts[run];
+                }
+            }
+            return 0;
+        }
+
+        if (iMax == 0) return 0;
+
+        // ensure that 0 length end returns start
+        if (length == 0) {
+            if (baseStartOffset == iMax) return offsetAt(iMax - 1) + 1;
+            return offsetAt(baseStartOffset);
+        }
+        return offsetAt(baseStartOffset + length - 1) + 1;
+    }
+
+    /**
+     * @param offset base offset
+     * @return index in segment data of character with given base offset or MIN_VALUE
+     */
+    private int indexOfOffset(int offset) {
+        for (int run = 0; run < runCount; run++) {
+            int runOffset = runOffsets[run];
+            if (runOffset >= 0 && offset >= runOffset && offset < runOffset + runStarts[run + 1] - runStarts[run]) {
+                return runStarts[run] + offset - runOffset;
+            }
+        }
+        return MIN_VALUE;
+    }
+
+    @Override
+    public Range getIndexRange(final int startOffset, final int endOffset) {
+        // we assume that start/end is within our range
+        int start = indexOfOffset(startOffset);
+        int end = indexOfOffset(endOffset);
+
+        if (start < 0) start = 0;
+        if (end < start) end = start;
+        return Range.of(start, end);
+    }
+
+    /**
+     * Base offsets are computed from runs on first call and kept for following calls, only use them when
+     * per character offsets are needed since they take as much memory as {@link SegmentedSequenceFull}
+     * <p>
+     * Returned array is shared and must not be modified.
+     *
+     * @return base offsets of all characters of segment data
+     */
+    @Override
+    public int[] getBaseOffsets() {
+        int[] baseOffsets = this.baseOffsets;
+        if (baseOffsets == null) {
+            // races only compute the same array more than once
+            baseOffsets = computeBaseOffsets();
+            this.baseOffsets = baseOffsets;
+        }
+        return baseOffsets;
+    }
+
+    private int[] computeBaseOffsets() {
+        int[] baseOffsets = new int[totalLength()];
+        for (int run = 0; run < runCount; run++) {
+            int runOffset = runOffsets[run];
+            int step = runOffset < 0 ? -1 : 1;
+            for (int i = runStarts[run]; i < runStarts[run + 1]; i++) {
+                baseOffsets[i] = runOffset;
+                runOffset += step;
+            }
+        }
+        return baseOffsets;
+    }
+
+    @Override
+    public int getBaseStartOffset() {
+        return baseStartOffset;
+    }
+
+    @Override
+    public int getIndexOffset(int index) {
+        if (index < 0 || index > length) {
+            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+        }
+
+        if (index == length) {
+            if (index == 0) {
+                throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+            }
+            int offset = offsetAt(baseStartOffset + index - 1);
+            if (offset < 0) {
+                return -1;
+            } else {
+                return offset + 1;
+            }
+        }
+        int offset = offsetAt(baseStartOffset + index);
+        return offset < 0 ? -1 : offset;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+        }
+
+        int offset = offsetAt(baseStartOffset + index);
+
+        if (offset < 0) {
+            // KLUDGE: allows having characters which are not from original base sequence
+            return nonBaseChars[-offset - 1];
+        }
+        return baseSeq.charAt(offset);
+    }
+
+    @Override
+    public BasedSequence subSequence(int start, int end) {
+        if (start < 0 || start > length) {
+            throw new StringIndexOutOfBoundsException("String index out of range: " + start);
+        }
+
+        if (end < 0 || end > length) {
+            throw new StringIndexOutOfBoundsException("String index out of range: " + end);
+        }
+
+        if (start == 0 && end == length) {
+            return this;
+        } else {
+            return new SegmentedSequenceTree(this, baseStartOffset + start, end - start);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.vladsch.flexmark.util.collection.*;
 import com.vladsch.flexmark.util.html.HtmlFormattingAppendableBaseTest;
 import com.vladsch.flexmark.util.options.AttributeTest;
 import com.vladsch.flexmark.util.options.AttributesTest;
+import com.vladsch.flexmark.util.options.DataSetTest;
 import com.vladsch.flexmark.util.options.MutableAttributeTest;
 import com.vladsch.flexmark.util.sequence.BasedSequenceImplTest;
 import com.vladsch.flexmark.util.sequence.RepeatedCharSequenceTest;
@@ -23,6 +24,7 @@ import org.junit.runners.Suite;
         FormattingAppendableImplTest.class,
         RepeatedCharSequenceTest.class,
         HtmlFormattingAppendableBaseTest.class,
+        DataSetTest.class,
 })
 public class UtilsTestSuite {
 }
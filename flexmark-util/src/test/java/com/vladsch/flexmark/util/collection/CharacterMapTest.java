@@ -0,0 +1,52 @@
+package com.vladsch.flexmark.util.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CharacterMapTest {
+    @Test
+    public void test_get() throws Exception {
+        HashMap<Character, String> map = new HashMap<Character, String>();
+        map.put('*', "asterisk");
+        map.put('_', "underscore");
+        map.put('§', "section");
+        map.put('~', null);
+
+        CharacterMap<String> characterMap = new CharacterMap<String>(map);
+
+        assertEquals(map, characterMap);
+        assertEquals(4, characterMap.size());
+
+        for (char c = 0; c < 512; c++) {
+            assertEquals("char " + (int) c, map.get(c), characterMap.get(c));
+            assertEquals("char " + (int) c, map.get(c), characterMap.get((Object) c));
+            assertEquals("char " + (int) c, map.containsKey(c), characterMap.containsKey(c));
+            assertEquals("char " + (int) c, map.containsKey(c), characterMap.containsKey((Object) c));
+        }
+
+        assertNull(characterMap.get("*"));
+        assertFalse(characterMap.containsKey("*"));
+    }
+
+    @Test
+    public void test_copy() throws Exception {
+        HashMap<Character, String> map = new HashMap<Character, String>();
+        map.put('*', "asterisk");
+
+        CharacterMap<String> characterMap = new CharacterMap<String>(map);
+        map.put('_', "underscore");
+
+        assertNull(characterMap.get('_'));
+        assertEquals(1, characterMap.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_immutable() throws Exception {
+        Map<Character, String> characterMap = new CharacterMap<String>(new HashMap<Character, String>());
+        characterMap.put('*', "asterisk");
+    }
+}
@@ -0,0 +1,127 @@
+package com.vladsch.flexmark.util.collection;
+
+import com.vladsch.flexmark.ast.CustomNode;
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.ast.DoNotDecorate;
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NodeClassifierVisitorTest {
+    static class Container extends CustomNode {
+        @Override
+        public BasedSequence[] getSegments() {
+            return EMPTY_SEGMENTS;
+        }
+    }
+
+    static class Excluded extends Container implements DoNotDecorate {
+    }
+
+    static class Leaf extends Container {
+    }
+
+    private static Map<Class<? extends Node>, Set<Class<?>>> exclusionMap() {
+        HashMap<Class<? extends Node>, Set<Class<?>>> map = new HashMap<Class<? extends Node>, Set<Class<?>>>();
+        map.put(Leaf.class, new HashSet<Class<?>>(Collections.<Class<?>>singleton(DoNotDecorate.class)));
+        return map;
+    }
+
+    private static BitSet exclusions(ClassifyingNodeTracker tracker) {
+        return tracker.getExclusionSet().indexBitSet(Collections.<Class<?>>singleton(DoNotDecorate.class));
+    }
+
+    private static boolean isExcluded(ClassifyingNodeTracker tracker, Node node) {
+        return tracker.isExcluded(tracker.getItems().indexOf(node), exclusions(tracker));
+    }
+
+    @Test
+    public void test_ancestry() throws Exception {
+        Document document = new Document(new MutableDataSet(), BasedSequence.NULL);
+        Container container = new Container();
+        Excluded excluded = new Excluded();
+        Leaf leaf1 = new Leaf();
+        Leaf leaf2 = new Leaf();
+        Leaf leaf3 = new Leaf();
+        Leaf leaf4 = new Leaf();
+
+        document.appendChild(container);
+        container.appendChild(leaf1);
+        container.appendChild(excluded);
+        excluded.appendChild(leaf2);
+        excluded.appendChild(leaf3);
+        container.appendChild(leaf4);
+
+        ClassifyingNodeTracker tracker = new NodeClassifierVisitor(exclusionMap()).classify(document);
+
+        assertFalse(isExcluded(tracker, leaf1));
+        assertTrue(isExcluded(tracker, leaf2));
+        assertTrue(isExcluded(tracker, leaf3));
+        assertFalse(isExcluded(tracker, leaf4));
+        assertNull(tracker.getNodeAncestry(tracker.getItems().indexOf(container)));
+
+        // nodes with the same ancestry share the same set
+        assertSame(tracker.getNodeAncestry(tracker.getItems().indexOf(leaf2)), tracker.getNodeAncestry(tracker.getItems().indexOf(leaf3)));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void test_ancestryMap() throws Exception {
+        Document document = new Document(new MutableDataSet(), BasedSequence.NULL);
+        Container container = new Container();
+        Excluded excluded = new Excluded();
+        Leaf leaf1 = new Leaf();
+        Leaf leaf2 = new Leaf();
+
+        document.appendChild(container);
+        container.appendChild(leaf1);
+        container.appendChild(excluded);
+        excluded.appendChild(leaf2);
+
+        ClassifyingNodeTracker tracker = new NodeClassifierVisitor(exclusionMap()).classify(document);
+        HashMap<Integer, BitSet> ancestryMap = tracker.getNodeAncestryMap();
+
+        int leaf2Index = tracker.getItems().indexOf(leaf2);
+        assertEquals(tracker.getNodeAncestry(leaf2Index), ancestryMap.get(leaf2Index));
+        assertFalse(ancestryMap.containsKey(tracker.getItems().indexOf(leaf1)));
+        assertFalse(ancestryMap.containsKey(tracker.getItems().indexOf(container)));
+
+        ancestryMap.get(leaf2Index).clear();
+        assertTrue(isExcluded(tracker, leaf2));
+    }
+
+    @Test
+    public void test_nodeAdded() throws Exception {
+        Document document = new Document(new MutableDataSet(), BasedSequence.NULL);
+        Container container = new Container();
+        Excluded excluded = new Excluded();
+
+        document.appendChild(container);
+        container.appendChild(excluded);
+
+        ClassifyingNodeTracker tracker = new NodeClassifierVisitor(exclusionMap()).classify(document);
+
+        Leaf inside = new Leaf();
+        excluded.appendChild(inside);
+        tracker.nodeAdded(inside);
+
+        Leaf outside = new Leaf();
+        container.appendChild(outside);
+        tracker.nodeAdded(outside);
+
+        Excluded wrapper = new Excluded();
+        Leaf wrapped = new Leaf();
+        wrapper.appendChild(wrapped);
+        container.appendChild(wrapper);
+        tracker.nodeAddedWithChildren(wrapper);
+
+        assertTrue(isExcluded(tracker, inside));
+        assertFalse(isExcluded(tracker, outside));
+        assertTrue(isExcluded(tracker, wrapped));
+    }
+}
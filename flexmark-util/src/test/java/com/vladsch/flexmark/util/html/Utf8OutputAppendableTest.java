@@ -0,0 +1,73 @@
+package com.vladsch.flexmark.util.html;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class Utf8OutputAppendableTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void test_encoding() throws IOException {
+        String text = "ascii äö € 😀 \uD800 x \uDC00 end";
+        for (int bufferSize = 4; bufferSize < 20; bufferSize++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Utf8OutputAppendable appendable = new Utf8OutputAppendable(out, bufferSize);
+            appendable.append(text, 0, 10).append(text.charAt(10)).append(text, 11, 15).append(text.subSequence(15, text.length()));
+            appendable.close();
+            assertArrayEquals("buffer " + bufferSize, text.getBytes(UTF_8), out.toByteArray());
+            assertEquals(out.size(), appendable.getByteCount());
+        }
+    }
+
+    @Test
+    public void test_surrogateSplitAcrossAppends() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8OutputAppendable appendable = new Utf8OutputAppendable(out);
+        appendable.append("a\uD83D");
+        appendable.flush();
+        assertEquals("a", new String(out.toByteArray(), UTF_8));
+        appendable.append("\uDE00b");
+        appendable.flush();
+        assertEquals("a😀b", new String(out.toByteArray(), UTF_8));
+
+        appendable.append('\uD83D');
+        appendable.close();
+        assertEquals("a😀b?", new String(out.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void test_ioExceptionKept() throws IOException {
+        final IOException exception = new IOException("closed");
+        Utf8OutputAppendable appendable = new Utf8OutputAppendable(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw exception;
+            }
+        }, 8);
+
+        appendable.append("1234");
+        try {
+            appendable.append("123456789");
+            fail();
+        } catch (IOException e) {
+            assertSame(exception, e);
+        }
+
+        try {
+            appendable.append('x');
+            fail();
+        } catch (IOException e) {
+            assertSame(exception, e);
+        }
+        assertSame(exception, appendable.getIOException());
+    }
+}
@@ -1,8 +1,17 @@
 package com.vladsch.flexmark.util.options;
 
+import com.vladsch.flexmark.util.html.Attribute;
+import com.vladsch.flexmark.util.html.AttributeImpl;
 import com.vladsch.flexmark.util.html.Attributes;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
 
 public class AttributesTest {
@@ -65,4 +74,94 @@ public class AttributesTest {
         assertEquals("contains added value", true, attributes.containsValue("id", "id1"));
 
     }
+
+    @Test
+    public void testOrder() throws Exception {
+        Attributes attributes = new Attributes();
+        attributes.addValue("id", "id1");
+        attributes.addValue("class", "class1");
+        attributes.addValue("title", "title1");
+        attributes.addValue("href", "/url");
+        attributes.addValue("rel", "nofollow");
+
+        assertEquals("keys in order added", Arrays.asList("id", "class", "title", "href", "rel"), new ArrayList<String>(attributes.keySet()));
+
+        attributes.remove("class");
+        assertEquals("keys after remove", Arrays.asList("id", "title", "href", "rel"), new ArrayList<String>(attributes.keySet()));
+        assertEquals("size after remove", 4, attributes.size());
+
+        attributes.addValue("class", "class1");
+        assertEquals("re-added key at end", Arrays.asList("id", "title", "href", "rel", "class"), new ArrayList<String>(attributes.keySet()));
+
+        Attributes copy = new Attributes(attributes);
+        attributes.clear();
+        assertEquals("cleared", true, attributes.isEmpty());
+        assertEquals("copy not affected by clear", "title1", copy.getValue("title"));
+
+        attributes.addValue("class", "class2");
+        assertEquals("reused after clear", "Attributes{myAttributes=class=\"class2\"}", attributes.toString());
+    }
+
+    @Test
+    public void testAddClassNormalizes() throws Exception {
+        Attributes attributes = new Attributes();
+
+        attributes.replaceValue("class", "class1  class1 class2");
+        attributes.addValue("class", "class3");
+        assertEquals("spliced from values", "class1 class2 class3", attributes.getValue("class"));
+
+        attributes.addValue("class", "class2");
+        assertEquals("existing value", "class1 class2 class3", attributes.getValue("class"));
+
+        attributes.replaceValue("class", " class1");
+        attributes.addValue("class", "class1");
+        assertEquals("existing value normalized", "class1", attributes.getValue("class"));
+
+        attributes.addValue("class", "class2 class3");
+        assertEquals("add several values", "class1 class2 class3", attributes.getValue("class"));
+    }
+
+    @Test
+    public void testEntrySetLive() throws Exception {
+        Attributes attributes = new Attributes();
+        attributes.addValue("id", "id1");
+        attributes.addValue("class", "class1");
+
+        Set<Map.Entry<BasedSequence, Attribute>> entrySet = attributes.entrySet();
+        attributes.addValue("title", "title1");
+        assertEquals("sees added attributes", 3, entrySet.size());
+
+        for (Map.Entry<BasedSequence, Attribute> entry : entrySet) {
+            if (String.valueOf(entry.getKey()).equals("class")) {
+                ((Map.Entry) entry).setValue(AttributeImpl.of("class", "class2"));
+            }
+        }
+        assertEquals("set through entry", "class2", attributes.getValue("class"));
+
+        Iterator<Map.Entry<BasedSequence, Attribute>> iterator = entrySet.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals("removed through iterator", "Attributes{myAttributes=class=\"class2\" title=\"title1\"}", attributes.toString());
+    }
+
+    @Test
+    public void testMapLive() throws Exception {
+        final Map<String, Attribute>[] map = new Map[1];
+        Attributes attributes = new Attributes() {
+            {
+                addValue("id", "id1");
+                map[0] = getAttributes();
+            }
+        };
+
+        assertEquals("map has attributes", "id1", map[0].get("id").getValue());
+
+        attributes.addValue("class", "class1");
+        assertEquals("map sees added attributes", "class1", map[0].get("class").getValue());
+
+        map[0].put("title", AttributeImpl.of("title", "title1"));
+        map[0].remove("id");
+        assertEquals("attributes see map changes", "Attributes{myAttributes=class=\"class1\" title=\"title1\"}", attributes.toString());
+        assertEquals("copy sees map changes", 2, new Attributes(attributes).size());
+    }
 }
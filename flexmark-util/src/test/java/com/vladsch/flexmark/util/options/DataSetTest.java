@@ -0,0 +1,151 @@
+package com.vladsch.flexmark.util.options;
+
+import com.vladsch.flexmark.util.collection.DataValueFactory;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DataSetTest {
+    private static final DataKey<String> KEY_1 = new DataKey<String>("KEY_1", "default 1");
+    private static final DataKey<String> KEY_2 = new DataKey<String>("KEY_2", "default 2");
+    private static final DataKey<Integer> KEY_3 = new DataKey<Integer>("KEY_3", 3);
+    private static final DataKey<String> NULLABLE = new DataKey<String>("NULLABLE", (String) null);
+
+    @Test
+    public void test_keyMap() {
+        DataKeyMap map = new DataKeyMap();
+        assertEquals(0, map.size());
+        assertSame(DataKeyMap.NOT_FOUND, map.getOrNotFound(KEY_1));
+
+        map.put(KEY_2, "value 2");
+        map.put(NULLABLE, null);
+        assertEquals(2, map.size());
+        assertEquals("value 2", map.getOrNotFound(KEY_2));
+        assertNull(map.getOrNotFound(NULLABLE));
+        assertTrue(map.containsKey(NULLABLE));
+        assertFalse(map.containsKey(KEY_1));
+        assertFalse(map.containsKey("KEY_2"));
+
+        HashMap<DataKey, Object> expected = new HashMap<DataKey, Object>();
+        expected.put(KEY_2, "value 2");
+        expected.put(NULLABLE, null);
+        assertEquals(expected, map);
+        assertEquals(expected, new HashMap<DataKey, Object>(map));
+
+        assertEquals("value 2", map.put(KEY_2, "other"));
+        assertEquals(2, map.size());
+        assertNull(map.remove(NULLABLE));
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(NULLABLE));
+
+        Iterator<Map.Entry<DataKey, Object>> iterator = map.entrySet().iterator();
+        assertSame(KEY_2, iterator.next().getKey());
+        iterator.remove();
+        assertFalse(iterator.hasNext());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void test_keyMapCopyOnWrite() {
+        DataKeyMap map = new DataKeyMap();
+        map.put(KEY_1, "value 1");
+
+        DataKeyMap copy = new DataKeyMap(map);
+        copy.put(KEY_2, "value 2");
+        map.put(KEY_3, 3);
+        map.put(KEY_1, "changed");
+
+        assertEquals(2, map.size());
+        assertEquals("changed", map.get(KEY_1));
+        assertFalse(map.containsKey(KEY_2));
+
+        assertEquals(2, copy.size());
+        assertEquals("value 1", copy.get(KEY_1));
+        assertFalse(copy.containsKey(KEY_3));
+
+        DataKeyMap all = new DataKeyMap();
+        all.putAll(map);
+        all.putAll(copy);
+        map.clear();
+        assertEquals(3, all.size());
+        assertEquals("value 1", all.get(KEY_1));
+        assertEquals(3, all.get(KEY_3));
+    }
+
+    @Test
+    public void test_keyMapFrozenCopy() {
+        DataKeyMap map = new DataKeyMap();
+        map.put(KEY_1, "value 1");
+        map.freeze();
+
+        DataKeyMap copy = new DataKeyMap(map);
+        DataKeyMap merged = new DataKeyMap();
+        merged.putAll(map);
+        copy.put(KEY_1, "changed");
+        merged.put(KEY_2, "value 2");
+
+        assertEquals(1, map.size());
+        assertEquals("value 1", map.get(KEY_1));
+        assertEquals("changed", copy.get(KEY_1));
+        assertEquals("value 1", merged.get(KEY_1));
+        assertEquals(2, merged.size());
+
+        // frozen maps copy their arrays when modified
+        map.put(KEY_3, 3);
+        assertFalse(copy.containsKey(KEY_3));
+        assertFalse(merged.containsKey(KEY_3));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void test_dataSet() {
+        MutableDataSet options = new MutableDataSet().set(KEY_1, "value 1").set(NULLABLE, null);
+        DataSet dataSet = new DataSet(options);
+        options.set(KEY_1, "changed");
+
+        assertEquals("value 1", dataSet.get(KEY_1));
+        assertEquals("default 2", dataSet.get(KEY_2));
+        assertNull(dataSet.get(NULLABLE));
+        assertTrue(dataSet.contains(NULLABLE));
+        assertEquals("changed", options.get(KEY_1));
+
+        // computed defaults are stored in mutable data sets
+        final int[] computed = { 0 };
+        DataValueFactory<String> factory = new DataValueFactory<String>() {
+            @Override
+            public String create(DataHolder value) {
+                return "computed " + ++computed[0];
+            }
+        };
+        DataKey<String> computedKey = new DataKey<String>("COMPUTED", factory);
+        computed[0] = 0;
+        assertEquals("computed 1", options.getOrCompute(computedKey, factory));
+        assertEquals("computed 1", options.get(computedKey));
+        assertFalse(dataSet.contains(computedKey));
+    }
+
+    @Test
+    public void test_scopedDataSet() {
+        MutableDataSet parent = new MutableDataSet().set(KEY_1, "parent 1").set(KEY_2, "parent 2");
+        DataSet options = new DataSet(new MutableDataSet().set(KEY_2, "options 2").set(KEY_3, 30));
+        ScopedDataSet scoped = new ScopedDataSet(parent, options);
+
+        assertEquals("parent 1", scoped.get(KEY_1));
+        assertEquals("options 2", scoped.get(KEY_2));
+        assertEquals(30, (int) scoped.get(KEY_3));
+        assertNull(scoped.get(NULLABLE));
+        assertTrue(scoped.contains(KEY_1));
+        assertFalse(scoped.contains(NULLABLE));
+
+        parent.set(NULLABLE, "parent");
+        assertEquals("parent", scoped.get(NULLABLE));
+    }
+}
@@ -3,11 +3,14 @@ package com.vladsch.flexmark.util.sequence;
 import com.vladsch.flexmark.util.Pair;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class BasedSequenceImplTest {
     // TODO: need complete tests here
@@ -306,4 +309,32 @@ public class BasedSequenceImplTest {
             assertEquals("Failed at " + j, info.get(j), atIndex);
         }
     }
+
+    @Test
+    public void test_ofBytes() throws Exception {
+        String ascii = "# Heading\n\ntext\0with null\n";
+        Charset utf8 = Charset.forName("UTF-8");
+        BasedSequence asciiSeq = BasedSequenceImpl.of(ByteBuffer.wrap(ascii.getBytes(utf8)), utf8);
+        assertTrue(asciiSeq.getBase() instanceof ByteCharSequence);
+        assertEquals(ascii.replace('\0', '\uFFFD'), asciiSeq.toString());
+        assertEquals(ascii.indexOf("text"), asciiSeq.subSequence(ascii.indexOf("text")).getStartOffset());
+
+        String text = "caf\u00e9 \u4e2d\u6587 \ud83d\ude00 end\n";
+        for (String name : new String[] { "UTF-8", "UTF-16", "ISO-8859-1", "US-ASCII" }) {
+            Charset charset = Charset.forName(name);
+            byte[] bytes = text.getBytes(charset);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            BasedSequence seq = BasedSequenceImpl.of(buffer, charset);
+            assertEquals(name, new String(bytes, charset), seq.toString());
+            assertEquals(name, 0, buffer.position());
+            assertEquals(name, "end", seq.subSequence(seq.length() - 4, seq.length() - 1).toString());
+        }
+
+        // position and limit give the bytes of the sequence
+        ByteBuffer buffer = ByteBuffer.wrap("\u00e9abc\u00e9".getBytes(utf8));
+        buffer.position(2);
+        buffer.limit(5);
+        assertEquals("abc", BasedSequenceImpl.of(buffer, utf8).toString());
+        assertEquals("abc", CharSubSequence.of(buffer, utf8).toString());
+    }
 }
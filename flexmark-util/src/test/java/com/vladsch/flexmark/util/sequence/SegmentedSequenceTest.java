@@ -0,0 +1,83 @@
+package com.vladsch.flexmark.util.sequence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedSequenceTest {
+    private static List<BasedSequence> segments(BasedSequence s) {
+        List<BasedSequence> segments = new ArrayList<BasedSequence>();
+        segments.add(s.subSequence(0, 5));
+        segments.add(s.subSequence(5, 8));
+        segments.add(PrefixedSubSequence.of("<>", s.subSequence(10, 14)));
+        segments.add(s.subSequence(15, 20));
+        segments.add(s.subSequence(22, 30));
+        return segments;
+    }
+
+    private static void assertSameSequence(String message, BasedSequence full, BasedSequence tree) {
+        assertEquals(message, full.toString(), tree.toString());
+        assertEquals(message + " length", full.length(), tree.length());
+        assertEquals(message + " startOffset", full.getStartOffset(), tree.getStartOffset());
+        assertEquals(message + " endOffset", full.getEndOffset(), tree.getEndOffset());
+
+        int iMax = full.length();
+        for (int i = 0; i < iMax; i++) {
+            assertEquals(message + " charAt(" + i + ")", full.charAt(i), tree.charAt(i));
+            assertEquals(message + " getIndexOffset(" + i + ")", full.getIndexOffset(i), tree.getIndexOffset(i));
+        }
+
+        if (iMax > 0) {
+            assertEquals(message + " getIndexOffset(" + iMax + ")", full.getIndexOffset(iMax), tree.getIndexOffset(iMax));
+        }
+    }
+
+    @Test
+    public void test_treeMatchesFull() throws Exception {
+        BasedSequence s = BasedSequenceImpl.of("0123456789abcdefghijklmnopqrstuvwxyz");
+        BasedSequence full = SegmentedSequence.of(segments(s), BasedSequence.NULL, true);
+        BasedSequence tree = SegmentedSequence.of(segments(s), BasedSequence.NULL, false);
+
+        assertTrue(full instanceof SegmentedSequenceFull);
+        assertTrue(tree instanceof SegmentedSequenceTree);
+        assertArrayEquals(((SegmentedSequence) full).getBaseOffsets(), ((SegmentedSequence) tree).getBaseOffsets());
+        assertSame(((SegmentedSequence) tree).getBaseOffsets(), ((SegmentedSequence) tree).getBaseOffsets());
+        assertSame(((SegmentedSequence) tree).getBaseOffsets(), ((SegmentedSequence) tree.subSequence(1, 5)).getBaseOffsets());
+        assertEquals(full, tree);
+
+        int iMax = full.length();
+        for (int i = 0; i < iMax; i++) {
+            for (int j = i; j <= iMax; j++) {
+                assertSameSequence("subSequence(" + i + ", " + j + ")", full.subSequence(i, j), tree.subSequence(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void test_treeMatchesFullNoInserted() throws Exception {
+        BasedSequence s = BasedSequenceImpl.of("0123456789abcdefghijklmnopqrstuvwxyz");
+        List<BasedSequence> segments = new ArrayList<BasedSequence>();
+        segments.add(s.subSequence(0, 3));
+        segments.add(s.subSequence(4, 9));
+        segments.add(s.subSequence(12, 20));
+
+        BasedSequence full = SegmentedSequence.of(segments, BasedSequence.NULL, true);
+        BasedSequence tree = SegmentedSequence.of(segments, BasedSequence.NULL, false);
+
+        assertEquals(3, ((SegmentedSequenceTree) tree).getRunCount());
+        assertEquals(full.getIndexRange(5, 14), tree.getIndexRange(5, 14));
+
+        int iMax = full.length();
+        for (int i = 0; i < iMax; i++) {
+            for (int j = i; j <= iMax; j++) {
+                assertSameSequence("subSequence(" + i + ", " + j + ")", full.subSequence(i, j), tree.subSequence(i, j));
+            }
+        }
+    }
+}
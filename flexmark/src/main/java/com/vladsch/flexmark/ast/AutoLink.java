@@ -14,6 +14,14 @@ public class AutoLink extends LinkNode {
     protected BasedSequence text = BasedSequence.NULL;
     protected BasedSequence closingMarker = BasedSequence.NULL;
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        openingMarker = shifter.shift(openingMarker);
+        text = shifter.shift(text);
+        closingMarker = shifter.shift(closingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] { openingMarker, text, closingMarker };
@@ -12,6 +12,12 @@ public class BlockQuote extends Block {
         segmentSpanChars(out, openingMarker, "marker");
     }
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        openingMarker = shifter.shift(openingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] { openingMarker };
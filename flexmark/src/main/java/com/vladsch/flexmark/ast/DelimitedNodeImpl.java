@@ -12,6 +12,14 @@ public abstract class DelimitedNodeImpl extends Node implements DelimitedNode {
         delimitedSegmentSpanChars(out, openingMarker, text, closingMarker, "text");
     }
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        openingMarker = shifter.shift(openingMarker);
+        text = shifter.shift(text);
+        closingMarker = shifter.shift(closingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] { openingMarker, text, closingMarker };
@@ -21,6 +21,14 @@ public class FencedCodeBlock extends Block implements DoNotDecorate {
         segmentSpanChars(out, closingMarker, "close");
     }
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        openingMarker = shifter.shift(openingMarker);
+        info = shifter.shift(info);
+        closingMarker = shifter.shift(closingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] { openingMarker, info, getContentChars(), closingMarker };
@@ -5,6 +5,12 @@ import com.vladsch.flexmark.util.sequence.BasedSequence;
 public class Image extends InlineLinkNode {
     private BasedSequence urlContent = BasedSequence.NULL;
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        urlContent = shifter.shift(urlContent);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] {
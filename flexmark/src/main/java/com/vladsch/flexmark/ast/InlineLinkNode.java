@@ -9,6 +9,16 @@ public abstract class InlineLinkNode extends LinkNode {
     protected BasedSequence linkOpeningMarker = BasedSequence.NULL;
     protected BasedSequence linkClosingMarker = BasedSequence.NULL;
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        textOpeningMarker = shifter.shift(textOpeningMarker);
+        text = shifter.shift(text);
+        textClosingMarker = shifter.shift(textClosingMarker);
+        linkOpeningMarker = shifter.shift(linkOpeningMarker);
+        linkClosingMarker = shifter.shift(linkClosingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] {
@@ -20,6 +20,20 @@ public abstract class LinkNodeBase extends Node {
         super(chars);
     }
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        urlOpeningMarker = shifter.shift(urlOpeningMarker);
+        url = shifter.shift(url);
+        pageRef = shifter.shift(pageRef);
+        anchorMarker = shifter.shift(anchorMarker);
+        anchorRef = shifter.shift(anchorRef);
+        urlClosingMarker = shifter.shift(urlClosingMarker);
+        titleOpeningMarker = shifter.shift(titleOpeningMarker);
+        title = shifter.shift(title);
+        titleClosingMarker = shifter.shift(titleClosingMarker);
+    }
+
     public void setTitleChars(BasedSequence titleChars) {
         if (titleChars != null && titleChars != BasedSequence.NULL) {
             int titleCharsLength = titleChars.length();
@@ -23,6 +23,13 @@ public abstract class ListItem extends Block implements ParagraphItemContainer,
         else if (isContainsBlankLine()) out.append(" hadBlankLine");
     }
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        openingMarker = shifter.shift(openingMarker);
+        markerSuffix = shifter.shift(markerSuffix);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] { openingMarker, markerSuffix };
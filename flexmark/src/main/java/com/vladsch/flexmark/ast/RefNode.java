@@ -13,6 +13,17 @@ public abstract class RefNode extends LinkNode implements LinkRefDerived, Refere
     protected BasedSequence referenceClosingMarker = BasedSequence.NULL;
     protected boolean isDefined = false;
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        textOpeningMarker = shifter.shift(textOpeningMarker);
+        text = shifter.shift(text);
+        textClosingMarker = shifter.shift(textClosingMarker);
+        referenceOpeningMarker = shifter.shift(referenceOpeningMarker);
+        reference = shifter.shift(reference);
+        referenceClosingMarker = shifter.shift(referenceClosingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         if (isReferenceTextCombined()) {
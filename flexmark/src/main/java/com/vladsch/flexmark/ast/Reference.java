@@ -9,6 +9,14 @@ public class Reference extends LinkNodeBase implements ReferenceNode<ReferenceRe
     protected BasedSequence reference = BasedSequence.NULL;
     protected BasedSequence closingMarker = BasedSequence.NULL;
 
+    @Override
+    public void shiftOffsets(NodeOffsetShifter shifter) {
+        super.shiftOffsets(shifter);
+        openingMarker = shifter.shift(openingMarker);
+        reference = shifter.shift(reference);
+        closingMarker = shifter.shift(closingMarker);
+    }
+
     @Override
     public BasedSequence[] getSegments() {
         return new BasedSequence[] {
@@ -62,6 +70,9 @@ public class Reference extends LinkNodeBase implements ReferenceNode<ReferenceRe
         delimitedSegmentSpanChars(out, titleOpeningMarker, title, titleClosingMarker, "title");
     }
 
+    public Reference() {
+    }
+
     public Reference(BasedSequence label, BasedSequence url, BasedSequence title) {
         super(BasedSequence.NULL);
 
@@ -4,6 +4,7 @@ import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.html.Escaping;
 import com.vladsch.flexmark.util.options.DataHolder;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import static com.vladsch.flexmark.parser.Parser.*;
@@ -81,6 +82,86 @@ public class Parsing {
     public final String REG_CHAR_PARENS;
     public final String REG_CHAR_SP_PARENS;
 
+    private static final ConcurrentHashMap<ParsingKey, Parsing> ourParsingCache = new ConcurrentHashMap<ParsingKey, Parsing>();
+
+    /**
+     * Get a shared instance of parsing patterns for the given options
+     * <p>
+     * Parsing instances are immutable so one instance is shared by all parsers whose options
+     * produce the same patterns, instead of compiling all regex patterns for every document.
+     *
+     * @param options options for which to get parsing patterns
+     * @return shared parsing instance
+     */
+    public static Parsing of(DataHolder options) {
+        ParsingKey key = new ParsingKey(options);
+        Parsing parsing = ourParsingCache.get(key);
+        if (parsing == null) {
+            parsing = new Parsing(options);
+            Parsing existing = ourParsingCache.putIfAbsent(key, parsing);
+            if (existing != null) parsing = existing;
+        }
+        return parsing;
+    }
+
+    /**
+     * Values of all options which affect the patterns created by {@link Parsing}
+     */
+    private static class ParsingKey {
+        private final boolean intellijDummyIdentifier;
+        private final boolean spaceInLinkUrls;
+        private final boolean parseJekyllMacrosInUrls;
+        private final boolean listsItemMarkerSpace;
+        private final boolean listsOrderedItemDotOnly;
+        private final String listsItemPrefixChars;
+        private final int codeBlockIndent;
+
+        ParsingKey(DataHolder options) {
+            this.intellijDummyIdentifier = Parser.INTELLIJ_DUMMY_IDENTIFIER.getFrom(options);
+            this.spaceInLinkUrls = Parser.SPACE_IN_LINK_URLS.getFrom(options);
+            this.parseJekyllMacrosInUrls = Parser.PARSE_JEKYLL_MACROS_IN_URLS.getFrom(options);
+            this.listsItemMarkerSpace = LISTS_ITEM_MARKER_SPACE.getFrom(options);
+            this.listsOrderedItemDotOnly = LISTS_ORDERED_ITEM_DOT_ONLY.getFrom(options);
+            this.listsItemPrefixChars = LISTS_ITEM_PREFIX_CHARS.getFrom(options);
+            this.codeBlockIndent = Parser.CODE_BLOCK_INDENT.getFrom(options);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ParsingKey)) return false;
+
+            ParsingKey key = (ParsingKey) o;
+
+            if (intellijDummyIdentifier != key.intellijDummyIdentifier) return false;
+            if (spaceInLinkUrls != key.spaceInLinkUrls) return false;
+            if (parseJekyllMacrosInUrls != key.parseJekyllMacrosInUrls) return false;
+            if (listsItemMarkerSpace != key.listsItemMarkerSpace) return false;
+            if (listsOrderedItemDotOnly != key.listsOrderedItemDotOnly) return false;
+            if (codeBlockIndent != key.codeBlockIndent) return false;
+            return listsItemPrefixChars.equals(key.listsItemPrefixChars);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (intellijDummyIdentifier ? 1 : 0);
+            result = 31 * result + (spaceInLinkUrls ? 1 : 0);
+            result = 31 * result + (parseJekyllMacrosInUrls ? 1 : 0);
+            result = 31 * result + (listsItemMarkerSpace ? 1 : 0);
+            result = 31 * result + (listsOrderedItemDotOnly ? 1 : 0);
+            result = 31 * result + listsItemPrefixChars.hashCode();
+            result = 31 * result + codeBlockIndent;
+            return result;
+        }
+    }
+
+    /**
+     * Create parsing patterns for the given options
+     * <p>
+     * Use {@link #of(DataHolder)} to get a shared instance instead of compiling a new set of patterns.
+     *
+     * @param options options for which to create parsing patterns
+     */
     public Parsing(DataHolder options) {
         this.intellijDummyIdentifier = Parser.INTELLIJ_DUMMY_IDENTIFIER.getFrom(options);
 
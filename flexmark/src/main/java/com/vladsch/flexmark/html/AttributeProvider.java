@@ -25,6 +25,9 @@ public interface AttributeProvider {
      * Core defines LinkStatus.UNKNOWN,LinkStatus.VALID,LinkStatus.NOT_FOUND. Extensions can define more.
      * <p>
      * AttributablePart.NODE is a generic placeholder when the node did not provide a specific part for attribution.
+     * <p>
+     * The attributes instance is reused for the next tag once this tag is output, to keep the attributes
+     * past this call make a copy with {@code new Attributes(attributes)}.
      *
      * @param node       the node to set attributes for
      * @param part       attributes for the specific part of the node being generated, Core defines AttributablePart.LINK,
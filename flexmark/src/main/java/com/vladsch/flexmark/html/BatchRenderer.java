@@ -0,0 +1,323 @@
+package com.vladsch.flexmark.html;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parses and renders batches of independent documents on a thread pool
+ * <p>
+ * Inputs are split into runs of consecutive documents, each run parsed and rendered by one task. Every pool thread
+ * keeps its own inline parser and output buffer which are reused for all documents it renders. Results are returned
+ * in input order. Only a limited number of runs are submitted at a time, more inputs are read as results of earlier
+ * runs are collected, so inputs from an iterator are not all held in memory at once.
+ * <p>
+ * Per document parsing and rendering state, the document parser, node renderer context, HTML writer and scoped
+ * options, is still created for each document, only the inline parser and output buffer are reused.
+ * <p>
+ * Example:
+ * <pre><code>
+ * BatchRenderer batchRenderer = new BatchRenderer(parser, renderer, 8);
+ * List&lt;String&gt; html = batchRenderer.render(comments);
+ * batchRenderer.shutdown();
+ * </code></pre>
+ */
+public class BatchRenderer {
+    public static final int DEFAULT_RUN_SIZE = 64;
+    // runs submitted ahead of collected results for each thread of the pool
+    public static final int RUNS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final int runSize;
+    private final int maxRunsInFlight;
+    private final ThreadLocal<RenderState> renderState;
+
+    private final AtomicLong documentCount = new AtomicLong();
+    private final AtomicLong inputLength = new AtomicLong();
+    private final AtomicLong outputLength = new AtomicLong();
+    private final AtomicLong renderNanos = new AtomicLong();
+    private final AtomicLong batchNanos = new AtomicLong();
+
+    /**
+     * Create a batch renderer with its own fixed thread pool
+     *
+     * @param parser   parser to use
+     * @param renderer renderer to use
+     * @param threads  number of threads in the pool
+     */
+    public BatchRenderer(Parser parser, HtmlRenderer renderer, int threads) {
+        this(parser, renderer, Executors.newFixedThreadPool(threads), true, DEFAULT_RUN_SIZE, threads * RUNS_IN_FLIGHT_PER_THREAD);
+    }
+
+    /**
+     * Create a batch renderer using the given executor, which is not shut down by {@link #shutdown()}
+     *
+     * @param parser   parser to use
+     * @param renderer renderer to use
+     * @param executor executor to run render tasks
+     * @param runSize  number of consecutive documents rendered by each task
+     */
+    public BatchRenderer(Parser parser, HtmlRenderer renderer, ExecutorService executor, int runSize) {
+        this(parser, renderer, executor, false, runSize, Runtime.getRuntime().availableProcessors() * RUNS_IN_FLIGHT_PER_THREAD);
+    }
+
+    /**
+     * Create a batch renderer using the given executor, which is not shut down by {@link #shutdown()}
+     *
+     * @param parser          parser to use
+     * @param renderer        renderer to use
+     * @param executor        executor to run render tasks
+     * @param runSize         number of consecutive documents rendered by each task
+     * @param maxRunsInFlight maximum number of tasks submitted and not yet collected
+     */
+    public BatchRenderer(Parser parser, HtmlRenderer renderer, ExecutorService executor, int runSize, int maxRunsInFlight) {
+        this(parser, renderer, executor, false, runSize, maxRunsInFlight);
+    }
+
+    private BatchRenderer(final Parser parser, HtmlRenderer renderer, ExecutorService executor, boolean ownExecutor, int runSize, int maxRunsInFlight) {
+        if (runSize < 1) throw new IllegalArgumentException("runSize must be at least 1, got " + runSize);
+        if (maxRunsInFlight < 1) throw new IllegalArgumentException("maxRunsInFlight must be at least 1, got " + maxRunsInFlight);
+
+        this.parser = parser;
+        this.renderer = renderer;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.runSize = runSize;
+        this.maxRunsInFlight = maxRunsInFlight;
+        this.renderState = new ThreadLocal<RenderState>() {
+            @Override
+            protected RenderState initialValue() {
+                return new RenderState(parser.createInlineParser());
+            }
+        };
+    }
+
+    /**
+     * Parse and render documents
+     *
+     * @param inputs documents to render
+     * @return rendered HTML of each document, in input order
+     */
+    public List<String> render(List<? extends CharSequence> inputs) {
+        return render(inputs.iterator());
+    }
+
+    /**
+     * Parse and render documents
+     * <p>
+     * Inputs are read on the calling thread as render tasks are submitted, at most the maximum number of runs in
+     * flight ahead of collected results.
+     *
+     * @param inputs documents to render
+     * @return rendered HTML of each document, in input order
+     */
+    public List<String> render(Iterator<? extends CharSequence> inputs) {
+        long start = System.nanoTime();
+        ArrayDeque<Future<String[]>> runs = new ArrayDeque<Future<String[]>>(maxRunsInFlight);
+        ArrayList<String> results = new ArrayList<String>();
+
+        try {
+            while (true) {
+                while (runs.size() < maxRunsInFlight && inputs.hasNext()) {
+                    runs.add(submitRun(inputs));
+                }
+
+                Future<String[]> run = runs.poll();
+                if (run == null) break;
+
+                for (String html : run.get()) {
+                    results.add(html);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel(runs);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while rendering batch", e);
+        } catch (ExecutionException e) {
+            cancel(runs);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+
+        batchNanos.addAndGet(System.nanoTime() - start);
+        return results;
+    }
+
+    private Future<String[]> submitRun(Iterator<? extends CharSequence> inputs) {
+        final ArrayList<CharSequence> run = new ArrayList<CharSequence>(runSize);
+        while (run.size() < runSize && inputs.hasNext()) {
+            run.add(inputs.next());
+        }
+
+        return executor.submit(new Callable<String[]>() {
+            @Override
+            public String[] call() throws Exception {
+                return renderRun(run);
+            }
+        });
+    }
+
+    private static void cancel(Collection<Future<String[]>> runs) {
+        for (Future<String[]> run : runs) {
+            run.cancel(false);
+        }
+    }
+
+    private String[] renderRun(List<CharSequence> run) {
+        RenderState state = renderState.get();
+        String[] results = new String[run.size()];
+        long start = System.nanoTime();
+        long length = 0;
+        long htmlLength = 0;
+
+        for (int i = 0; i < results.length; i++) {
+            CharSequence input = run.get(i);
+            BasedSequence chars = input instanceof BasedSequence ? (BasedSequence) input : CharSubSequence.of(input);
+            Document document = parser.parse(chars, state.inlineParser);
+
+            state.output.setLength(0);
+            renderer.render(document, state.output);
+            results[i] = state.output.toString();
+
+            length += chars.length();
+            htmlLength += results[i].length();
+        }
+
+        renderNanos.addAndGet(System.nanoTime() - start);
+        documentCount.addAndGet(results.length);
+        inputLength.addAndGet(length);
+        outputLength.addAndGet(htmlLength);
+        return results;
+    }
+
+    /**
+     * @return metrics accumulated since creation or the last {@link #resetMetrics()}
+     */
+    public Metrics getMetrics() {
+        return new Metrics(documentCount.get(), inputLength.get(), outputLength.get(), renderNanos.get(), batchNanos.get());
+    }
+
+    public void resetMetrics() {
+        documentCount.set(0);
+        inputLength.set(0);
+        outputLength.set(0);
+        renderNanos.set(0);
+        batchNanos.set(0);
+    }
+
+    /**
+     * Shut down the thread pool if it was created by this batch renderer
+     */
+    public void shutdown() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static class RenderState {
+        final InlineParser inlineParser;
+        final StringBuilder output = new StringBuilder();
+
+        RenderState(InlineParser inlineParser) {
+            this.inlineParser = inlineParser;
+        }
+    }
+
+    /**
+     * Throughput metrics of a batch renderer
+     */
+    public static class Metrics {
+        private final long documentCount;
+        private final long inputLength;
+        private final long outputLength;
+        private final long renderNanos;
+        private final long batchNanos;
+
+        public Metrics(long documentCount, long inputLength, long outputLength, long renderNanos, long batchNanos) {
+            this.documentCount = documentCount;
+            this.inputLength = inputLength;
+            this.outputLength = outputLength;
+            this.renderNanos = renderNanos;
+            this.batchNanos = batchNanos;
+        }
+
+        /**
+         * @return number of rendered documents
+         */
+        public long getDocumentCount() {
+            return documentCount;
+        }
+
+        /**
+         * @return total characters of rendered documents
+         */
+        public long getInputLength() {
+            return inputLength;
+        }
+
+        /**
+         * @return total characters of rendered HTML
+         */
+        public long getOutputLength() {
+            return outputLength;
+        }
+
+        /**
+         * @return time spent by pool threads parsing and rendering, summed over all threads
+         */
+        public long getRenderNanos() {
+            return renderNanos;
+        }
+
+        /**
+         * @return elapsed time of completed {@link BatchRenderer#render} calls
+         */
+        public long getBatchNanos() {
+            return batchNanos;
+        }
+
+        /**
+         * @return documents rendered per second of batch elapsed time
+         */
+        public double getDocumentsPerSecond() {
+            return batchNanos == 0 ? 0 : documentCount * 1e9 / batchNanos;
+        }
+
+        /**
+         * @return input characters rendered per second of batch elapsed time
+         */
+        public double getCharactersPerSecond() {
+            return batchNanos == 0 ? 0 : inputLength * 1e9 / batchNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "documentCount=" + documentCount +
+                    ", inputLength=" + inputLength +
+                    ", outputLength=" + outputLength +
+                    ", renderNanos=" + renderNanos +
+                    ", batchNanos=" + batchNanos +
+                    '}';
+        }
+    }
+}
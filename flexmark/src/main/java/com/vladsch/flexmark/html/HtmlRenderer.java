@@ -7,6 +7,7 @@ import com.vladsch.flexmark.ast.HtmlBlock;
 import com.vladsch.flexmark.ast.HtmlInline;
 import com.vladsch.flexmark.ast.Node;
 import com.vladsch.flexmark.html.renderer.*;
+import com.vladsch.flexmark.instrumentation.Instrumentation;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.collection.DataValueFactory;
 import com.vladsch.flexmark.util.collection.DynamicDefaultKey;
@@ -16,9 +17,13 @@ import com.vladsch.flexmark.util.dependency.ResolvedDependencies;
 import com.vladsch.flexmark.util.html.Attributes;
 import com.vladsch.flexmark.util.html.Escaping;
 import com.vladsch.flexmark.util.html.FormattingAppendable;
+import com.vladsch.flexmark.util.html.Utf8OutputAppendable;
 import com.vladsch.flexmark.util.options.*;
 import com.vladsch.flexmark.util.sequence.TagRange;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 
 /**
@@ -93,6 +98,12 @@ public class HtmlRenderer implements IRender {
     public static final DataKey<Integer> FORMAT_FLAGS = new DataKey<Integer>("FORMAT_FLAGS", 0);
     public static final DataKey<Integer> MAX_TRAILING_BLANK_LINES = new DataKey<Integer>("MAX_TRAILING_BLANK_LINES", 1);
 
+    // size of the UTF-8 byte buffer used when rendering to an OutputStream or WritableByteChannel
+    public static final DataKey<Integer> OUTPUT_BUFFER_SIZE = new DataKey<Integer>("OUTPUT_BUFFER_SIZE", Utf8OutputAppendable.DEFAULT_BUFFER_SIZE);
+
+    // rendering phase and node rendering events, same key as parser so it can be set once for both, null for none
+    public static final DataKey<Instrumentation> INSTRUMENTATION = Parser.INSTRUMENTATION;
+
     // for convenience or these together and set FORMAT_FLAGS key above to the value, to have HtmlWriter apply these when rendering Html
     public static final int FORMAT_CONVERT_TABS = FormattingAppendable.CONVERT_TABS;
     public static final int FORMAT_COLLAPSE_WHITESPACE = FormattingAppendable.COLLAPSE_WHITESPACE;
@@ -106,6 +117,7 @@ public class HtmlRenderer implements IRender {
     private final HtmlRendererOptions htmlOptions;
     private final DataHolder options;
     private final Builder builder;
+    private final NodeRenderingDispatch nodeRenderingDispatch;
 
     HtmlRenderer(Builder builder) {
         this.builder = new Builder(builder); // take a copy to avoid after creation side effects
@@ -133,6 +145,7 @@ public class HtmlRenderer implements IRender {
 
         this.attributeProviderFactories = FlatDependencyHandler.computeDependencies(builder.attributeProviderFactories);
         this.linkResolverFactories = FlatDependencyHandler.computeDependencies(builder.linkResolverFactories);
+        this.nodeRenderingDispatch = new NodeRenderingDispatch(nodeRendererFactories, this.options);
     }
 
     /**
@@ -178,6 +191,42 @@ public class HtmlRenderer implements IRender {
         renderer.flush(maxTrailingBlankLines);
     }
 
+    /**
+     * Render a node to the output stream as UTF-8
+     * <p>
+     * Text is encoded into a buffer of {@link #OUTPUT_BUFFER_SIZE} bytes which is written when full, so the whole HTML
+     * is never held in memory. The stream is flushed once rendering is done but not closed.
+     *
+     * @param node   node to render
+     * @param output output stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void render(Node node, OutputStream output) throws IOException {
+        render(node, new Utf8OutputAppendable(output, htmlOptions.outputBufferSize));
+    }
+
+    /**
+     * Render a node to the channel as UTF-8, the same as {@link #render(Node, OutputStream)}
+     *
+     * @param node   node to render
+     * @param output channel, not closed
+     * @throws IOException if writing to the channel fails
+     */
+    public void render(Node node, WritableByteChannel output) throws IOException {
+        render(node, new Utf8OutputAppendable(output, htmlOptions.outputBufferSize));
+    }
+
+    private void render(Node node, Utf8OutputAppendable output) throws IOException {
+        HtmlWriter htmlWriter = new HtmlWriter(output, htmlOptions.indentSize, htmlOptions.formatFlags, !htmlOptions.htmlBlockOpenTagEol, !htmlOptions.htmlBlockCloseTagEol);
+        MainNodeRenderer renderer = new MainNodeRenderer(options, htmlWriter, node.getDocument());
+        renderer.render(node);
+        renderer.flush(htmlOptions.maxTrailingBlankLines);
+
+        IOException exception = htmlWriter.getIOException();
+        if (exception != null) throw exception;
+        output.close();
+    }
+
     /**
      * Render the tree of nodes to HTML.
      *
@@ -491,7 +540,9 @@ public class HtmlRenderer implements IRender {
 
     private class MainNodeRenderer extends NodeRendererSubContext implements NodeRendererContext {
         private final Document document;
-        private final Map<Class<?>, NodeRenderingHandlerWrapper> renderers;
+        private final NodeRenderingDispatch dispatch;
+        private final NodeRenderingHandlerWrapper[] renderers;
+        private HashMap<Class<?>, NodeRenderingHandlerWrapper> undispatchedRenderers;
 
         private final List<PhasedNodeRenderer> phasedRenderers;
         private final LinkResolver[] myLinkResolvers;
@@ -501,13 +552,17 @@ public class HtmlRenderer implements IRender {
         private final HtmlIdGenerator htmlIdGenerator;
         private final HashMap<LinkType, HashMap<String, ResolvedLink>> resolvedLinkMap = new HashMap<LinkType, HashMap<String, ResolvedLink>>();
         private final AttributeProvider[] attributeProviders;
+        private final Instrumentation instrumentation;
 
         MainNodeRenderer(DataHolder options, HtmlWriter htmlWriter, Document document) {
             super(htmlWriter);
             this.options = new ScopedDataSet(document, options);
             this.document = document;
-            this.renderers = new HashMap<Class<?>, NodeRenderingHandlerWrapper>(32);
-            this.renderingPhases = new HashSet<RenderingPhase>(RenderingPhase.values().length);
+            this.instrumentation = INSTRUMENTATION.getFrom(this.options);
+            this.dispatch = nodeRenderingDispatch;
+            this.renderers = dispatch.newRenderingHandlers();
+            this.undispatchedRenderers = null;
+            this.renderingPhases = EnumSet.noneOf(RenderingPhase.class);
             this.phasedRenderers = new ArrayList<PhasedNodeRenderer>(nodeRendererFactories.size());
             this.myLinkResolvers = new LinkResolver[linkResolverFactories.size()];
             this.doNotRenderLinksNesting = htmlOptions.doNotRenderLinksInDocument ? 0 : 1;
@@ -517,12 +572,17 @@ public class HtmlRenderer implements IRender {
             htmlWriter.setContext(this);
 
             for (int i = nodeRendererFactories.size() - 1; i >= 0; i--) {
-                NodeRendererFactory nodeRendererFactory = nodeRendererFactories.get(i);
-                NodeRenderer nodeRenderer = nodeRendererFactory.create(this.getOptions());
-                for (NodeRenderingHandler nodeType : nodeRenderer.getNodeRenderingHandlers()) {
-                    // Overwrite existing renderer
-                    NodeRenderingHandlerWrapper handlerWrapper = new NodeRenderingHandlerWrapper(nodeType, renderers.get(nodeType.getNodeType()));
-                    renderers.put(nodeType.getNodeType(), handlerWrapper);
+                NodeRenderer nodeRenderer = dispatch.getSharedNodeRenderer(i);
+                if (nodeRenderer == null) {
+                    nodeRenderer = nodeRendererFactories.get(i).create(this.getOptions());
+                    for (NodeRenderingHandler nodeType : nodeRenderer.getNodeRenderingHandlers()) {
+                        addNodeRenderingHandler(nodeType);
+                    }
+                } else {
+                    // handler chains of node types rendered only by shared renderers are already in renderers
+                    for (NodeRenderingHandler nodeType : dispatch.getSharedMixedHandlers(i)) {
+                        addNodeRenderingHandler(nodeType);
+                    }
                 }
 
                 if (nodeRenderer instanceof PhasedNodeRenderer) {
@@ -541,6 +601,24 @@ public class HtmlRenderer implements IRender {
             }
         }
 
+        private void addNodeRenderingHandler(NodeRenderingHandler nodeType) {
+            // Overwrite existing renderer
+            int slot = dispatch.getSlot(nodeType.getNodeType());
+            if (slot >= 0) {
+                renderers[slot] = new NodeRenderingHandlerWrapper(nodeType, renderers[slot]);
+            } else {
+                // node type not rendered by the renderers created with the renderer options
+                if (undispatchedRenderers == null) undispatchedRenderers = new HashMap<Class<?>, NodeRenderingHandlerWrapper>();
+                undispatchedRenderers.put(nodeType.getNodeType(), new NodeRenderingHandlerWrapper(nodeType, undispatchedRenderers.get(nodeType.getNodeType())));
+            }
+        }
+
+        private NodeRenderingHandlerWrapper getNodeRenderer(Class<?> nodeType) {
+            int slot = dispatch.getSlot(nodeType);
+            if (slot >= 0) return renderers[slot];
+            return undispatchedRenderers == null ? null : undispatchedRenderers.get(nodeType);
+        }
+
         @Override
         public Node getCurrentNode() {
             return renderingNode;
@@ -704,6 +782,7 @@ public class HtmlRenderer implements IRender {
                 for (RenderingPhase phase : RenderingPhase.values()) {
                     if (phase != RenderingPhase.BODY && !renderingPhases.contains(phase)) { continue; }
                     this.phase = phase;
+                    long start = instrumentation != null ? instrumentation.start() : 0;
                     // here we render multiple phases
 
                     // go through all renderers that want this phase
@@ -718,7 +797,7 @@ public class HtmlRenderer implements IRender {
                     }
 
                     if (getRenderingPhase() == RenderingPhase.BODY) {
-                        NodeRenderingHandlerWrapper nodeRenderer = renderers.get(node.getClass());
+                        NodeRenderingHandlerWrapper nodeRenderer = getNodeRenderer(node.getClass());
                         if (nodeRenderer != null) {
                             subContext.doNotRenderLinksNesting = documentDoNotRenderLinksNesting;
                             NodeRenderingHandlerWrapper prevWrapper = subContext.renderingHandlerWrapper;
@@ -733,13 +812,16 @@ public class HtmlRenderer implements IRender {
                             }
                         }
                     }
+
+                    if (instrumentation != null) instrumentation.renderingPhase(phase, start);
                 }
             } else {
-                NodeRenderingHandlerWrapper nodeRenderer = renderers.get(node.getClass());
+                NodeRenderingHandlerWrapper nodeRenderer = getNodeRenderer(node.getClass());
                 if (nodeRenderer != null) {
                     Node oldNode = this.renderingNode;
                     int oldDoNotRenderLinksNesting = subContext.doNotRenderLinksNesting;
                     NodeRenderingHandlerWrapper prevWrapper = subContext.renderingHandlerWrapper;
+                    long start = instrumentation != null ? instrumentation.start() : 0;
                     try {
                         subContext.renderingNode = node;
                         subContext.renderingHandlerWrapper = nodeRenderer;
@@ -748,6 +830,7 @@ public class HtmlRenderer implements IRender {
                         subContext.renderingNode = oldNode;
                         subContext.doNotRenderLinksNesting = oldDoNotRenderLinksNesting;
                         subContext.renderingHandlerWrapper = prevWrapper;
+                        if (instrumentation != null) instrumentation.nodeRendered(node.getClass(), start);
                     }
                 }
             }
@@ -36,6 +36,7 @@ public class HtmlRendererOptions {
     public final boolean sourceWrapHtmlBlocks;
     public final int formatFlags;
     public final int maxTrailingBlankLines;
+    public final int outputBufferSize;
     public final boolean htmlBlockOpenTagEol;
     public final boolean htmlBlockCloseTagEol;
     public final boolean unescapeHtmlEntities;
@@ -73,6 +74,7 @@ public class HtmlRendererOptions {
         sourceWrapHtmlBlocks = !sourcePositionAttribute.isEmpty() && HtmlRenderer.SOURCE_WRAP_HTML_BLOCKS.getFrom(options);
         formatFlags = HtmlRenderer.FORMAT_FLAGS.getFrom(options);
         maxTrailingBlankLines = HtmlRenderer.MAX_TRAILING_BLANK_LINES.getFrom(options);
+        outputBufferSize = HtmlRenderer.OUTPUT_BUFFER_SIZE.getFrom(options);
         htmlBlockOpenTagEol = HtmlRenderer.HTML_BLOCK_OPEN_TAG_EOL.getFrom(options);
         htmlBlockCloseTagEol = HtmlRenderer.HTML_BLOCK_CLOSE_TAG_EOL.getFrom(options);
         unescapeHtmlEntities = HtmlRenderer.UNESCAPE_HTML_ENTITIES.getFrom(options);
@@ -132,7 +132,8 @@ public class HtmlWriter extends HtmlFormattingAppendableBase<HtmlWriter> {
     @Override
     public HtmlWriter tag(CharSequence tagName, boolean voidElement) {
         if (useAttributes != null) {
-            final Attributes attributes = context.extendRenderingNodeAttributes(useAttributes, getAttributes());
+            final Attributes currentAttributes = getAttributes();
+            final Attributes attributes = context.extendRenderingNodeAttributes(useAttributes, currentAttributes != null ? currentAttributes : getReusableAttributes());
             String sourcePositionAttribute = context.getHtmlOptions().sourcePositionAttribute;
             String attributeValue = attributes.getValue(sourcePositionAttribute);
 
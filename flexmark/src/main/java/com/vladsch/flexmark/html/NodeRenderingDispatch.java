@@ -0,0 +1,133 @@
+package com.vladsch.flexmark.html;
+
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererFactory;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.html.renderer.StatelessNodeRendererFactory;
+import com.vladsch.flexmark.util.options.DataHolder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Node rendering handler graph shared by all renders done by a {@link HtmlRenderer}
+ * <p>
+ * Built once from the resolved node renderer factories, in rendering priority order. Every factory's node renderer is
+ * created with the renderer options to assign a handler slot to each node type it renders. Renderers of
+ * {@link StatelessNodeRendererFactory} factories are kept and their handler chains are built once for node types
+ * rendered only by stateless renderers. A render creates renderers of the other factories with the document's
+ * options and wraps their handlers, and the stateless handlers of the same node types, in priority order over a
+ * copy of the shared handler chains.
+ * <p>
+ * Node types for which a renderer created for a document adds handlers are expected to be the ones it adds when
+ * created with the renderer options, handlers of other node types are added over any stateless handlers.
+ * <p>
+ * Instances are immutable, node types not in the mapping get a slot of -1.
+ */
+class NodeRenderingDispatch {
+    private final HashMap<Class<?>, Integer> nodeTypeSlots;
+    private final ClassValue<Integer> slotCache;
+    private final NodeRenderer[] sharedNodeRenderers;
+    private final NodeRenderingHandler<?>[][] sharedMixedHandlers;
+    private final NodeRenderingHandlerWrapper[] sharedRenderingHandlers;
+
+    /**
+     * @param nodeRendererFactories factories in rendering priority order, lowest priority last
+     * @param options               renderer options
+     */
+    NodeRenderingDispatch(List<? extends NodeRendererFactory> nodeRendererFactories, DataHolder options) {
+        int iMax = nodeRendererFactories.size();
+        final HashMap<Class<?>, Integer> nodeTypeSlots = new HashMap<Class<?>, Integer>();
+        ArrayList<Boolean> documentSlots = new ArrayList<Boolean>();
+        NodeRenderer[] nodeRenderers = new NodeRenderer[iMax];
+        boolean[] stateless = new boolean[iMax];
+
+        for (int i = iMax - 1; i >= 0; i--) {
+            NodeRendererFactory nodeRendererFactory = nodeRendererFactories.get(i);
+            NodeRendererFactory factory = nodeRendererFactory instanceof DelegatingNodeRendererFactoryWrapper ? ((DelegatingNodeRendererFactoryWrapper) nodeRendererFactory).getFactory() : nodeRendererFactory;
+            stateless[i] = factory instanceof StatelessNodeRendererFactory;
+            nodeRenderers[i] = nodeRendererFactory.create(options);
+
+            for (NodeRenderingHandler<?> handler : nodeRenderers[i].getNodeRenderingHandlers()) {
+                Integer slot = nodeTypeSlots.get(handler.getNodeType());
+                if (slot == null) {
+                    slot = nodeTypeSlots.size();
+                    nodeTypeSlots.put(handler.getNodeType(), slot);
+                    documentSlots.add(false);
+                }
+                if (!stateless[i]) documentSlots.set(slot, true);
+            }
+        }
+
+        this.nodeTypeSlots = nodeTypeSlots;
+        this.slotCache = new ClassValue<Integer>() {
+            @Override
+            protected Integer computeValue(Class<?> type) {
+                Integer slot = nodeTypeSlots.get(type);
+                return slot == null ? -1 : slot;
+            }
+        };
+
+        this.sharedNodeRenderers = new NodeRenderer[iMax];
+        this.sharedMixedHandlers = new NodeRenderingHandler<?>[iMax][];
+        this.sharedRenderingHandlers = new NodeRenderingHandlerWrapper[nodeTypeSlots.size()];
+
+        for (int i = iMax - 1; i >= 0; i--) {
+            if (!stateless[i]) continue;
+
+            ArrayList<NodeRenderingHandler<?>> mixedHandlers = new ArrayList<NodeRenderingHandler<?>>();
+            for (NodeRenderingHandler<?> handler : nodeRenderers[i].getNodeRenderingHandlers()) {
+                int slot = nodeTypeSlots.get(handler.getNodeType());
+                if (documentSlots.get(slot)) {
+                    mixedHandlers.add(handler);
+                } else {
+                    sharedRenderingHandlers[slot] = new NodeRenderingHandlerWrapper(handler, sharedRenderingHandlers[slot]);
+                }
+            }
+
+            sharedNodeRenderers[i] = nodeRenderers[i];
+            sharedMixedHandlers[i] = mixedHandlers.toArray(new NodeRenderingHandler<?>[mixedHandlers.size()]);
+        }
+    }
+
+    /**
+     * @return number of slots in the mapping
+     */
+    public int getSlotCount() {
+        return sharedRenderingHandlers.length;
+    }
+
+    /**
+     * @param nodeType node class
+     * @return slot index for the node class or -1 if the node class has no slot
+     */
+    public int getSlot(Class<?> nodeType) {
+        return slotCache.get(nodeType);
+    }
+
+    /**
+     * @param index index of the node renderer factory
+     * @return node renderer shared by all renders or null if the factory's renderer is created for every document
+     */
+    public NodeRenderer getSharedNodeRenderer(int index) {
+        return sharedNodeRenderers[index];
+    }
+
+    /**
+     * @param index index of a node renderer factory with a shared node renderer
+     * @return handlers of the shared node renderer for node types also rendered by renderers created for every
+     *         document, these are not part of the shared handler chains
+     */
+    public NodeRenderingHandler<?>[] getSharedMixedHandlers(int index) {
+        return sharedMixedHandlers[index];
+    }
+
+    /**
+     * @return new array indexed by slot with handler chains of node types rendered only by shared node renderers,
+     *         null for other slots
+     */
+    public NodeRenderingHandlerWrapper[] newRenderingHandlers() {
+        return sharedRenderingHandlers.clone();
+    }
+}
@@ -0,0 +1,12 @@
+package com.vladsch.flexmark.html.renderer;
+
+/**
+ * Node renderer factory whose node renderer can be shared by all documents rendered with a renderer
+ * <p>
+ * The renderer calls {@link #create(com.vladsch.flexmark.util.options.DataHolder)} once with its own options instead of
+ * once for every rendered document and reuses the node renderer's rendering handlers. A factory should only implement
+ * this when its node renderer reads only renderer options when created and keeps no state between calls to its
+ * rendering handlers, since it is used for documents rendered at the same time.
+ */
+public interface StatelessNodeRendererFactory extends NodeRendererFactory {
+}
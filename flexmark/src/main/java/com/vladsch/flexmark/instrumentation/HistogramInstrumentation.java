@@ -0,0 +1,434 @@
+package com.vladsch.flexmark.instrumentation;
+
+import com.vladsch.flexmark.html.renderer.RenderingPhase;
+import com.vladsch.flexmark.parser.PostProcessorTimings;
+import com.vladsch.flexmark.parser.block.ParserPhase;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instrumentation aggregating events into histograms of elapsed time, accumulated over all documents parsed and rendered
+ * with {@link com.vladsch.flexmark.parser.Parser#INSTRUMENTATION} set to this instance
+ * <p>
+ * Node histograms record time spent rendering the node itself, excluding its rendered child nodes. All other histograms
+ * record inclusive time of the phase, stage or processor. Post processor events are also added to a
+ * {@link PostProcessorTimings}, available with {@link #getPostProcessorTimings()}.
+ * <p>
+ * When constructed with allocation tracking and the JVM supports per thread allocation counters, bytes allocated by the
+ * rendering thread are added to histograms the same way as time, except for post processor histograms whose events
+ * only give the time. Instances are thread safe.
+ */
+public class HistogramInstrumentation implements Instrumentation {
+    // frames nested deeper are discarded, these are frames which were started but never ended
+    static final int MAX_DEPTH = 1024;
+
+    private final ThreadMXBean myThreadMXBean;    // only set if it supports allocation counters
+    private final ThreadLocal<Frames> myFrames = new ThreadLocal<Frames>() {
+        @Override
+        protected Frames initialValue() {
+            return new Frames();
+        }
+    };
+
+    private final Histogram[] myParserPhases;
+    private final Histogram[] myRenderingPhases;
+    private final ConcurrentHashMap<Class<?>, Histogram> myBlockPreProcessors = new ConcurrentHashMap<Class<?>, Histogram>();
+    private final ConcurrentHashMap<Integer, Histogram> myPostProcessorStages = new ConcurrentHashMap<Integer, Histogram>();
+    private final ConcurrentHashMap<Class<?>, Histogram> myPostProcessors = new ConcurrentHashMap<Class<?>, Histogram>();
+    private final ConcurrentHashMap<List<Class<?>>, Histogram> myFusedPostProcessors = new ConcurrentHashMap<List<Class<?>>, Histogram>();
+    private final ConcurrentHashMap<Class<?>, Histogram> myNodes = new ConcurrentHashMap<Class<?>, Histogram>();
+    private final PostProcessorTimings myPostProcessorTimings = new PostProcessorTimings();
+
+    public HistogramInstrumentation() {
+        this(false);
+    }
+
+    /**
+     * @param trackAllocation true to record bytes allocated by the thread, ignored if not supported by the JVM
+     */
+    public HistogramInstrumentation(boolean trackAllocation) {
+        myThreadMXBean = trackAllocation ? getAllocationMXBean() : null;
+
+        myParserPhases = new Histogram[ParserPhase.values().length];
+        for (int i = 0; i < myParserPhases.length; i++) myParserPhases[i] = new Histogram();
+
+        myRenderingPhases = new Histogram[RenderingPhase.values().length];
+        for (int i = 0; i < myRenderingPhases.length; i++) myRenderingPhases[i] = new Histogram();
+    }
+
+    private static ThreadMXBean getAllocationMXBean() {
+        try {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (AllocationCounter.enable(threadMXBean)) return threadMXBean;
+        } catch (UnsupportedOperationException ignored) {
+        } catch (SecurityException ignored) {
+        } catch (LinkageError ignored) {
+            // JVM without com.sun.management
+        }
+        return null;
+    }
+
+    /**
+     * Only class referring to com.sun.management, loaded when allocation tracking is requested so other JVMs can
+     * use this instrumentation without it
+     */
+    private static class AllocationCounter {
+        static boolean enable(ThreadMXBean threadMXBean) {
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if (allocationMXBean.isThreadAllocatedMemorySupported()) {
+                    if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static long allocatedBytes(ThreadMXBean threadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    /**
+     * @return true if bytes allocated are recorded
+     */
+    public boolean isTrackingAllocation() {
+        return myThreadMXBean != null;
+    }
+
+    private long allocatedBytes() {
+        return myThreadMXBean == null ? 0 : AllocationCounter.allocatedBytes(myThreadMXBean);
+    }
+
+    /**
+     * @return handle of the started frame of the thread, frame index in the low 32 bits and frame serial number
+     *         in the high 32 bits
+     */
+    @Override
+    public long start() {
+        Frames frames = myFrames.get();
+        // let go of frames which were never ended
+        if (frames.depth >= MAX_DEPTH) frames.depth = 0;
+        int index = frames.push(System.nanoTime(), allocatedBytes());
+        return ((long) frames.serials[index] << 32) | index;
+    }
+
+    /**
+     * End the frame started with given handle and add it to the histogram
+     * <p>
+     * Events whose frame was not started on this thread or was discarded are ignored.
+     *
+     * @param histogram histogram to which to add
+     * @param start     handle returned by {@link #start()}
+     * @param self      true to exclude time and bytes of nested frames
+     */
+    private void end(Histogram histogram, long start, boolean self) {
+        long nanos = System.nanoTime();
+        long bytes = allocatedBytes();
+        Frames frames = myFrames.get();
+        int index = (int) start;
+
+        if (index < 0 || index >= frames.depth || frames.serials[index] != (int) (start >>> 32)) return;
+
+        long elapsedNanos = nanos - frames.nanos[index];
+        long elapsedBytes = myThreadMXBean == null ? 0 : bytes - frames.bytes[index];
+        long childNanos = frames.childNanos[index];
+        long childBytes = frames.childBytes[index];
+
+        // frames above this one were not ended, discard them
+        frames.depth = index;
+        if (index > 0) {
+            frames.childNanos[index - 1] += elapsedNanos;
+            frames.childBytes[index - 1] += elapsedBytes;
+        }
+
+        if (self) {
+            elapsedNanos -= childNanos;
+            elapsedBytes -= childBytes;
+        }
+
+        histogram.add(elapsedNanos, elapsedBytes);
+    }
+
+    private static <K> Histogram histogram(ConcurrentHashMap<K, Histogram> histograms, K key) {
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            Histogram newHistogram = new Histogram();
+            histogram = histograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) histogram = newHistogram;
+        }
+        return histogram;
+    }
+
+    @Override
+    public void parserPhase(ParserPhase phase, long start) {
+        end(myParserPhases[phase.ordinal()], start, false);
+    }
+
+    @Override
+    public void blockPreProcessor(Class<?> factoryClass, long start) {
+        end(histogram(myBlockPreProcessors, factoryClass), start, false);
+    }
+
+    @Override
+    public void postProcessorStage(int stage, long start) {
+        end(histogram(myPostProcessorStages, stage), start, false);
+    }
+
+    @Override
+    public void postProcessor(Class<?> factoryClass, long nanos, int nodeCount) {
+        histogram(myPostProcessors, factoryClass).add(nanos, 0);
+        myPostProcessorTimings.postProcessor(factoryClass, nanos, nodeCount);
+    }
+
+    @Override
+    public void fusedPostProcessors(List<Class<?>> factoryClasses, long start) {
+        end(histogram(myFusedPostProcessors, factoryClasses), start, false);
+    }
+
+    @Override
+    public void renderingPhase(RenderingPhase phase, long start) {
+        end(myRenderingPhases[phase.ordinal()], start, false);
+    }
+
+    @Override
+    public void nodeRendered(Class<?> nodeClass, long start) {
+        end(histogram(myNodes, nodeClass), start, true);
+    }
+
+    public Histogram getParserPhase(ParserPhase phase) {
+        return myParserPhases[phase.ordinal()];
+    }
+
+    public Histogram getRenderingPhase(RenderingPhase phase) {
+        return myRenderingPhases[phase.ordinal()];
+    }
+
+    /**
+     * @param stage index of the post processor dependency stage
+     * @return histogram of the stage or null if no stage with this index was run
+     */
+    public Histogram getPostProcessorStage(int stage) {
+        return myPostProcessorStages.get(stage);
+    }
+
+    public Map<Class<?>, Histogram> getBlockPreProcessors() {
+        return new LinkedHashMap<Class<?>, Histogram>(myBlockPreProcessors);
+    }
+
+    public Map<Class<?>, Histogram> getPostProcessors() {
+        return new LinkedHashMap<Class<?>, Histogram>(myPostProcessors);
+    }
+
+    /**
+     * @return time, node count and document count of each post processor
+     */
+    public PostProcessorTimings getPostProcessorTimings() {
+        return myPostProcessorTimings;
+    }
+
+    /**
+     * @return histograms of fused post processor passes keyed by the post processor factory classes of the pass
+     */
+    public Map<List<Class<?>>, Histogram> getFusedPostProcessors() {
+        return new LinkedHashMap<List<Class<?>>, Histogram>(myFusedPostProcessors);
+    }
+
+    public Map<Class<?>, Histogram> getNodes() {
+        return new LinkedHashMap<Class<?>, Histogram>(myNodes);
+    }
+
+    /**
+     * All non-empty histograms keyed by category and name: <code>parser.PHASE</code>, <code>blockPreProcessor.class</code>,
+     * <code>postProcessorStage.index</code>, <code>postProcessor.class</code>,
+     * <code>fusedPostProcessors.class+class</code>, <code>rendering.PHASE</code> and <code>node.class</code>
+     *
+     * @return map of histograms
+     */
+    public Map<String, Histogram> getHistograms() {
+        LinkedHashMap<String, Histogram> histograms = new LinkedHashMap<String, Histogram>();
+        for (ParserPhase phase : ParserPhase.values()) {
+            addHistogram(histograms, "parser." + phase.name(), myParserPhases[phase.ordinal()]);
+        }
+        for (Map.Entry<Class<?>, Histogram> entry : myBlockPreProcessors.entrySet()) {
+            addHistogram(histograms, "blockPreProcessor." + entry.getKey().getName(), entry.getValue());
+        }
+        for (Map.Entry<Integer, Histogram> entry : myPostProcessorStages.entrySet()) {
+            addHistogram(histograms, "postProcessorStage." + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Class<?>, Histogram> entry : myPostProcessors.entrySet()) {
+            addHistogram(histograms, "postProcessor." + entry.getKey().getName(), entry.getValue());
+        }
+        for (Map.Entry<List<Class<?>>, Histogram> entry : myFusedPostProcessors.entrySet()) {
+            StringBuilder sb = new StringBuilder("fusedPostProcessors.");
+            String sep = "";
+            for (Class<?> factoryClass : entry.getKey()) {
+                sb.append(sep).append(factoryClass.getName());
+                sep = "+";
+            }
+            addHistogram(histograms, sb.toString(), entry.getValue());
+        }
+        for (RenderingPhase phase : RenderingPhase.values()) {
+            addHistogram(histograms, "rendering." + phase.name(), myRenderingPhases[phase.ordinal()]);
+        }
+        for (Map.Entry<Class<?>, Histogram> entry : myNodes.entrySet()) {
+            addHistogram(histograms, "node." + entry.getKey().getName(), entry.getValue());
+        }
+        return histograms;
+    }
+
+    private static void addHistogram(Map<String, Histogram> histograms, String name, Histogram histogram) {
+        if (histogram.getCount() > 0) histograms.put(name, histogram);
+    }
+
+    public void clear() {
+        for (Histogram histogram : myParserPhases) histogram.clear();
+        for (Histogram histogram : myRenderingPhases) histogram.clear();
+        myBlockPreProcessors.clear();
+        myPostProcessorStages.clear();
+        myPostProcessors.clear();
+        myFusedPostProcessors.clear();
+        myNodes.clear();
+        myPostProcessorTimings.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry : getHistograms().entrySet()) {
+            sb.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Started and not yet ended events of a thread
+     */
+    private static class Frames {
+        long[] nanos = new long[16];
+        long[] bytes = new long[16];
+        long[] childNanos = new long[16];
+        long[] childBytes = new long[16];
+        int[] serials = new int[16];
+        int depth;
+        int serial;
+
+        int push(long startNanos, long startBytes) {
+            if (depth == nanos.length) {
+                int length = depth * 2;
+                nanos = Arrays.copyOf(nanos, length);
+                bytes = Arrays.copyOf(bytes, length);
+                childNanos = Arrays.copyOf(childNanos, length);
+                childBytes = Arrays.copyOf(childBytes, length);
+                serials = Arrays.copyOf(serials, length);
+            }
+            nanos[depth] = startNanos;
+            bytes[depth] = startBytes;
+            childNanos[depth] = 0;
+            childBytes[depth] = 0;
+            serials[depth] = ++serial;
+            return depth++;
+        }
+    }
+
+    /**
+     * Histogram of elapsed nanoseconds in power of 2 buckets, with totals of time and allocated bytes
+     */
+    public static class Histogram {
+        public static final int BUCKETS = 64;
+
+        private final long[] myBuckets = new long[BUCKETS];
+        private long myCount;
+        private long myTotalNanos;
+        private long myMinNanos = Long.MAX_VALUE;
+        private long myMaxNanos;
+        private long myTotalBytes;
+
+        synchronized void add(long nanos, long bytes) {
+            if (nanos < 0) nanos = 0;
+            myBuckets[BUCKETS - Long.numberOfLeadingZeros(nanos) - (nanos == 0 ? 0 : 1)]++;
+            myCount++;
+            myTotalNanos += nanos;
+            myTotalBytes += bytes;
+            if (myMinNanos > nanos) myMinNanos = nanos;
+            if (myMaxNanos < nanos) myMaxNanos = nanos;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(myBuckets, 0);
+            myCount = 0;
+            myTotalNanos = 0;
+            myMinNanos = Long.MAX_VALUE;
+            myMaxNanos = 0;
+            myTotalBytes = 0;
+        }
+
+        public synchronized long getCount() {
+            return myCount;
+        }
+
+        public synchronized long getTotalNanos() {
+            return myTotalNanos;
+        }
+
+        public synchronized long getMinNanos() {
+            return myCount == 0 ? 0 : myMinNanos;
+        }
+
+        public synchronized long getMaxNanos() {
+            return myMaxNanos;
+        }
+
+        public synchronized long getTotalBytes() {
+            return myTotalBytes;
+        }
+
+        /**
+         * Counts of recorded values by bucket, bucket i holds values less than 2^(i+1) and at least 2^i, bucket 0
+         * also holds 0
+         *
+         * @return copy of bucket counts
+         */
+        public synchronized long[] getBuckets() {
+            return myBuckets.clone();
+        }
+
+        /**
+         * Upper bound of the bucket containing the percentile
+         *
+         * @param percentile percentile, 0 to 100
+         * @return nanoseconds, not more than the maximum recorded value
+         */
+        public synchronized long getPercentileNanos(double percentile) {
+            if (myCount == 0) return 0;
+            long rank = (long) Math.ceil(myCount * Math.min(Math.max(percentile, 0), 100) / 100);
+            if (rank < 1) rank = 1;
+
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += myBuckets[i];
+                if (count >= rank) {
+                    return i >= BUCKETS - 2 ? myMaxNanos : Math.min((2L << i) - 1, myMaxNanos);
+                }
+            }
+            return myMaxNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "count: " + myCount
+                    + ", total: " + myTotalNanos / 1000 + " us"
+                    + ", min: " + getMinNanos() + " ns"
+                    + ", p50: " + getPercentileNanos(50) + " ns"
+                    + ", p99: " + getPercentileNanos(99) + " ns"
+                    + ", max: " + myMaxNanos + " ns"
+                    + (myTotalBytes != 0 ? ", bytes: " + myTotalBytes : "");
+        }
+    }
+}
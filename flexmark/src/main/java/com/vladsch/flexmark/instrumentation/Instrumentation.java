@@ -0,0 +1,94 @@
+package com.vladsch.flexmark.instrumentation;
+
+import com.vladsch.flexmark.html.renderer.RenderingPhase;
+import com.vladsch.flexmark.parser.block.ParserPhase;
+
+import java.util.List;
+
+/**
+ * Receives events of parsing and rendering, set with {@link com.vladsch.flexmark.parser.Parser#INSTRUMENTATION} on
+ * parser and renderer options
+ * <p>
+ * Every event other than {@link #postProcessor(Class, long, int)} is preceded by a call to {@link #start()} on the
+ * same thread and passed its result. Events nest: block pre-processor events are within the
+ * {@link ParserPhase#PRE_PROCESS_BLOCKS} event, post processor events within their stage event and node events within
+ * the rendering phase and the events of their parent nodes.
+ * <p>
+ * When not set no events are generated and parsing and rendering do not measure anything. Implementations must be
+ * thread safe if parsers or renderers using them are used on more than one thread.
+ *
+ * @see HistogramInstrumentation
+ * @see com.vladsch.flexmark.parser.PostProcessorTimings
+ */
+public interface Instrumentation {
+    /**
+     * Called before the operation of the next event starts
+     *
+     * @return start handle passed to the event, identifies the started operation to the implementation
+     */
+    long start();
+
+    /**
+     * A document parser phase is done, one of {@link ParserPhase#PARSE_BLOCKS}, {@link ParserPhase#PRE_PROCESS_PARAGRAPHS},
+     * {@link ParserPhase#PRE_PROCESS_BLOCKS} or {@link ParserPhase#PARSE_INLINES}
+     *
+     * @param phase parser phase
+     * @param start value returned by {@link #start()} when the phase started
+     */
+    void parserPhase(ParserPhase phase, long start);
+
+    /**
+     * A block pre-processor is done with all its blocks of the document
+     *
+     * @param factoryClass class of the block pre-processor factory
+     * @param start        value returned by {@link #start()} before the pre-processor was created
+     */
+    void blockPreProcessor(Class<?> factoryClass, long start);
+
+    /**
+     * Post processors of a dependency stage are done
+     *
+     * @param stage index of the dependency stage
+     * @param start value returned by {@link #start()} when the stage started
+     */
+    void postProcessorStage(int stage, long start);
+
+    /**
+     * A post processor is done with all its nodes of the document
+     * <p>
+     * Not preceded by {@link #start()}, the time is measured by the post processor manager. Generated for every post
+     * processor, including node post processors run together with {@link com.vladsch.flexmark.parser.Parser#FUSED_POST_PROCESSING}
+     * whose time only includes their own node processing calls. Events of fused post processors come before the
+     * {@link #fusedPostProcessors(List, long)} event of their pass.
+     *
+     * @param factoryClass class of the post processor factory
+     * @param nanos        time spent in the post processor
+     * @param nodeCount    number of nodes processed, 0 for global scope post processors
+     */
+    void postProcessor(Class<?> factoryClass, long nanos, int nodeCount);
+
+    /**
+     * Node post processors run together in one pass with {@link com.vladsch.flexmark.parser.Parser#FUSED_POST_PROCESSING}
+     * are done with all their nodes of the document
+     *
+     * @param factoryClasses classes of the post processor factories, in processing order
+     * @param start          value returned by {@link #start()} before the post processors were created
+     */
+    void fusedPostProcessors(List<Class<?>> factoryClasses, long start);
+
+    /**
+     * A document rendering phase is done
+     *
+     * @param phase rendering phase
+     * @param start value returned by {@link #start()} when the phase started
+     */
+    void renderingPhase(RenderingPhase phase, long start);
+
+    /**
+     * A node other than the document was rendered, includes rendering of its child nodes
+     *
+     * @param nodeClass class of the rendered node
+     * @param start     value returned by {@link #start()} before rendering the node
+     */
+    void nodeRendered(Class<?> nodeClass, long start);
+}
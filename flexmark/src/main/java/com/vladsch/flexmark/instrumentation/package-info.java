@@ -0,0 +1,4 @@
+/**
+ * Timing and allocation events of parsing and rendering (see {@link com.vladsch.flexmark.instrumentation.Instrumentation})
+ */
+package com.vladsch.flexmark.instrumentation;
@@ -0,0 +1,91 @@
+package com.vladsch.flexmark.internal;
+
+import com.vladsch.flexmark.parser.block.CustomBlockParserFactory;
+import com.vladsch.flexmark.parser.block.TriggeredBlockParserFactory;
+
+import java.util.List;
+
+/**
+ * Indices of block parser factories to try for a line, by the first non-space character of the line and whether it
+ * is indented
+ * <p>
+ * Factories are kept in their original order, factories which are not {@link TriggeredBlockParserFactory} are tried
+ * for every line.
+ */
+public final class BlockStartTriggers {
+    // index for characters which are not ASCII
+    private static final int OTHER_CHAR = 128;
+
+    private final int[][] factoryIndices;
+    private final int[][] indentedFactoryIndices;
+
+    public BlockStartTriggers(List<CustomBlockParserFactory> factories) {
+        int iMax = factories.size();
+        CharSequence[] triggers = new CharSequence[iMax];
+        boolean[] indented = new boolean[iMax];
+
+        for (int i = 0; i < iMax; i++) {
+            CustomBlockParserFactory factory = factories.get(i);
+            if (factory instanceof TriggeredBlockParserFactory) {
+                triggers[i] = ((TriggeredBlockParserFactory) factory).getTriggerCharacters();
+                indented[i] = ((TriggeredBlockParserFactory) factory).canStartIndented();
+            } else {
+                triggers[i] = null;
+                indented[i] = true;
+            }
+        }
+
+        factoryIndices = new int[OTHER_CHAR + 1][];
+        indentedFactoryIndices = new int[OTHER_CHAR + 1][];
+
+        int[] matching = new int[iMax];
+        for (int c = 0; c <= OTHER_CHAR; c++) {
+            int count = 0;
+            int indentedCount = 0;
+            for (int i = 0; i < iMax; i++) {
+                if (isTriggered(triggers[i], c)) {
+                    matching[count++] = i;
+                }
+            }
+
+            factoryIndices[c] = copyOf(matching, count);
+
+            for (int i = 0; i < count; i++) {
+                if (indented[matching[i]]) {
+                    matching[indentedCount++] = matching[i];
+                }
+            }
+            indentedFactoryIndices[c] = copyOf(matching, indentedCount);
+        }
+    }
+
+    private static boolean isTriggered(CharSequence triggers, int c) {
+        if (triggers == null) return true;
+
+        int iMax = triggers.length();
+        for (int i = 0; i < iMax; i++) {
+            char trigger = triggers.charAt(i);
+            if (c == OTHER_CHAR ? trigger >= OTHER_CHAR : trigger == c) return true;
+        }
+        return false;
+    }
+
+    private static int[] copyOf(int[] indices, int count) {
+        int[] copy = new int[count];
+        System.arraycopy(indices, 0, copy, 0, count);
+        return copy;
+    }
+
+    /**
+     * Factories to try for a line, characters which are not ASCII use all factories with any trigger character which
+     * is not ASCII
+     *
+     * @param c        first non-space character of the line
+     * @param indented true if the line is indented by 4 or more columns and at least the code block indent
+     * @return indices of the factories in their original order, not to be modified
+     */
+    public int[] getFactoryIndices(char c, boolean indented) {
+        int index = c < OTHER_CHAR ? c : OTHER_CHAR;
+        return indented ? indentedFactoryIndices[index] : factoryIndices[index];
+    }
+}
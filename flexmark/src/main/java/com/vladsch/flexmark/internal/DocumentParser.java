@@ -3,6 +3,7 @@ package com.vladsch.flexmark.internal;
 import com.vladsch.flexmark.ast.*;
 import com.vladsch.flexmark.ast.util.ClassifyingBlockTracker;
 import com.vladsch.flexmark.ast.util.Parsing;
+import com.vladsch.flexmark.instrumentation.Instrumentation;
 import com.vladsch.flexmark.parser.InlineParser;
 import com.vladsch.flexmark.parser.InlineParserExtensionFactory;
 import com.vladsch.flexmark.parser.InlineParserFactory;
@@ -10,6 +11,7 @@ import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.parser.block.*;
 import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
 import com.vladsch.flexmark.util.Computable;
+import com.vladsch.flexmark.util.Factory;
 import com.vladsch.flexmark.util.collection.ItemFactoryMap;
 import com.vladsch.flexmark.util.collection.iteration.ReversibleIterable;
 import com.vladsch.flexmark.util.dependency.DependencyHandler;
@@ -18,6 +20,7 @@ import com.vladsch.flexmark.util.options.DataHolder;
 import com.vladsch.flexmark.util.options.DataKey;
 import com.vladsch.flexmark.util.options.MutableDataHolder;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.BasedSequenceImpl;
 import com.vladsch.flexmark.util.sequence.CharSubSequence;
 import com.vladsch.flexmark.util.sequence.PrefixedSubSequence;
 import com.vladsch.flexmark.util.sequence.SubSequence;
@@ -25,7 +28,13 @@ import com.vladsch.flexmark.util.sequence.SubSequence;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static com.vladsch.flexmark.parser.Parser.BLANK_LINES_IN_AST;
 import static com.vladsch.flexmark.parser.Parser.TRACK_DOCUMENT_LINES;
@@ -121,10 +130,12 @@ public class DocumentParser implements ParserState {
     private int indent = 0;
     private boolean blank;
 
-    private final List<BlockParserFactory> blockParserFactories;
+    private final BlockParserFactory[] blockParserFactories;
+    private final BlockStartTriggers blockStartTriggers;
     private final ParagraphPreProcessorDependencies paragraphPreProcessorDependencies;
     private final BlockPreProcessorDependencies blockPreProcessorDependencies;
     private final InlineParser inlineParser;
+    private final Factory<InlineParser> parallelInlineParsers;
     private final DocumentBlockParser documentBlockParser;
     private final boolean blankLinesInAst;
     private final boolean trackDocumentLines;
@@ -186,12 +197,22 @@ public class DocumentParser implements ParserState {
     private Map<Node, Boolean> lastLineBlank = new HashMap<Node, Boolean>();
     private final DataHolder options;
     private ParserPhase currentPhase = ParserPhase.NONE;
+    private final Instrumentation instrumentation;
+    private long phaseStart;
 
     @Override
     public ParserPhase getParserPhase() {
         return currentPhase;
     }
 
+    private void setParserPhase(ParserPhase phase) {
+        if (instrumentation != null) {
+            if (currentPhase != ParserPhase.STARTING) instrumentation.parserPhase(currentPhase, phaseStart);
+            if (phase != ParserPhase.DONE) phaseStart = instrumentation.start();
+        }
+        currentPhase = phase;
+    }
+
     public static class ParagraphPreProcessorDependencies extends ResolvedDependencies<ParagraphPreProcessorDependencyStage> {
         public ParagraphPreProcessorDependencies(List<ParagraphPreProcessorDependencyStage> dependentStages) {
             super(dependentStages);
@@ -323,23 +344,76 @@ public class DocumentParser implements ParserState {
             ParagraphPreProcessorDependencies paragraphPreProcessorDependencies,
             BlockPreProcessorDependencies blockPreProcessorDependencies,
             InlineParser inlineParser
+    ) {
+        this(options, Parsing.of(options), customBlockParserFactories, paragraphPreProcessorDependencies, blockPreProcessorDependencies, inlineParser);
+    }
+
+    public DocumentParser(
+            DataHolder options,
+            Parsing parsing,
+            List<CustomBlockParserFactory> customBlockParserFactories,
+            ParagraphPreProcessorDependencies paragraphPreProcessorDependencies,
+            BlockPreProcessorDependencies blockPreProcessorDependencies,
+            InlineParser inlineParser
+    ) {
+        this(options, parsing, customBlockParserFactories, paragraphPreProcessorDependencies, blockPreProcessorDependencies, inlineParser, null);
+    }
+
+    /**
+     * @param parallelInlineParsers factory of inline parsers for parallel inline parsing or null to parse inlines
+     *                              with inlineParser only
+     */
+    public DocumentParser(
+            DataHolder options,
+            Parsing parsing,
+            List<CustomBlockParserFactory> customBlockParserFactories,
+            ParagraphPreProcessorDependencies paragraphPreProcessorDependencies,
+            BlockPreProcessorDependencies blockPreProcessorDependencies,
+            InlineParser inlineParser,
+            Factory<InlineParser> parallelInlineParsers
+    ) {
+        this(options, parsing, customBlockParserFactories, new BlockStartTriggers(customBlockParserFactories), null, paragraphPreProcessorDependencies,
+                blockPreProcessorDependencies, inlineParser, parallelInlineParsers);
+    }
+
+    /**
+     * @param blockStartTriggers            triggers of customBlockParserFactories
+     * @param statelessBlockParserFactories block parser factories created by {@link #createStatelessBlockParserFactories(DataHolder, List)}
+     *                                      to share, or null to create all block parser factories for this document
+     * @param parallelInlineParsers         factory of inline parsers for parallel inline parsing or null to parse inlines
+     *                                      with inlineParser only
+     */
+    public DocumentParser(
+            DataHolder options,
+            Parsing parsing,
+            List<CustomBlockParserFactory> customBlockParserFactories,
+            BlockStartTriggers blockStartTriggers,
+            BlockParserFactory[] statelessBlockParserFactories,
+            ParagraphPreProcessorDependencies paragraphPreProcessorDependencies,
+            BlockPreProcessorDependencies blockPreProcessorDependencies,
+            InlineParser inlineParser,
+            Factory<InlineParser> parallelInlineParsers
     ) {
         this.options = options;
-        this.myParsing = new Parsing(options);
+        this.myParsing = parsing;
 
-        ArrayList<BlockParserFactory> blockParserFactories = new ArrayList<BlockParserFactory>(customBlockParserFactories.size());
-        for (CustomBlockParserFactory factory : customBlockParserFactories) {
-            blockParserFactories.add(factory.create(options));
+        BlockParserFactory[] blockParserFactories = new BlockParserFactory[customBlockParserFactories.size()];
+        for (int i = 0; i < blockParserFactories.length; i++) {
+            BlockParserFactory blockParserFactory = statelessBlockParserFactories == null ? null : statelessBlockParserFactories[i];
+            blockParserFactories[i] = blockParserFactory != null ? blockParserFactory : customBlockParserFactories.get(i).create(options);
         }
 
         this.blockParserFactories = blockParserFactories;
+        this.blockStartTriggers = blockStartTriggers;
         this.paragraphPreProcessorDependencies = paragraphPreProcessorDependencies;
         this.blockPreProcessorDependencies = blockPreProcessorDependencies;
         this.inlineParser = inlineParser;
+        this.parallelInlineParsers = parallelInlineParsers;
 
         this.documentBlockParser = new DocumentBlockParser();
         activateBlockParser(this.documentBlockParser);
         this.currentPhase = ParserPhase.STARTING;
+        this.instrumentation = options.get(Parser.INSTRUMENTATION);
         this.blankLinesInAst = options.get(BLANK_LINES_IN_AST);
         this.trackDocumentLines = options.get(TRACK_DOCUMENT_LINES);
     }
@@ -376,6 +450,25 @@ public class DocumentParser implements ParserState {
         return factories;
     }
 
+    /**
+     * Create block parser factories of {@link StatelessBlockParserFactory} custom factories once to share them for
+     * all documents
+     *
+     * @param options                    parser options
+     * @param customBlockParserFactories custom block parser factories
+     * @return block parser factories at the index of their custom factory, null for factories which are not stateless
+     */
+    public static BlockParserFactory[] createStatelessBlockParserFactories(DataHolder options, List<CustomBlockParserFactory> customBlockParserFactories) {
+        BlockParserFactory[] blockParserFactories = new BlockParserFactory[customBlockParserFactories.size()];
+        for (int i = 0; i < blockParserFactories.length; i++) {
+            CustomBlockParserFactory factory = customBlockParserFactories.get(i);
+            if (factory instanceof StatelessBlockParserFactory) {
+                blockParserFactories[i] = factory.create(options);
+            }
+        }
+        return blockParserFactories;
+    }
+
     public static ParagraphPreProcessorDependencies calculateParagraphPreProcessors(
             DataHolder options,
             List<ParagraphPreProcessorFactory> blockPreProcessors,
@@ -443,7 +536,7 @@ public class DocumentParser implements ParserState {
         documentBlockParser.initializeDocument(options, input);
         inlineParser.initializeDocument(myParsing, documentBlockParser.getBlock());
 
-        currentPhase = ParserPhase.PARSE_BLOCKS;
+        setParserPhase(ParserPhase.PARSE_BLOCKS);
 
         while ((lineBreak = Parsing.findLineBreak(input, lineStart)) != -1) {
             BasedSequence line = input.subSequence(lineStart, lineBreak);
@@ -494,7 +587,25 @@ public class DocumentParser implements ParserState {
             if (charsRead < buffer.length) break;
         }
 
-        CharSequence source = CharSubSequence.of(file.toString());
+        // copy builder characters once
+        CharSequence source = CharSubSequence.of(file);
+        return parse(source);
+    }
+
+    public Document parse(Path file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        BasedSequence source;
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File " + file + " of " + size + " bytes is too large to parse");
+            }
+
+            // mapping remains valid after the channel is closed
+            source = BasedSequenceImpl.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset);
+        } finally {
+            channel.close();
+        }
         return parse(source);
     }
 
@@ -804,7 +915,11 @@ public class DocumentParser implements ParserState {
 
     private BlockStartImpl findBlockStart(BlockParser blockParser) {
         MatchedBlockParser matchedBlockParser = new MatchedBlockParserImpl(blockParser);
-        for (BlockParserFactory blockParserFactory : blockParserFactories) {
+
+        // only factories which can start a block on this line
+        boolean indented = indent >= 4 && indent >= myParsing.CODE_BLOCK_INDENT;
+        for (int factoryIndex : blockStartTriggers.getFactoryIndices(line.charAt(nextNonSpace), indented)) {
+            BlockParserFactory blockParserFactory = blockParserFactories[factoryIndex];
             if (blockParser.canInterruptBy(blockParserFactory)) {
                 BlockStart result = blockParserFactory.tryStart(this, matchedBlockParser);
                 if (result instanceof BlockStartImpl) {
@@ -847,11 +962,69 @@ public class DocumentParser implements ParserState {
      * Walk through a block & children recursively, parsing string content into inline content where appropriate.
      */
     private void processInlines() {
+        if (parallelInlineParsers != null && blockTracker.allBlockParsers().size() >= Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS.getFrom(options)) {
+            processInlinesParallel();
+            return;
+        }
+
         for (BlockParser blockParser : blockTracker.allBlockParsers()) {
             blockParser.parseInlines(inlineParser);
         }
     }
 
+    private static class SharedInlineParsingPool {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Parse inlines of contiguous runs of block parsers as tasks, each with its own inline parser.
+     * <p>
+     * Blocks have no inline content in common so only the order of inline parser calls differs from
+     * {@link #processInlines()}. Inline parsers are created and initialized on this thread and finalized in run order
+     * after all tasks complete, the first run is parsed on this thread with the document's inline parser.
+     */
+    private void processInlinesParallel() {
+        ForkJoinPool pool = Parser.PARALLEL_INLINE_PARSING_POOL.getFrom(options);
+        if (pool == null) pool = SharedInlineParsingPool.POOL;
+
+        final ArrayList<BlockParser> blockParsers = new ArrayList<BlockParser>(blockTracker.allBlockParsers());
+        int runCount = Math.max(1, Math.min(pool.getParallelism() * 2, blockParsers.size() / 32));
+        int runSize = (blockParsers.size() + runCount - 1) / runCount;
+
+        Document document = documentBlockParser.getBlock();
+        ArrayList<InlineParser> runParsers = new ArrayList<InlineParser>(runCount);
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(runCount);
+
+        for (int start = runSize; start < blockParsers.size(); start += runSize) {
+            final InlineParser runParser = parallelInlineParsers.create();
+            runParser.initializeDocument(myParsing, document);
+            runParsers.add(runParser);
+
+            final int runStart = start;
+            final int runEnd = Math.min(start + runSize, blockParsers.size());
+            tasks.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = runStart; i < runEnd; i++) {
+                        blockParsers.get(i).parseInlines(runParser);
+                    }
+                }
+            }));
+        }
+
+        for (int i = 0; i < runSize && i < blockParsers.size(); i++) {
+            blockParsers.get(i).parseInlines(inlineParser);
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        for (InlineParser runParser : runParsers) {
+            runParser.finalizeDocument(document);
+        }
+    }
+
     @Override
     public boolean endsWithBlankLine(Node block) {
         while (block != null) {
@@ -1061,12 +1234,15 @@ public class DocumentParser implements ParserState {
         if (!preProcessBitSet.isEmpty()) {
             for (BlockPreProcessorDependencyStage preProcessorStage : blockPreProcessorDependencies.getDependentStages()) {
                 for (BlockPreProcessorFactory factory : preProcessorStage.dependents) {
+                    long start = instrumentation != null ? instrumentation.start() : 0;
                     ReversibleIterable<Block> blockList = blockTracker.getNodeClassifier().getCategoryItems(Block.class, factory.getBlockTypes());
                     BlockPreProcessor blockPreProcessor = factory.create(this);
 
                     for (Block block : blockList) {
                         blockPreProcessor.preProcess(this, block);
                     }
+
+                    if (instrumentation != null) instrumentation.blockPreProcessor(factory.getClass(), start);
                 }
             }
         }
@@ -1076,16 +1252,16 @@ public class DocumentParser implements ParserState {
         finalizeBlocks(this.activeBlockParsers);
 
         // need to run block pre-processors at this point, before inline processing
-        currentPhase = ParserPhase.PRE_PROCESS_PARAGRAPHS;
+        setParserPhase(ParserPhase.PRE_PROCESS_PARAGRAPHS);
         this.preProcessParagraphs();
-        currentPhase = ParserPhase.PRE_PROCESS_BLOCKS;
+        setParserPhase(ParserPhase.PRE_PROCESS_BLOCKS);
         this.preProcessBlocks();
 
         // can naw run inline processing
-        currentPhase = ParserPhase.PARSE_INLINES;
+        setParserPhase(ParserPhase.PARSE_INLINES);
         this.processInlines();
 
-        currentPhase = ParserPhase.DONE;
+        setParserPhase(ParserPhase.DONE);
         Document document = this.documentBlockParser.getBlock();
         inlineParser.finalizeDocument(document);
 
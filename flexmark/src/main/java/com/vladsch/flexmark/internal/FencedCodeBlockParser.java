@@ -27,6 +27,7 @@ public class FencedCodeBlockParser extends AbstractBlockParser {
     private int fenceMarkerIndent;
     private final boolean matchingCloser;
     private final boolean codeContentBlock;
+    private final boolean fullSegmentedSequences;
 
     public FencedCodeBlockParser(DataHolder options, char fenceChar, int fenceLength, int fenceIndent, int fenceMarkerIndent) {
         this.fenceChar = fenceChar;
@@ -35,6 +36,7 @@ public class FencedCodeBlockParser extends AbstractBlockParser {
         this.fenceMarkerIndent = fenceIndent + fenceMarkerIndent;
         this.matchingCloser = options.get(Parser.MATCH_CLOSING_FENCE_CHARACTERS);
         this.codeContentBlock = options.get(Parser.FENCED_CODE_CONTENT_BLOCK);
+        this.fullSegmentedSequences = options.get(Parser.FULL_SEGMENTED_SEQUENCES);
     }
 
     @Override
@@ -115,7 +117,7 @@ public class FencedCodeBlockParser extends AbstractBlockParser {
                     codeBlock.setCharsFromContent();
                     block.appendChild(codeBlock);
                 } else {
-                    Text codeBlock = new Text(SegmentedSequence.of(segments, chars.subSequence(0,0)));
+                    Text codeBlock = new Text(SegmentedSequence.of(segments, chars.subSequence(0,0), fullSegmentedSequences));
                     block.appendChild(codeBlock);
                 }
             } else {
@@ -129,7 +131,7 @@ public class FencedCodeBlockParser extends AbstractBlockParser {
         content = null;
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return new HashSet<Class<? extends CustomBlockParserFactory>>(Arrays.asList(
@@ -161,6 +163,16 @@ public class FencedCodeBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "`~";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
@@ -61,7 +61,7 @@ public class HeadingParser extends AbstractBlockParser {
     public void closeBlock(ParserState state) {
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             HashSet<Class<? extends CustomBlockParserFactory>> set = new HashSet<Class<? extends CustomBlockParserFactory>>();
@@ -97,6 +97,16 @@ public class HeadingParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "#=-";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
@@ -135,7 +145,8 @@ public class HeadingParser extends AbstractBlockParser {
 
             BasedSequence line = state.getLine();
             int nextNonSpace = state.getNextNonSpaceIndex();
-            BasedSequence paragraph = matchedBlockParser.getParagraphContent();
+            // paragraph contents are only needed for setext headings, getting them for every line of a paragraph is quadratic
+            boolean inParagraph = matchedBlockParser.getBlockParser().isParagraphParser();
             Matcher matcher;
             BasedSequence trySequence = line.subSequence(nextNonSpace, line.length());
             matcher = myParsing.ATX_HEADING.matcher(trySequence);
@@ -171,7 +182,7 @@ public class HeadingParser extends AbstractBlockParser {
                         .atIndex(line.length());
             } else {
                 if ((matcher = myParsing.SETEXT_HEADING.matcher(trySequence)).find()) {
-                    if (paragraph != null) {
+                    if (inParagraph) {
                         // setext heading line
                         int level = matcher.group(0).charAt(0) == '=' ? 1 : 2;
 
@@ -23,22 +23,22 @@ public class HtmlBlockParser extends AbstractBlockParser {
 
     private static class Patterns {
         public final int COMMENT_PATTERN_INDEX;
+        public final int BLOCK_TAG_PATTERN_INDEX;
         public final Pattern[][] BLOCK_PATTERNS;
 
+        // lowercase block tag names, type 6 openers are matched by tag name instead of a pattern
+        public final Set<String> BLOCK_TAGS;
+
         public Patterns(Parsing parsing, DataHolder options) {
             this.COMMENT_PATTERN_INDEX = 2;
+            this.BLOCK_TAG_PATTERN_INDEX = 6;
 
             // dynamic block tags
-            StringBuilder sb = new StringBuilder();
-            String delimiter = "";
+            HashSet<String> blockTags = new HashSet<String>();
             for (String tag : Parser.HTML_BLOCK_TAGS.getFrom(options)) {
-                sb.append(delimiter)
-                        .append("\\Q")
-                        .append(tag)
-                        .append("\\E");
-                delimiter = "|";
+                blockTags.add(toLowerCase(tag));
             }
-            String blockTags = sb.toString();
+            this.BLOCK_TAGS = blockTags;
 
             this.BLOCK_PATTERNS = new Pattern[][] {
                     { null, null }, // not used (no type 0)
@@ -63,7 +63,7 @@ public class HtmlBlockParser extends AbstractBlockParser {
                             Pattern.compile("\\]\\]>")
                     },
                     {
-                            Pattern.compile("^</?(?:" + blockTags + ")(?:\\s|[/]?[>]|$)", Pattern.CASE_INSENSITIVE),
+                            null, // matched by isBlockTag()
                             null // terminated by blank line
                     },
                     {
@@ -72,6 +72,38 @@ public class HtmlBlockParser extends AbstractBlockParser {
                     }
             };
         }
+
+        /**
+         * Test for a type 6 opener, equivalent to {@code ^</?(?:tags)(?:\s|[/]?[>]|$)} ignoring ASCII case
+         *
+         * @param chars characters starting with {@code <}
+         * @return true if chars start with an opening or closing block tag
+         */
+        public boolean isBlockTag(CharSequence chars) {
+            int length = chars.length();
+            int start = length > 1 && chars.charAt(1) == '/' ? 2 : 1;
+            int end = start;
+
+            while (end < length) {
+                char c = chars.charAt(end);
+                if (c == '>' || c == '/' || c == ' ' || c == '\t' || c == '\n' || c == '\013' || c == '\f' || c == '\r') break;
+                end++;
+            }
+
+            if (end == start) return false;
+            if (end < length && chars.charAt(end) == '/' && (end + 1 >= length || chars.charAt(end + 1) != '>')) return false;
+            return BLOCK_TAGS.contains(toLowerCase(chars.subSequence(start, end)));
+        }
+
+        private static String toLowerCase(CharSequence chars) {
+            int iMax = chars.length();
+            StringBuilder sb = new StringBuilder(iMax);
+            for (int i = 0; i < iMax; i++) {
+                char c = chars.charAt(i);
+                sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            }
+            return sb.toString();
+        }
     }
 
     private final HtmlBlockBase block;
@@ -227,7 +259,7 @@ public class HtmlBlockParser extends AbstractBlockParser {
         }
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements TriggeredBlockParserFactory, StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return new HashSet<Class<? extends CustomBlockParserFactory>>(Arrays.asList(
@@ -259,6 +291,16 @@ public class HtmlBlockParser extends AbstractBlockParser {
             return false;
         }
 
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "<";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
         @Override
         public BlockParserFactory create(DataHolder options) {
             return new BlockFactory(options);
@@ -266,7 +308,7 @@ public class HtmlBlockParser extends AbstractBlockParser {
     }
 
     private static class BlockFactory extends AbstractBlockParserFactory {
-        private Patterns myPatterns = null;
+        private final Patterns myPatterns;
         private final boolean myHtmlCommentBlocksInterruptParagraph;
         private final boolean myHtmlBlockDeepParser;
         private final boolean myHtmlBlockDeepParseNonBlock;
@@ -282,6 +324,7 @@ public class HtmlBlockParser extends AbstractBlockParser {
             this.myHtmlBlockDeepParseFirstOpenTagOnOneLine = options.get(Parser.HTML_BLOCK_DEEP_PARSE_FIRST_OPEN_TAG_ON_ONE_LINE);
             this.myHtmlBlockCommentOnlyFullLine = options.get(Parser.HTML_BLOCK_COMMENT_ONLY_FULL_LINE);
             this.myHtmlBlockStartOnlyOnBlockTags = options.get(Parser.HTML_BLOCK_START_ONLY_ON_BLOCK_TAGS);
+            this.myPatterns = myHtmlBlockDeepParser ? null : new Patterns(Parsing.of(options), options);
         }
 
         @Override
@@ -308,14 +351,17 @@ public class HtmlBlockParser extends AbstractBlockParser {
                             continue;
                         }
 
-                        if (myPatterns == null) {
-                            myPatterns = new Patterns(state.getParsing(), state.getProperties());
-                        }
-
-                        Pattern opener = myPatterns.BLOCK_PATTERNS[blockType][0];
                         Pattern closer = myPatterns.BLOCK_PATTERNS[blockType][1];
-                        final Matcher matcher = opener.matcher(line.subSequence(nextNonSpace, line.length()));
-                        boolean matches = matcher.find();
+                        BasedSequence tryLine = line.subSequence(nextNonSpace, line.length());
+                        Matcher matcher = null;
+                        boolean matches;
+
+                        if (blockType == myPatterns.BLOCK_TAG_PATTERN_INDEX) {
+                            matches = myPatterns.isBlockTag(tryLine);
+                        } else {
+                            matcher = myPatterns.BLOCK_PATTERNS[blockType][0].matcher(tryLine);
+                            matches = matcher.find();
+                        }
 
                         // TEST: non-interrupting of paragraphs by HTML comments
                         if (matches && (myHtmlCommentBlocksInterruptParagraph || blockType != myPatterns.COMMENT_PATTERN_INDEX || !(matchedBlockParser.getBlockParser() instanceof ParagraphParser))) {
@@ -66,7 +66,7 @@ public class IndentedCodeBlockParser extends AbstractBlockParser {
         content = null;
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return new HashSet<Class<? extends CustomBlockParserFactory>>(Arrays.asList(
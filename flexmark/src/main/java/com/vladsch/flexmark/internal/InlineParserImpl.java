@@ -11,6 +11,7 @@ import com.vladsch.flexmark.parser.block.CharacterNodeFactory;
 import com.vladsch.flexmark.parser.block.ParagraphPreProcessor;
 import com.vladsch.flexmark.parser.block.ParserState;
 import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
+import com.vladsch.flexmark.util.collection.CharacterMap;
 import com.vladsch.flexmark.util.dependency.DependencyHandler;
 import com.vladsch.flexmark.util.dependency.ResolvedDependencies;
 import com.vladsch.flexmark.util.html.Escaping;
@@ -19,7 +20,6 @@ import com.vladsch.flexmark.util.sequence.BasedSequence;
 import com.vladsch.flexmark.util.sequence.SegmentedSequence;
 
 import java.util.*;
-import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -101,6 +101,10 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
     protected Map<Character, List<InlineParserExtension>> inlineParserExtensions = null;
     protected List<InlineParserExtensionFactory> inlineParserExtensionFactories = null;
 
+    // same instances as delimiterProcessors and inlineParserExtensions, for lookup without boxing the character
+    private final CharacterMap<DelimiterProcessor> delimiterProcessorMap;
+    private CharacterMap<List<InlineParserExtension>> inlineParserExtensionMap = null;
+
     // used to temporarily override handling of special characters by custom ParagraphPreProcessors
     protected BitSet specialCharacters;
     protected BitSet customCharacters = null;
@@ -130,6 +134,12 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
 
     protected ArrayList<BasedSequence> currentText;
 
+    /**
+     * Lower bound for opener searches by delimiter character, reused by {@link #processDelimiters(Delimiter)}
+     */
+    private Delimiter[] openersBottomTable;
+    private boolean openersBottomInUse;
+
     protected Document document;
 
     protected final InlineParserOptions options;
@@ -148,18 +158,20 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         // create custom processors
         if (inlineParserExtensionFactories != null) {
             Map<Character, List<InlineParserExtensionFactory>> extensions = calculateInlineParserExtensions(document, inlineParserExtensionFactories);
-            inlineParserExtensions = new HashMap<Character, List<InlineParserExtension>>(extensions.size());
+            HashMap<Character, List<InlineParserExtension>> extensionMap = new HashMap<Character, List<InlineParserExtension>>(extensions.size());
             for (Map.Entry<Character, List<InlineParserExtensionFactory>> entry : extensions.entrySet()) {
                 List<InlineParserExtension> extensionList = new ArrayList<InlineParserExtension>(entry.getValue().size());
                 for (InlineParserExtensionFactory factory : entry.getValue()) {
                     extensionList.add(factory.create(this));
                 }
 
-                inlineParserExtensions.put(entry.getKey(), extensionList);
+                extensionMap.put(entry.getKey(), extensionList);
 
                 // set it as special character
                 specialCharacters.set(entry.getKey());
             }
+            inlineParserExtensionMap = new CharacterMap<List<InlineParserExtension>>(extensionMap);
+            inlineParserExtensions = inlineParserExtensionMap;
         }
     }
 
@@ -184,6 +196,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         return currentText;
     }
 
+    // set by initializeDocument() to the parser's shared instance
     protected Parsing myParsing;
 
     public InlineParserImpl(
@@ -194,9 +207,9 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
             LinkRefProcessorData linkRefProcessorsData,
             List<InlineParserExtensionFactory> inlineParserExtensionFactories
     ) {
-        this.myParsing = new Parsing(options);
         this.options = new InlineParserOptions(options);
-        this.delimiterProcessors = delimiterProcessors;
+        this.delimiterProcessorMap = delimiterProcessors instanceof CharacterMap ? (CharacterMap<DelimiterProcessor>) delimiterProcessors : new CharacterMap<DelimiterProcessor>(delimiterProcessors);
+        this.delimiterProcessors = delimiterProcessorMap;
         this.linkRefProcessorsData = linkRefProcessorsData;
         this.delimiterCharacters = delimiterCharacters;
         this.originalSpecialCharacters = specialCharacters;
@@ -237,7 +250,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         }
 
         addDelimiterProcessors(delimiterProcessors, map);
-        return map;
+        return new CharacterMap<DelimiterProcessor>(map);
     }
 
     // nothing to add, this is for extensions.
@@ -442,7 +455,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
                 node = node.getNext();
                 unlink.unlink();
             }
-            BasedSequence literal = SegmentedSequence.of(sb, first.getChars());
+            BasedSequence literal = SegmentedSequence.of(sb, first.getChars(), options.fullSegmentedSequences);
             first.setChars(literal);
         }
     }
@@ -595,7 +608,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
     @Override
     public void flushTextNode() {
         if (currentText != null) {
-            block.appendChild(new Text(SegmentedSequence.of(currentText, BasedSequence.NULL)));
+            block.appendChild(new Text(SegmentedSequence.of(currentText, BasedSequence.NULL, options.fullSegmentedSequences)));
             currentText = null;
         }
     }
@@ -615,7 +628,8 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         }
 
         if (inlineParserExtensions != null) {
-            List<InlineParserExtension> extensions = inlineParserExtensions.get(c);
+            // subclasses may have replaced the map
+            List<InlineParserExtension> extensions = inlineParserExtensions == inlineParserExtensionMap ? inlineParserExtensionMap.get(c) : inlineParserExtensions.get(c);
             if (extensions != null) {
                 for (InlineParserExtension extension : extensions) {
                     res = extension.parse(this);
@@ -659,7 +673,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
                 // first we check custom special characters for < delimiters and only allow 2 consecutive ones to allow anchor links and HTML processing
                 boolean isDelimiter = delimiterCharacters.get(c);
                 if (isDelimiter && peek(1) == '<') {
-                    DelimiterProcessor delimiterProcessor = delimiterProcessors.get(c);
+                    DelimiterProcessor delimiterProcessor = delimiterProcessorMap.get(c);
                     res = parseDelimiters(delimiterProcessor, c);
                 } else {
                     res = parseAutolink() || parseHtmlInline();
@@ -673,7 +687,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
                 // first we check custom special characters
                 boolean isDelimiter = delimiterCharacters.get(c);
                 if (isDelimiter) {
-                    DelimiterProcessor delimiterProcessor = delimiterProcessors.get(c);
+                    DelimiterProcessor delimiterProcessor = delimiterProcessorMap.get(c);
                     res = parseDelimiters(delimiterProcessor, c);
                 } else {
                     res = parseString();
@@ -701,7 +715,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         node.setChars(input.subSequence(index, index + 1));
 
         if (currentText != null) {
-            BasedSequence prevText = SegmentedSequence.of(currentText, BasedSequence.NULL);
+            BasedSequence prevText = SegmentedSequence.of(currentText, BasedSequence.NULL, options.fullSegmentedSequences);
             currentText = null;
 
             // see if need to trim some off the end
@@ -753,8 +767,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         boolean m = matcher.find();
         if (m) {
             index = matcher.end();
-            MatchResult result = matcher.toMatchResult();
-            return input.subSequence(result.start(), result.end());
+            return input.subSequence(matcher.start(), matcher.end());
         } else {
             return null;
         }
@@ -776,13 +789,12 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         boolean m = matcher.find();
         if (m) {
             index = matcher.end();
-            MatchResult result = matcher.toMatchResult();
             final int iMax = matcher.groupCount() + 1;
             BasedSequence[] results = new BasedSequence[iMax];
-            results[0] = input.subSequence(result.start(), result.end());
+            results[0] = input.subSequence(matcher.start(), matcher.end());
             for (int i = 1; i < iMax; i++) {
-                if (matcher.group(i) != null) {
-                    results[i] = input.subSequence(result.start(i), result.end(i));
+                if (matcher.start(i) != -1) {
+                    results[i] = input.subSequence(matcher.start(i), matcher.end(i));
                 } else {
                     results[i] = null;
                 }
@@ -815,6 +827,25 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         }
     }
 
+    /**
+     * Advance index to the end of a match found by a {@link InlineScanner} scanner, same as {@link #match(Pattern)}
+     * for the scanner's pattern.
+     *
+     * @param end     end index returned by the scanner, -1 for no match
+     * @param pattern pattern to match when the scanner returns {@link InlineScanner#USE_PATTERN}
+     * @return sequence matched or null
+     */
+    protected BasedSequence scanned(int end, Pattern pattern) {
+        if (end == InlineScanner.USE_PATTERN) {
+            return match(pattern);
+        } else if (end == -1) {
+            return null;
+        }
+        BasedSequence matched = input.subSequence(index, end);
+        index = end;
+        return matched;
+    }
+
     /**
      * @return the char at the current input index, or {@code '\0'} in case there are no more characters.
      */
@@ -843,7 +874,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      */
     @Override
     public boolean spnl() {
-        match(myParsing.SPNL);
+        index = InlineScanner.spnl(input, index);
         return true;
     }
 
@@ -854,7 +885,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      */
     @Override
     public boolean nonIndentSp() {
-        match(myParsing.SPNI);
+        index = InlineScanner.spni(input, index);
         return true;
     }
 
@@ -865,7 +896,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      */
     @Override
     public boolean sp() {
-        match(myParsing.SP);
+        index = InlineScanner.sp(input, index);
         return true;
     }
 
@@ -876,7 +907,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      */
     @Override
     public boolean spnlUrl() {
-        return match(myParsing.SPNL_URL) != null;
+        return index < input.length() && scanned(InlineScanner.spnlUrl(input, index), myParsing.SPNL_URL) != null;
     }
 
     /**
@@ -951,7 +982,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
             int charsMatched = peek(1) == '\n' ? 2 : 1;
             appendNode(new HardLineBreak(input.subSequence(index - 1, index + charsMatched)));
             index += charsMatched;
-        } else if (index < input.length() && myParsing.ESCAPABLE.matcher(input.subSequence(index, index + 1)).matches()) {
+        } else if (index < input.length() && InlineScanner.isEscapable(input.charAt(index))) {
             appendText(input, index - 1, index + 1);
             index++;
         } else {
@@ -966,15 +997,16 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      * @return true if matched backticks, false otherwise
      */
     protected boolean parseBackticks() {
-        BasedSequence ticks = match(myParsing.TICKS_HERE);
+        BasedSequence ticks = scanned(InlineScanner.ticksHere(input, index), myParsing.TICKS_HERE);
         if (ticks == null) {
             return false;
         }
         int afterOpenTicks = index;
-        BasedSequence matched;
-        while ((matched = match(myParsing.TICKS)) != null) {
-            if (matched.equals(ticks)) {
-                int ticksLength = ticks.length();
+        int ticksLength = ticks.length();
+        int ticksStart;
+        while ((ticksStart = InlineScanner.nextTicks(input, index)) != -1) {
+            index = InlineScanner.ticksHere(input, ticksStart);
+            if (index - ticksStart == ticksLength) {
                 BasedSequence content = input.subSequence(afterOpenTicks - ticksLength, index - ticksLength);
                 final BasedSequence codeText = input.subSequence(afterOpenTicks, index - ticksLength);
                 Code node = new Code(input.subSequence(afterOpenTicks - ticksLength, afterOpenTicks), codeText, input.subSequence(index - ticksLength, index));
@@ -1252,7 +1284,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
                 } else {
                     spnl();
                     // title needs a whitespace before
-                    if (myParsing.WHITESPACE.matcher(input.subSequence(index - 1, index)).matches()) {
+                    if (InlineScanner.isWhitespace(input.charAt(index - 1))) {
                         title = parseLinkTitle();
                         spnl();
                     }
@@ -1558,13 +1590,15 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      */
     @Override
     public BasedSequence parseLinkDestination() {
-        BasedSequence res = match(myParsing.LINK_DESTINATION_ANGLES);
+        BasedSequence res = options.spaceInLinkUrls ? match(myParsing.LINK_DESTINATION_ANGLES)
+                : index < input.length() ? scanned(InlineScanner.linkDestinationAngles(input, index), myParsing.LINK_DESTINATION_ANGLES) : null;
         if (res != null) {
             return res;
         } else {
             if (options.linksAllowMatchedParentheses) {
                 // allow matched parenthesis
-                BasedSequence matched = match(myParsing.LINK_DESTINATION_MATCHED_PARENS);
+                BasedSequence matched = options.spaceInLinkUrls || options.parseJekyllMacrosInUrls ? match(myParsing.LINK_DESTINATION_MATCHED_PARENS)
+                        : index < input.length() ? scanned(InlineScanner.linkDestinationMatchedParens(input, index, myParsing.intellijDummyIdentifier), myParsing.LINK_DESTINATION_MATCHED_PARENS) : null;
                 if (matched != null) {
                     int openCount = 0;
                     int iMax = matched.length();
@@ -1592,7 +1626,8 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
                 return null;
             } else {
                 // spec 0.27 compatibility
-                final BasedSequence matched = match(myParsing.LINK_DESTINATION);
+                final BasedSequence matched = options.spaceInLinkUrls || options.parseJekyllMacrosInUrls ? match(myParsing.LINK_DESTINATION)
+                        : index < input.length() ? scanned(InlineScanner.linkDestination(input, index, myParsing.intellijDummyIdentifier), myParsing.LINK_DESTINATION) : null;
                 return matched != null && options.spaceInLinkUrls ? matched.trimEnd(BasedSequence.SPACE) : matched;
             }
         }
@@ -1605,7 +1640,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
      */
     @Override
     public BasedSequence parseLinkTitle() {
-        BasedSequence title = match(myParsing.LINK_TITLE);
+        BasedSequence title = scanned(InlineScanner.linkTitle(input, index), myParsing.LINK_TITLE);
         if (title != null) {
             // chop off quotes from title and unescape:
             return title; //Escaping.unescapeString(title.substring(1, title.length() - 1));
@@ -1633,11 +1668,11 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
     @Override
     public boolean parseAutolink() {
         BasedSequence m;
-        if ((m = match(myParsing.EMAIL_AUTOLINK)) != null) {
+        if ((m = scanned(InlineScanner.emailAutolink(input, index, myParsing.intellijDummyIdentifier), myParsing.EMAIL_AUTOLINK)) != null) {
             MailLink node = new MailLink(m.subSequence(0, 1), m.subSequence(1, m.length() - 1), m.subSequence(m.length() - 1, m.length()));
             appendNode(node);
             return true;
-        } else if ((m = match(myParsing.AUTOLINK)) != null) {
+        } else if ((m = scanned(InlineScanner.autolink(input, index, myParsing.intellijDummyIdentifier), myParsing.AUTOLINK)) != null) {
             AutoLink node = new AutoLink(m.subSequence(0, 1), m.subSequence(1, m.length() - 1), m.subSequence(m.length() - 1, m.length()));
             appendNode(node);
             return true;
@@ -1677,7 +1712,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
     @Override
     public boolean parseEntity() {
         BasedSequence m;
-        if ((m = match(myParsing.ENTITY_HERE)) != null) {
+        if ((m = scanned(InlineScanner.entity(input, index, myParsing.intellijDummyIdentifier), myParsing.ENTITY_HERE)) != null) {
             HtmlEntity node = new HtmlEntity(m);
             appendNode(node);
             return true;
@@ -1745,8 +1780,11 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         boolean afterIsPunctuation;
         boolean leftFlanking;
         boolean rightFlanking;
-        boolean beforeIsWhitespace = myParsing.UNICODE_WHITESPACE_CHAR.matcher(before).matches();
-        boolean afterIsWhitespace = myParsing.UNICODE_WHITESPACE_CHAR.matcher(after).matches();
+        // ASCII characters are looked up, others matched with the Unicode patterns
+        char beforeChar = before.charAt(0);
+        char afterChar = after.charAt(0);
+        boolean beforeIsWhitespace = beforeChar < 128 ? InlineScanner.isAsciiUnicodeWhitespace(beforeChar) : myParsing.UNICODE_WHITESPACE_CHAR.matcher(before).matches();
+        boolean afterIsWhitespace = afterChar < 128 ? InlineScanner.isAsciiUnicodeWhitespace(afterChar) : myParsing.UNICODE_WHITESPACE_CHAR.matcher(after).matches();
 
         if (options.inlineDelimiterDirectionalPunctuations) {
             beforeIsPunctuation = myParsing.PUNCTUATION_OPEN.matcher(before).matches();
@@ -1757,8 +1795,8 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
             rightFlanking = !beforeIsWhitespace &&
                     (!beforeIsPunctuation || afterIsWhitespace || afterIsPunctuation);
         } else {
-            beforeIsPunctuation = myParsing.PUNCTUATION.matcher(before).matches();
-            afterIsPunctuation = myParsing.PUNCTUATION.matcher(after).matches();
+            beforeIsPunctuation = beforeChar < 128 ? InlineScanner.isAsciiPunctuation(beforeChar) : myParsing.PUNCTUATION.matcher(before).matches();
+            afterIsPunctuation = afterChar < 128 ? InlineScanner.isAsciiPunctuation(afterChar) : myParsing.PUNCTUATION.matcher(after).matches();
 
             leftFlanking = !afterIsWhitespace &&
                     !(afterIsPunctuation && !beforeIsWhitespace && !beforeIsPunctuation);
@@ -1783,7 +1821,30 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
 
     @Override
     public void processDelimiters(Delimiter stackBottom) {
-        Map<Character, Delimiter> openersBottom = new HashMap<Character, Delimiter>();
+        // reuse the table unless a delimiter processor called back into this method
+        boolean reuseTable = !openersBottomInUse;
+        Delimiter[] openersBottom;
+        if (reuseTable) {
+            if (openersBottomTable == null) openersBottomTable = new Delimiter[128];
+            openersBottom = openersBottomTable;
+            openersBottomInUse = true;
+        } else {
+            openersBottom = new Delimiter[128];
+        }
+
+        try {
+            processDelimiters(stackBottom, openersBottom);
+        } finally {
+            if (reuseTable) {
+                Arrays.fill(openersBottom, null);
+                openersBottomInUse = false;
+            }
+        }
+    }
+
+    private void processDelimiters(Delimiter stackBottom, Delimiter[] openersBottom) {
+        // non-ASCII delimiter characters
+        Map<Character, Delimiter> openersBottomMap = null;
 
         // find first closer above stackBottom:
         Delimiter closer = lastDelimiter;
@@ -1795,7 +1856,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
         while (closer != null) {
             char delimiterChar = closer.delimiterChar;
 
-            DelimiterProcessor delimiterProcessor = delimiterProcessors.get(delimiterChar);
+            DelimiterProcessor delimiterProcessor = delimiterProcessorMap.get(delimiterChar);
             if (!closer.canClose || delimiterProcessor == null) {
                 closer = closer.next;
                 continue;
@@ -1808,7 +1869,8 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
             boolean openerFound = false;
             boolean potentialOpenerFound = false;
             Delimiter opener = closer.previous;
-            while (opener != null && opener != stackBottom && opener != openersBottom.get(delimiterChar)) {
+            Delimiter openerBottom = delimiterChar < openersBottom.length ? openersBottom[delimiterChar] : openersBottomMap == null ? null : openersBottomMap.get(delimiterChar);
+            while (opener != null && opener != stackBottom && opener != openerBottom) {
                 if (opener.canOpen && opener.delimiterChar == openingDelimiterChar) {
                     potentialOpenerFound = true;
                     useDelims = delimiterProcessor.getDelimiterUse(opener, closer);
@@ -1830,7 +1892,12 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
                     // delimiters (e.g. because of the "multiple of 3" rule),
                     // we want to consider it next time because the number
                     // of delimiters can change as we continue processing.
-                    openersBottom.put(delimiterChar, closer.previous);
+                    if (delimiterChar < openersBottom.length) {
+                        openersBottom[delimiterChar] = closer.previous;
+                    } else {
+                        if (openersBottomMap == null) openersBottomMap = new HashMap<Character, Delimiter>();
+                        openersBottomMap.put(delimiterChar, closer.previous);
+                    }
                     if (!closer.canOpen) {
                         // We can remove a closer that can't be an opener,
                         // once we've seen there's no matching opener:
@@ -1923,7 +1990,7 @@ public class InlineParserImpl implements InlineParser, ParagraphPreProcessor {
     @Override
     public void removeDelimiterKeepNode(Delimiter delim) {
         Node node;
-        DelimiterProcessor delimiterProcessor = delimiterProcessors.get(delim.delimiterChar);
+        DelimiterProcessor delimiterProcessor = delimiterProcessorMap.get(delim.delimiterChar);
         node = delimiterProcessor != null ? delimiterProcessor.unmatchedDelimiterNode(this, delim) : null;
         if (node != null) {
             if (node != delim.node) {
@@ -0,0 +1,377 @@
+package com.vladsch.flexmark.internal;
+
+import com.vladsch.flexmark.ast.util.Parsing;
+
+/**
+ * Hand written scanners for inline productions of {@link Parsing} patterns
+ * <p>
+ * Each scanner matches the same characters as its pattern matched at the start of the region, for the default
+ * options noted on the scanner. Scanners return the end index of the match or -1 if there is no match. Scanners of
+ * patterns which need backtracking for some inputs return {@link #USE_PATTERN} for these, the pattern has to be used
+ * instead.
+ * <p>
+ * Character classes are table lookups for ASCII, all characters which are not ASCII are either in a negated class
+ * or not in the class so no Unicode tables are needed. {@link Parsing#ADDITIONAL_CHARS} is included in classes
+ * when additionalChars is true.
+ */
+public final class InlineScanner {
+    public static final int USE_PATTERN = -2;
+
+    private static final int ADDITIONAL_CHAR = '\u001f';
+
+    private static final boolean[] ESCAPABLE = charClass("!\"#$%&'()*+,./:;<=>?@[\\]^_`{|}~-");
+    private static final boolean[] ASCII_PUNCTUATION = charClass("!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~");
+    private static final boolean[] ALPHA = charClass("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ");
+    private static final boolean[] DIGIT = charClass("0123456789");
+    private static final boolean[] ALPHANUMERIC = union(ALPHA, DIGIT);
+    private static final boolean[] HEX_DIGIT = union(DIGIT, charClass("abcdefABCDEF"));
+    private static final boolean[] EMAIL_LOCAL = union(ALPHANUMERIC, charClass(".!#$%&'*+/=?^_`{|}~-"));
+    private static final boolean[] SCHEME = union(ALPHANUMERIC, charClass(".+-"));
+
+    private InlineScanner() {
+    }
+
+    private static boolean[] charClass(String chars) {
+        boolean[] table = new boolean[128];
+        for (int i = 0; i < chars.length(); i++) {
+            table[chars.charAt(i)] = true;
+        }
+        return table;
+    }
+
+    private static boolean[] union(boolean[] table1, boolean[] table2) {
+        boolean[] table = new boolean[128];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = table1[i] || table2[i];
+        }
+        return table;
+    }
+
+    private static boolean in(boolean[] table, char c) {
+        return c < 128 && table[c];
+    }
+
+    private static boolean in(boolean[] table, char c, boolean additionalChars) {
+        return c < 128 && (table[c] || additionalChars && c == ADDITIONAL_CHAR);
+    }
+
+    /**
+     * @param c character
+     * @return true if c is backslash escapable, {@code Escaping.ESCAPABLE}
+     */
+    public static boolean isEscapable(char c) {
+        return in(ESCAPABLE, c);
+    }
+
+    /**
+     * @param c character
+     * @return true if c is ASCII punctuation, {@link Parsing#PUNCTUATION} for ASCII characters
+     */
+    public static boolean isAsciiPunctuation(char c) {
+        return in(ASCII_PUNCTUATION, c);
+    }
+
+    /**
+     * @param c character
+     * @return true if c is in {@link Parsing#UNICODE_WHITESPACE_CHAR} for ASCII characters
+     */
+    public static boolean isAsciiUnicodeWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * @param c character
+     * @return true if c is in {@link Parsing#WHITESPACE}, {@code \s}
+     */
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @param c               character
+     * @param additionalChars true if {@link Parsing#ADDITIONAL_CHARS} are allowed
+     * @return true if c is in {@link Parsing#EXCLUDED_0_TO_SPACE}
+     */
+    private static boolean isExcluded0ToSpace(char c, boolean additionalChars) {
+        return c <= ' ' && !(additionalChars && c == ADDITIONAL_CHAR);
+    }
+
+    /**
+     * {@link Parsing#SP}
+     */
+    public static int sp(CharSequence s, int index) {
+        int length = s.length();
+        while (index < length && (s.charAt(index) == ' ' || s.charAt(index) == '\t')) index++;
+        return index;
+    }
+
+    /**
+     * {@link Parsing#SPNI}
+     */
+    public static int spni(CharSequence s, int index) {
+        int end = Math.min(index + 3, s.length());
+        while (index < end && s.charAt(index) == ' ') index++;
+        return index;
+    }
+
+    private static int eol(CharSequence s, int index) {
+        if (index < s.length()) {
+            char c = s.charAt(index);
+            if (c == '\r') {
+                return index + 1 < s.length() && s.charAt(index + 1) == '\n' ? index + 2 : index + 1;
+            } else if (c == '\n') {
+                return index + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@link Parsing#SPNL}
+     */
+    public static int spnl(CharSequence s, int index) {
+        index = sp(s, index);
+        int eol = eol(s, index);
+        return eol == -1 ? index : sp(s, eol);
+    }
+
+    /**
+     * {@link Parsing#SPNL_URL}
+     */
+    public static int spnlUrl(CharSequence s, int index) {
+        return eol(s, sp(s, index));
+    }
+
+    /**
+     * {@link Parsing#TICKS_HERE}
+     */
+    public static int ticksHere(CharSequence s, int index) {
+        int end = index;
+        int length = s.length();
+        while (end < length && s.charAt(end) == '`') end++;
+        return end == index ? -1 : end;
+    }
+
+    /**
+     * Start of next backtick run for {@link Parsing#TICKS}
+     *
+     * @return index of next backtick at or after index or -1
+     */
+    public static int nextTicks(CharSequence s, int index) {
+        int length = s.length();
+        for (int i = index; i < length; i++) {
+            if (s.charAt(i) == '`') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * {@link Parsing#ENTITY_HERE}
+     */
+    public static int entity(CharSequence s, int index, boolean additionalChars) {
+        int length = s.length();
+        if (index + 1 >= length || s.charAt(index) != '&') return -1;
+
+        int i = index + 1;
+        boolean[] nameClass;
+        int maxName;
+
+        if (s.charAt(i) == '#') {
+            i++;
+            if (i < length && (s.charAt(i) == 'x' || s.charAt(i) == 'X')) {
+                i++;
+                nameClass = HEX_DIGIT;
+            } else {
+                nameClass = DIGIT;
+                additionalChars = false;
+            }
+            maxName = 8;
+        } else {
+            if (!in(ALPHA, s.charAt(i), additionalChars)) return -1;
+            i++;
+            nameClass = ALPHANUMERIC;
+            maxName = 31;
+        }
+
+        int nameStart = i;
+        int nameEnd = Math.min(length, i + maxName);
+        while (i < nameEnd && in(nameClass, s.charAt(i), additionalChars)) i++;
+        if (i == nameStart || i >= length || s.charAt(i) != ';') return -1;
+        return i + 1;
+    }
+
+    /**
+     * {@link Parsing#EMAIL_AUTOLINK}
+     */
+    public static int emailAutolink(CharSequence s, int index, boolean additionalChars) {
+        int length = s.length();
+        if (index >= length || s.charAt(index) != '<') return -1;
+
+        int i = index + 1;
+        while (i < length && in(EMAIL_LOCAL, s.charAt(i), additionalChars)) i++;
+        if (i == index + 1 || i >= length || s.charAt(i) != '@') return -1;
+        i++;
+
+        while (true) {
+            // label must be a complete run of alphanumerics and '-', 1 to 63 long, not starting or ending with '-'
+            int labelStart = i;
+            if (i >= length || !in(ALPHANUMERIC, s.charAt(i), additionalChars)) return -1;
+            while (i < length && (in(ALPHANUMERIC, s.charAt(i), additionalChars) || s.charAt(i) == '-')) i++;
+            if (i - labelStart > 63 || s.charAt(i - 1) == '-') return -1;
+
+            if (i >= length) return -1;
+            char c = s.charAt(i);
+            if (c == '>') return i + 1;
+            if (c != '.') return -1;
+            i++;
+        }
+    }
+
+    /**
+     * {@link Parsing#AUTOLINK}
+     */
+    public static int autolink(CharSequence s, int index, boolean additionalChars) {
+        int length = s.length();
+        if (index + 1 >= length || s.charAt(index) != '<' || !in(ALPHA, s.charAt(index + 1))) return -1;
+
+        int i = index + 2;
+        while (i < length && in(SCHEME, s.charAt(i), additionalChars)) i++;
+        int schemeLength = i - index - 1;
+        if (schemeLength < 2 || schemeLength > 32 || i >= length || s.charAt(i) != ':') return -1;
+        i++;
+
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == '>') return i + 1;
+            if (c == '<' || isExcluded0ToSpace(c, additionalChars)) return -1;
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * End of patterns of the form {@code open (ESCAPED_CHAR|[^close excluded]|\\)* close}
+     * <p>
+     * When the repetition took escapes and did not stop at the closing character the pattern can still match by
+     * taking some backslashes by themselves, which needs backtracking.
+     *
+     * @param s         characters
+     * @param end       index where the repetition stopped
+     * @param close     closing character
+     * @param hadEscape true if the repetition took a backslash
+     * @return index after the closing character, -1 or {@link #USE_PATTERN}
+     */
+    private static int closeAt(CharSequence s, int end, char close, boolean hadEscape) {
+        if (end < s.length() && s.charAt(end) == close) return end + 1;
+        return hadEscape ? USE_PATTERN : -1;
+    }
+
+    /**
+     * {@link Parsing#LINK_DESTINATION_ANGLES} without {@code Parser.SPACE_IN_LINK_URLS}
+     */
+    public static int linkDestinationAngles(CharSequence s, int index) {
+        int length = s.length();
+        if (index >= length || s.charAt(index) != '<') return -1;
+
+        int i = index + 1;
+        boolean hadEscape = false;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                i += i + 1 < length && isEscapable(s.charAt(i + 1)) ? 2 : 1;
+                hadEscape = true;
+            } else if (c == '<' || c == '>' || c == ' ' || c == '\t' || c == '\n' || c == '\0') {
+                break;
+            } else {
+                i++;
+            }
+        }
+        return closeAt(s, i, '>', hadEscape);
+    }
+
+    /**
+     * {@link Parsing#LINK_TITLE}
+     */
+    public static int linkTitle(CharSequence s, int index) {
+        int length = s.length();
+        if (index >= length) return -1;
+
+        char close;
+        switch (s.charAt(index)) {
+            case '"':
+                close = '"';
+                break;
+            case '\'':
+                close = '\'';
+                break;
+            case '(':
+                close = ')';
+                break;
+            default:
+                return -1;
+        }
+
+        int i = index + 1;
+        boolean hadEscape = false;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                i += i + 1 < length && isEscapable(s.charAt(i + 1)) ? 2 : 1;
+                hadEscape = true;
+            } else if (c == close || c == '\0') {
+                break;
+            } else {
+                i++;
+            }
+        }
+        return closeAt(s, i, close, hadEscape);
+    }
+
+    /**
+     * {@link Parsing#LINK_DESTINATION} without {@code Parser.SPACE_IN_LINK_URLS} and
+     * {@code Parser.PARSE_JEKYLL_MACROS_IN_URLS}
+     */
+    public static int linkDestination(CharSequence s, int index, boolean additionalChars) {
+        int length = s.length();
+        int i = index;
+
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                i += i + 1 < length && isEscapable(s.charAt(i + 1)) ? 2 : 1;
+            } else if (c == '(') {
+                // parenthesized run without nested parentheses
+                int j = i + 1;
+                while (j < length) {
+                    char p = s.charAt(j);
+                    if (p == '\\' && j + 1 < length && isEscapable(s.charAt(j + 1))) {
+                        j += 2;
+                    } else if (p == '\\' || p == '(' || p == ')' || isExcluded0ToSpace(p, additionalChars)) {
+                        break;
+                    } else {
+                        j++;
+                    }
+                }
+                if (j >= length || s.charAt(j) != ')') break;
+                i = j + 1;
+            } else if (c == ')' || isExcluded0ToSpace(c, additionalChars)) {
+                break;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * {@link Parsing#LINK_DESTINATION_MATCHED_PARENS} without {@code Parser.SPACE_IN_LINK_URLS} and
+     * {@code Parser.PARSE_JEKYLL_MACROS_IN_URLS}
+     */
+    public static int linkDestinationMatchedParens(CharSequence s, int index, boolean additionalChars) {
+        // escaped characters and parentheses are never excluded so the match runs to the first excluded character
+        int length = s.length();
+        int i = index;
+        while (i < length && !isExcluded0ToSpace(s.charAt(i), additionalChars)) i++;
+        return i;
+    }
+}
@@ -399,7 +399,7 @@ public class ListBlockParser extends AbstractBlockParser {
         return BlockContinue.atIndex(state.getIndex());
     }
 
-    public static class Factory implements CustomBlockParserFactory {
+    public static class Factory implements StatelessBlockParserFactory {
         @Override
         public Set<Class<? extends CustomBlockParserFactory>> getAfterDependents() {
             return new HashSet<Class<? extends CustomBlockParserFactory>>(Arrays.asList(
@@ -2,6 +2,8 @@ package com.vladsch.flexmark.internal;
 
 import com.vladsch.flexmark.ast.Document;
 import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.instrumentation.Instrumentation;
+import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.parser.PostProcessor;
 import com.vladsch.flexmark.parser.PostProcessorFactory;
 import com.vladsch.flexmark.util.collection.ClassifyingNodeTracker;
@@ -57,6 +59,10 @@ public class PostProcessorManager {
     }
 
     public Document postProcess(Document document) {
+        boolean fused = Parser.FUSED_POST_PROCESSING.getFrom(document);
+        Instrumentation instrumentation = Parser.INSTRUMENTATION.getFrom(document);
+        int stageIndex = 0;
+
         // first initialize node tracker if
         ClassifyingNodeTracker classifyingNodeTracker;
 
@@ -66,16 +72,24 @@ public class PostProcessorManager {
             // provided
             //new ClassifyingNodeTracker()
             boolean hadGlobal = false;
+            ArrayList<PostProcessorFactory> fusedDependents = null;
+            long stageStart = instrumentation != null ? instrumentation.start() : 0;
+
             for (PostProcessorFactory dependent : stage.dependents) {
                 if (dependent.affectsGlobalScope()) {
+                    if (fusedDependents != null) {
+                        processFused(document, classifyingNodeTracker, fusedDependents, instrumentation);
+                        fusedDependents = null;
+                    }
+
+                    long start = instrumentation != null ? System.nanoTime() : 0;
                     document = dependent.create(document).processDocument(document);
+                    if (instrumentation != null) instrumentation.postProcessor(dependent.getClass(), System.nanoTime() - start, 0);
+
                     hadGlobal = true;
                     // assume it no longer reflects reality;
                     classifyingNodeTracker = null;
                 } else {
-                    if (hadGlobal) {
-                        int tmp = 0;
-                    }
                     assert !hadGlobal;
 
                     if (classifyingNodeTracker == null) {
@@ -83,45 +97,178 @@ public class PostProcessorManager {
                         classifyingNodeTracker = new NodeClassifierVisitor(stage.myNodeMap).classify(document);
                     }
 
-                    Map<Class<?>, Set<Class<?>>> dependentNodeTypes = dependent.getNodeTypes();
-                    PostProcessor postProcessor = dependent.create(document);
-                    BitSet exclusionSet = new BitSet();
-                    for (Set<Class<?>> excluded : dependentNodeTypes.values()) {
-                        BitSet mapped = classifyingNodeTracker.getExclusionSet().indexBitSet(excluded);
-                        exclusionSet.or(mapped);
-                    }
-
-                    ReversibleIterable<Node> nodes = classifyingNodeTracker.getCategoryItems(Node.class, dependentNodeTypes.keySet());
-                    for (Node node : nodes) {
-                        if (node.getParent() == null) continue; // was already removed
-                        // now we need to get the bitset for the excluded ancestors of the node, then intersect it with the actual ancestors of this factory
-                        int index;
-                        BitSet nodeAncestors;
-                        BitSet nodeExclusions;
-                        Set<Class<?>> excluded = dependentNodeTypes.get(node.getClass());
-                        if (excluded != null) {
-                            index = classifyingNodeTracker.getItems().indexOf(node);
-                            if (index != -1) {
-                                 nodeAncestors = classifyingNodeTracker.getNodeAncestryMap().get(index);
-                                if (nodeAncestors != null) {
-                                    nodeExclusions = classifyingNodeTracker.getExclusionSet().indexBitSet(excluded);
-                                    nodeExclusions.and(nodeAncestors);
-                                    if (!nodeExclusions.isEmpty()) {
-                                        // has excluded ancestor
-                                        continue;
-                                    }
-                                }
-                            }
-                        }
-                        postProcessor.process(classifyingNodeTracker, node);
+                    if (fused) {
+                        if (fusedDependents == null) fusedDependents = new ArrayList<PostProcessorFactory>();
+                        fusedDependents.add(dependent);
+                    } else {
+                        process(document, classifyingNodeTracker, dependent, instrumentation);
                     }
                 }
             }
+
+            if (fusedDependents != null) {
+                processFused(document, classifyingNodeTracker, fusedDependents, instrumentation);
+            }
+
+            if (instrumentation != null) instrumentation.postProcessorStage(stageIndex, stageStart);
+            stageIndex++;
         }
 
         return document;
     }
 
+    // excluded ancestor bits by node class, computed once per post processor so exclusion tests do not allocate
+    private static HashMap<Class<?>, BitSet> nodeExclusions(ClassifyingNodeTracker classifyingNodeTracker, Map<Class<?>, Set<Class<?>>> dependentNodeTypes) {
+        HashMap<Class<?>, BitSet> nodeExclusions = new HashMap<Class<?>, BitSet>();
+        for (Map.Entry<Class<?>, Set<Class<?>>> entry : dependentNodeTypes.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                BitSet exclusions = classifyingNodeTracker.getExclusionSet().indexBitSet(entry.getValue());
+                if (!exclusions.isEmpty()) nodeExclusions.put(entry.getKey(), exclusions);
+            }
+        }
+        return nodeExclusions;
+    }
+
+    private static void process(Document document, ClassifyingNodeTracker classifyingNodeTracker, PostProcessorFactory dependent, Instrumentation instrumentation) {
+        long start = instrumentation != null ? System.nanoTime() : 0;
+        int count = 0;
+
+        Map<Class<?>, Set<Class<?>>> dependentNodeTypes = dependent.getNodeTypes();
+        PostProcessor postProcessor = dependent.create(document);
+        HashMap<Class<?>, BitSet> nodeExclusions = nodeExclusions(classifyingNodeTracker, dependentNodeTypes);
+
+        ReversibleIterable<Node> nodes = classifyingNodeTracker.getCategoryItems(Node.class, dependentNodeTypes.keySet());
+        for (Node node : nodes) {
+            if (node.getParent() == null) continue; // was already removed
+
+            BitSet exclusions = nodeExclusions.isEmpty() ? null : nodeExclusions.get(node.getClass());
+            if (exclusions != null) {
+                int index = classifyingNodeTracker.getItems().indexOf(node);
+                if (classifyingNodeTracker.isExcluded(index, exclusions)) {
+                    // has excluded ancestor
+                    continue;
+                }
+            }
+            postProcessor.process(classifyingNodeTracker, node);
+            count++;
+        }
+
+        if (instrumentation != null) instrumentation.postProcessor(dependent.getClass(), System.nanoTime() - start, count);
+    }
+
+    /**
+     * Process nodes of all dependents in one pass, in node order and for each node in dependent order
+     * <p>
+     * Same as processing all nodes with one dependent before going to the next: nodes added by a post processor are
+     * only given to post processors which come after it.
+     */
+    private static void processFused(Document document, ClassifyingNodeTracker classifyingNodeTracker, List<PostProcessorFactory> dependents, Instrumentation instrumentation) {
+        long instrumentationStart = instrumentation != null ? instrumentation.start() : 0;
+        int iMax = dependents.size();
+        PostProcessor[] postProcessors = new PostProcessor[iMax];
+        ArrayList<HashMap<Class<?>, BitSet>> exclusionMaps = new ArrayList<HashMap<Class<?>, BitSet>>(iMax);
+        HashMap<Class<?>, int[]> classDependents = new HashMap<Class<?>, int[]>();
+
+        for (int i = 0; i < iMax; i++) {
+            PostProcessorFactory dependent = dependents.get(i);
+            Map<Class<?>, Set<Class<?>>> dependentNodeTypes = dependent.getNodeTypes();
+            postProcessors[i] = dependent.create(document);
+            exclusionMaps.add(nodeExclusions(classifyingNodeTracker, dependentNodeTypes));
+
+            for (Class<?> nodeType : dependentNodeTypes.keySet()) {
+                int[] indices = classDependents.get(nodeType);
+                if (indices == null) {
+                    indices = new int[] { i };
+                } else {
+                    indices = Arrays.copyOf(indices, indices.length + 1);
+                    indices[indices.length - 1] = i;
+                }
+                classDependents.put(nodeType, indices);
+            }
+        }
+
+        FusedPass pass = new FusedPass(classifyingNodeTracker, postProcessors, exclusionMaps, classDependents, instrumentation != null);
+        OrderedSet<Node> items = classifyingNodeTracker.getItems();
+        BitSet initialNodes = classifyingNodeTracker.getNodeClassifier().categoriesBitSet(classDependents.keySet());
+
+        for (int index = initialNodes.nextSetBit(0); index >= 0; index = initialNodes.nextSetBit(index + 1)) {
+            pass.process(index, 0);
+        }
+
+        // nodes added during the pass, the list grows as these are processed
+        for (int index = pass.initialSize; index < items.size(); index++) {
+            pass.process(index, pass.addedBy[index - pass.initialSize] + 1);
+        }
+
+        if (instrumentation != null) {
+            ArrayList<Class<?>> factoryClasses = new ArrayList<Class<?>>(iMax);
+            for (int i = 0; i < iMax; i++) {
+                Class<?> factoryClass = dependents.get(i).getClass();
+                instrumentation.postProcessor(factoryClass, pass.nanos[i], pass.counts[i]);
+                factoryClasses.add(factoryClass);
+            }
+            instrumentation.fusedPostProcessors(factoryClasses, instrumentationStart);
+        }
+    }
+
+    private static class FusedPass {
+        final ClassifyingNodeTracker tracker;
+        final OrderedSet<Node> items;
+        final PostProcessor[] postProcessors;
+        final ArrayList<HashMap<Class<?>, BitSet>> exclusionMaps;
+        final HashMap<Class<?>, int[]> classDependents;
+        final int initialSize;
+        final long[] nanos;
+        final int[] counts;
+        int[] addedBy;          // index of dependent which added the node, by node index - initialSize
+
+        FusedPass(ClassifyingNodeTracker tracker, PostProcessor[] postProcessors, ArrayList<HashMap<Class<?>, BitSet>> exclusionMaps, HashMap<Class<?>, int[]> classDependents, boolean timed) {
+            this.tracker = tracker;
+            this.items = tracker.getItems();
+            this.postProcessors = postProcessors;
+            this.exclusionMaps = exclusionMaps;
+            this.classDependents = classDependents;
+            this.initialSize = items.size();
+            this.nanos = timed ? new long[postProcessors.length] : null;
+            this.counts = new int[postProcessors.length];
+            this.addedBy = new int[16];
+        }
+
+        void process(int index, int firstDependent) {
+            Node node = items.getValueOrNull(index);
+            if (node == null) return;
+
+            int[] indices = classDependents.get(node.getClass());
+            if (indices == null) return;
+
+            for (int i : indices) {
+                if (i < firstDependent) continue;
+                if (node.getParent() == null) break; // was removed
+
+                BitSet exclusions = exclusionMaps.get(i).get(node.getClass());
+                if (exclusions != null && tracker.isExcluded(index, exclusions)) continue;
+
+                int size = items.size();
+                if (nanos != null) {
+                    long start = System.nanoTime();
+                    postProcessors[i].process(tracker, node);
+                    nanos[i] += System.nanoTime() - start;
+                } else {
+                    postProcessors[i].process(tracker, node);
+                }
+                counts[i]++;
+
+                int added = items.size();
+                if (added > size) {
+                    if (added - initialSize > addedBy.length) {
+                        addedBy = Arrays.copyOf(addedBy, Math.max(addedBy.length * 2, added - initialSize));
+                    }
+                    Arrays.fill(addedBy, size - initialSize, added - initialSize, i);
+                }
+            }
+        }
+    }
+
     public static class PostProcessorDependencyStage {
         private final Map<Class<? extends Node>, Set<Class<?>>> myNodeMap;
         private final boolean myWithExclusions;
@@ -164,22 +311,37 @@ public class PostProcessorManager {
 
     public static class PostProcessorDependencies extends ResolvedDependencies<PostProcessorDependencyStage> {
         private final boolean myWithExclusions;
+        private final boolean myWithGlobalScope;
 
         public PostProcessorDependencies(List<PostProcessorDependencyStage> dependentStages) {
             super(dependentStages);
             boolean haveExclusions = false;
+            boolean haveGlobalScope = false;
             for (PostProcessorDependencyStage stage : dependentStages) {
                 if (stage.myWithExclusions) {
                     haveExclusions = true;
-                    break;
+                }
+                for (PostProcessorFactory dependent : stage.dependents) {
+                    if (dependent.affectsGlobalScope()) {
+                        haveGlobalScope = true;
+                        break;
+                    }
                 }
             }
             myWithExclusions = haveExclusions;
+            myWithGlobalScope = haveGlobalScope;
         }
 
         public boolean isWithExclusions() {
             return myWithExclusions;
         }
+
+        /**
+         * @return true if a post processor processes the whole document
+         */
+        public boolean isWithGlobalScope() {
+            return myWithGlobalScope;
+        }
     }
 
     private static class PostProcessDependencyHandler extends DependencyHandler<PostProcessorFactory, PostProcessorDependencyStage, PostProcessorDependencies> {
@@ -11,6 +11,8 @@ public class InlineParserOptions {
     public final boolean codeSoftLineBreaks;
     public final boolean inlineDelimiterDirectionalPunctuations;
     public final boolean linksAllowMatchedParentheses;
+    public final boolean fullSegmentedSequences;
+    public final boolean parseJekyllMacrosInUrls;
 
     public InlineParserOptions(DataHolder options) {
         matchLookaheadFirst = Parser.MATCH_NESTED_LINK_REFS_FIRST.getFrom(options);
@@ -21,5 +23,7 @@ public class InlineParserOptions {
         codeSoftLineBreaks = Parser.CODE_SOFT_LINE_BREAKS.getFrom(options);
         inlineDelimiterDirectionalPunctuations = Parser.INLINE_DELIMITER_DIRECTIONAL_PUNCTUATIONS.getFrom(options);
         linksAllowMatchedParentheses = Parser.LINKS_ALLOW_MATCHED_PARENTHESES.getFrom(options);
+        fullSegmentedSequences = Parser.FULL_SEGMENTED_SEQUENCES.getFrom(options);
+        parseJekyllMacrosInUrls = Parser.PARSE_JEKYLL_MACROS_IN_URLS.getFrom(options);
     }
 }
@@ -0,0 +1,14 @@
+package com.vladsch.flexmark.parser;
+
+/**
+ * Marker for inline parser extension factories, delimiter processors and link ref processor factories which can be
+ * used with {@link Parser#PARALLEL_INLINE_PARSING}
+ * <p>
+ * Each parallel inline parsing task has its own inline parser with its own inline parser extensions and link ref
+ * processors, delimiter processors are shared by all tasks. Implement this only when these keep no state
+ * between calls other than in their own instance and do not add to document data or repositories while parsing
+ * inlines, since blocks of a document are parsed at the same time and in no particular order. Inline parsing is done
+ * serially when any of them does not implement this.
+ */
+public interface ParallelInlineParsingSafe {
+}
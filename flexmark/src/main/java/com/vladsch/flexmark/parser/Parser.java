@@ -2,29 +2,41 @@ package com.vladsch.flexmark.parser;
 
 import com.vladsch.flexmark.Extension;
 import com.vladsch.flexmark.IParse;
+import com.vladsch.flexmark.ast.BlankLine;
 import com.vladsch.flexmark.ast.Document;
 import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.ast.NodeOffsetShifter;
 import com.vladsch.flexmark.ast.NodeRepository;
+import com.vladsch.flexmark.ast.util.Parsing;
 import com.vladsch.flexmark.ast.util.ReferenceRepository;
 import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.instrumentation.Instrumentation;
+import com.vladsch.flexmark.internal.BlockStartTriggers;
 import com.vladsch.flexmark.internal.DocumentParser;
 import com.vladsch.flexmark.internal.InlineParserImpl;
 import com.vladsch.flexmark.internal.LinkRefProcessorData;
 import com.vladsch.flexmark.internal.PostProcessorManager;
+import com.vladsch.flexmark.parser.block.BlockParserFactory;
 import com.vladsch.flexmark.parser.block.BlockPreProcessorFactory;
 import com.vladsch.flexmark.parser.block.CustomBlockParserFactory;
 import com.vladsch.flexmark.parser.block.ParagraphPreProcessorFactory;
 import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
+import com.vladsch.flexmark.util.Consumer;
+import com.vladsch.flexmark.util.Factory;
 import com.vladsch.flexmark.util.KeepType;
 import com.vladsch.flexmark.util.collection.DataValueFactory;
 import com.vladsch.flexmark.util.collection.DynamicDefaultKey;
 import com.vladsch.flexmark.util.options.*;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.Range;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Parses input text to a tree of nodes.
@@ -291,7 +303,46 @@ public class Parser implements IParse {
     // separate setting for CODE_BLOCK_INDENT
     public static final DataKey<Integer> CODE_BLOCK_INDENT = new DynamicDefaultKey<Integer>("CODE_BLOCK_INDENT", LISTS_ITEM_INDENT);
 
+    // true to keep an offset for every character of segmented sequences created by the parser, false to keep runs of offsets
+    // sequences created by node and text mapping utilities always use runs
+    public static final DataKey<Boolean> FULL_SEGMENTED_SEQUENCES = new DataKey<Boolean>("FULL_SEGMENTED_SEQUENCES", false);
+
+    // minimum number of characters read before parseStream parses the pending text
+    public static final DataKey<Integer> STREAM_CHUNK_SIZE = new DataKey<Integer>("STREAM_CHUNK_SIZE", 65536);
+    // set by parseStream on chunk documents to the offset of the chunk text in the stream
+    public static final DataKey<Integer> STREAM_CHUNK_OFFSET = new DataKey<Integer>("STREAM_CHUNK_OFFSET", 0);
+
+    // parse inlines of blocks on a fork join pool, each task with its own inline parser, after all blocks are parsed
+    // only used when all link ref processor factories, inline parser extension factories and custom delimiter processors
+    // implement ParallelInlineParsingSafe, others can keep document state or add to document data, ie. footnote
+    // references or jekyll tag list, and inlines are parsed serially
+    public static final DataKey<Boolean> PARALLEL_INLINE_PARSING = new DataKey<Boolean>("PARALLEL_INLINE_PARSING", false);
+    // minimum number of block parsers in the document for inline parsing to be done in parallel
+    public static final DataKey<Integer> PARALLEL_INLINE_PARSING_MIN_BLOCKS = new DataKey<Integer>("PARALLEL_INLINE_PARSING_MIN_BLOCKS", 256);
+    // pool to use for parallel inline parsing, null to use a pool shared by all parsers
+    public static final DataKey<ForkJoinPool> PARALLEL_INLINE_PARSING_POOL = new DataKey<ForkJoinPool>("PARALLEL_INLINE_PARSING_POOL", (ForkJoinPool) null);
+
+    // run node post processors of a dependency stage in one pass over the classified nodes, each node is given to all
+    // post processors interested in its class, in their order. Only for post processors which do not depend on
+    // another post processor of the same stage having processed all its nodes first
+    public static final DataKey<Boolean> FUSED_POST_PROCESSING = new DataKey<Boolean>("FUSED_POST_PROCESSING", false);
+    // parser phase, block pre-processor and post processor events, also used for rendering events by HtmlRenderer, null for none
+    // with FUSED_POST_PROCESSING node post processors run together give a postProcessor event each followed by one
+    // fusedPostProcessors event for the pass. Use a PostProcessorTimings instance to only accumulate post processor times
+    public static final DataKey<Instrumentation> INSTRUMENTATION = new DataKey<Instrumentation>("INSTRUMENTATION", (Instrumentation) null);
+
+    // number of blocks after the edit which reparse adds to the parsed region before parsing the whole text
+    private static final int REPARSE_MAX_EXTRA_BLOCKS = 2;
+
+    // number of earlier texts nodes of a reparsed document can be based on before reparse moves all nodes to the new text
+    private static final int REPARSE_MAX_TEXT_BASES = 8;
+
+    // bases of earlier texts of a reparsed document, nodes before an edit are not moved to the new text
+    private static final DataKey<List<Object>> REPARSE_TEXT_BASES = new DataKey<List<Object>>("REPARSE_TEXT_BASES", (List<Object>) null);
+
     private final List<CustomBlockParserFactory> blockParserFactories;
+    private final BlockStartTriggers blockStartTriggers;
+    private final BlockParserFactory[] statelessBlockParserFactories;
     private final Map<Character, DelimiterProcessor> delimiterProcessors;
     private final BitSet delimiterCharacters;
     private final BitSet specialCharacters;
@@ -303,11 +354,15 @@ public class Parser implements IParse {
     private final List<InlineParserExtensionFactory> inlineParserExtensionFactories;
     private final InlineParserFactory inlineParserFactory;
     private final DataHolder options;
+    private final Parsing parsing;
+    private final boolean parallelInlineParsingSafe;
 
     private Parser(Builder builder) {
         this.builder = new Builder(builder); // make a copy to avoid after creation side effects
         this.options = new DataSet(builder);
         this.blockParserFactories = DocumentParser.calculateBlockParserFactories(this.options, builder.blockParserFactories);
+        this.blockStartTriggers = new BlockStartTriggers(this.blockParserFactories);
+        this.statelessBlockParserFactories = DocumentParser.createStatelessBlockParserFactories(this.options, this.blockParserFactories);
         this.inlineParserFactory = builder.inlineParserFactory == null ? DocumentParser.INLINE_PARSER_FACTORY : builder.inlineParserFactory;
         this.paragraphPreProcessorFactories = DocumentParser.calculateParagraphPreProcessors(this.options, builder.paragraphPreProcessorFactories, this.inlineParserFactory);
         this.blockPreProcessorDependencies = DocumentParser.calculateBlockPreProcessors(this.options, builder.blockPreProcessorFactories, this.inlineParserFactory);
@@ -317,6 +372,16 @@ public class Parser implements IParse {
         this.specialCharacters = InlineParserImpl.calculateSpecialCharacters(this.options, delimiterCharacters);
         this.postProcessorDependencies = PostProcessorManager.calculatePostProcessors(this.options, builder.postProcessorFactories);
         this.inlineParserExtensionFactories = builder.inlineParserExtensionFactories;
+        this.parsing = Parsing.of(this.options);
+        this.parallelInlineParsingSafe = isParallelInlineParsingSafe(linkRefProcessors.processors) && isParallelInlineParsingSafe(builder.inlineParserExtensionFactories)
+                && isParallelInlineParsingSafe(builder.delimiterProcessors);
+    }
+
+    private static boolean isParallelInlineParsingSafe(List<?> processors) {
+        for (Object processor : processors) {
+            if (!(processor instanceof ParallelInlineParsingSafe)) return false;
+        }
+        return true;
     }
 
     /**
@@ -332,6 +397,51 @@ public class Parser implements IParse {
         return new Builder(options);
     }
 
+    private DocumentParser createDocumentParser(final DataHolder options) {
+        return createDocumentParser(options, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
+    }
+
+    private DocumentParser createDocumentParser(final DataHolder options, InlineParser inlineParser) {
+        Factory<InlineParser> parallelInlineParsers = null;
+
+        if (parallelInlineParsingSafe && PARALLEL_INLINE_PARSING.getFrom(options)) {
+            parallelInlineParsers = new Factory<InlineParser>() {
+                @Override
+                public InlineParser create() {
+                    return inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories);
+                }
+            };
+        }
+
+        return new DocumentParser(options, parsing, blockParserFactories, blockStartTriggers, statelessBlockParserFactories, paragraphPreProcessorFactories, blockPreProcessorDependencies,
+                inlineParser, parallelInlineParsers);
+    }
+
+    /**
+     * Create an inline parser to reuse for parsing many documents with {@link #parse(BasedSequence, InlineParser)}
+     *
+     * @return inline parser for this parser's options
+     */
+    public InlineParser createInlineParser() {
+        return inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories);
+    }
+
+    /**
+     * Parse the specified input text into a tree of nodes using the given inline parser.
+     * <p>
+     * The inline parser is initialized for every parsed document so it can be reused for parsing documents one
+     * after the other, but not for parsing documents at the same time.
+     *
+     * @param input        the text to parse
+     * @param inlineParser inline parser from {@link #createInlineParser()}
+     * @return the root node
+     */
+    public Document parse(BasedSequence input, InlineParser inlineParser) {
+        DocumentParser documentParser = createDocumentParser(options, inlineParser);
+        Document document = documentParser.parse(input);
+        return postProcess(document);
+    }
+
     /**
      * Parse the specified input text into a tree of nodes.
      * <p>
@@ -341,8 +451,7 @@ public class Parser implements IParse {
      * @return the root node
      */
     public Document parse(BasedSequence input) {
-        DocumentParser documentParser = new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
-                blockPreProcessorDependencies, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
+        DocumentParser documentParser = createDocumentParser(options);
         Document document = documentParser.parse(input);
         return postProcess(document);
     }
@@ -356,8 +465,7 @@ public class Parser implements IParse {
      * @return the root node
      */
     public Document parse(String input) {
-        DocumentParser documentParser = new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
-                blockPreProcessorDependencies, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
+        DocumentParser documentParser = createDocumentParser(options);
         Document document = documentParser.parse(CharSubSequence.of(input));
         return postProcess(document);
     }
@@ -372,12 +480,331 @@ public class Parser implements IParse {
      * @throws IOException when reading throws an exception
      */
     public Document parseReader(Reader input) throws IOException {
-        DocumentParser documentParser = new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
-                blockPreProcessorDependencies, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
+        DocumentParser documentParser = createDocumentParser(options);
         Document document = documentParser.parse(input);
         return postProcess(document);
     }
 
+    /**
+     * Parse the specified file into a tree of nodes.
+     * <p>
+     * The file is memory mapped. ISO-8859-1 files and ASCII files in UTF-8 or US-ASCII are parsed in place without
+     * copying the text so node offsets are byte offsets in the file and the file must not be modified while the
+     * document is in use, other files are decoded once. The mapping is released when the document is no longer
+     * referenced, on some platforms the file cannot be deleted until then.
+     * <p>
+     * Note that this method is thread-safe (a new parser state is used for each invocation).
+     *
+     * @param file    the file to parse
+     * @param charset charset of the file
+     * @return the root node
+     * @throws IOException when the file cannot be read or is larger than 2GB
+     */
+    public Document parse(Path file, Charset charset) throws IOException {
+        DocumentParser documentParser = createDocumentParser(options);
+        Document document = documentParser.parse(file, charset);
+        return postProcess(document);
+    }
+
+    /**
+     * Parse the specified reader a chunk at a time, passing each complete top-level node to the consumer.
+     * The caller is responsible for closing the reader.
+     * <p>
+     * Text is read until at least {@link #STREAM_CHUNK_SIZE} characters are pending and the text up to the last
+     * complete line is parsed, including inline parsing and post processing. All top-level nodes but the last
+     * block are passed to the consumer, the last block may continue in text not yet read so its text is kept and
+     * parsed again with the next chunk. A block larger than the chunk size is parsed again only after the pending
+     * text doubles in size.
+     * <p>
+     * Nodes are passed while still children of their chunk's {@link Document}, which has the chunk text as its
+     * chars and {@link #STREAM_CHUNK_OFFSET} set to the offset of the chunk text in the stream. Node offsets are
+     * relative to the chunk text. The last block is removed from the chunk document before nodes are passed so
+     * the chunk document only contains complete nodes. {@link HtmlRenderer} only renders links when rendering a
+     * document, so for HTML output render the chunk document when the first node of the next chunk is passed or
+     * this method returns. Chunk documents should not be kept if memory use is to remain bounded by the chunk size.
+     * <p>
+     * Differences from parsing the whole input:
+     * <ul>
+     * <li>Node repositories, like reference definitions, are shared by all chunks so inline parsing sees
+     * definitions from the same and previous chunks but not from later chunks. Forward references to later
+     * chunks are not resolved, set {@link HtmlRenderer#RECHECK_UNDEFINED_REFERENCES} to have the renderer
+     * look them up again. Definition nodes keep their chunk's text in memory.</li>
+     * <li>Each chunk is a separate document so elements only recognized at the start of a document, like
+     * front matter, can be recognized at the start of any chunk and document level post processors see one
+     * chunk at a time.</li>
+     * </ul>
+     *
+     * @param input    the reader to parse
+     * @param consumer consumer of top-level nodes, called in document order
+     * @throws IOException when reading throws an exception
+     */
+    public void parseStream(Reader input, Consumer<Node> consumer) throws IOException {
+        int chunkSize = Math.max(1, STREAM_CHUNK_SIZE.getFrom(options));
+        MutableDataSet chunkOptions = new MutableDataSet(options);
+        StringBuilder pending = new StringBuilder();
+        char[] buffer = new char[16384];
+        int pendingOffset = 0;
+        int parseLength = chunkSize;
+
+        while (true) {
+            int charsRead = input.read(buffer);
+            if (charsRead < 0) break;
+            pending.append(buffer, 0, charsRead);
+
+            if (pending.length() >= parseLength) {
+                int textEnd = pending.lastIndexOf("\n") + 1;
+                if (textEnd > 0) {
+                    int used = parseChunk(pending.substring(0, textEnd), pendingOffset, chunkOptions, consumer, false);
+                    pending.delete(0, used);
+                    pendingOffset += used;
+                    parseLength = used == 0 ? 2 * pending.length() : pending.length() + chunkSize;
+                }
+            }
+        }
+
+        if (pending.length() > 0) {
+            parseChunk(pending.toString(), pendingOffset, chunkOptions, consumer, true);
+        }
+    }
+
+    /**
+     * Parse a chunk of streamed text and pass its complete top-level nodes to the consumer
+     *
+     * @param text         chunk text, ending at a line boundary
+     * @param offset       offset of the chunk in the stream
+     * @param chunkOptions options for the chunk document, updated with node repositories of the chunk document
+     * @param consumer     consumer of top-level nodes
+     * @param isLast       true if there is no more text after the chunk
+     * @return number of chunk characters which were passed to the consumer
+     */
+    private int parseChunk(String text, int offset, MutableDataSet chunkOptions, Consumer<Node> consumer, boolean isLast) {
+        chunkOptions.set(STREAM_CHUNK_OFFSET, offset);
+
+        DocumentParser documentParser = createDocumentParser(chunkOptions);
+        Document document = postProcess(documentParser.parse(CharSubSequence.of(text)));
+
+        // share repositories with following chunks
+        for (Map.Entry<DataKey, Object> entry : document.getAll().entrySet()) {
+            if (entry.getValue() instanceof NodeRepository) {
+                //noinspection unchecked
+                chunkOptions.set(entry.getKey(), entry.getValue());
+            }
+        }
+
+        int used = text.length();
+
+        if (!isLast) {
+            Node lastBlock = document.getLastChild();
+            while (lastBlock instanceof BlankLine) {
+                lastBlock = lastBlock.getPrevious();
+            }
+
+            if (lastBlock != null) {
+                // keep the text from the start of the last block's line, it is parsed again with the next chunk
+                used = text.lastIndexOf('\n', lastBlock.getStartOffset() - 1) + 1;
+
+                Node node = lastBlock;
+                while (node != null) {
+                    Node next = node.getNext();
+                    node.unlink();
+                    node = next;
+                }
+            }
+        }
+
+        Node node = document.getFirstChild();
+        while (node != null) {
+            Node next = node.getNext();
+            consumer.accept(node);
+            node = next;
+        }
+        return used;
+    }
+
+    /**
+     * Parse an edited copy of a document's text, parsing only the top-level blocks affected by the edit.
+     * <p>
+     * Top-level nodes touching the edited text, together with the last block before and the first block after
+     * them and its trailing blank lines for context, are parsed again from the new text. The new nodes replace them in the previous document and
+     * nodes after them are moved to the new text with their offsets shifted by the change in length, see
+     * {@link Node#shiftOffsets(NodeOffsetShifter)}. Nodes before the edit keep sequences of the previous text, which has
+     * the same characters up to the edit, until a number of edits is reached and all nodes are moved to the new text.
+     * Only node post processors are run and only on the new nodes.
+     * <p>
+     * The whole text is parsed instead when: the parser has post processors which process the whole document,
+     * {@link #TRACK_DOCUMENT_LINES} is set, the parsed nodes add or remove node repository definitions, like
+     * reference definitions, or the end of the parsed text does not end at the same block as before the edit, as
+     * happens when an edit opens a fenced code block, or nodes which have to be moved to the new text cannot be
+     * shifted, see {@link NodeOffsetShifter#canShift(Node)}. When the edit joins blocks the parsed region is extended
+     * by one block at a time first.
+     *
+     * @param previous document parsed by this parser from the text before the edit, it is modified and returned
+     *                 unless the whole text is parsed
+     * @param newText  the text after the edit
+     * @param edited   range of newText which replaced a range of the previous text, empty for a deletion
+     * @return document for newText
+     */
+    public Document reparse(Document previous, BasedSequence newText, Range edited) {
+        BasedSequence oldText = previous.getChars();
+        int delta = newText.length() - oldText.length();
+        int editStart = edited.getStart();
+        int oldEditEnd = edited.getEnd() - delta;
+
+        if (editStart < 0 || oldEditEnd < editStart || oldEditEnd > oldText.length() || edited.getEnd() > newText.length()
+                || oldText.getStartOffset() != 0 || newText.getStartOffset() != 0
+                || postProcessorDependencies.isWithGlobalScope() || TRACK_DOCUMENT_LINES.getFrom(previous)) {
+            return parse(newText);
+        }
+
+        // last block ending before the edit and first block starting after it are parsed again for context
+        Node before = null;
+        Node node = previous.getFirstChild();
+        while (node != null && node.getEndOffset() < editStart) {
+            if (!(node instanceof BlankLine)) before = node;
+            node = node.getNext();
+        }
+
+        Node after = null;
+        while (node != null) {
+            if (!(node instanceof BlankLine) && node.getStartOffset() > oldEditEnd) {
+                after = node;
+                break;
+            }
+            node = node.getNext();
+        }
+
+        int regionStart = before == null ? 0 : lineStart(oldText, before.getStartOffset());
+        Node next;
+        Document region;
+
+        for (int extraBlocks = 0; ; extraBlocks++) {
+            // blank lines after the last parsed block are included because they set its trailing blank line flags
+            next = after == null ? null : after.getNext();
+            while (next instanceof BlankLine) {
+                next = next.getNext();
+            }
+
+            int oldRegionEnd = next == null ? oldText.length() : lineStart(oldText, next.getStartOffset());
+            region = parseRegion(previous, newText.subSequence(regionStart, oldRegionEnd + delta), regionStart, oldRegionEnd);
+            if (region == null) return parse(newText);
+
+            if (after == null) break;
+
+            Node regionLast = region.getLastChild();
+            while (regionLast instanceof BlankLine) {
+                regionLast = regionLast.getPrevious();
+            }
+
+            if (regionLast != null && regionLast.getClass() == after.getClass()
+                    && regionLast.getStartOffset() == after.getStartOffset() + delta && regionLast.getEndOffset() == after.getEndOffset() + delta) {
+                break;
+            }
+
+            // the edit changed the end of the parsed blocks, as when paragraphs are joined, include the next block
+            if (extraBlocks == REPARSE_MAX_EXTRA_BLOCKS) return parse(newText);
+            after = next;
+        }
+
+        // nodes before the edit keep their text unless there are too many texts to keep
+        List<Object> textBases = REPARSE_TEXT_BASES.getFrom(previous);
+        ArrayList<Object> oldBases = new ArrayList<Object>(textBases == null ? 1 : textBases.size() + 1);
+        if (textBases != null) oldBases.addAll(textBases);
+        oldBases.add(oldText.getBase());
+
+        boolean shiftAll = oldBases.size() > REPARSE_MAX_TEXT_BASES;
+        Node replaced = before == null ? previous.getFirstChild() : before;
+        if (shiftAll) {
+            for (node = previous.getFirstChild(); node != replaced; node = node.getNext()) {
+                if (!NodeOffsetShifter.canShift(node)) return parse(newText);
+            }
+        }
+        for (node = next; node != null; node = node.getNext()) {
+            if (!NodeOffsetShifter.canShift(node)) return parse(newText);
+        }
+
+        // remove replaced nodes and move the rest to the new text
+        node = replaced;
+        while (node != next) {
+            Node nextNode = node.getNext();
+            node.unlink();
+            node = nextNode;
+        }
+
+        if (shiftAll) {
+            NodeOffsetShifter shifter = new NodeOffsetShifter(oldBases, newText, 0);
+            for (node = previous.getFirstChild(); node != next; node = node.getNext()) {
+                shifter.shift(node);
+            }
+        }
+
+        NodeOffsetShifter shifter = new NodeOffsetShifter(oldBases, newText, delta);
+        for (node = next; node != null; node = node.getNext()) {
+            shifter.shift(node);
+        }
+
+        node = region.getFirstChild();
+        while (node != null) {
+            Node nextNode = node.getNext();
+            if (next == null) {
+                previous.appendChild(node);
+            } else {
+                next.insertBefore(node);
+            }
+            node = nextNode;
+        }
+
+        previous.setChars(newText);
+        previous.set(REPARSE_TEXT_BASES, shiftAll ? new ArrayList<Object>() : oldBases);
+        return previous;
+    }
+
+    /**
+     * Parse a region of the new text for {@link #reparse(Document, BasedSequence, Range)}
+     *
+     * @param previous     previous document
+     * @param regionText   region of the new text to parse
+     * @param regionStart  start offset of the region in the previous text
+     * @param oldRegionEnd end offset of the region in the previous text
+     * @return document with nodes of the region or null if definitions were removed or added by the edit
+     */
+    private Document parseRegion(Document previous, BasedSequence regionText, int regionStart, int oldRegionEnd) {
+        // definitions are used by the whole document, use copies of repositories to detect added ones
+        MutableDataSet regionOptions = new MutableDataSet(previous);
+        ArrayList<NodeRepository> regionRepositories = new ArrayList<NodeRepository>();
+
+        for (Map.Entry<DataKey, Object> entry : previous.getAll().entrySet()) {
+            if (entry.getValue() instanceof NodeRepository) {
+                NodeRepository<?> repository = (NodeRepository<?>) entry.getValue();
+                for (Object value : repository.values()) {
+                    if (value instanceof Node && ((Node) value).getDocument() == previous
+                            && ((Node) value).getEndOffset() > regionStart && ((Node) value).getStartOffset() < oldRegionEnd) {
+                        return null;
+                    }
+                }
+
+                NodeRepository regionRepository = (NodeRepository) entry.getKey().getFactory().create(previous);
+                //noinspection unchecked
+                regionRepository.putAll(repository);
+                //noinspection unchecked
+                regionOptions.set(entry.getKey(), regionRepository);
+                regionRepositories.add(regionRepository);
+            }
+        }
+
+        DocumentParser documentParser = createDocumentParser(regionOptions);
+        Document region = postProcess(documentParser.parse(regionText));
+
+        for (NodeRepository regionRepository : regionRepositories) {
+            if (!regionRepository.values().isEmpty()) return null;
+        }
+        return region;
+    }
+
+    private static int lineStart(BasedSequence text, int offset) {
+        while (offset > 0 && text.charAt(offset - 1) != '\n' && text.charAt(offset - 1) != '\r') offset--;
+        return offset;
+    }
+
     private Document postProcess(Document document) {
         document = PostProcessorManager.processDocument(document, postProcessorDependencies);
         return document;
@@ -0,0 +1,123 @@
+package com.vladsch.flexmark.parser;
+
+import com.vladsch.flexmark.html.renderer.RenderingPhase;
+import com.vladsch.flexmark.instrumentation.HistogramInstrumentation;
+import com.vladsch.flexmark.instrumentation.Instrumentation;
+import com.vladsch.flexmark.parser.block.ParserPhase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Time spent by each post processor, accumulated over all documents post processed with {@link Parser#INSTRUMENTATION}
+ * set to this instance, or to a {@link HistogramInstrumentation} which keeps one
+ * <p>
+ * Only {@link #postProcessor(Class, long, int)} events are used, all other events are ignored.
+ * <p>
+ * Post processors are identified by their factory class so timings of parsers with the same extensions are added
+ * together. Instances are thread safe and can be shared by parsers used on different threads.
+ */
+public class PostProcessorTimings implements Instrumentation {
+    private final LinkedHashMap<Class<?>, long[]> myTimings = new LinkedHashMap<Class<?>, long[]>();
+
+    /**
+     * Add time spent by a post processor on a document
+     *
+     * @param factoryClass class of the post processor factory
+     * @param nanos        time spent in post processor calls
+     * @param nodeCount    number of nodes processed, 0 for global scope post processors
+     */
+    @Override
+    public synchronized void postProcessor(Class<?> factoryClass, long nanos, int nodeCount) {
+        long[] timing = myTimings.get(factoryClass);
+        if (timing == null) {
+            timing = new long[3];
+            myTimings.put(factoryClass, timing);
+        }
+        timing[0] += nanos;
+        timing[1] += nodeCount;
+        timing[2]++;
+    }
+
+    @Override
+    public long start() {
+        return 0;
+    }
+
+    @Override
+    public void parserPhase(ParserPhase phase, long start) {
+    }
+
+    @Override
+    public void blockPreProcessor(Class<?> factoryClass, long start) {
+    }
+
+    @Override
+    public void postProcessorStage(int stage, long start) {
+    }
+
+    @Override
+    public void fusedPostProcessors(List<Class<?>> factoryClasses, long start) {
+    }
+
+    @Override
+    public void renderingPhase(RenderingPhase phase, long start) {
+    }
+
+    @Override
+    public void nodeRendered(Class<?> nodeClass, long start) {
+    }
+
+    /**
+     * @return factory classes of post processors with timings, in order of first use
+     */
+    public synchronized List<Class<?>> getFactoryClasses() {
+        return new ArrayList<Class<?>>(myTimings.keySet());
+    }
+
+    /**
+     * @param factoryClass class of the post processor factory
+     * @return time spent by the post processor
+     */
+    public synchronized long getNanos(Class<?> factoryClass) {
+        long[] timing = myTimings.get(factoryClass);
+        return timing == null ? 0 : timing[0];
+    }
+
+    /**
+     * @param factoryClass class of the post processor factory
+     * @return number of nodes processed by the post processor
+     */
+    public synchronized long getNodeCount(Class<?> factoryClass) {
+        long[] timing = myTimings.get(factoryClass);
+        return timing == null ? 0 : timing[1];
+    }
+
+    /**
+     * @param factoryClass class of the post processor factory
+     * @return number of documents processed by the post processor
+     */
+    public synchronized long getDocumentCount(Class<?> factoryClass) {
+        long[] timing = myTimings.get(factoryClass);
+        return timing == null ? 0 : timing[2];
+    }
+
+    public synchronized void clear() {
+        myTimings.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Class<?> factoryClass : myTimings.keySet()) {
+            long[] timing = myTimings.get(factoryClass);
+            sb.append(factoryClass.getName())
+                    .append(": ").append(timing[0] / 1000).append(" us")
+                    .append(", nodes: ").append(timing[1])
+                    .append(", documents: ").append(timing[2])
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+}
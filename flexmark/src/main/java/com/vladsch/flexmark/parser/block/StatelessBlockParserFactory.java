@@ -0,0 +1,13 @@
+package com.vladsch.flexmark.parser.block;
+
+/**
+ * Custom block parser factory whose block parser factory can be shared by all documents parsed with a parser
+ * <p>
+ * The parser calls {@link #create(com.vladsch.flexmark.util.options.DataHolder)} once with its own options instead of
+ * once for every parsed document. A factory should only implement this when its block parser factory reads only
+ * parser options when created and keeps no state between calls to
+ * {@link BlockParserFactory#tryStart(ParserState, MatchedBlockParser)}, since it is used for documents parsed at the
+ * same time.
+ */
+public interface StatelessBlockParserFactory extends CustomBlockParserFactory {
+}
@@ -0,0 +1,27 @@
+package com.vladsch.flexmark.parser.block;
+
+/**
+ * Custom block parser factory which declares the lines on which its blocks can start
+ * <p>
+ * The parser only calls {@link BlockParserFactory#tryStart(ParserState, MatchedBlockParser)} of the factory for lines
+ * whose first non-space character is one of the trigger characters, in the same order as other factories. Factories
+ * which do not implement this interface are tried for every line.
+ * <p>
+ * A factory should only implement this when its block parser factory does not start blocks on other lines and has no
+ * side effects when it does not start a block.
+ */
+public interface TriggeredBlockParserFactory extends CustomBlockParserFactory {
+    /**
+     * Characters which can be the first non-space character of a line starting a block
+     *
+     * @return trigger characters, null to try the factory for any character
+     */
+    CharSequence getTriggerCharacters();
+
+    /**
+     * Whether a block can start on a line indented by 4 or more columns and at least the code block indent
+     *
+     * @return false if the factory does not start blocks on indented lines
+     */
+    boolean canStartIndented();
+}
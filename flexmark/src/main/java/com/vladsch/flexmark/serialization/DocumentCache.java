@@ -0,0 +1,175 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of parsed documents in a directory, keyed by a hash of the parsed text
+ * <p>
+ * A document found in the cache is read with {@link DocumentSerializer}, otherwise the text is parsed and the
+ * document written to the cache. Entries which cannot be read are parsed again and replaced. Entries are written to a
+ * temporary file and moved in place so several processes can share the directory.
+ * <p>
+ * The key does not include the parser options, use a separate directory for each parser configuration and remove
+ * the directory contents when extensions are updated.
+ */
+public class DocumentCache {
+    private static final String EXTENSION = ".ast";
+
+    private final Parser parser;
+    private final DocumentSerializer serializer;
+    private final Path directory;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    /**
+     * @param parser     parser used for documents not in the cache
+     * @param serializer serializer with the options of the parser
+     * @param directory  cache directory, created when the first document is written
+     */
+    public DocumentCache(Parser parser, DocumentSerializer serializer, Path directory) {
+        this.parser = parser;
+        this.serializer = serializer;
+        this.directory = directory;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Parse text or load its document from the cache
+     *
+     * @param input text to parse
+     * @return document
+     * @throws IOException when the cache directory cannot be read or written
+     */
+    public Document parse(String input) throws IOException {
+        return parse(CharSubSequence.of(input));
+    }
+
+    /**
+     * Parse text or load its document from the cache
+     *
+     * @param input text to parse
+     * @return document
+     * @throws IOException when the cache directory cannot be read or written
+     */
+    public Document parse(BasedSequence input) throws IOException {
+        Path file = directory.resolve(getKey(input) + EXTENSION);
+
+        byte[] data = null;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException ignored) {
+        }
+
+        if (data != null) {
+            try {
+                Document document = serializer.read(data, input);
+                hitCount.incrementAndGet();
+                return document;
+            } catch (IOException ignored) {
+                // stale or corrupt entry, replaced below
+            } catch (RuntimeException ignored) {
+                // codec or repository which cannot read the stale entry, replaced below
+            }
+        }
+
+        missCount.incrementAndGet();
+        Document document = parser.parse(input);
+        write(file, document);
+        return document;
+    }
+
+    private void write(Path file, Document document) throws IOException {
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, "document", ".tmp");
+        try {
+            OutputStream out = Files.newOutputStream(tempFile);
+            try {
+                serializer.write(document, out);
+            } finally {
+                out.close();
+            }
+
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Cache key of text, hash of the format version, the base text and the range of the text in its base
+     *
+     * @param input text to parse
+     * @return key as hex digits
+     */
+    public static String getKey(BasedSequence input) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // required on all platforms
+            throw new IllegalStateException(e);
+        }
+
+        BasedSequence base = input.getBaseSequence();
+        byte[] buffer = new byte[8192];
+        int count = 0;
+
+        int[] header = { DocumentSerializer.FORMAT_VERSION, base.length(), input.getStartOffset(), input.getEndOffset() };
+        for (int value : header) {
+            buffer[count++] = (byte) (value >>> 24);
+            buffer[count++] = (byte) (value >>> 16);
+            buffer[count++] = (byte) (value >>> 8);
+            buffer[count++] = (byte) value;
+        }
+
+        int iMax = base.length();
+        for (int i = 0; i < iMax; i++) {
+            if (count == buffer.length) {
+                digest.update(buffer, 0, count);
+                count = 0;
+            }
+            char c = base.charAt(i);
+            buffer[count++] = (byte) (c >>> 8);
+            buffer[count++] = (byte) c;
+        }
+        digest.update(buffer, 0, count);
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >>> 4) & 0xF, 16));
+            key.append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,503 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.ast.NodeRepository;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.DataKey;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes parsed documents in a compact binary form and reads them back against the text they were parsed from
+ * <p>
+ * A serialized document has a table of node classes with a fingerprint of their field layout, the node tree as class and child count of each node in document
+ * order, the contents of {@link NodeRepository} values of the document and the fields of each node. Node chars and
+ * other sequences based on the document text are written as offsets so reading a document creates the sequences
+ * from the text passed to {@link #read(byte[], BasedSequence)} without copying any text. Fields are written by the
+ * {@link NodeCodec} registered for the node class or by a {@link FieldNodeCodec}.
+ * <p>
+ * Other values of the document data are not written, the document is created with the options of the serializer,
+ * which should be those used by the parser.
+ * <p>
+ * A serializer is thread-safe once built.
+ */
+public class DocumentSerializer {
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = { 'F', 'M', 'A', 'S' };
+
+    private static final ClassValue<NodeCodec<?>> FIELD_NODE_CODECS = new ClassValue<NodeCodec<?>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        protected NodeCodec<?> computeValue(Class<?> type) {
+            return new FieldNodeCodec(type);
+        }
+    };
+
+    private static final ClassValue<ObjectFields> REPOSITORY_FIELDS = new ClassValue<ObjectFields>() {
+        @Override
+        protected ObjectFields computeValue(Class<?> type) {
+            return new ObjectFields(type, NodeRepository.class);
+        }
+    };
+
+    private static final ClassValue<Long> CLASS_LAYOUTS = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            if (type.isEnum()) return ObjectFields.enumFingerprint(type);
+            return ObjectFields.fingerprint(type, NodeRepository.class.isAssignableFrom(type) ? NodeRepository.class : Node.class);
+        }
+    };
+
+    // document data is written separately
+    private static final ObjectFields DOCUMENT_FIELDS = new ObjectFields(Document.class.getSuperclass(), Node.class);
+
+    private final DataHolder options;
+    private final HashMap<Class<?>, NodeCodec<?>> nodeCodecs;
+    private final ConcurrentHashMap<String, Class<?>> classes;
+
+    DocumentSerializer(Builder builder) {
+        this.options = new MutableDataSet(builder).toImmutable();
+        this.nodeCodecs = new HashMap<Class<?>, NodeCodec<?>>(builder.nodeCodecs);
+        this.classes = new ConcurrentHashMap<String, Class<?>>();
+
+        for (Class<?> nodeClass : nodeCodecs.keySet()) {
+            classes.put(nodeClass.getName(), nodeClass);
+        }
+    }
+
+    /**
+     * Create a new builder for configuring a {@link DocumentSerializer}.
+     *
+     * @return a builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create a new builder for configuring a {@link DocumentSerializer}.
+     *
+     * @param options initialization options, should be the options of the parser
+     * @return a builder
+     */
+    public static Builder builder(DataHolder options) {
+        return new Builder(options);
+    }
+
+    public DataHolder getOptions() {
+        return options;
+    }
+
+    /**
+     * Fingerprint of the serialized form of a class, its field layout and the codec used for its nodes
+     *
+     * @param type node, repository or enum class
+     * @return fingerprint
+     */
+    private long getClassFingerprint(Class<?> type) {
+        long layout = CLASS_LAYOUTS.get(type);
+        NodeCodec<?> codec = nodeCodecs.get(type);
+        return codec == null ? layout : ObjectFields.hash(layout, codec.getClass().getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private NodeCodec<Node> getNodeCodec(Class<?> nodeClass) {
+        NodeCodec<?> codec = nodeCodecs.get(nodeClass);
+        return (NodeCodec<Node>) (codec != null ? codec : FIELD_NODE_CODECS.get(nodeClass));
+    }
+
+    /**
+     * Write a document
+     *
+     * @param document document to write
+     * @param out      stream to write to, not closed
+     * @throws IOException           when writing to the stream throws an exception
+     * @throws IllegalStateException if a node or repository cannot be serialized
+     */
+    public void write(Document document, OutputStream out) throws IOException {
+        BasedSequence base = document.getChars().getBaseSequence();
+        NodeOutput output = new NodeOutput(base);
+        output.addTree(document);
+
+        // repositories are written before node fields so nodes they add to the node table have their fields written
+        ArrayList<NodeRepository<?>> repositories = new ArrayList<NodeRepository<?>>();
+        for (Object value : document.getAll().values()) {
+            if (value instanceof NodeRepository) {
+                repositories.add((NodeRepository<?>) value);
+            }
+        }
+
+        output.writeUnsigned(repositories.size());
+        for (NodeRepository<?> repository : repositories) {
+            writeRepository(repository, output);
+        }
+
+        List<Node> nodes = output.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            output.writeSequence(node.getChars());
+            if (i == 0) {
+                DOCUMENT_FIELDS.write(node, output);
+            } else {
+                getNodeCodec(node.getClass()).write(node, output);
+            }
+        }
+
+        NodeOutput header = new NodeOutput();
+        for (byte b : MAGIC) {
+            header.writeByte(b);
+        }
+        header.writeUnsigned(FORMAT_VERSION);
+        header.writeUnsigned(base.length());
+
+        List<Class<?>> classList = output.getClasses();
+        header.writeUnsigned(classList.size());
+        for (Class<?> type : classList) {
+            header.writeString(type.getName());
+            header.writeLong(getClassFingerprint(type));
+        }
+
+        header.writeUnsigned(nodes.size());
+        for (Node node : nodes) {
+            int childCount = 0;
+            for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+                childCount++;
+            }
+            header.writeUnsigned(output.classIndex(node.getClass()));
+            header.writeUnsigned(childCount);
+        }
+
+        header.writeTo(out);
+        output.writeTo(out);
+    }
+
+    /**
+     * Write a document
+     *
+     * @param document document to write
+     * @return serialized document
+     * @throws IllegalStateException if a node or repository cannot be serialized
+     */
+    public byte[] write(Document document) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(document, out);
+        } catch (IOException e) {
+            // not thrown by byte array stream
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeRepository(NodeRepository<?> repository, NodeOutput output) {
+        output.writeUnsigned(output.classIndex(repository.getClass()));
+
+        List<?> values = repository.values();
+        output.writeUnsigned(values.size());
+        for (Object value : values) {
+            output.writeNode(toNode(repository, value));
+        }
+
+        output.writeUnsigned(repository.size());
+        for (Map.Entry<String, ?> entry : repository.entrySet()) {
+            output.writeString(entry.getKey());
+            output.writeNode(toNode(repository, entry.getValue()));
+        }
+
+        REPOSITORY_FIELDS.get(repository.getClass()).write(repository, output);
+    }
+
+    private static Node toNode(NodeRepository<?> repository, Object value) {
+        if (value != null && !(value instanceof Node)) {
+            throw new IllegalStateException(repository.getClass().getName() + " value of " + value.getClass().getName() + " cannot be serialized");
+        }
+        return (Node) value;
+    }
+
+    /**
+     * Read a document
+     *
+     * @param in    stream with the serialized document, read to its end and not closed
+     * @param chars text the document was parsed from
+     * @return document
+     * @throws IOException when reading from the stream throws an exception or the data is not a document serialized
+     *                     with this format version from text of the same length or a class has a different field layout
+     *                     than when the document was written
+     */
+    public Document read(InputStream in, BasedSequence chars) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return read(out.toByteArray(), chars);
+    }
+
+    /**
+     * Read a document
+     *
+     * @param data  serialized document
+     * @param chars text the document was parsed from
+     * @return document
+     * @throws IOException when the data is not a document serialized with this format version from text of the same
+     *                     length or a class has a different field layout than when the document was written
+     */
+    public Document read(byte[] data, BasedSequence chars) throws IOException {
+        BasedSequence base = chars.getBaseSequence();
+        NodeInput input = new NodeInput(base, data, 0);
+
+        for (byte b : MAGIC) {
+            if (input.readByte() != b) throw new IOException("Data is not a serialized document");
+        }
+
+        int version = input.readUnsigned();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Serialized document format version " + version + " is not " + FORMAT_VERSION);
+        }
+
+        int length = input.readUnsigned();
+        if (length != base.length()) {
+            throw new IOException("Serialized document of text with " + length + " characters, text has " + base.length());
+        }
+
+        Class<?>[] classArray = new Class<?>[input.readCount()];
+        for (int i = 0; i < classArray.length; i++) {
+            Class<?> type = loadClass(input.readString());
+            if (input.readLong() != getClassFingerprint(type)) {
+                throw new IOException("Serialized document class " + type.getName() + " has a different field layout");
+            }
+            classArray[i] = type;
+        }
+        input.setClasses(classArray);
+
+        int nodeCount = input.readCount();
+        if (nodeCount == 0) throw new IOException("Serialized document has no nodes");
+
+        Document document = null;
+        Node[] nodes = new Node[nodeCount];
+        int[] childCounts = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            Class<?> nodeClass = input.readClass();
+            childCounts[i] = input.readUnsigned();
+
+            if (i == 0) {
+                if (nodeClass != Document.class) throw new IOException("Serialized document does not start with a document node");
+                document = new Document(options, chars);
+                nodes[i] = document;
+            } else {
+                if (!Node.class.isAssignableFrom(nodeClass) || nodeClass == Document.class) {
+                    throw new IOException("Serialized document has an invalid node class " + nodeClass.getName());
+                }
+                nodes[i] = getNodeCodec(nodeClass).create();
+            }
+        }
+
+        int next = 0;
+        while (next < nodeCount) {
+            next = appendChildren(nodes, childCounts, next);
+        }
+        input.setNodes(nodes);
+
+        int repositoryCount = input.readCount();
+        for (int i = 0; i < repositoryCount; i++) {
+            readRepository(document, input);
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes[i];
+            node.setChars(input.readSequence());
+            if (i == 0) {
+                DOCUMENT_FIELDS.read(node, input);
+            } else {
+                getNodeCodec(node.getClass()).read(node, input);
+            }
+        }
+
+        if (input.getPosition() != data.length) throw new IOException("Serialized document has extra data");
+        return document;
+    }
+
+    // link children of the node at index, return index after its last descendant
+    private static int appendChildren(Node[] nodes, int[] childCounts, int index) throws IOException {
+        Node node = nodes[index];
+        int next = index + 1;
+        for (int i = 0; i < childCounts[index]; i++) {
+            if (next >= nodes.length) throw new IOException("Serialized document has an invalid child count");
+            node.appendChild(nodes[next]);
+            next = appendChildren(nodes, childCounts, next);
+        }
+        return next;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readRepository(Document document, NodeInput input) throws IOException {
+        Class<?> repositoryClass = input.readClass();
+        if (!NodeRepository.class.isAssignableFrom(repositoryClass)) {
+            throw new IOException("Serialized document has an invalid repository class " + repositoryClass.getName());
+        }
+
+        NodeRepository<Node> repository;
+        try {
+            Constructor<?> constructor = repositoryClass.getConstructor(DataHolder.class);
+            repository = (NodeRepository<Node>) constructor.newInstance(document);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(repositoryClass.getName() + " has no constructor with options", e);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        Node[] values = new Node[input.readCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readNode();
+        }
+
+        int entryCount = input.readCount();
+        ArrayList<String> keys = new ArrayList<String>(entryCount);
+        IdentityHashMap<Node, String> nodeKeys = new IdentityHashMap<Node, String>();
+        HashMap<String, Node> entries = new HashMap<String, Node>();
+        for (int i = 0; i < entryCount; i++) {
+            String key = input.readString();
+            Node node = input.readNode();
+            keys.add(key);
+            entries.put(key, node);
+            if (!nodeKeys.containsKey(node)) nodeKeys.put(node, key);
+        }
+
+        // add values in their original order, values which were not kept in the map are only added to the list
+        HashSet<String> added = new HashSet<String>();
+        for (Node value : values) {
+            String key = nodeKeys.remove(value);
+            if (key != null) {
+                repository.put(key, value);
+                added.add(key);
+            } else {
+                repository.values().add(value);
+            }
+        }
+
+        for (String key : keys) {
+            if (!added.contains(key)) {
+                repository.putAll(Collections.singletonMap(key, entries.get(key)));
+            }
+        }
+
+        REPOSITORY_FIELDS.get(repositoryClass).read(repository, input);
+        document.set((DataKey<NodeRepository<Node>>) repository.getDataKey(), repository);
+    }
+
+    private Class<?> loadClass(String name) throws IOException {
+        if (name == null) throw new IOException("Serialized document has no class name");
+
+        Class<?> type = classes.get(name);
+        if (type == null) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            try {
+                type = Class.forName(name, false, classLoader != null ? classLoader : DocumentSerializer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Serialized document class " + name + " is not available", e);
+            }
+
+            if (!Node.class.isAssignableFrom(type) && !NodeRepository.class.isAssignableFrom(type) && !type.isEnum()) {
+                throw new IOException("Serialized document has an invalid class " + name);
+            }
+            classes.put(name, type);
+        }
+        return type;
+    }
+
+    /**
+     * Builder for configuring a {@link DocumentSerializer}.
+     */
+    public static class Builder extends MutableDataSet {
+        HashMap<Class<?>, NodeCodec<?>> nodeCodecs = new HashMap<Class<?>, NodeCodec<?>>();
+        private final HashSet<Extension> loadedExtensions = new HashSet<Extension>();
+
+        public Builder() {
+            super();
+        }
+
+        public Builder(DataHolder options) {
+            super(options);
+
+            if (options.contains(Parser.EXTENSIONS)) {
+                extensions(get(Parser.EXTENSIONS));
+            }
+        }
+
+        /**
+         * @return the configured {@link DocumentSerializer}
+         */
+        public DocumentSerializer build() {
+            return new DocumentSerializer(this);
+        }
+
+        /**
+         * Add a codec for a node class, replacing the {@link FieldNodeCodec} used for nodes without a codec.
+         *
+         * @param nodeClass node class, subclasses need their own codec
+         * @param codec     codec for the node class
+         * @param <N>       node class
+         * @return {@code this}
+         */
+        public <N extends Node> Builder nodeCodec(Class<N> nodeClass, NodeCodec<N> codec) {
+            nodeCodecs.put(nodeClass, codec);
+            return this;
+        }
+
+        /**
+         * @param extensions extensions to use on this serializer
+         * @return {@code this}
+         */
+        public Builder extensions(Iterable<? extends Extension> extensions) {
+            for (Extension extension : extensions) {
+                if (extension instanceof SerializerExtension) {
+                    if (!loadedExtensions.contains(extension)) {
+                        SerializerExtension serializerExtension = (SerializerExtension) extension;
+                        serializerExtension.extend(this);
+                        loadedExtensions.add(serializerExtension);
+                    }
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Extension for {@link DocumentSerializer}.
+     * <p>
+     * Implemented by extensions with nodes which cannot be serialized by {@link FieldNodeCodec}.
+     */
+    public interface SerializerExtension extends Extension {
+        /**
+         * Called to give each extension to register its node codecs
+         *
+         * @param serializerBuilder builder to call back for extension point registration
+         * @see Builder#nodeCodec(Class, NodeCodec)
+         */
+        void extend(Builder serializerBuilder);
+    }
+}
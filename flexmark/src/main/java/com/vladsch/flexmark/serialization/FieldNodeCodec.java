@@ -0,0 +1,65 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.ast.Node;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+
+/**
+ * Codec for nodes which have a constructor without parameters, writes all fields of the node class and its super
+ * classes below {@link Node} by reflection
+ * <p>
+ * Fields must be int, long, boolean, char, String, enum, {@link com.vladsch.flexmark.util.sequence.BasedSequence},
+ * {@link Node}, a list of these, int[] or BasedSequence[]. Nodes with other fields need their own {@link NodeCodec}.
+ *
+ * @param <N> node class
+ */
+public class FieldNodeCodec<N extends Node> implements NodeCodec<N> {
+    private final Constructor<N> constructor;
+    private final ObjectFields fields;
+
+    /**
+     * @param nodeClass node class
+     * @throws IllegalStateException if the class has no constructor without parameters or a field of a type which
+     *                               cannot be serialized
+     */
+    public FieldNodeCodec(Class<N> nodeClass) {
+        if (Modifier.isAbstract(nodeClass.getModifiers())) {
+            throw new IllegalStateException(nodeClass.getName() + " is abstract");
+        }
+
+        try {
+            constructor = nodeClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(nodeClass.getName() + " has no constructor without parameters, register a NodeCodec for it", e);
+        }
+
+        fields = new ObjectFields(nodeClass, Node.class);
+    }
+
+    @Override
+    public N create() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void write(N node, NodeOutput output) {
+        fields.write(node, output);
+    }
+
+    @Override
+    public void read(N node, NodeInput input) throws IOException {
+        fields.read(node, input);
+    }
+}
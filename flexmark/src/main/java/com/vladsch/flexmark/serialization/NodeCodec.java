@@ -0,0 +1,38 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.ast.Node;
+
+import java.io.IOException;
+
+/**
+ * Creates, writes and reads nodes of one class for {@link DocumentSerializer}
+ * <p>
+ * Chars and children of nodes are handled by the serializer, a codec handles the other fields of the node class and
+ * its super classes. All nodes are created before fields of any node are read so {@link NodeInput#readNode()}
+ * returns nodes which come after the node being read. Nodes without a codec use {@link FieldNodeCodec}.
+ *
+ * @param <N> node class
+ */
+public interface NodeCodec<N extends Node> {
+    /**
+     * @return new node whose fields will be read by {@link #read(Node, NodeInput)}
+     */
+    N create();
+
+    /**
+     * Write node fields
+     *
+     * @param node   node to write
+     * @param output output
+     */
+    void write(N node, NodeOutput output);
+
+    /**
+     * Read node fields in the order they were written
+     *
+     * @param node  node from {@link #create()}
+     * @param input input
+     * @throws IOException if the data is not valid
+     */
+    void read(N node, NodeInput input) throws IOException;
+}
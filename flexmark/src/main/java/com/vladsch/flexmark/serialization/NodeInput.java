@@ -0,0 +1,254 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.PrefixedSubSequence;
+import com.vladsch.flexmark.util.sequence.SegmentedSequence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Input of {@link DocumentSerializer} passed to {@link NodeCodec#read(Node, NodeInput)}
+ * <p>
+ * Sequences are created from the document text given to {@link DocumentSerializer#read(byte[], BasedSequence)} and
+ * nodes are taken from the node table, all nodes are created before any node fields are read.
+ */
+public final class NodeInput {
+    private final BasedSequence base;
+    private final byte[] data;
+    private int position;
+    private int lastOffset;
+    private Node[] nodes;
+    private Class<?>[] classes;
+
+    NodeInput(BasedSequence base, byte[] data, int position) {
+        this.base = base;
+        this.data = data;
+        this.position = position;
+        this.lastOffset = 0;
+        this.nodes = null;
+        this.classes = null;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    void setNodes(Node[] nodes) {
+        this.nodes = nodes;
+    }
+
+    void setClasses(Class<?>[] classes) {
+        this.classes = classes;
+    }
+
+    int readByte() throws IOException {
+        if (position >= data.length) throw new EOFException("Serialized document is truncated");
+        return data[position++];
+    }
+
+    int readUnsigned() throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+            if (shift > 28) throw new IOException("Serialized document has an invalid number");
+        }
+    }
+
+    // count of items of at least one byte each
+    int readCount() throws IOException {
+        int count = readUnsigned();
+        if (count > data.length - position) throw new EOFException("Serialized document is truncated");
+        return count;
+    }
+
+    private long readUnsignedLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+            if (shift > 63) throw new IOException("Serialized document has an invalid number");
+        }
+    }
+
+    public int readInt() throws IOException {
+        int value = readUnsigned();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() throws IOException {
+        long value = readUnsignedLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public char readChar() throws IOException {
+        return (char) readUnsigned();
+    }
+
+    public String readString() throws IOException {
+        int length = readUnsigned();
+        return length == 0 ? null : readChars(length - 1);
+    }
+
+    private String readChars(int length) throws IOException {
+        if (length > data.length - position) throw new EOFException("Serialized document is truncated");
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            // ASCII is one byte
+            if (position < data.length && data[position] >= 0) {
+                chars[i] = (char) data[position++];
+            } else {
+                chars[i] = (char) readUnsigned();
+            }
+        }
+        return String.valueOf(chars);
+    }
+
+    private int readOffset() throws IOException {
+        lastOffset += readInt();
+        if (lastOffset < 0 || lastOffset > base.length()) throw new IOException("Serialized document has an invalid offset " + lastOffset);
+        return lastOffset;
+    }
+
+    private BasedSequence readRun() throws IOException {
+        int start = readOffset();
+        int length = readUnsigned();
+        if (length > base.length() - start) throw new IOException("Serialized document has an invalid length " + length + " at offset " + start);
+        return base.baseSubSequence(start, start + length);
+    }
+
+    public BasedSequence readSequence() throws IOException {
+        int type = readUnsigned();
+        switch (type) {
+            case NodeOutput.SEQUENCE_NULL:
+                return null;
+
+            case NodeOutput.SEQUENCE_EMPTY:
+                return BasedSequence.NULL;
+
+            case NodeOutput.SEQUENCE_TEXT:
+                return CharSubSequence.of(readChars(readCount()));
+
+            case NodeOutput.SEQUENCE_BASED:
+                return readRun();
+
+            case NodeOutput.SEQUENCE_SEGMENTED: {
+                int segmentCount = readCount();
+                ArrayList<BasedSequence> segments = new ArrayList<BasedSequence>(segmentCount + 1);
+                for (int i = 0; i < segmentCount; i++) {
+                    String prefix = readChars(readCount());
+                    BasedSequence run = readRun();
+                    segments.add(prefix.isEmpty() ? run : PrefixedSubSequence.of(prefix, run));
+                }
+
+                String prefix = readChars(readCount());
+                int end = readOffset();
+                BasedSequence empty = base.baseSubSequence(end, end);
+                if (!prefix.isEmpty()) {
+                    segments.add(PrefixedSubSequence.of(prefix, empty));
+                }
+                return SegmentedSequence.of(segments, empty);
+            }
+
+            default:
+                throw new IOException("Serialized document has an invalid sequence type " + type);
+        }
+    }
+
+    public Node readNode() throws IOException {
+        int index = readUnsigned();
+        if (index > nodes.length) throw new IOException("Serialized document has an invalid node index " + index);
+        return index == 0 ? null : nodes[index - 1];
+    }
+
+    Class<?> readClass() throws IOException {
+        int index = readUnsigned();
+        if (index >= classes.length) throw new IOException("Serialized document has an invalid class index " + index);
+        return classes[index];
+    }
+
+    /**
+     * Read a value written by {@link NodeOutput#writeValue(Object)}, lists are read as {@link ArrayList}
+     *
+     * @return value
+     * @throws IOException if the data is not valid
+     */
+    public Object readValue() throws IOException {
+        int type = readUnsigned();
+        switch (type) {
+            case NodeOutput.VALUE_NULL:
+                return null;
+
+            case NodeOutput.VALUE_BOOLEAN:
+                return readBoolean();
+
+            case NodeOutput.VALUE_INT:
+                return readInt();
+
+            case NodeOutput.VALUE_LONG:
+                return readLong();
+
+            case NodeOutput.VALUE_CHAR:
+                return readChar();
+
+            case NodeOutput.VALUE_STRING:
+                return readString();
+
+            case NodeOutput.VALUE_ENUM: {
+                Class<?> enumClass = readClass();
+                Object[] constants = enumClass.getEnumConstants();
+                int ordinal = readUnsigned();
+                if (constants == null || ordinal >= constants.length) throw new IOException("Serialized document has an invalid constant of " + enumClass);
+                return constants[ordinal];
+            }
+
+            case NodeOutput.VALUE_SEQUENCE:
+                return readSequence();
+
+            case NodeOutput.VALUE_NODE:
+                return readNode();
+
+            case NodeOutput.VALUE_LIST: {
+                int size = readCount();
+                ArrayList<Object> list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            }
+
+            case NodeOutput.VALUE_INT_ARRAY: {
+                int[] ints = new int[readCount()];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = readInt();
+                }
+                return ints;
+            }
+
+            case NodeOutput.VALUE_SEQUENCE_ARRAY: {
+                BasedSequence[] sequences = new BasedSequence[readCount()];
+                for (int i = 0; i < sequences.length; i++) {
+                    sequences[i] = readSequence();
+                }
+                return sequences;
+            }
+
+            default:
+                throw new IOException("Serialized document has an invalid value type " + type);
+        }
+    }
+}
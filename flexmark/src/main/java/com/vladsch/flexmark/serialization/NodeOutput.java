@@ -0,0 +1,338 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.SubSequence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Output of {@link DocumentSerializer} passed to {@link NodeCodec#write(Node, NodeOutput)}
+ * <p>
+ * Numbers are written as variable length integers. Sequences based on the document text are written as offsets,
+ * characters not from the document text are written as text. Nodes are written as references to the node table,
+ * a node which is not part of the document is added to the table with its root and all descendants of the root.
+ * <p>
+ * Values must be read back with the {@link NodeInput} method matching the method used to write them.
+ */
+public final class NodeOutput {
+    static final int SEQUENCE_NULL = 0;
+    static final int SEQUENCE_EMPTY = 1;
+    static final int SEQUENCE_BASED = 2;
+    static final int SEQUENCE_SEGMENTED = 3;
+    static final int SEQUENCE_TEXT = 4;
+
+    static final int VALUE_NULL = 0;
+    static final int VALUE_BOOLEAN = 1;
+    static final int VALUE_INT = 2;
+    static final int VALUE_LONG = 3;
+    static final int VALUE_CHAR = 4;
+    static final int VALUE_STRING = 5;
+    static final int VALUE_ENUM = 6;
+    static final int VALUE_SEQUENCE = 7;
+    static final int VALUE_NODE = 8;
+    static final int VALUE_LIST = 9;
+    static final int VALUE_INT_ARRAY = 10;
+    static final int VALUE_SEQUENCE_ARRAY = 11;
+
+    private final BasedSequence base;
+    private final ArrayList<Node> nodes;
+    private final IdentityHashMap<Node, Integer> nodeIndices;
+    private final ArrayList<Class<?>> classes;
+    private final HashMap<Class<?>, Integer> classIndices;
+    private byte[] buffer;
+    private int count;
+    private int lastOffset;
+
+    NodeOutput(BasedSequence base) {
+        this.base = base;
+        this.nodes = new ArrayList<Node>();
+        this.nodeIndices = new IdentityHashMap<Node, Integer>();
+        this.classes = new ArrayList<Class<?>>();
+        this.classIndices = new HashMap<Class<?>, Integer>();
+        this.buffer = new byte[1024];
+        this.count = 0;
+        this.lastOffset = 0;
+    }
+
+    // used for the header, which has no nodes or sequences
+    NodeOutput() {
+        this(null);
+    }
+
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    List<Class<?>> getClasses() {
+        return classes;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    /**
+     * Add a node and its descendants to the node table in document order
+     *
+     * @param root node to add
+     */
+    void addTree(Node root) {
+        nodeIndices.put(root, nodes.size());
+        nodes.add(root);
+        classIndex(root.getClass());
+
+        Node child = root.getFirstChild();
+        while (child != null) {
+            addTree(child);
+            child = child.getNext();
+        }
+    }
+
+    int classIndex(Class<?> type) {
+        Integer index = classIndices.get(type);
+        if (index == null) {
+            index = classes.size();
+            classes.add(type);
+            classIndices.put(type, index);
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (count + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + extra));
+        }
+    }
+
+    void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    void writeUnsigned(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    private void writeUnsignedLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    public void writeInt(int value) {
+        writeUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    public void writeLong(long value) {
+        writeUnsignedLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeChar(char value) {
+        writeUnsigned(value);
+    }
+
+    /**
+     * @param value string to write, can be null
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeUnsigned(0);
+        } else {
+            writeChars(value, 1);
+        }
+    }
+
+    private void writeChars(CharSequence value, int lengthBias) {
+        int iMax = value.length();
+        writeUnsigned(iMax + lengthBias);
+        ensureCapacity(iMax);
+        for (int i = 0; i < iMax; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            } else {
+                writeUnsigned(c);
+                ensureCapacity(iMax - i);
+            }
+        }
+    }
+
+    private void writeOffset(int offset) {
+        writeInt(offset - lastOffset);
+        lastOffset = offset;
+    }
+
+    /**
+     * @param sequence sequence to write, can be null
+     */
+    public void writeSequence(BasedSequence sequence) {
+        if (sequence == null) {
+            writeUnsigned(SEQUENCE_NULL);
+        } else if (sequence == BasedSequence.NULL) {
+            writeUnsigned(SEQUENCE_EMPTY);
+        } else if (sequence.getBase() != base.getBase()) {
+            writeUnsigned(SEQUENCE_TEXT);
+            writeChars(sequence, 0);
+        } else if (sequence instanceof SubSequence || sequence instanceof CharSubSequence) {
+            writeUnsigned(SEQUENCE_BASED);
+            writeOffset(sequence.getStartOffset());
+            writeUnsigned(sequence.length());
+        } else {
+            writeSegmented(sequence);
+        }
+    }
+
+    // composed sequence, written as runs of consecutive offsets each with a prefix of characters not from the base
+    private void writeSegmented(BasedSequence sequence) {
+        int iMax = sequence.length();
+        int segmentCount = 0;
+        int i = 0;
+        while (i < iMax) {
+            int end = runEnd(sequence, i);
+            if (end > i) {
+                segmentCount++;
+                i = end;
+            } else {
+                i++;
+            }
+        }
+
+        writeUnsigned(SEQUENCE_SEGMENTED);
+        writeUnsigned(segmentCount);
+
+        StringBuilder prefix = new StringBuilder();
+        i = 0;
+        while (i < iMax) {
+            int end = runEnd(sequence, i);
+            if (end == i) {
+                prefix.append(sequence.charAt(i));
+                i++;
+                continue;
+            }
+
+            writeChars(prefix, 0);
+            writeOffset(sequence.getIndexOffset(i));
+            writeUnsigned(end - i);
+            prefix.setLength(0);
+            i = end;
+        }
+
+        writeChars(prefix, 0);
+        writeOffset(sequence.getEndOffset());
+    }
+
+    // end of run of characters from the base starting at index, index if the character is not from the base
+    private int runEnd(BasedSequence sequence, int index) {
+        int offset = sequence.getIndexOffset(index);
+        if (offset < 0 || base.charAt(offset) != sequence.charAt(index)) return index;
+
+        int iMax = sequence.length();
+        int end = index + 1;
+        while (end < iMax && sequence.getIndexOffset(end) == offset + end - index && base.charAt(offset + end - index) == sequence.charAt(end)) end++;
+        return end;
+    }
+
+    /**
+     * @param node node to write, can be null
+     */
+    public void writeNode(Node node) {
+        if (node == null) {
+            writeUnsigned(0);
+        } else {
+            Integer index = nodeIndices.get(node);
+            if (index == null) {
+                // detached node, add its whole tree
+                Node root = node;
+                while (root.getParent() != null) root = root.getParent();
+                addTree(root);
+                index = nodeIndices.get(node);
+            }
+            writeUnsigned(index + 1);
+        }
+    }
+
+    /**
+     * Write a value with its type
+     *
+     * @param value null, boxed primitive other than float and double, String, enum, {@link BasedSequence},
+     *              {@link Node}, list of these values, int[] or BasedSequence[]
+     * @throws IllegalArgumentException if the value is of another type
+     */
+    public void writeValue(Object value) {
+        if (value == null) {
+            writeUnsigned(VALUE_NULL);
+        } else if (value instanceof Boolean) {
+            writeUnsigned(VALUE_BOOLEAN);
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeUnsigned(VALUE_INT);
+            writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            writeUnsigned(VALUE_LONG);
+            writeLong((Long) value);
+        } else if (value instanceof Character) {
+            writeUnsigned(VALUE_CHAR);
+            writeChar((Character) value);
+        } else if (value instanceof String) {
+            writeUnsigned(VALUE_STRING);
+            writeString((String) value);
+        } else if (value instanceof Enum) {
+            writeUnsigned(VALUE_ENUM);
+            writeUnsigned(classIndex(((Enum<?>) value).getDeclaringClass()));
+            writeUnsigned(((Enum<?>) value).ordinal());
+        } else if (value instanceof BasedSequence) {
+            writeUnsigned(VALUE_SEQUENCE);
+            writeSequence((BasedSequence) value);
+        } else if (value instanceof Node) {
+            writeUnsigned(VALUE_NODE);
+            writeNode((Node) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            writeUnsigned(VALUE_LIST);
+            writeUnsigned(list.size());
+            for (Object item : list) {
+                writeValue(item);
+            }
+        } else if (value instanceof int[]) {
+            int[] ints = (int[]) value;
+            writeUnsigned(VALUE_INT_ARRAY);
+            writeUnsigned(ints.length);
+            for (int item : ints) {
+                writeInt(item);
+            }
+        } else if (value instanceof BasedSequence[]) {
+            BasedSequence[] sequences = (BasedSequence[]) value;
+            writeUnsigned(VALUE_SEQUENCE_ARRAY);
+            writeUnsigned(sequences.length);
+            for (BasedSequence item : sequences) {
+                writeSequence(item);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot serialize value of " + value.getClass());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.vladsch.flexmark.serialization;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instance fields of a class and its super classes up to a stop class, written and read by reflection
+ * <p>
+ * Fields must be int, long, boolean, char, String, enum, {@link BasedSequence}, {@link Node}, a list, int[] or
+ * BasedSequence[]. An empty list or array is not replaced when the field already has an empty value so shared
+ * empty values like {@link BasedSequence#EMPTY_LIST} are kept.
+ */
+final class ObjectFields {
+    private static final int KIND_VALUE = 0;
+    private static final int KIND_INT = 1;
+    private static final int KIND_BOOLEAN = 2;
+    private static final int KIND_CHAR = 3;
+    private static final int KIND_SEQUENCE = 4;
+    private static final int KIND_NODE = 5;
+
+    private final Field[] fields;
+    private final int[] kinds;
+
+    /**
+     * @param type      class whose fields are written
+     * @param stopClass super class whose fields and those of its super classes are not written
+     * @throws IllegalStateException if a field is of a type which cannot be written
+     */
+    ObjectFields(Class<?> type, Class<?> stopClass) {
+        ArrayList<Field> fieldList = new ArrayList<Field>();
+        ArrayList<Integer> kindList = new ArrayList<Integer>();
+
+        for (Class<?> aClass = type; aClass != null && aClass != stopClass && aClass != Object.class; aClass = aClass.getSuperclass()) {
+            for (Field field : aClass.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+
+                Class<?> fieldType = field.getType();
+                int kind;
+                if (fieldType == int.class) kind = KIND_INT;
+                else if (fieldType == boolean.class) kind = KIND_BOOLEAN;
+                else if (fieldType == char.class) kind = KIND_CHAR;
+                else if (fieldType == BasedSequence.class) kind = KIND_SEQUENCE;
+                else if (Node.class.isAssignableFrom(fieldType)) kind = KIND_NODE;
+                else if (fieldType == long.class || fieldType == String.class || fieldType.isEnum()
+                        || fieldType == int[].class || fieldType == BasedSequence[].class
+                        || List.class.isAssignableFrom(fieldType) && fieldType.isAssignableFrom(ArrayList.class)) kind = KIND_VALUE;
+                else {
+                    throw new IllegalStateException("Field " + field.getName() + " of " + aClass.getName() + " of " + fieldType.getName() + " cannot be serialized, register a NodeCodec for " + type.getName());
+                }
+
+                field.setAccessible(true);
+                fieldList.add(field);
+                kindList.add(kind);
+            }
+        }
+
+        fields = fieldList.toArray(new Field[fieldList.size()]);
+        kinds = new int[fields.length];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindList.get(i);
+        }
+    }
+
+    /**
+     * Fingerprint of the instance field names and types of a class and its super classes up to a stop class
+     *
+     * @param type      class
+     * @param stopClass super class whose fields and those of its super classes are not included
+     * @return fingerprint, changes when fields are added, removed, renamed, reordered or change type
+     */
+    static long fingerprint(Class<?> type, Class<?> stopClass) {
+        long hash = FNV_OFFSET;
+        for (Class<?> aClass = type; aClass != null && aClass != stopClass && aClass != Object.class; aClass = aClass.getSuperclass()) {
+            hash = hash(hash, aClass.getName());
+            for (Field field : aClass.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+                hash = hash(hash, field.getName());
+                hash = hash(hash, field.getType().getName());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Fingerprint of the constants of an enum, written by ordinal
+     *
+     * @param type enum class
+     * @return fingerprint, changes when constants are added, removed, renamed or reordered
+     */
+    static long enumFingerprint(Class<?> type) {
+        long hash = FNV_OFFSET;
+        for (Object constant : type.getEnumConstants()) {
+            hash = hash(hash, ((Enum<?>) constant).name());
+        }
+        return hash;
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // FNV-1a of the characters of a name followed by a separator
+    static long hash(long hash, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ 0xffff) * FNV_PRIME;
+    }
+
+    void write(Object object, NodeOutput output) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                switch (kinds[i]) {
+                    case KIND_INT:
+                        output.writeInt(field.getInt(object));
+                        break;
+                    case KIND_BOOLEAN:
+                        output.writeBoolean(field.getBoolean(object));
+                        break;
+                    case KIND_CHAR:
+                        output.writeChar(field.getChar(object));
+                        break;
+                    case KIND_SEQUENCE:
+                        output.writeSequence((BasedSequence) field.get(object));
+                        break;
+                    case KIND_NODE:
+                        output.writeNode((Node) field.get(object));
+                        break;
+                    default:
+                        output.writeValue(field.get(object));
+                        break;
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void read(Object object, NodeInput input) throws IOException {
+        Field field = null;
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                field = fields[i];
+                switch (kinds[i]) {
+                    case KIND_INT:
+                        field.setInt(object, input.readInt());
+                        break;
+                    case KIND_BOOLEAN:
+                        field.setBoolean(object, input.readBoolean());
+                        break;
+                    case KIND_CHAR:
+                        field.setChar(object, input.readChar());
+                        break;
+                    case KIND_SEQUENCE:
+                        field.set(object, input.readSequence());
+                        break;
+                    case KIND_NODE:
+                        field.set(object, input.readNode());
+                        break;
+                    default:
+                        Object value = input.readValue();
+                        if (isEmpty(value) && isEmpty(field.get(object))) break;
+                        field.set(object, value);
+                        break;
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Serialized document has an invalid value for field " + field.getName() + " of " + object.getClass().getName(), e);
+        }
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value instanceof List && ((List<?>) value).isEmpty() || value != null && value.getClass().isArray() && Array.getLength(value) == 0;
+    }
+}
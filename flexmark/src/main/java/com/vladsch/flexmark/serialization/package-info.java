@@ -0,0 +1,4 @@
+/**
+ * Binary serialization of parsed documents and an on disk document cache (see {@link com.vladsch.flexmark.serialization.DocumentSerializer})
+ */
+package com.vladsch.flexmark.serialization;
@@ -0,0 +1,97 @@
+package com.vladsch.flexmark.internal;
+
+import com.vladsch.flexmark.ast.util.Parsing;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compare scanners to the patterns they replace on random input
+ */
+public class InlineScannerTest {
+    private static final String CHARS = "<>()[]\"'\\`&#;:@.-+_!aAxXzZ09 \t\n\r\u0000\u001fé~{}";
+    private static final int RUNS = 100000;
+
+    private static int patternEnd(Pattern pattern, String input, int index) {
+        Matcher matcher = pattern.matcher(input);
+        matcher.region(index, input.length());
+        return matcher.find() ? matcher.end() : -1;
+    }
+
+    private static String randomInput(Random random, String prefix) {
+        StringBuilder sb = new StringBuilder(prefix);
+        int length = random.nextInt(24);
+        for (int i = 0; i < length; i++) {
+            sb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return sb.toString();
+    }
+
+    private static void assertScanner(String message, Pattern pattern, int scanned, String input) {
+        if (scanned == InlineScanner.USE_PATTERN) return;
+        assertEquals(message + " \"" + input + "\"", patternEnd(pattern, input, 1), scanned);
+    }
+
+    private static void compareScanners(boolean additionalChars) {
+        Parsing parsing = new Parsing(new MutableDataSet().set(Parser.INTELLIJ_DUMMY_IDENTIFIER, additionalChars));
+        Random random = new Random(additionalChars ? 1 : 0);
+        String[] prefixes = { "", "<", "&", "&#", "&#x", "\"", "'", "(", "`", "<a", "<a@", "<ab:", " ", "\r" };
+
+        for (int i = 0; i < RUNS; i++) {
+            // all inputs start with a character which is skipped to test matching at an index
+            String input = "x" + randomInput(random, prefixes[i % prefixes.length]);
+
+            assertScanner("sp", parsing.SP, InlineScanner.sp(input, 1), input);
+            assertScanner("spni", parsing.SPNI, InlineScanner.spni(input, 1), input);
+            assertScanner("spnl", parsing.SPNL, InlineScanner.spnl(input, 1), input);
+            assertScanner("spnlUrl", parsing.SPNL_URL, InlineScanner.spnlUrl(input, 1), input);
+            assertScanner("ticksHere", parsing.TICKS_HERE, InlineScanner.ticksHere(input, 1), input);
+            assertScanner("entity", parsing.ENTITY_HERE, InlineScanner.entity(input, 1, additionalChars), input);
+            assertScanner("emailAutolink", parsing.EMAIL_AUTOLINK, InlineScanner.emailAutolink(input, 1, additionalChars), input);
+            assertScanner("autolink", parsing.AUTOLINK, InlineScanner.autolink(input, 1, additionalChars), input);
+            assertScanner("linkDestinationAngles", parsing.LINK_DESTINATION_ANGLES, InlineScanner.linkDestinationAngles(input, 1), input);
+            assertScanner("linkTitle", parsing.LINK_TITLE, InlineScanner.linkTitle(input, 1), input);
+            assertScanner("linkDestination", parsing.LINK_DESTINATION, InlineScanner.linkDestination(input, 1, additionalChars), input);
+            assertScanner("linkDestinationMatchedParens", parsing.LINK_DESTINATION_MATCHED_PARENS, InlineScanner.linkDestinationMatchedParens(input, 1, additionalChars), input);
+        }
+    }
+
+    @Test
+    public void test_scanners() {
+        compareScanners(false);
+    }
+
+    @Test
+    public void test_scannersAdditionalChars() {
+        compareScanners(true);
+    }
+
+    @Test
+    public void test_commonInputsScanned() {
+        assertEquals(20, InlineScanner.autolink("<http://example.com>", 0, false));
+        assertEquals(18, InlineScanner.emailAutolink("<user@example.com>", 0, false));
+        assertEquals(5, InlineScanner.entity("&amp; ", 0, false));
+        assertEquals(6, InlineScanner.linkDestinationAngles("<a\\>b>", 0));
+        assertEquals(7, InlineScanner.linkTitle("\"a \\\"b\" c", 0));
+        assertEquals(InlineScanner.USE_PATTERN, InlineScanner.linkTitle("\"a \\\" c", 0));
+        assertEquals(10, InlineScanner.linkDestination("/url(a)\\(b)c) d", 0, false));
+    }
+
+    @Test
+    public void test_charClasses() {
+        Parsing parsing = new Parsing(new MutableDataSet());
+        for (char c = 0; c < 128; c++) {
+            String s = String.valueOf(c);
+            assertEquals("escapable " + (int) c, parsing.ESCAPABLE.matcher(s).matches(), InlineScanner.isEscapable(c));
+            assertEquals("punctuation " + (int) c, parsing.PUNCTUATION.matcher(s).matches(), InlineScanner.isAsciiPunctuation(c));
+            assertEquals("unicode whitespace " + (int) c, parsing.UNICODE_WHITESPACE_CHAR.matcher(s).matches(), InlineScanner.isAsciiUnicodeWhitespace(c));
+            assertEquals("whitespace " + (int) c, parsing.WHITESPACE.matcher(s).matches(), InlineScanner.isWhitespace(c));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.vladsch.flexmark.test;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.html.AttributeProvider;
+import com.vladsch.flexmark.html.AttributeProviderFactory;
+import com.vladsch.flexmark.html.BatchRenderer;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.IndependentAttributeProviderFactory;
+import com.vladsch.flexmark.html.renderer.AttributablePart;
+import com.vladsch.flexmark.html.renderer.LinkResolverContext;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.spec.SpecReader;
+import com.vladsch.flexmark.util.html.Attributes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchRendererTest {
+    private final Parser parser = Parser.builder().build();
+    private final HtmlRenderer renderer = HtmlRenderer.builder().build();
+
+    @Test
+    public void renderInInputOrder() {
+        List<String> examples = SpecReader.readExamplesAsString();
+        List<String> expected = new ArrayList<String>(examples.size());
+        for (String example : examples) {
+            expected.add(renderer.render(parser.parse(example)));
+        }
+
+        BatchRenderer batchRenderer = new BatchRenderer(parser, renderer, 3);
+        try {
+            assertEquals(expected, batchRenderer.render(examples));
+            // per thread state is reused by the second batch
+            assertEquals(expected, batchRenderer.render(examples.iterator()));
+
+            BatchRenderer.Metrics metrics = batchRenderer.getMetrics();
+            assertEquals(2 * examples.size(), metrics.getDocumentCount());
+
+            long outputLength = 0;
+            for (String html : expected) {
+                outputLength += html.length();
+            }
+            assertEquals(2 * outputLength, metrics.getOutputLength());
+
+            batchRenderer.resetMetrics();
+            assertEquals(0, batchRenderer.getMetrics().getDocumentCount());
+        } finally {
+            batchRenderer.shutdown();
+        }
+    }
+
+    @Test
+    public void renderBoundedRunsInFlight() {
+        final AtomicInteger started = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>()) {
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                started.incrementAndGet();
+            }
+        };
+
+        final int[] read = new int[1];
+        final int[] maxAhead = new int[1];
+        Iterator<String> inputs = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return read[0] < 1000;
+            }
+
+            @Override
+            public String next() {
+                // runs are started in order and collected after they start
+                maxAhead[0] = Math.max(maxAhead[0], read[0] - started.get());
+                return "Paragraph *" + read[0]++ + "*\n";
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        BatchRenderer batchRenderer = new BatchRenderer(parser, renderer, executor, 1, 2);
+        try {
+            List<String> results = batchRenderer.render(inputs);
+            assertEquals(1000, results.size());
+            assertEquals("<p>Paragraph <em>999</em></p>\n", results.get(999));
+            assertTrue("inputs read ahead " + maxAhead[0], maxAhead[0] <= 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void renderEmpty() {
+        BatchRenderer batchRenderer = new BatchRenderer(parser, renderer, 2);
+        try {
+            assertEquals(0, batchRenderer.render(new ArrayList<String>()).size());
+        } finally {
+            batchRenderer.shutdown();
+        }
+    }
+
+    @Test
+    public void renderException() {
+        AttributeProviderFactory factory = new IndependentAttributeProviderFactory() {
+            @Override
+            public AttributeProvider create(LinkResolverContext context) {
+                return new AttributeProvider() {
+                    @Override
+                    public void setAttributes(Node node, AttributablePart part, Attributes attributes) {
+                        throw new IllegalStateException("render failed");
+                    }
+                };
+            }
+        };
+        HtmlRenderer failingRenderer = HtmlRenderer.builder().attributeProviderFactory(factory).build();
+
+        BatchRenderer batchRenderer = new BatchRenderer(parser, failingRenderer, 2);
+        try {
+            batchRenderer.render(Arrays.asList("a", "b"));
+            fail("expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("render failed", e.getMessage());
+        } finally {
+            batchRenderer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.vladsch.flexmark.test;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.ast.Reference;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.serialization.DocumentCache;
+import com.vladsch.flexmark.serialization.DocumentSerializer;
+import com.vladsch.flexmark.serialization.FieldNodeCodec;
+import com.vladsch.flexmark.serialization.NodeCodec;
+import com.vladsch.flexmark.serialization.NodeInput;
+import com.vladsch.flexmark.serialization.NodeOutput;
+import com.vladsch.flexmark.spec.SpecReader;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DocumentSerializerTest {
+    private static final Parser PARSER = Parser.builder().build();
+    private static final HtmlRenderer RENDERER = HtmlRenderer.builder().build();
+    private static final DocumentSerializer SERIALIZER = DocumentSerializer.builder().build();
+
+    private static void assertSameDocument(Document expected, Document actual) {
+        assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(actual));
+        assertEquals(RENDERER.render(expected), RENDERER.render(actual));
+    }
+
+    @Test
+    public void specRoundTripTest() throws IOException {
+        BasedSequence spec = CharSubSequence.of(SpecReader.readSpec());
+        Document expected = PARSER.parse(spec);
+        byte[] data = SERIALIZER.write(expected);
+        Document document = SERIALIZER.read(data, spec);
+
+        assertSameDocument(expected, document);
+        assertSame(spec.getBase(), document.getChars().getBase());
+        assertSame(spec.getBase(), document.getLastChild().getChars().getBase());
+        assertEquals(expected.get(Parser.REFERENCES).keySet(), document.get(Parser.REFERENCES).keySet());
+
+        Document streamed = SERIALIZER.read(new ByteArrayInputStream(data), spec);
+        assertSameDocument(expected, streamed);
+    }
+
+    @Test
+    public void subSequenceTest() throws IOException {
+        BasedSequence input = CharSubSequence.of("ignored\n> quote with [link]\n\n    code\n\n[link]: /url 'title'\nignored");
+        BasedSequence text = input.subSequence(8, input.length() - 8);
+        Document expected = PARSER.parse(text);
+        Document document = SERIALIZER.read(SERIALIZER.write(expected), text);
+
+        assertSameDocument(expected, document);
+        assertEquals(8, document.getStartOffset());
+
+        Reference reference = document.get(Parser.REFERENCES).get("link");
+        assertEquals("/url", reference.getUrl().toString());
+        assertEquals(document.get(Parser.REFERENCES).values(), Arrays.asList(reference));
+        assertSame(reference, document.getLastChild());
+    }
+
+    @Test
+    public void invalidDataTest() {
+        BasedSequence text = CharSubSequence.of("# Heading\n\n* item *emphasis*\n");
+        byte[] data = SERIALIZER.write(PARSER.parse(text));
+
+        assertInvalid(Arrays.copyOf(data, data.length - 1), text);
+        assertInvalid(Arrays.copyOf(data, data.length + 1), text);
+        assertInvalid(data, CharSubSequence.of("other text"));
+
+        byte[] corrupt = data.clone();
+        corrupt[0] = 'X';
+        assertInvalid(corrupt, text);
+
+        // every truncation is rejected without other exceptions
+        for (int i = 0; i < data.length; i++) {
+            assertInvalid(Arrays.copyOf(data, i), text);
+        }
+    }
+
+    @Test
+    public void classLayoutTest() throws IOException {
+        BasedSequence text = CharSubSequence.of("Paragraph *emphasis*\n");
+        byte[] data = SERIALIZER.write(PARSER.parse(text));
+
+        // fingerprint follows the class name
+        byte[] name = Paragraph.class.getName().getBytes("UTF-8");
+        int index = indexOf(data, name);
+        assertTrue(index > 0);
+        byte[] changed = data.clone();
+        changed[index + name.length] ^= 1;
+
+        try {
+            SERIALIZER.read(changed, text);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals("Serialized document class " + Paragraph.class.getName() + " has a different field layout", e.getMessage());
+        }
+
+        // codec for a class is part of its layout
+        DocumentSerializer serializer = DocumentSerializer.builder().nodeCodec(Paragraph.class, new ParagraphCodec()).build();
+        assertInvalid(serializer, data, text);
+        assertSameDocument(PARSER.parse(text), serializer.read(serializer.write(PARSER.parse(text)), text));
+    }
+
+    private static int indexOf(byte[] data, byte[] bytes) {
+        for (int i = 0; i + bytes.length <= data.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(data, i, i + bytes.length), bytes)) return i;
+        }
+        return -1;
+    }
+
+    private static class ParagraphCodec implements NodeCodec<Paragraph> {
+        private final FieldNodeCodec<Paragraph> codec = new FieldNodeCodec<Paragraph>(Paragraph.class);
+        boolean failCreate = false;
+
+        @Override
+        public Paragraph create() {
+            if (failCreate) throw new IllegalStateException("Paragraph codec cannot create nodes");
+            return codec.create();
+        }
+
+        @Override
+        public void write(Paragraph node, NodeOutput output) {
+            codec.write(node, output);
+        }
+
+        @Override
+        public void read(Paragraph node, NodeInput input) throws IOException {
+            codec.read(node, input);
+        }
+    }
+
+    private static void assertInvalid(byte[] data, BasedSequence text) {
+        assertInvalid(SERIALIZER, data, text);
+    }
+
+    private static void assertInvalid(DocumentSerializer serializer, byte[] data, BasedSequence text) {
+        try {
+            serializer.read(data, text);
+            fail("expected IOException");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void cacheTest() throws IOException {
+        Path directory = Files.createTempDirectory("flexmark");
+        try {
+            DocumentCache cache = new DocumentCache(PARSER, SERIALIZER, directory.resolve("cache"));
+            String text = "Paragraph with [reference]\n\n[reference]: /url\n";
+            Document expected = PARSER.parse(text);
+
+            assertSameDocument(expected, cache.parse(text));
+            assertSameDocument(expected, cache.parse(text));
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.getHitCount());
+
+            // corrupt entry is parsed again
+            Path file = directory.resolve("cache").resolve(DocumentCache.getKey(CharSubSequence.of(text)) + ".ast");
+            Files.write(file, new byte[] { 1, 2, 3 });
+            assertSameDocument(expected, cache.parse(text));
+            assertEquals(2, cache.getMissCount());
+            assertSameDocument(expected, cache.parse(text));
+            assertEquals(2, cache.getHitCount());
+
+            // entry which a codec fails to read is parsed again
+            ParagraphCodec codec = new ParagraphCodec();
+            DocumentSerializer serializer = DocumentSerializer.builder().nodeCodec(Paragraph.class, codec).build();
+            DocumentCache codecCache = new DocumentCache(PARSER, serializer, directory.resolve("cache"));
+            assertSameDocument(expected, codecCache.parse(text));
+            assertEquals(1, codecCache.getMissCount());
+            codec.failCreate = true;
+            assertSameDocument(expected, codecCache.parse(text));
+            assertEquals(2, codecCache.getMissCount());
+            assertEquals(0, codecCache.getHitCount());
+        } finally {
+            Path cache = directory.resolve("cache");
+            if (Files.exists(cache)) {
+                for (Path file : Files.newDirectoryStream(cache)) {
+                    Files.delete(file);
+                }
+                Files.delete(cache);
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -9,12 +9,20 @@ import com.vladsch.flexmark.html.renderer.*;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.html.Attributes;
 import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class HtmlRendererTest {
 
@@ -110,6 +118,35 @@ public class HtmlRendererTest {
         assertEquals("<pre><code data-custom=\"evil&quot;\">content\n</code></pre>\n", rendered2);
     }
 
+    @Test
+    public void attributeProviderKeepsAttributes() {
+        final List<Attributes> kept = new ArrayList<Attributes>();
+        AttributeProviderFactory factory = new IndependentAttributeProviderFactory() {
+            @Override
+            public AttributeProvider create(LinkResolverContext context) {
+                return new AttributeProvider() {
+                    @Override
+                    public void setAttributes(Node node, AttributablePart part, Attributes attributes) {
+                        if (node instanceof Link) {
+                            kept.add(new Attributes(attributes));
+                        }
+                    }
+                };
+            }
+        };
+
+        HtmlRenderer renderer = HtmlRenderer.builder().attributeProviderFactory(factory).build();
+        String rendered = renderer.render(parse("[a](/a \"A\") [b](/b)"));
+        assertEquals("<p><a href=\"/a\" title=\"A\">a</a> <a href=\"/b\">b</a></p>\n", rendered);
+
+        // attributes are reused for following tags, copies made by the provider are kept intact
+        assertEquals(2, kept.size());
+        assertEquals("/a", kept.get(0).getValue("href"));
+        assertEquals("A", kept.get(0).getValue("title"));
+        assertEquals("/b", kept.get(1).getValue("href"));
+        assertEquals(false, kept.get(1).contains("title"));
+    }
+
     @Test
     public void attributeProviderForImage() {
         AttributeProviderFactory factory = new IndependentAttributeProviderFactory() {
@@ -376,6 +413,80 @@ public class HtmlRendererTest {
         assertEquals("<p>foo tests</p>\n", rendered);
     }
 
+    @Test
+    public void statelessNodeRendererShared() {
+        final int[] sharedCreated = new int[] { 0 };
+        final int[] documentCreated = new int[] { 0 };
+
+        final NodeRendererFactory sharedFactory = new StatelessNodeRendererFactory() {
+            @Override
+            public NodeRenderer create(final DataHolder options) {
+                sharedCreated[0]++;
+                return new NodeRenderer() {
+                    @Override
+                    public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+                        HashSet<NodeRenderingHandler<?>> set = new HashSet<NodeRenderingHandler<?>>();
+                        set.add(new NodeRenderingHandler<Link>(Link.class, new CustomNodeRenderer<Link>() {
+                            @Override
+                            public void render(Link node, NodeRendererContext context, HtmlWriter html) {
+                                if (node.getText().equals("bar")) {
+                                    context.getHtmlWriter().text("shared");
+                                } else {
+                                    context.delegateRender();
+                                }
+                            }
+                        }));
+                        set.add(new NodeRenderingHandler<Image>(Image.class, new CustomNodeRenderer<Image>() {
+                            @Override
+                            public void render(Image node, NodeRendererContext context, HtmlWriter html) {
+                                context.getHtmlWriter().text("image");
+                            }
+                        }));
+                        return set;
+                    }
+                };
+            }
+        };
+
+        final NodeRendererFactory documentFactory = new NodeRendererFactory() {
+            @Override
+            public NodeRenderer create(final DataHolder options) {
+                documentCreated[0]++;
+                return new NodeRenderer() {
+                    @Override
+                    public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+                        HashSet<NodeRenderingHandler<?>> set = new HashSet<NodeRenderingHandler<?>>();
+                        set.add(new NodeRenderingHandler<Link>(Link.class, new CustomNodeRenderer<Link>() {
+                            @Override
+                            public void render(Link node, NodeRendererContext context, HtmlWriter html) {
+                                if (node.getText().equals("baz")) {
+                                    context.getHtmlWriter().text("document");
+                                } else {
+                                    context.delegateRender();
+                                }
+                            }
+                        }));
+                        return set;
+                    }
+                };
+            }
+        };
+
+        HtmlRenderer renderer = HtmlRenderer.builder().nodeRendererFactory(documentFactory).nodeRendererFactory(sharedFactory).build();
+
+        // handler graph resolved when built
+        assertEquals(1, sharedCreated[0]);
+        assertEquals(1, documentCreated[0]);
+
+        for (int i = 0; i < 3; i++) {
+            String rendered = renderer.render(parse("foo [bar](/url) [baz](/url) [bars](/url) ![alt](/img)"));
+            assertEquals("<p>foo shared document <a href=\"/url\">bars</a> image</p>\n", rendered);
+        }
+
+        assertEquals(1, sharedCreated[0]);
+        assertEquals(4, documentCreated[0]);
+    }
+
     @Test
     public void orderedListStartZero() {
         assertEquals("<ol start=\"0\">\n<li>Test</li>\n</ol>\n", defaultRenderer().render(parse("0. Test\n")));
@@ -399,6 +510,47 @@ public class HtmlRendererTest {
                 defaultRenderer().render(parse("![foo &auml;](/url)\n")));
     }
 
+    @Test
+    public void renderToOutputStream() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append("# Heading ").append(i).append("\n\n")
+                    .append("text \u00E4\u20AC\uD83D\uDE00 with *emphasis* and [link](/url").append(i).append(")\n\n")
+                    .append("* item\n* item\n\n");
+        }
+        Node document = parse(sb.toString());
+        HtmlRenderer renderer = HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.OUTPUT_BUFFER_SIZE, 64)).build();
+        String expected = renderer.render(document);
+
+        // written only when the buffer is full, stream flushed once at the end
+        final List<Integer> writeSizes = new ArrayList<Integer>();
+        final List<Integer> flushedSizes = new ArrayList<Integer>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writeSizes.add(len);
+                super.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushedSizes.add(size());
+            }
+        };
+        renderer.render(document, out);
+        assertEquals(expected, new String(out.toByteArray(), Charset.forName("UTF-8")));
+        assertEquals(1, flushedSizes.size());
+        assertEquals(out.size(), (int) flushedSizes.get(0));
+        for (int i = 0; i < writeSizes.size() - 1; i++) {
+            // full buffer less room for an encoded character
+            assertTrue(writeSizes.get(i) > 64 - 4);
+        }
+
+        ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        renderer.render(document, Channels.newChannel(channelOut));
+        assertEquals(expected, new String(channelOut.toByteArray(), Charset.forName("UTF-8")));
+    }
+
     private static HtmlRenderer defaultRenderer() {
         return HtmlRenderer.builder().build();
     }
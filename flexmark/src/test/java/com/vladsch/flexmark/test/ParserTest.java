@@ -2,24 +2,54 @@ package com.vladsch.flexmark.test;
 
 import com.vladsch.flexmark.ast.*;
 import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.renderer.RenderingPhase;
+import com.vladsch.flexmark.instrumentation.HistogramInstrumentation;
+import com.vladsch.flexmark.internal.BlockStartTriggers;
+import com.vladsch.flexmark.internal.Delimiter;
+import com.vladsch.flexmark.internal.ThematicBreakParser;
+import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.ParallelInlineParsingSafe;
 import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.parser.PostProcessorTimings;
 import com.vladsch.flexmark.parser.block.*;
+import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
+import com.vladsch.flexmark.parser.delimiter.DelimiterRun;
 import com.vladsch.flexmark.spec.SpecReader;
+import com.vladsch.flexmark.util.Consumer;
+import com.vladsch.flexmark.util.NodeTracker;
 import com.vladsch.flexmark.util.options.DataHolder;
 import com.vladsch.flexmark.util.options.MutableDataHolder;
 import com.vladsch.flexmark.util.options.MutableDataSet;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.Range;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThat;
 
 public class ParserTest {
@@ -31,6 +61,39 @@ public class ParserTest {
         assertEquals(false, document1.hasChildren());
     }
 
+    @Test
+    public void pathTest() throws IOException {
+        Parser parser = Parser.builder().build();
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        String spec = SpecReader.readSpec();
+        Node expected = parser.parse(spec);
+        Path file = Files.createTempFile("flexmark", ".md");
+
+        try {
+            for (String name : new String[] { "UTF-8", "UTF-16", "ISO-8859-1" }) {
+                Charset charset = Charset.forName(name);
+                Files.write(file, spec.getBytes(charset));
+                Document document = parser.parse(file, charset);
+
+                // spec is not ISO-8859-1 text
+                if (!name.equals("ISO-8859-1")) {
+                    assertEquals(name, renderer.render(expected), renderer.render(document));
+                }
+
+                Node heading = document.getFirstChild();
+                while (!(heading instanceof Heading)) heading = heading.getNext();
+                assertEquals(name, spec.indexOf("\n# Introduction") + 1, heading.getStartOffset());
+            }
+
+            Files.write(file, "# Heading\n\ntext\n".getBytes(Charset.forName("UTF-8")));
+            Document document = parser.parse(file, Charset.forName("UTF-8"));
+            assertEquals("<h1>Heading</h1>\n<p>text</p>\n", renderer.render(document));
+            assertEquals(11, document.getLastChild().getStartOffset());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void ioReaderTest() throws IOException {
         Parser parser = Parser.builder().build();
@@ -47,6 +110,405 @@ public class ParserTest {
         assertEquals(renderer.render(document2), renderer.render(document1));
     }
 
+    @Test
+    public void streamReaderTest() throws IOException {
+        String spec = SpecReader.readSpec();
+        String expected = HtmlRenderer.builder().escapeHtml(true).build().render(Parser.builder().build().parse(spec));
+
+        Parser parser = Parser.builder(new MutableDataSet().set(Parser.STREAM_CHUNK_SIZE, 1024)).build();
+        final List<Document> documents = new ArrayList<Document>();
+
+        parser.parseStream(new StringReader(spec), new Consumer<Node>() {
+            @Override
+            public void accept(Node node) {
+                if (documents.isEmpty() || documents.get(documents.size() - 1) != node.getDocument()) {
+                    documents.add(node.getDocument());
+                }
+            }
+        });
+
+        // forward references to later chunks are resolved at render time
+        HtmlRenderer renderer = HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.RECHECK_UNDEFINED_REFERENCES, true)).escapeHtml(true).build();
+        StringBuilder html = new StringBuilder();
+        for (Document document : documents) {
+            html.append(renderer.render(document));
+        }
+
+        assertEquals(expected, html.toString());
+        assertThat(documents.size() > 1, is(true));
+    }
+
+    @Test
+    public void streamReferenceTest() throws IOException {
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        Parser parser = Parser.builder(new MutableDataSet().set(Parser.STREAM_CHUNK_SIZE, 1)).build();
+        final List<Node> nodes = new ArrayList<Node>();
+
+        parser.parseStream(new StringReader("[ref]: /url\n\nparagraph\n\n[ref]\n"), new Consumer<Node>() {
+            @Override
+            public void accept(Node node) {
+                nodes.add(node);
+            }
+        });
+
+        assertEquals(3, nodes.size());
+        assertEquals("<p><a href=\"/url\">ref</a></p>\n", renderer.render(nodes.get(2).getDocument()));
+        assertEquals(24, (int) Parser.STREAM_CHUNK_OFFSET.getFrom(nodes.get(2).getDocument()));
+    }
+
+    private static boolean assertReparse(Parser parser, String text, int start, int end, String replacement) {
+        String newText = text.substring(0, start) + replacement + text.substring(end);
+        Document previous = parser.parse(text);
+        Document expected = parser.parse(newText);
+        Document document = parser.reparse(previous, CharSubSequence.of(newText), Range.of(start, start + replacement.length()));
+
+        assertEquals("replace [" + start + ", " + end + ") with '" + replacement + "'", new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(document));
+        return document == previous;
+    }
+
+    @Test
+    public void reparseTest() {
+        Parser parser = Parser.builder().build();
+        String text = "# Heading\n" +
+                "\n" +
+                "Paragraph with *emphasis*\n" +
+                "and a [link](/url).\n" +
+                "\n" +
+                "- item 1\n" +
+                "- item 2\n" +
+                "\n" +
+                "```java\n" +
+                "code\n" +
+                "```\n" +
+                "\n" +
+                "Last paragraph [ref]\n" +
+                "\n" +
+                "[ref]: /ref-url\n";
+
+        int paragraph = text.indexOf("with");
+        int item = text.indexOf("item 2");
+        int fence = text.indexOf("```java");
+        int last = text.indexOf("Last");
+
+        assertTrue(assertReparse(parser, text, paragraph, paragraph, "more "));
+        assertTrue(assertReparse(parser, text, paragraph, paragraph + 4, ""));
+        assertTrue(assertReparse(parser, text, paragraph, paragraph, "\n\n"));
+        assertTrue(assertReparse(parser, text, item, item + 4, "entry"));
+        assertTrue(assertReparse(parser, text, item - 2, item - 2, "\n"));
+        assertTrue(assertReparse(parser, text, 0, 0, "Text\n"));
+        assertTrue(assertReparse(parser, text, fence - 1, fence - 1, "```\n"));
+
+        // unclosed fence changes the rest of the document
+        assertFalse(assertReparse(parser, text, fence, fence + 3, ""));
+
+        // definitions are used by the whole document
+        assertFalse(assertReparse(parser, text, last, last, "*"));
+        assertFalse(assertReparse(parser, text, text.length(), text.length(), "\nappended"));
+        assertFalse(assertReparse(parser, text, text.indexOf("/ref-url"), text.indexOf("/ref-url") + 1, ""));
+    }
+
+    @Test
+    public void reparseSpecTest() {
+        Parser parser = Parser.builder().build();
+        String spec = SpecReader.readSpec();
+
+        // some of these join paragraphs
+        for (int i : new int[] { 1, 3, 7, 12, 18 }) {
+            int offset = spec.indexOf("\n\n", spec.length() * i / 20) + 1;
+            assertTrue(assertReparse(parser, spec, offset, offset, "*x* "));
+            assertReparse(parser, spec, offset, offset + 1, "");
+        }
+    }
+
+    @Test
+    public void reparseShiftOffsetsTest() {
+        Parser parser = Parser.builder().build();
+        String text = "First paragraph\n\nSecond paragraph\n\nLast paragraph\n";
+        Document previous = parser.parse(text);
+        // first block after the edit is parsed again, the last one is moved
+        Node last = previous.getLastChild();
+        OffsetNode offsetNode = new OffsetNode(last.getChars().subSequence(0, 4));
+        last.appendChild(offsetNode);
+        int oldOffset = offsetNode.getMarkerOffset();
+
+        String newText = "More text\n\n" + text;
+        Document document = parser.reparse(previous, CharSubSequence.of(newText), Range.of(0, 11));
+        assertSame(previous, document);
+        assertEquals(oldOffset + 11, offsetNode.getMarkerOffset());
+        assertEquals(oldOffset + 11, offsetNode.getMarker().getStartOffset());
+        assertEquals("Last", offsetNode.getMarker().toString());
+        assertSame(document.getChars().getBase(), offsetNode.getMarker().getBase());
+        assertSame(document.getChars().getBase(), offsetNode.getChars().getBase());
+
+        // node classes which do not shift their sequences are parsed again
+        previous = parser.parse(text);
+        previous.getLastChild().appendChild(new UnshiftableNode(previous.getLastChild().getChars().subSequence(0, 4)));
+        assertNotSame(previous, parser.reparse(previous, CharSubSequence.of(newText), Range.of(0, 11)));
+    }
+
+    @Test
+    public void reparseTextBasesTest() {
+        Parser parser = Parser.builder().build();
+        String text = "First paragraph\n\nSecond paragraph\n\nLast paragraph\n";
+        Document document = parser.parse(text);
+        Object firstBase = document.getChars().getBase();
+
+        // nodes before the edit keep the text they were parsed from until there are too many texts
+        for (int i = 0; i < 9; i++) {
+            int edit = text.indexOf("Last");
+            text = text.substring(0, edit) + "x" + text.substring(edit);
+            assertSame(document, parser.reparse(document, CharSubSequence.of(text), Range.of(edit, edit + 1)));
+            assertEquals(new AstCollectingVisitor().collectAndGetAstText(parser.parse(text)), new AstCollectingVisitor().collectAndGetAstText(document));
+
+            Object base = document.getFirstChild().getChars().getBase();
+            if (i < 8) {
+                assertSame(firstBase, base);
+            } else {
+                assertSame(document.getChars().getBase(), base);
+                assertSame(document.getChars().getBase(), ((Paragraph) document.getFirstChild()).getContentLines().get(0).getBase());
+            }
+        }
+    }
+
+    @Test
+    public void parallelInlineParsingTest() {
+        String spec = SpecReader.readSpec();
+        Document expected = Parser.builder().build().parse(spec);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parser parser = Parser.builder(new MutableDataSet()
+                    .set(Parser.PARALLEL_INLINE_PARSING, true)
+                    .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+                    .set(Parser.PARALLEL_INLINE_PARSING_POOL, pool)
+            ).build();
+            Document document = parser.parse(spec);
+
+            assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(document));
+            assertEquals(HtmlRenderer.builder().build().render(expected), HtmlRenderer.builder().build().render(document));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int parallelWorkers(DelimiterProcessor delimiterProcessor, String markdown, Document expected) {
+        final AtomicInteger workers = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                workers.incrementAndGet();
+                return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            }
+        }, null, false);
+
+        try {
+            Parser parser = Parser.builder(new MutableDataSet()
+                    .set(Parser.PARALLEL_INLINE_PARSING, true)
+                    .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+                    .set(Parser.PARALLEL_INLINE_PARSING_POOL, pool)
+            ).customDelimiterProcessor(delimiterProcessor).build();
+            Document document = parser.parse(markdown);
+
+            assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(document));
+            return workers.get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelInlineParsingSafeTest() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("Paragraph ").append(i).append(" ^caret ").append(i).append("^ and *em*\n\n");
+        }
+        String markdown = sb.toString();
+        Document expected = Parser.builder().customDelimiterProcessor(new CaretDelimiterProcessor()).build().parse(markdown);
+
+        // not marked safe, parsed serially
+        assertEquals(0, parallelWorkers(new CaretDelimiterProcessor(), markdown, expected));
+
+        // marked safe, parsed in parallel with the same result
+        assertTrue(parallelWorkers(new ParallelCaretDelimiterProcessor(), markdown, expected) > 0);
+    }
+
+    @Test
+    public void fusedPostProcessingTest() {
+        String markdown = "a|b|c *d|b* [b|e](/url)\n\nb\n\n* b|b\n";
+        List<String> sequentialTexts = new ArrayList<String>();
+        List<String> fusedTexts = new ArrayList<String>();
+        PostProcessorTimings sequentialTimings = new PostProcessorTimings();
+        PostProcessorTimings fusedTimings = new PostProcessorTimings();
+
+        Document expected = Parser.builder(new MutableDataSet().set(Parser.INSTRUMENTATION, sequentialTimings))
+                .postProcessorFactory(new SplitTextFactory())
+                .postProcessorFactory(new WrapTextFactory(sequentialTexts))
+                .build().parse(markdown);
+
+        Document document = Parser.builder(new MutableDataSet().set(Parser.FUSED_POST_PROCESSING, true).set(Parser.INSTRUMENTATION, fusedTimings))
+                .postProcessorFactory(new SplitTextFactory())
+                .postProcessorFactory(new WrapTextFactory(fusedTexts))
+                .build().parse(markdown);
+
+        assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(document));
+        assertEquals("<p>a|<strong>b</strong>|c <em>d|<strong>b</strong></em> <a href=\"/url\">b|e</a></p>\n" +
+                "<p><strong>b</strong></p>\n" +
+                "<ul>\n" +
+                "<li><strong>b</strong>|<strong>b</strong></li>\n" +
+                "</ul>\n", HtmlRenderer.builder().build().render(document));
+
+        Collections.sort(sequentialTexts);
+        Collections.sort(fusedTexts);
+        assertEquals(sequentialTexts, fusedTexts);
+
+        assertEquals(Arrays.<Class<?>>asList(SplitTextFactory.class, WrapTextFactory.class), fusedTimings.getFactoryClasses());
+        for (Class<?> factoryClass : fusedTimings.getFactoryClasses()) {
+            assertEquals(sequentialTimings.getNodeCount(factoryClass), fusedTimings.getNodeCount(factoryClass));
+            assertEquals(1, fusedTimings.getDocumentCount(factoryClass));
+        }
+    }
+
+    @Test
+    public void instrumentationTest() {
+        HistogramInstrumentation instrumentation = new HistogramInstrumentation(true);
+        MutableDataSet options = new MutableDataSet().set(Parser.INSTRUMENTATION, instrumentation);
+
+        Document document = Parser.builder(options)
+                .postProcessorFactory(new SplitTextFactory())
+                .build().parse("a|b *c*\n\n* d\n");
+        String html = HtmlRenderer.builder(options).build().render(document);
+        assertEquals("<p>a|b <em>c</em></p>\n<ul>\n<li>d</li>\n</ul>\n", html);
+
+        assertEquals(1, instrumentation.getParserPhase(ParserPhase.PARSE_BLOCKS).getCount());
+        assertEquals(1, instrumentation.getParserPhase(ParserPhase.PARSE_INLINES).getCount());
+        assertEquals(0, instrumentation.getParserPhase(ParserPhase.DONE).getCount());
+        assertEquals(1, instrumentation.getPostProcessorStage(0).getCount());
+        assertEquals(1, instrumentation.getPostProcessors().get(SplitTextFactory.class).getCount());
+        assertEquals(1, instrumentation.getRenderingPhase(RenderingPhase.BODY).getCount());
+        assertEquals(2, instrumentation.getNodes().get(Paragraph.class).getCount());
+        assertEquals(1, instrumentation.getNodes().get(Emphasis.class).getCount());
+        assertEquals(1, instrumentation.getNodes().get(BulletList.class).getCount());
+
+        HistogramInstrumentation.Histogram histogram = instrumentation.getNodes().get(Text.class);
+        assertEquals(5, histogram.getCount());
+        assertTrue(histogram.getMinNanos() <= histogram.getPercentileNanos(50));
+        assertTrue(histogram.getPercentileNanos(100) <= histogram.getMaxNanos());
+        assertTrue(instrumentation.getHistograms().containsKey("node." + Text.class.getName()));
+
+        // self time of nodes is within the rendering phase
+        long nodeNanos = 0;
+        for (HistogramInstrumentation.Histogram nodeHistogram : instrumentation.getNodes().values()) {
+            nodeNanos += nodeHistogram.getTotalNanos();
+        }
+        assertTrue(nodeNanos <= instrumentation.getRenderingPhase(RenderingPhase.BODY).getTotalNanos());
+    }
+
+    @Test
+    public void fusedInstrumentationTest() {
+        HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+        List<String> texts = new ArrayList<String>();
+
+        Parser.builder(new MutableDataSet().set(Parser.INSTRUMENTATION, instrumentation).set(Parser.FUSED_POST_PROCESSING, true))
+                .postProcessorFactory(new SplitTextFactory())
+                .postProcessorFactory(new WrapTextFactory(texts))
+                .build().parse("a|b *c*\n\n* d\n");
+
+        List<Class<?>> factoryClasses = Arrays.<Class<?>>asList(SplitTextFactory.class, WrapTextFactory.class);
+        assertEquals(1, instrumentation.getFusedPostProcessors().get(factoryClasses).getCount());
+        assertEquals(1, instrumentation.getPostProcessors().get(SplitTextFactory.class).getCount());
+        assertEquals(1, instrumentation.getPostProcessors().get(WrapTextFactory.class).getCount());
+        assertEquals(factoryClasses, instrumentation.getPostProcessorTimings().getFactoryClasses());
+        assertEquals(3, instrumentation.getPostProcessorTimings().getNodeCount(SplitTextFactory.class));
+        assertTrue(instrumentation.getHistograms().containsKey("fusedPostProcessors." + SplitTextFactory.class.getName() + "+" + WrapTextFactory.class.getName()));
+        assertTrue(instrumentation.getFusedPostProcessors().get(factoryClasses).getTotalNanos() <= instrumentation.getPostProcessorStage(0).getTotalNanos());
+    }
+
+    @Test
+    public void instrumentationFramesTest() {
+        HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+
+        // ending an outer frame discards frames started within it, their events are ignored
+        long outer = instrumentation.start();
+        long inner = instrumentation.start();
+        assertTrue(outer != inner);
+        instrumentation.parserPhase(ParserPhase.PARSE_BLOCKS, outer);
+        instrumentation.parserPhase(ParserPhase.PARSE_INLINES, inner);
+        assertEquals(1, instrumentation.getParserPhase(ParserPhase.PARSE_BLOCKS).getCount());
+        assertEquals(0, instrumentation.getParserPhase(ParserPhase.PARSE_INLINES).getCount());
+
+        // frames which are never ended do not accumulate
+        for (int i = 0; i < 5000; i++) {
+            instrumentation.start();
+        }
+        long start = instrumentation.start();
+        instrumentation.renderingPhase(RenderingPhase.BODY, start);
+        assertEquals(1, instrumentation.getRenderingPhase(RenderingPhase.BODY).getCount());
+
+        // a frame which was already ended is ignored
+        instrumentation.renderingPhase(RenderingPhase.BODY, start);
+        assertEquals(1, instrumentation.getRenderingPhase(RenderingPhase.BODY).getCount());
+    }
+
+    // splits text nodes at '|', outside of links
+    static class SplitTextFactory extends NodePostProcessorFactory {
+        SplitTextFactory() {
+            super(false);
+            addNodeWithExclusions(Text.class, Link.class);
+        }
+
+        @Override
+        public NodePostProcessor create(Document document) {
+            return new NodePostProcessor() {
+                @Override
+                public void process(NodeTracker state, Node node) {
+                    BasedSequence chars = node.getChars();
+                    int pos = chars.indexOf('|');
+                    if (pos < 0) return;
+
+                    int start = 0;
+                    while (start < chars.length()) {
+                        int end = pos < 0 ? chars.length() : pos == start ? pos + 1 : pos;
+                        Text text = new Text(chars.subSequence(start, end));
+                        node.insertBefore(text);
+                        state.nodeAdded(text);
+                        if (end > pos) pos = chars.indexOf('|', end);
+                        start = end;
+                    }
+                    node.unlink();
+                    state.nodeRemoved(node);
+                }
+            };
+        }
+    }
+
+    // wraps text nodes of "b" in strong emphasis and records all processed text
+    static class WrapTextFactory extends NodePostProcessorFactory {
+        private final List<String> texts;
+
+        WrapTextFactory(List<String> texts) {
+            super(false);
+            this.texts = texts;
+            addNodeWithExclusions(Text.class, StrongEmphasis.class);
+        }
+
+        @Override
+        public NodePostProcessor create(Document document) {
+            return new NodePostProcessor() {
+                @Override
+                public void process(NodeTracker state, Node node) {
+                    texts.add(node.getChars().toString());
+                    if (node.getChars().equals("b")) {
+                        StrongEmphasis strong = new StrongEmphasis(node.getChars());
+                        node.insertBefore(strong);
+                        node.unlink();
+                        strong.appendChild(node);
+                        state.nodeAddedWithChildren(strong);
+                    }
+                }
+            };
+        }
+    }
+
     @Test
     public void customBlockParserFactory() {
         Parser parser = Parser.builder().customBlockParserFactory(new DashBlockParserFactory()).build();
@@ -116,6 +578,49 @@ public class ParserTest {
         assertEquals("node end line number", 3, list.getEndLineNumber());
     }
 
+    @Test
+    public void triggeredBlockParserFactory() {
+        final List<String> tried = new ArrayList<String>();
+        Parser parser = Parser.builder().customBlockParserFactory(new TriggeredDashBlockParserFactory(tried)).build();
+
+        Node document = parser.parse("hey\n\n---\n\n* item\n\n        ---\n\n> quote\n");
+
+        // only lines starting with a dash which are not indented code are tried
+        assertEquals(Arrays.asList("---"), tried);
+        assertThat(document.getFirstChild().getNext(), instanceOf(DashBlock.class));
+        assertThat(document.getLastChild(), instanceOf(BlockQuote.class));
+    }
+
+    @Test
+    public void blockStartTriggers() {
+        List<CustomBlockParserFactory> factories = new ArrayList<CustomBlockParserFactory>();
+        factories.add(new TriggeredDashBlockParserFactory(null));
+        factories.add(new DashBlockParserFactory());
+        factories.add(new ThematicBreakParser.Factory());
+        factories.add(new TableLikeFactory());
+
+        BlockStartTriggers triggers = new BlockStartTriggers(factories);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, triggers.getFactoryIndices('-', false));
+        assertArrayEquals(new int[] { 1, 3 }, triggers.getFactoryIndices('-', true));
+        assertArrayEquals(new int[] { 1, 2 }, triggers.getFactoryIndices('*', false));
+        assertArrayEquals(new int[] { 1 }, triggers.getFactoryIndices('a', false));
+        assertArrayEquals(new int[] { 1, 3 }, triggers.getFactoryIndices('\u00a6', false));
+        assertArrayEquals(new int[] { 1, 3 }, triggers.getFactoryIndices('\u2502', true));
+    }
+
+    @Test
+    public void statelessBlockParserFactory() {
+        final int[] created = { 0 };
+        Parser parser = Parser.builder().customBlockParserFactory(new StatelessDashBlockParserFactory(created)).build();
+        assertEquals(1, created[0]);
+
+        Node document = parser.parse("hey\n\n---\n");
+        parser.parse("---\n");
+        assertEquals(1, created[0]);
+        assertThat(document.getLastChild(), instanceOf(DashBlock.class));
+    }
+
     private String firstText(Node n) {
         while (!(n instanceof Text)) {
             assertThat(n, notNullValue());
@@ -128,6 +633,51 @@ public class ParserTest {
         void visit(DashBlock node);
     }
 
+    private static class OffsetNode extends Node {
+        private BasedSequence marker;
+        private int markerOffset;
+
+        OffsetNode(BasedSequence marker) {
+            super(marker);
+            this.marker = marker;
+            this.markerOffset = marker.getStartOffset();
+        }
+
+        BasedSequence getMarker() {
+            return marker;
+        }
+
+        int getMarkerOffset() {
+            return markerOffset;
+        }
+
+        @Override
+        public void shiftOffsets(NodeOffsetShifter shifter) {
+            super.shiftOffsets(shifter);
+            marker = shifter.shift(marker);
+            markerOffset = shifter.shift(markerOffset);
+        }
+
+        @Override
+        public BasedSequence[] getSegments() {
+            return new BasedSequence[] { marker };
+        }
+    }
+
+    private static class UnshiftableNode extends Node {
+        private final BasedSequence marker;
+
+        UnshiftableNode(BasedSequence marker) {
+            super(marker);
+            this.marker = marker;
+        }
+
+        @Override
+        public BasedSequence[] getSegments() {
+            return new BasedSequence[] { marker };
+        }
+    }
+
     private static class DashBlock extends CustomBlock {
         DashBlock() {
         }
@@ -185,6 +735,61 @@ public class ParserTest {
         }
     }
 
+    public static class TriggeredDashBlockParserFactory extends DashBlockParserFactory implements TriggeredBlockParserFactory {
+        private final List<String> tried;
+
+        public TriggeredDashBlockParserFactory(List<String> tried) {
+            this.tried = tried;
+        }
+
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "-";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return false;
+        }
+
+        @Override
+        public BlockParserFactory create(DataHolder options) {
+            return new BlockFactory(options) {
+                @Override
+                public BlockStart tryStart(ParserState state, MatchedBlockParser matchedBlockParser) {
+                    tried.add(state.getLine().toString());
+                    return super.tryStart(state, matchedBlockParser);
+                }
+            };
+        }
+    }
+
+    private static class TableLikeFactory extends DashBlockParserFactory implements TriggeredBlockParserFactory {
+        @Override
+        public CharSequence getTriggerCharacters() {
+            return "-\u2502";
+        }
+
+        @Override
+        public boolean canStartIndented() {
+            return true;
+        }
+    }
+
+    private static class StatelessDashBlockParserFactory extends DashBlockParserFactory implements StatelessBlockParserFactory {
+        private final int[] created;
+
+        public StatelessDashBlockParserFactory(int[] created) {
+            this.created = created;
+        }
+
+        @Override
+        public BlockParserFactory create(DataHolder options) {
+            created[0]++;
+            return super.create(options);
+        }
+    }
+
     private static class BlockFactory extends AbstractBlockParserFactory {
         private BlockFactory(DataHolder options) {
             super(options);
@@ -198,4 +803,55 @@ public class ParserTest {
             return BlockStart.none();
         }
     }
+
+    private static class CaretDelimiterProcessor implements DelimiterProcessor {
+        @Override
+        public char getOpeningCharacter() {
+            return '^';
+        }
+
+        @Override
+        public char getClosingCharacter() {
+            return '^';
+        }
+
+        @Override
+        public int getMinLength() {
+            return 1;
+        }
+
+        @Override
+        public boolean canBeOpener(String before, String after, boolean leftFlanking, boolean rightFlanking, boolean beforeIsPunctuation, boolean afterIsPunctuation, boolean beforeIsWhitespace, boolean afterIsWhiteSpace) {
+            return leftFlanking;
+        }
+
+        @Override
+        public boolean canBeCloser(String before, String after, boolean leftFlanking, boolean rightFlanking, boolean beforeIsPunctuation, boolean afterIsPunctuation, boolean beforeIsWhitespace, boolean afterIsWhiteSpace) {
+            return rightFlanking;
+        }
+
+        @Override
+        public Node unmatchedDelimiterNode(InlineParser inlineParser, DelimiterRun delimiter) {
+            return null;
+        }
+
+        @Override
+        public boolean skipNonOpenerCloser() {
+            return false;
+        }
+
+        @Override
+        public int getDelimiterUse(DelimiterRun opener, DelimiterRun closer) {
+            return 1;
+        }
+
+        @Override
+        public void process(Delimiter opener, Delimiter closer, int delimitersUsed) {
+            Emphasis emphasis = new Emphasis(opener.getTailChars(delimitersUsed), BasedSequence.NULL, closer.getLeadChars(delimitersUsed));
+            opener.moveNodesBetweenDelimitersTo(emphasis, closer);
+        }
+    }
+
+    private static class ParallelCaretDelimiterProcessor extends CaretDelimiterProcessor implements ParallelInlineParsingSafe {
+    }
 }
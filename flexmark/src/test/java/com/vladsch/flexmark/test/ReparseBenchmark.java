@@ -0,0 +1,78 @@
+package com.vladsch.flexmark.test;
+
+import com.vladsch.flexmark.ast.Document;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Single character edits in the middle of a 10k line document, parsing the whole text vs {@link Parser#reparse}
+ * <p>
+ * Each invocation alternates between inserting and deleting the character.
+ */
+@State(Scope.Benchmark)
+public class ReparseBenchmark {
+    private static final BasedSequence TEXT = CharSubSequence.of(generateText(10000));
+    private static final int EDIT_OFFSET = TEXT.indexOf("paragraph", TEXT.length() / 2);
+    private static final BasedSequence EDITED_TEXT = CharSubSequence.of(TEXT.subSequence(0, EDIT_OFFSET) + "x" + TEXT.subSequence(EDIT_OFFSET));
+
+    private final Parser parser = Parser.builder().build();
+    private Document document;
+    private boolean edited;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ReparseBenchmark.class.getName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+
+    private static String generateText(int lines) {
+        StringBuilder sb = new StringBuilder();
+        int lineCount = 0;
+        for (int i = 0; lineCount < lines; i++) {
+            sb.append("## Section ").append(i).append("\n\n");
+            sb.append("Some paragraph text with *emphasis*, `code` and a [link](http://example.com/").append(i).append(")\n");
+            sb.append("continued on a second line with **strong** text.\n\n");
+            sb.append("- item one\n- item two with _emphasis_\n  - nested item\n\n");
+            sb.append("```java\nint value = ").append(i).append(";\n```\n\n");
+            sb.append("> quoted paragraph\n> on two lines\n\n");
+            lineCount += 17;
+        }
+        return sb.toString();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        document = parser.parse(TEXT);
+        edited = false;
+    }
+
+    @Benchmark
+    public Document fullParse() {
+        edited = !edited;
+        return parser.parse(edited ? EDITED_TEXT : TEXT);
+    }
+
+    @Benchmark
+    public Document reparse() {
+        if (edited) {
+            document = parser.reparse(document, TEXT, Range.of(EDIT_OFFSET, EDIT_OFFSET));
+        } else {
+            document = parser.reparse(document, EDITED_TEXT, Range.of(EDIT_OFFSET, EDIT_OFFSET + 1));
+        }
+        edited = !edited;
+        return document;
+    }
+}
@@ -0,0 +1,110 @@
+package com.vladsch.flexmark.test;
+
+import com.vladsch.flexmark.ast.Node;
+import com.vladsch.flexmark.ast.NodeVisitor;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.ast.VisitHandler;
+import com.vladsch.flexmark.ast.Visitor;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.spec.SpecReader;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares segmented sequences with an offset per character to ones with runs of offsets
+ * <p>
+ * main() first prints heap retained by parsed copies of the spec for both settings of
+ * {@link Parser#FULL_SEGMENTED_SEQUENCES} then runs the parse and text access benchmarks.
+ */
+@State(Scope.Benchmark)
+public class SegmentedSequenceBenchmark {
+    private static final String SPEC = SpecReader.readSpec();
+    private static final int RETAINED_DOCUMENTS = 50;
+
+    @Param({ "false", "true" })
+    public boolean fullSegmentedSequences;
+
+    private Parser parser;
+    private Node document;
+
+    public static void main(String[] args) throws Exception {
+        for (boolean fullSegmentedSequences : new boolean[] { false, true }) {
+            System.out.println(String.format("FULL_SEGMENTED_SEQUENCES %s: %,d bytes retained per spec document", fullSegmentedSequences, retainedHeap(fullSegmentedSequences) / RETAINED_DOCUMENTS));
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SegmentedSequenceBenchmark.class.getName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+
+    private static Parser parser(boolean fullSegmentedSequences) {
+        return Parser.builder(new MutableDataSet().set(Parser.FULL_SEGMENTED_SEQUENCES, fullSegmentedSequences)).build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long retainedHeap(boolean fullSegmentedSequences) {
+        Parser parser = parser(fullSegmentedSequences);
+        List<Node> documents = new ArrayList<Node>();
+        parser.parse(SPEC);
+
+        long before = usedHeap();
+        for (int i = 0; i < RETAINED_DOCUMENTS; i++) {
+            documents.add(parser.parse(SPEC));
+        }
+        long after = usedHeap();
+
+        if (documents.size() != RETAINED_DOCUMENTS) throw new IllegalStateException();
+        return after - before;
+    }
+
+    @Setup
+    public void setup() {
+        parser = parser(fullSegmentedSequences);
+        document = parser.parse(SPEC);
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(SPEC);
+    }
+
+    /**
+     * sequential character and offset access of all text nodes
+     */
+    @Benchmark
+    public long textAccess() {
+        final long[] sum = new long[1];
+        new NodeVisitor(new VisitHandler<Text>(Text.class, new Visitor<Text>() {
+            @Override
+            public void visit(Text node) {
+                BasedSequence chars = node.getChars();
+                int iMax = chars.length();
+                for (int i = 0; i < iMax; i++) {
+                    sum[0] += chars.charAt(i) + chars.getIndexOffset(i);
+                }
+            }
+        })).visit(document);
+        return sum[0];
+    }
+}
@@ -1,8 +1,12 @@
 package com.vladsch.flexmark.test;
 
+import com.vladsch.flexmark.ast.util.Parsing;
+import com.vladsch.flexmark.html.BatchRenderer;
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.spec.SpecReader;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.MutableDataSet;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
@@ -11,16 +15,60 @@ import org.openjdk.jmh.runner.options.CommandLineOptions;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 @State(Scope.Benchmark)
 public class SpecBenchmark {
 
     private static final String SPEC = SpecReader.readSpec();
     private static final List<String> SPEC_EXAMPLES = SpecReader.readExamplesAsString();
-    private static final Parser PARSER = Parser.builder().build();
-    private static final HtmlRenderer RENDERER = HtmlRenderer.builder().build();
+    private static final DataHolder OPTIONS = new MutableDataSet();
+    private static final Parser PARSER = Parser.builder(OPTIONS).build();
+    private static final Parser PARALLEL_INLINES_PARSER = Parser.builder(new MutableDataSet().set(Parser.PARALLEL_INLINE_PARSING, true)).build();
+    private static final HtmlRenderer RENDERER = HtmlRenderer.builder(OPTIONS).build();
+    private static final BatchRenderer BATCH_RENDERER = new BatchRenderer(PARSER, RENDERER, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }), BatchRenderer.DEFAULT_RUN_SIZE);
+    private static final List<String> TINY_DOCUMENTS = Arrays.asList(
+            "Thanks, looks good to me!",
+            "LGTM :+1:",
+            "See *this* comment for details.",
+            "- fixed\n- tested\n",
+            "Use `parse()` instead of [this](http://example.com)."
+    );
+
+    private static final String LINKS_AND_EMPHASIS = linksAndEmphasis(2000);
+    private static final String EMPHASIS = emphasis(2000);
+
+    private static String linksAndEmphasis(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("See *[link ").append(i).append("](http://example.com/").append(i).append(" \"title\")* and **<http://example.com>**")
+                    .append(" or `code` &amp; <user@example.com>, _emphasis_ [ref][] and ![image](/img.png 'alt').\n");
+            if (i % 10 == 9) sb.append('\n');
+        }
+        sb.append("\n[ref]: /url\n");
+        return sb.toString();
+    }
+
+    private static String emphasis(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("Some *emphasis* and **strong** with _under_ __scores__, ***both*** and *unclosed ")
+                    .append("or _nested *inner* text_ and snake_case_word ").append(i).append(".\n");
+            if (i % 10 == 9) sb.append('\n');
+        }
+        return sb.toString();
+    }
 
     public static void main(String[] args) throws Exception {
         Options options = new OptionsBuilder()
@@ -35,11 +83,64 @@ public class SpecBenchmark {
         return parseAndRender(Collections.singletonList(SPEC));
     }
 
+    @Benchmark
+    public long wholeSpecParse() {
+        return PARSER.parse(SPEC).getEndOffset();
+    }
+
+    @Benchmark
+    public long wholeSpecParseParallelInlines() {
+        return PARALLEL_INLINES_PARSER.parse(SPEC).getEndOffset();
+    }
+
+    @Benchmark
+    public long linksAndEmphasisParse() {
+        return PARSER.parse(LINKS_AND_EMPHASIS).getEndOffset();
+    }
+
+    @Benchmark
+    public long emphasisParse() {
+        return PARSER.parse(EMPHASIS).getEndOffset();
+    }
+
     @Benchmark
     public long examples() {
         return parseAndRender(SPEC_EXAMPLES);
     }
 
+    @Benchmark
+    public long examplesBatch() {
+        long length = 0;
+        for (String result : BATCH_RENDERER.render(SPEC_EXAMPLES)) {
+            length += result.length();
+        }
+        return length;
+    }
+
+    /**
+     * per document overhead of tiny inputs, parsing patterns are shared by all documents
+     */
+    @Benchmark
+    public long tinyDocuments() {
+        return parseAndRender(TINY_DOCUMENTS);
+    }
+
+    /**
+     * per document overhead of tiny inputs, with parsing patterns compiled for every document by the
+     * document parser and the inline parser as was done before {@link Parsing#of} was used
+     */
+    @Benchmark
+    public long tinyDocumentsCompiledParsing() {
+        long length = 0;
+        for (String example : TINY_DOCUMENTS) {
+            length += new Parsing(OPTIONS).CODE_BLOCK_INDENT;
+            length += new Parsing(OPTIONS).CODE_BLOCK_INDENT;
+            String result = RENDERER.render(PARSER.parse(example));
+            length += result.length();
+        }
+        return length;
+    }
+
     private static long parseAndRender(List<String> examples) {
         long length = 0;
         for (String example : examples) {